@@ -19,10 +19,16 @@ package org.pentaho.platform.api.genericfile;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
+import org.pentaho.platform.api.genericfile.exception.NotFoundException;
 import org.pentaho.platform.api.genericfile.exception.OperationFailedException;
 import org.pentaho.platform.api.genericfile.model.IGenericFile;
+import org.pentaho.platform.api.genericfile.model.IGenericFilePage;
 import org.pentaho.platform.api.genericfile.model.IGenericFileTree;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 public interface IGenericFileProvider<T extends IGenericFile> {
 
   Class<T> getFileClass();
@@ -36,6 +42,57 @@ public interface IGenericFileProvider<T extends IGenericFile> {
   @NonNull
   IGenericFileTree getFolders( @Nullable Integer depth ) throws OperationFailedException;
 
+  /**
+   * Gets a page of the child folders of a folder, so that a folder tree can be loaded as it is expanded. Providers
+   * should override the default implementation, which loads the whole folder tree.
+   *
+   * @param path   the path of the folder
+   * @param offset the position of the first child folder of the page
+   * @param limit  the number of child folders of the page at most
+   * @return the page of the child folders
+   * @throws NotFoundException        if the folder does not exist
+   * @throws OperationFailedException if the child folders cannot be listed
+   */
+  @NonNull
+  default IGenericFilePage getFolderChildren( @NonNull String path, int offset, int limit )
+    throws OperationFailedException {
+    IGenericFileTree folderTree = findTree( getFolders( null ), path );
+    if ( folderTree == null ) {
+      throw new NotFoundException();
+    }
+
+    List<IGenericFile> children = new ArrayList<>();
+    for ( IGenericFileTree childTree : folderTree.getChildren() ) {
+      children.add( childTree.getFile() );
+    }
+    int from = Math.min( offset, children.size() );
+    int to = (int) Math.min( (long) from + limit, children.size() );
+    List<IGenericFile> files = Collections.unmodifiableList( new ArrayList<>( children.subList( from, to ) ) );
+    int totalCount = children.size();
+
+    return new IGenericFilePage() {
+      @Override
+      public String getPath() {
+        return path;
+      }
+
+      @Override
+      public List<IGenericFile> getFiles() {
+        return files;
+      }
+
+      @Override
+      public int getOffset() {
+        return offset;
+      }
+
+      @Override
+      public int getTotalCount() {
+        return totalCount;
+      }
+    };
+  }
+
   void clearFolderCache() throws OperationFailedException;
 
   boolean doesFolderExist( @NonNull String path ) throws OperationFailedException;
@@ -43,4 +100,18 @@ public interface IGenericFileProvider<T extends IGenericFile> {
   boolean createFolder( @NonNull String path ) throws OperationFailedException;
 
   boolean owns( String path );
+
+  @Nullable
+  static IGenericFileTree findTree( @NonNull IGenericFileTree tree, @NonNull String path ) {
+    if ( path.equals( tree.getFile().getPath() ) ) {
+      return tree;
+    }
+    for ( IGenericFileTree childTree : tree.getChildren() ) {
+      IGenericFileTree found = findTree( childTree, path );
+      if ( found != null ) {
+        return found;
+      }
+    }
+    return null;
+  }
 }
@@ -20,6 +20,7 @@ package org.pentaho.platform.api.genericfile;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import org.pentaho.platform.api.genericfile.exception.OperationFailedException;
+import org.pentaho.platform.api.genericfile.model.IGenericFilePage;
 import org.pentaho.platform.api.genericfile.model.IGenericFileTree;
 
 public interface IGenericFileService {
@@ -28,6 +29,19 @@ public interface IGenericFileService {
   @NonNull
   IGenericFileTree getFolders( @Nullable Integer depth ) throws OperationFailedException;
 
+  /**
+   * Gets a page of the child folders of a folder.
+   *
+   * @param path   the path of the folder; null or empty for the root folders of the providers
+   * @param offset the position of the first child folder of the page
+   * @param limit  the number of child folders of the page at most
+   * @return the page of the child folders
+   * @throws org.pentaho.platform.api.genericfile.exception.NotFoundException if the folder does not exist
+   * @throws OperationFailedException                                        if the child folders cannot be listed
+   */
+  @NonNull
+  IGenericFilePage getFolderChildren( @Nullable String path, int offset, int limit ) throws OperationFailedException;
+
   boolean doesFolderExist( @NonNull String path ) throws OperationFailedException;
 
   boolean createFolder( @NonNull String path ) throws OperationFailedException;
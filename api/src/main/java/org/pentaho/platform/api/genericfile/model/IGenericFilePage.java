@@ -0,0 +1,49 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.api.genericfile.model;
+
+import java.util.List;
+
+/**
+ * A page of the child folders of a folder, in the order the provider lists them.
+ */
+public interface IGenericFilePage {
+  /**
+   * @return the path of the folder, or null for the root folders of the providers
+   */
+  String getPath();
+
+  List<IGenericFile> getFiles();
+
+  /**
+   * @return the position of the first file of the page among all the children
+   */
+  int getOffset();
+
+  /**
+   * @return the number of children across all pages
+   */
+  int getTotalCount();
+
+  default boolean isHasMore() {
+    return getOffset() + getFiles().size() < getTotalCount();
+  }
+}
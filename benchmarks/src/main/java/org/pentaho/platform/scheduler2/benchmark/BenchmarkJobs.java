@@ -0,0 +1,162 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.benchmark;
+
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.JobState;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.scheduler2.quartz.BlockingQuartzJob;
+import org.pentaho.platform.scheduler2.quartz.QuartzJobKey;
+import org.quartz.CronTrigger;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.Scheduler;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+
+import java.io.Serializable;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The jobs the benchmarks work on: a few owners, a mix of cron and simple schedules and the parameters a report
+ * schedule carries, so that the measured paths see realistically sized jobs.
+ */
+final class BenchmarkJobs {
+
+  static final String[] USERS = {
+    "admin", //$NON-NLS-1$
+    "suzy", //$NON-NLS-1$
+    "pat", //$NON-NLS-1$
+    "tiffany" //$NON-NLS-1$
+  };
+
+  static final String[] CRON_EXPRESSIONS = {
+    "0 0 12 ? * 2-6 *", //$NON-NLS-1$
+    "0 30 8,12,17 ? * 2,4,6 *", //$NON-NLS-1$
+    "0 0 6 1 * ? *", //$NON-NLS-1$
+    "0 15 10 ? * 6L *", //$NON-NLS-1$
+    "0 0 0 ? 1/3 2#1 *", //$NON-NLS-1$
+    "0 0/15 9-17 ? * MON-FRI *" //$NON-NLS-1$
+  };
+
+  // far enough ahead that no trigger fires while a benchmark runs
+  static final long START_TIME = System.currentTimeMillis() + 365L * 24 * 60 * 60 * 1000;
+
+  private BenchmarkJobs() {
+  }
+
+  /**
+   * @return the owner of the job with the given index
+   */
+  static String getUserName( int index ) {
+    return USERS[ index % USERS.length ];
+  }
+
+  /**
+   * @return the name of the job with the given index, as the user interface names schedules
+   */
+  static String getJobName( int index ) {
+    return "Report " + index; //$NON-NLS-1$
+  }
+
+  static Map<String, Serializable> createJobParams( int index ) {
+    String userName = getUserName( index );
+    String path = "/home/" + userName + "/reports/report" + index; //$NON-NLS-1$ //$NON-NLS-2$
+    Map<String, Serializable> jobParams = new HashMap<>();
+    jobParams.put( IScheduler.RESERVEDMAPKEY_ACTIONCLASS,
+      "org.pentaho.platform.plugin.action.builtin.ActionSequenceAction" ); //$NON-NLS-1$
+    jobParams.put( IScheduler.RESERVEDMAPKEY_ACTIONUSER, userName );
+    jobParams.put( IScheduler.RESERVEDMAPKEY_STREAMPROVIDER,
+      "input = " + path + ".prpt:outputFile = " + path + ".*" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    jobParams.put( IScheduler.RESERVEDMAPKEY_LINEAGE_ID, "lineage-" + index ); //$NON-NLS-1$
+    jobParams.put( IScheduler.RESERVEDMAPKEY_UIPASSPARAM, "DAILY" ); //$NON-NLS-1$
+    jobParams.put( "output-target", "pageable/pdf" ); //$NON-NLS-1$ //$NON-NLS-2$
+    jobParams.put( "accepted-page", "-1" ); //$NON-NLS-1$ //$NON-NLS-2$
+    jobParams.put( "showParameters", "true" ); //$NON-NLS-1$ //$NON-NLS-2$
+    jobParams.put( "renderMode", "XML" ); //$NON-NLS-1$ //$NON-NLS-2$
+    ArrayList<String> regions = new ArrayList<>();
+    regions.add( "Central" ); //$NON-NLS-1$
+    regions.add( "Eastern" ); //$NON-NLS-1$
+    jobParams.put( "region", regions ); //$NON-NLS-1$
+    return jobParams;
+  }
+
+  /**
+   * @return jobs as {@link org.pentaho.platform.scheduler2.quartz.QuartzScheduler#getJobs} returns them
+   */
+  static List<Job> createJobs( int count ) throws SchedulerException {
+    List<Job> jobs = new ArrayList<>( count );
+    for ( int i = 0; i < count; i++ ) {
+      Job job = new Job();
+      job.setJobId( new QuartzJobKey( getJobName( i ), getUserName( i ) ).toString() );
+      job.setJobName( getJobName( i ) );
+      job.setUserName( getUserName( i ) );
+      job.setGroupName( getUserName( i ) );
+      job.setJobParams( createJobParams( i ) );
+      job.setState( JobState.NORMAL );
+      job.setNextRun( new Date( START_TIME + i * 60000L ) );
+      job.setLastRun( new Date( START_TIME - i * 60000L ) );
+      if ( i % 2 == 0 ) {
+        ComplexJobTrigger trigger = new ComplexJobTrigger();
+        trigger.setCronString( CRON_EXPRESSIONS[ ( i / 2 ) % CRON_EXPRESSIONS.length ] );
+        trigger.setStartTime( new Date( START_TIME ) );
+        trigger.setUiPassParam( "WEEKLY" ); //$NON-NLS-1$
+        job.setJobTrigger( trigger );
+      } else {
+        SimpleJobTrigger trigger = new SimpleJobTrigger( new Date( START_TIME ), null, -1, 3600 );
+        trigger.setUiPassParam( "HOURLY" ); //$NON-NLS-1$
+        job.setJobTrigger( trigger );
+      }
+      jobs.add( job );
+    }
+    return jobs;
+  }
+
+  /**
+   * Adds jobs to a Quartz scheduler the way {@link org.pentaho.platform.scheduler2.quartz.QuartzScheduler} stores
+   * them, without going through the platform's action and repository lookups.
+   */
+  static void scheduleJobs( Scheduler scheduler, int count )
+    throws SchedulerException, org.quartz.SchedulerException, ParseException {
+    for ( int i = 0; i < count; i++ ) {
+      String userName = getUserName( i );
+      String jobId = new QuartzJobKey( getJobName( i ), userName ).toString();
+      JobDetail jobDetail = new JobDetail( jobId, userName, BlockingQuartzJob.class );
+      jobDetail.setJobDataMap( new JobDataMap( createJobParams( i ) ) );
+      Trigger trigger;
+      if ( i % 2 == 0 ) {
+        trigger = new CronTrigger( jobId, userName, CRON_EXPRESSIONS[ ( i / 2 ) % CRON_EXPRESSIONS.length ] );
+      } else {
+        trigger = new SimpleTrigger( jobId, userName, SimpleTrigger.REPEAT_INDEFINITELY, 3600000L );
+      }
+      trigger.setStartTime( new Date( START_TIME ) );
+      scheduler.scheduleJob( jobDetail, trigger );
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the scheduler benchmarks with the JMH command line options given, writing the results as JSON to
+ * {@value #DEFAULT_RESULT_FILE} unless a result format or file is given, so that runs of different releases can be
+ * compared.
+ */
+public class BenchmarkMain {
+
+  static final String DEFAULT_RESULT_FILE = "jmh-result.json"; //$NON-NLS-1$
+
+  public static void main( String[] args ) throws RunnerException, CommandLineOptionException {
+    CommandLineOptions commandLineOptions = new CommandLineOptions( args );
+    if ( commandLineOptions.shouldHelp() ) {
+      commandLineOptions.showHelp();
+      return;
+    }
+    if ( commandLineOptions.shouldList() ) {
+      new Runner( commandLineOptions ).list();
+      return;
+    }
+    ChainedOptionsBuilder options = new OptionsBuilder().parent( commandLineOptions );
+    if ( !commandLineOptions.getResultFormat().hasValue() ) {
+      options.resultFormat( ResultFormatType.JSON );
+    }
+    if ( !commandLineOptions.getResult().hasValue() ) {
+      options.result( DEFAULT_RESULT_FILE );
+    }
+    new Runner( options.build() ).run();
+  }
+}
@@ -0,0 +1,148 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.platform.api.scheduler2.IJob;
+import org.pentaho.platform.scheduler2.quartz.QuartzJobCatalog;
+import org.pentaho.platform.scheduler2.quartz.QuartzJobStoreBulkReader;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+import org.quartz.impl.StdSchedulerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lists all jobs through {@link QuartzScheduler#getJobs(org.pentaho.platform.api.scheduler2.IJobFilter)} from an
+ * in-memory job store and from a JDBC job store on an embedded H2 database, one job at a time, with the bulk reader
+ * and from the job catalog.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class GetJobsBenchmark {
+
+  public enum JobStore {
+    RAM, H2
+  }
+
+  public enum Listing {
+    /** one job store read per job */
+    PER_JOB,
+    /** a single read of the job store tables; the same as {@link #PER_JOB} for the in-memory job store */
+    BULK,
+    /** from the job catalog, after the first listing */
+    CATALOG
+  }
+
+  private static final String SCHEMA = "h2-quartz-schema-updated.sql"; //$NON-NLS-1$
+
+  @Param( { "1000", "10000", "100000" } )
+  public int jobCount;
+
+  @Param
+  public JobStore jobStore;
+
+  @Param
+  public Listing listing;
+
+  private QuartzScheduler scheduler;
+
+  @Setup( Level.Trial )
+  public void setUp() throws Exception {
+    Properties properties = getQuartzProperties();
+    if ( listing == Listing.CATALOG ) {
+      properties.setProperty( QuartzJobCatalog.PROP_CATALOG_ENABLED, "true" ); //$NON-NLS-1$
+    }
+    if ( listing != Listing.BULK ) {
+      properties.setProperty( QuartzJobStoreBulkReader.PROP_BULK_READ_ENABLED, "false" ); //$NON-NLS-1$
+    }
+    scheduler = new QuartzScheduler();
+    scheduler.setQuartzSchedulerFactory( new StdSchedulerFactory( properties ) );
+    scheduler.setJobStoreBulkReader( QuartzJobStoreBulkReader.create( properties ) );
+    scheduler.setJobCatalog( QuartzJobCatalog.create( properties ) );
+    BenchmarkJobs.scheduleJobs( scheduler.getQuartzScheduler(), jobCount );
+  }
+
+  @TearDown( Level.Trial )
+  public void tearDown() throws Exception {
+    scheduler.getQuartzScheduler().shutdown();
+  }
+
+  @Benchmark
+  public List<IJob> getJobs() throws Exception {
+    return scheduler.getJobs( null );
+  }
+
+  private Properties getQuartzProperties() throws Exception {
+    String instanceName = "Benchmark" + jobStore + listing + jobCount; //$NON-NLS-1$
+    Properties properties = new Properties();
+    properties.setProperty( "org.quartz.scheduler.instanceName", instanceName ); //$NON-NLS-1$
+    properties.setProperty( "org.quartz.scheduler.instanceId", "1" ); //$NON-NLS-1$ //$NON-NLS-2$
+    properties.setProperty( "org.quartz.scheduler.makeSchedulerThreadDaemon", "true" ); //$NON-NLS-1$ //$NON-NLS-2$
+    properties.setProperty( "org.quartz.threadPool.makeThreadsDaemons", "true" ); //$NON-NLS-1$ //$NON-NLS-2$
+    properties.setProperty( "org.quartz.threadPool.class", //$NON-NLS-1$
+      "org.quartz.simpl.SimpleThreadPool" ); //$NON-NLS-1$
+    properties.setProperty( "org.quartz.threadPool.threadCount", "1" ); //$NON-NLS-1$ //$NON-NLS-2$
+    if ( jobStore == JobStore.RAM ) {
+      properties.setProperty( "org.quartz.jobStore.class", "org.quartz.simpl.RAMJobStore" ); //$NON-NLS-1$ //$NON-NLS-2$
+      return properties;
+    }
+    String url = "jdbc:h2:mem:" + instanceName + ";DB_CLOSE_DELAY=-1"; //$NON-NLS-1$ //$NON-NLS-2$
+    try ( Connection connection = DriverManager.getConnection( url, "sa", "" ); //$NON-NLS-1$ //$NON-NLS-2$
+          Statement statement = connection.createStatement() ) {
+      statement.execute( "RUNSCRIPT FROM 'classpath:/" + SCHEMA + "'" ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    // as configured in quartz.properties, apart from the data source
+    properties.setProperty( "org.quartz.jobStore.class", //$NON-NLS-1$
+      "org.quartz.impl.jdbcjobstore.JobStoreTX" ); //$NON-NLS-1$
+    properties.setProperty( "org.quartz.jobStore.driverDelegateClass", //$NON-NLS-1$
+      "org.quartz.impl.jdbcjobstore.PostgreSQLDelegate" ); //$NON-NLS-1$
+    properties.setProperty( "org.quartz.jobStore.useProperties", "false" ); //$NON-NLS-1$ //$NON-NLS-2$
+    properties.setProperty( "org.quartz.jobStore.tablePrefix", "QRTZ_" ); //$NON-NLS-1$ //$NON-NLS-2$
+    properties.setProperty( "org.quartz.jobStore.dataSource", "benchmarkDS" ); //$NON-NLS-1$ //$NON-NLS-2$
+    properties.setProperty( "org.quartz.dataSource.benchmarkDS.driver", "org.h2.Driver" ); //$NON-NLS-1$ //$NON-NLS-2$
+    properties.setProperty( "org.quartz.dataSource.benchmarkDS.URL", url ); //$NON-NLS-1$
+    properties.setProperty( "org.quartz.dataSource.benchmarkDS.user", "sa" ); //$NON-NLS-1$ //$NON-NLS-2$
+    properties.setProperty( "org.quartz.dataSource.benchmarkDS.password", "" ); //$NON-NLS-1$ //$NON-NLS-2$
+    properties.setProperty( "org.quartz.dataSource.benchmarkDS.maxConnections", "4" ); //$NON-NLS-1$ //$NON-NLS-2$
+    return properties;
+  }
+}
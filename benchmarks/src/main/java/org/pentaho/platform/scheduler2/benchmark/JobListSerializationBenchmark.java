@@ -0,0 +1,101 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.benchmark;
+
+import com.sun.jersey.api.json.JSONJAXBContext;
+import com.sun.jersey.api.json.JSONMarshaller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.platform.JaxbContextResolver;
+import org.pentaho.platform.api.scheduler2.Job;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes the job list that {@link org.pentaho.platform.web.http.api.resources.SchedulerResource#getAllJobs()}
+ * returns, with the JAXB context the plugin registers and the way Jersey writes a list of JAXB elements as JSON and as
+ * XML.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class JobListSerializationBenchmark {
+
+  @Param( { "100", "1000", "10000" } )
+  public int jobCount;
+
+  private List<Job> jobs;
+
+  private JAXBContext context;
+
+  @Setup
+  public void setUp() throws Exception {
+    jobs = BenchmarkJobs.createJobs( jobCount );
+    context = new JaxbContextResolver().getContext( Job.class );
+  }
+
+  @Benchmark
+  public void json() throws Exception {
+    try ( Writer writer = new OutputStreamWriter( OutputStream.nullOutputStream(), StandardCharsets.UTF_8 ) ) {
+      JSONMarshaller marshaller = JSONJAXBContext.getJSONMarshaller( context.createMarshaller(), context );
+      writer.write( '[' );
+      for ( int i = 0; i < jobs.size(); i++ ) {
+        if ( i > 0 ) {
+          writer.write( ',' );
+        }
+        marshaller.marshallToJSON( jobs.get( i ), writer );
+      }
+      writer.write( ']' );
+    }
+  }
+
+  @Benchmark
+  public void xml() throws Exception {
+    try ( Writer writer = new OutputStreamWriter( OutputStream.nullOutputStream(), StandardCharsets.UTF_8 ) ) {
+      Marshaller marshaller = context.createMarshaller();
+      marshaller.setProperty( Marshaller.JAXB_FRAGMENT, true );
+      writer.write( "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><jobs>" ); //$NON-NLS-1$
+      for ( Job job : jobs ) {
+        marshaller.marshal( job, writer );
+      }
+      writer.write( "</jobs>" ); //$NON-NLS-1$
+    }
+  }
+}
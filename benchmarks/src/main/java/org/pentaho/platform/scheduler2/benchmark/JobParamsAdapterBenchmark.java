@@ -0,0 +1,85 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.pentaho.platform.api.scheduler2.JobParams;
+import org.pentaho.platform.api.scheduler2.JobParamsAdapter;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts job parameters to and from their JAXB form with {@link JobParamsAdapter}, which every job listed or
+ * submitted through the REST API goes through.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class JobParamsAdapterBenchmark {
+
+  private static final int JOB_COUNT = 100;
+
+  private final JobParamsAdapter adapter = new JobParamsAdapter();
+
+  private Map<String, Serializable>[] jobParams;
+
+  private JobParams[] marshalledJobParams;
+
+  @Setup
+  @SuppressWarnings( "unchecked" )
+  public void setUp() throws Exception {
+    jobParams = new Map[ JOB_COUNT ];
+    marshalledJobParams = new JobParams[ JOB_COUNT ];
+    for ( int i = 0; i < JOB_COUNT; i++ ) {
+      jobParams[ i ] = BenchmarkJobs.createJobParams( i );
+      marshalledJobParams[ i ] = adapter.marshal( jobParams[ i ] );
+    }
+  }
+
+  @Benchmark
+  public void marshal( Blackhole blackhole ) throws Exception {
+    for ( Map<String, Serializable> params : jobParams ) {
+      blackhole.consume( adapter.marshal( params ) );
+    }
+  }
+
+  @Benchmark
+  public void unmarshal( Blackhole blackhole ) throws Exception {
+    for ( JobParams params : marshalledJobParams ) {
+      blackhole.consume( adapter.unmarshal( params ) );
+    }
+  }
+}
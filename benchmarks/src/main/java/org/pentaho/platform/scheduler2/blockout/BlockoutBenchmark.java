@@ -0,0 +1,162 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.scheduler2.blockout.BlockoutManagerUtil.TIME;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks schedules against blockouts with {@link BlockoutManagerUtil}, which answers from the merged windows of
+ * {@link BlockoutConflictEngine}, against the pairwise fire time enumeration it replaced, and previews a blockout
+ * against all schedules with {@link BlockoutImpactAnalyzer}. The schedules are hourly, daily and weekly; the blockouts
+ * are a nightly simple blockout and a weekly cron blockout.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class BlockoutBenchmark {
+
+  private static final String[] CRON_EXPRESSIONS = {
+    "0 0 12 ? * 2-6 *", //$NON-NLS-1$
+    "0 30 1 ? * 1 *", //$NON-NLS-1$
+    "0 0 6 1 * ? *" //$NON-NLS-1$
+  };
+
+  @Param( { "10", "100" } )
+  public int scheduleCount;
+
+  private List<IJobTrigger> schedules;
+
+  private List<IJobTrigger> blockOuts;
+
+  private LegacyBlockoutManagerUtil legacy;
+
+  private BlockoutImpactAnalyzer analyzer;
+
+  @Setup
+  public void setUp() {
+    long now = System.currentTimeMillis();
+    Date start = new Date( now - TIME.DAY.time );
+
+    schedules = new ArrayList<>( scheduleCount );
+    for ( int i = 0; i < scheduleCount; i++ ) {
+      if ( i % 2 == 0 ) {
+        schedules.add( new SimpleJobTrigger( new Date( start.getTime() + i * TIME.MINUTE.time ), null, -1,
+          TIME.HOUR.time / 1000 ) );
+      } else {
+        schedules.add( complexTrigger( CRON_EXPRESSIONS[ ( i / 2 ) % CRON_EXPRESSIONS.length ], start, 0 ) );
+      }
+    }
+
+    blockOuts = new ArrayList<>();
+    SimpleJobTrigger nightly = new SimpleJobTrigger( start, null, -1, TIME.DAY.time / 1000 );
+    nightly.setDuration( 2 * TIME.HOUR.time );
+    blockOuts.add( nightly );
+    blockOuts.add( complexTrigger( "0 0 0 ? * 1 *", start, 6 * TIME.HOUR.time ) ); //$NON-NLS-1$
+
+    legacy = new LegacyBlockoutManagerUtil( now );
+    analyzer = new BlockoutImpactAnalyzer();
+    // fill the fire time cache
+    analyzer.analyze( blockOuts.get( 1 ), schedules );
+  }
+
+  @TearDown
+  public void tearDown() {
+    analyzer.shutdown();
+  }
+
+  @Benchmark
+  public void getFireTimes( Blackhole blackhole ) {
+    for ( IJobTrigger schedule : schedules ) {
+      blackhole.consume( BlockoutManagerUtil.getFireTimes( schedule, null ) );
+    }
+  }
+
+  @Benchmark
+  public void willFire( Blackhole blackhole ) {
+    for ( IJobTrigger schedule : schedules ) {
+      blackhole.consume( BlockoutManagerUtil.willFire( schedule, blockOuts, null ) );
+    }
+  }
+
+  @Benchmark
+  public void willFireEnumeratingFireTimes( Blackhole blackhole ) {
+    for ( IJobTrigger schedule : schedules ) {
+      blackhole.consume( legacy.willFire( schedule, blockOuts ) );
+    }
+  }
+
+  @Benchmark
+  public void willBlockSchedules( Blackhole blackhole ) {
+    // without fire times cached by earlier analyses
+    BlockoutImpactAnalyzer uncachedAnalyzer = new BlockoutImpactAnalyzer( 1 );
+    for ( IJobTrigger blockOut : blockOuts ) {
+      blackhole.consume( uncachedAnalyzer.analyze( blockOut, schedules ) );
+    }
+  }
+
+  @Benchmark
+  public void willBlockSchedulesCached( Blackhole blackhole ) {
+    for ( IJobTrigger blockOut : blockOuts ) {
+      blackhole.consume( analyzer.analyze( blockOut, schedules ) );
+    }
+  }
+
+  @Benchmark
+  public void willBlockSchedulesEnumeratingFireTimes( Blackhole blackhole ) {
+    for ( IJobTrigger blockOut : blockOuts ) {
+      for ( IJobTrigger schedule : schedules ) {
+        blackhole.consume( legacy.willBlockSchedule( schedule, blockOut ) );
+      }
+    }
+  }
+
+  private static IJobTrigger complexTrigger( String cronExpression, Date start, long duration ) {
+    ComplexJobTrigger trigger = new ComplexJobTrigger();
+    trigger.setCronString( cronExpression );
+    trigger.setStartTime( start );
+    trigger.setDuration( duration );
+    return trigger;
+  }
+}
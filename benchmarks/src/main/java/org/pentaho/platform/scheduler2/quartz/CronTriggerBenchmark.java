@@ -0,0 +1,108 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts between cron expressions and {@link ComplexJobTrigger}s, as listing and updating cron schedules does:
+ * {@link QuartzScheduler#createComplexTrigger(String)} with its parse cache, parsing without the cache and with the
+ * regular expressions used before {@link CronRecurrenceParser}, and {@link QuartzCronStringFactory#createCronString}.
+ * Each operation covers the same set of expressions.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class CronTriggerBenchmark {
+
+  private static final String[] CRON_EXPRESSIONS = {
+    "0 0 12 ? * 2-6 *", //$NON-NLS-1$
+    "0 30 8,12,17 ? * 2,4,6 *", //$NON-NLS-1$
+    "0 0 6 1 * ? *", //$NON-NLS-1$
+    "0 15 10 ? * 6L *", //$NON-NLS-1$
+    "0 0 0 ? 1/3 2#1 *", //$NON-NLS-1$
+    "0 0/15 9-17 ? * MON-FRI *", //$NON-NLS-1$
+    "0 0 0 L * ? 2030,2031", //$NON-NLS-1$
+    "5 15 12 3,10 3,5 ? 2030" //$NON-NLS-1$
+  };
+
+  private QuartzScheduler scheduler;
+
+  private ComplexJobTrigger[] triggers;
+
+  @Setup
+  public void setUp() {
+    scheduler = new QuartzScheduler();
+    triggers = new ComplexJobTrigger[ CRON_EXPRESSIONS.length ];
+    for ( int i = 0; i < CRON_EXPRESSIONS.length; i++ ) {
+      triggers[ i ] = (ComplexJobTrigger) scheduler.createComplexTrigger( CRON_EXPRESSIONS[ i ] );
+    }
+  }
+
+  @Benchmark
+  public void createComplexTrigger( Blackhole blackhole ) {
+    for ( String cronExpression : CRON_EXPRESSIONS ) {
+      blackhole.consume( scheduler.createComplexTrigger( cronExpression ) );
+    }
+  }
+
+  @Benchmark
+  public void parseUncached( Blackhole blackhole ) {
+    for ( String cronExpression : CRON_EXPRESSIONS ) {
+      CronRecurrenceParser.ParsedCron parsedCron = CronRecurrenceParser.parseUncached( cronExpression );
+      for ( int field = CronRecurrenceParser.SECONDS; field <= CronRecurrenceParser.YEARS; field++ ) {
+        blackhole.consume( parsedCron.getRecurrences( field ) );
+      }
+    }
+  }
+
+  @Benchmark
+  public void parseWithRegularExpressions( Blackhole blackhole ) {
+    for ( String cronExpression : CRON_EXPRESSIONS ) {
+      for ( int field = CronRecurrenceParser.SECONDS; field <= CronRecurrenceParser.YEARS; field++ ) {
+        blackhole.consume( LegacyCronRecurrenceParser.getRecurrences( cronExpression, field ) );
+      }
+    }
+  }
+
+  @Benchmark
+  public void createCronString( Blackhole blackhole ) {
+    for ( ComplexJobTrigger trigger : triggers ) {
+      blackhole.consume( QuartzCronStringFactory.createCronString( trigger ) );
+    }
+  }
+}
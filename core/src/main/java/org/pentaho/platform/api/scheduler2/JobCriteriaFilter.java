@@ -0,0 +1,191 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.api.scheduler2;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An {@link IJobFilter} made of structured criteria (owner, job name, action class and state) rather than an opaque
+ * predicate. Any {@link IScheduler} can evaluate it through {@link #accept(IJob)}, but schedulers that recognize it
+ * can use the criteria to skip jobs before loading them: the Quartz scheduler prunes on owner and job name before
+ * reading any job detail, and on action class and state before building the job's trigger.
+ * <p>
+ * Each criterion left unset ({@code null}) matches every job. An optional additional {@link IJobFilter} is applied
+ * last, to the jobs that pass every criterion.
+ */
+public class JobCriteriaFilter implements IJobFilter {
+
+  private Set<String> userNames;
+
+  private Set<String> jobNames;
+
+  private Set<String> excludedJobNames = Collections.emptySet();
+
+  private Set<String> actionClasses;
+
+  private Set<JobState> states;
+
+  private IJobFilter filter;
+
+  /**
+   * @return the owners a job must belong to, or {@code null} for any owner
+   */
+  public Set<String> getUserNames() {
+    return userNames;
+  }
+
+  /**
+   * Restricts the filter to jobs owned by one of the given users.
+   *
+   * @param userNames the job owners
+   */
+  public void setUserNames( String... userNames ) {
+    this.userNames = toSet( userNames );
+  }
+
+  public void setUserNames( Collection<String> userNames ) {
+    this.userNames = userNames == null ? null : new HashSet<>( userNames );
+  }
+
+  /**
+   * @return the user defined job names a job must have, or {@code null} for any name
+   */
+  public Set<String> getJobNames() {
+    return jobNames;
+  }
+
+  /**
+   * Restricts the filter to jobs with one of the given user defined names.
+   *
+   * @param jobNames the job names
+   */
+  public void setJobNames( String... jobNames ) {
+    this.jobNames = toSet( jobNames );
+  }
+
+  /**
+   * @return the user defined job names that are never accepted
+   */
+  public Set<String> getExcludedJobNames() {
+    return excludedJobNames;
+  }
+
+  /**
+   * Excludes jobs with one of the given user defined names.
+   *
+   * @param excludedJobNames the job names to exclude
+   */
+  public void setExcludedJobNames( String... excludedJobNames ) {
+    this.excludedJobNames = excludedJobNames == null ? Collections.<String>emptySet() : toSet( excludedJobNames );
+  }
+
+  /**
+   * @return the {@link IScheduler#RESERVEDMAPKEY_ACTIONCLASS} values a job must have, or {@code null} for any action
+   */
+  public Set<String> getActionClasses() {
+    return actionClasses;
+  }
+
+  /**
+   * Restricts the filter to jobs running one of the given action classes.
+   *
+   * @param actionClasses the fully qualified action class names
+   */
+  public void setActionClasses( String... actionClasses ) {
+    this.actionClasses = toSet( actionClasses );
+  }
+
+  /**
+   * @return the states a job must be in, or {@code null} for any state
+   */
+  public Set<JobState> getStates() {
+    return states;
+  }
+
+  /**
+   * Restricts the filter to jobs in one of the given states.
+   *
+   * @param states the job states
+   */
+  public void setStates( JobState... states ) {
+    this.states = states == null ? null : new HashSet<>( Arrays.asList( states ) );
+  }
+
+  /**
+   * @return the filter applied to jobs that meet every criterion, or {@code null}
+   */
+  public IJobFilter getFilter() {
+    return filter;
+  }
+
+  /**
+   * Sets a filter to apply, after the criteria, to the fully loaded jobs.
+   *
+   * @param filter the additional filter
+   */
+  public void setFilter( IJobFilter filter ) {
+    this.filter = filter;
+  }
+
+  public boolean acceptsUserName( String userName ) {
+    return userNames == null || userNames.contains( userName );
+  }
+
+  public boolean acceptsJobName( String jobName ) {
+    return ( jobNames == null || jobNames.contains( jobName ) ) && !excludedJobNames.contains( jobName );
+  }
+
+  public boolean acceptsJobParams( Map<String, ? extends Serializable> jobParams ) {
+    if ( actionClasses == null ) {
+      return true;
+    }
+    Object actionClass = jobParams == null ? null : jobParams.get( IScheduler.RESERVEDMAPKEY_ACTIONCLASS );
+    return actionClass != null && actionClasses.contains( actionClass.toString() );
+  }
+
+  public boolean acceptsState( JobState state ) {
+    return states == null || states.contains( state );
+  }
+
+  @Override
+  public boolean accept( IJob job ) {
+    if ( job instanceof Job ) {
+      Job concreteJob = (Job) job;
+      if ( !acceptsUserName( concreteJob.getUserName() ) || !acceptsState( concreteJob.getState() ) ) {
+        return false;
+      }
+    } else if ( userNames != null || states != null ) {
+      return false;
+    }
+    return acceptsJobName( job.getJobName() ) && acceptsJobParams( job.getJobParams() )
+      && ( filter == null || filter.accept( job ) );
+  }
+
+  private static Set<String> toSet( String... values ) {
+    return values == null ? null : new HashSet<>( Arrays.asList( values ) );
+  }
+}
@@ -42,6 +42,21 @@ public abstract class JobTrigger implements Serializable, IJobTrigger {
 
   public static final SimpleJobTrigger ONCE_NOW = new SimpleJobTrigger( new Date(), null, 0, 0L );
 
+  /**
+   * The priority of batch work that may wait behind other jobs.
+   */
+  public static final int LOW_PRIORITY = 1;
+
+  /**
+   * The priority of a trigger unless set otherwise, the same as the default of a Quartz trigger.
+   */
+  public static final int DEFAULT_PRIORITY = 5;
+
+  /**
+   * The priority of interactive work, e.g. a "Run in background" request, that should start as soon as possible.
+   */
+  public static final int HIGH_PRIORITY = 10;
+
   private Date startTime;
 
   private Date endTime;
@@ -54,6 +69,8 @@ public abstract class JobTrigger implements Serializable, IJobTrigger {
 
   private long duration = -1;
 
+  private int priority = DEFAULT_PRIORITY;
+
   public JobTrigger() {
   }
 
@@ -113,6 +130,17 @@ public abstract class JobTrigger implements Serializable, IJobTrigger {
   }
 
 
+  /**
+   * @return the priority of the job; of the jobs due at the same time, those with a higher priority are started first
+   */
+  public int getPriority() {
+    return priority;
+  }
+
+  public void setPriority( int priority ) {
+    this.priority = priority;
+  }
+
   public String getCronDescription() {
     return cronDescription;
   }
@@ -22,25 +22,72 @@ package org.pentaho.platform.genericfile;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.engine.IPentahoSession;
 import org.pentaho.platform.api.genericfile.IGenericFileProvider;
 import org.pentaho.platform.api.genericfile.IGenericFileService;
 import org.pentaho.platform.api.genericfile.exception.InvalidGenericFileProviderException;
 import org.pentaho.platform.api.genericfile.exception.NotFoundException;
 import org.pentaho.platform.api.genericfile.exception.OperationFailedException;
 import org.pentaho.platform.api.genericfile.model.IGenericFile;
+import org.pentaho.platform.api.genericfile.model.IGenericFilePage;
 import org.pentaho.platform.api.genericfile.model.IGenericFileTree;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.genericfile.model.BaseGenericFile;
+import org.pentaho.platform.genericfile.model.BaseGenericFilePage;
 import org.pentaho.platform.genericfile.model.BaseGenericFileTree;
 import org.pentaho.platform.util.StringUtil;
+import org.pentaho.platform.util.messages.LocaleHelper;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Combines the file providers of the session. With several providers, their folder trees are loaded concurrently on a
+ * pool of at most {@link #MAX_PROVIDER_THREADS} threads shared by all sessions, each with the session, security
+ * context and locale of the requesting thread; a provider that does not answer within
+ * {@link #getProviderTimeoutMillis()} is left out of the combined tree. The time each provider takes is recorded in
+ * its {@link GenericFileProviderMetrics}.
+ */
 public class DefaultGenericFileService implements IGenericFileService {
 
+  static final int MAX_PROVIDER_THREADS = 8;
+
+  /**
+   * Folder tree loads waiting for a thread at most; further loads run on the requesting thread.
+   */
+  static final int MAX_QUEUED_PROVIDER_LOADS = 64;
+
+  static final long DEFAULT_PROVIDER_TIMEOUT_MILLIS = 30000L;
+
+  private static final Log logger = LogFactory.getLog( DefaultGenericFileService.class );
+
+  private static final Map<String, GenericFileProviderMetrics> providerMetrics = new ConcurrentHashMap<>();
+
+  private static ExecutorService providerExecutor;
+
   private final List<IGenericFileProvider<?>> fileProviders;
 
+  private long providerTimeoutMillis = DEFAULT_PROVIDER_TIMEOUT_MILLIS;
+
   public DefaultGenericFileService( @NonNull List<IGenericFileProvider<?>> fileProviders )
     throws InvalidGenericFileProviderException {
     Objects.requireNonNull( fileProviders );
@@ -51,6 +98,26 @@ public class DefaultGenericFileService implements IGenericFileService {
     this.fileProviders = fileProviders;
   }
 
+  public long getProviderTimeoutMillis() {
+    return providerTimeoutMillis;
+  }
+
+  /**
+   * @param providerTimeoutMillis how long the folder tree of a provider is waited for when several providers are
+   *                              combined
+   */
+  public void setProviderTimeoutMillis( long providerTimeoutMillis ) {
+    this.providerTimeoutMillis = providerTimeoutMillis;
+  }
+
+  /**
+   * @return the folder tree load metrics of each provider type, across all sessions
+   */
+  @NonNull
+  public static Map<String, GenericFileProviderMetrics> getProviderMetrics() {
+    return Collections.unmodifiableMap( providerMetrics );
+  }
+
   public void clearFolderCache() {
     for ( IGenericFileProvider<?> fileProvider : fileProviders ) {
       try {
@@ -65,7 +132,7 @@ public class DefaultGenericFileService implements IGenericFileService {
   @NonNull
   public IGenericFileTree getFolders( @Nullable Integer depth ) throws OperationFailedException {
     if ( fileProviders.size() <= 1 ) {
-      return fileProviders.get( 0 ).getFolders( depth );
+      return getFolders( fileProviders.get( 0 ), depth );
     }
 
     return getFoldersMultipleProviders( depth );
@@ -75,19 +142,30 @@ public class DefaultGenericFileService implements IGenericFileService {
   private BaseGenericFileTree getFoldersMultipleProviders( @Nullable Integer depth ) throws OperationFailedException {
     BaseGenericFileTree rootTree = createMultipleProviderTreeRoot();
 
-    OperationFailedException firstProviderException = null;
+    List<IGenericFileProvider<?>> availableProviders = new ArrayList<>();
+    List<Future<IGenericFileTree>> providerTrees = new ArrayList<>();
+    long start = System.currentTimeMillis();
     for ( IGenericFileProvider<?> fileProvider : fileProviders ) {
       if ( fileProvider.isAvailable() ) {
-        try {
-          rootTree.addChild( fileProvider.getFolders( depth ) );
-        } catch ( OperationFailedException e ) {
-          if ( firstProviderException == null ) {
-            firstProviderException = e;
-          }
+        availableProviders.add( fileProvider );
+        Callable<IGenericFileTree> load = () -> getFolders( fileProvider, depth );
+        providerTrees.add( getProviderExecutor().submit( withCallerContext( load ) ) );
+      }
+    }
 
-          // Continue, collecting providers that work. But still log failed ones, JIC.
-          e.printStackTrace();
+    // Add the trees in the order of the providers, whichever is loaded first.
+    OperationFailedException firstProviderException = null;
+    for ( int i = 0; i < providerTrees.size(); i++ ) {
+      try {
+        rootTree.addChild( getProviderTree( availableProviders.get( i ), providerTrees.get( i ), start ) );
+      } catch ( OperationFailedException e ) {
+        if ( firstProviderException == null ) {
+          firstProviderException = e;
         }
+
+        // Continue, collecting providers that work. But still log failed ones, JIC.
+        logger.warn( "Folders of provider " + availableProviders.get( i ).getType() //$NON-NLS-1$
+          + " could not be loaded", e ); //$NON-NLS-1$
       }
     }
 
@@ -99,6 +177,107 @@ public class DefaultGenericFileService implements IGenericFileService {
     return rootTree;
   }
 
+  @NonNull
+  private IGenericFileTree getProviderTree( @NonNull IGenericFileProvider<?> fileProvider,
+                                            @NonNull Future<IGenericFileTree> providerTree, long start )
+    throws OperationFailedException {
+    try {
+      return providerTree.get( Math.max( 0, start + providerTimeoutMillis - System.currentTimeMillis() ),
+        TimeUnit.MILLISECONDS );
+    } catch ( TimeoutException e ) {
+      providerTree.cancel( true );
+      getProviderMetrics( fileProvider ).recordTimeout();
+      throw new OperationFailedException( "Folders of provider " + fileProvider.getType() //$NON-NLS-1$
+        + " not loaded within " + providerTimeoutMillis + " ms" ); //$NON-NLS-1$ //$NON-NLS-2$
+    } catch ( InterruptedException e ) {
+      providerTree.cancel( true );
+      Thread.currentThread().interrupt();
+      throw new OperationFailedException( e );
+    } catch ( ExecutionException e ) {
+      if ( e.getCause() instanceof OperationFailedException ) {
+        throw (OperationFailedException) e.getCause();
+      }
+      if ( e.getCause() instanceof RuntimeException ) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new OperationFailedException( e.getCause() );
+    }
+  }
+
+  @NonNull
+  private static IGenericFileTree getFolders( @NonNull IGenericFileProvider<?> fileProvider, @Nullable Integer depth )
+    throws OperationFailedException {
+    GenericFileProviderMetrics metrics = getProviderMetrics( fileProvider );
+    long start = System.currentTimeMillis();
+    try {
+      IGenericFileTree tree = fileProvider.getFolders( depth );
+      metrics.recordLoad( System.currentTimeMillis() - start );
+      return tree;
+    } catch ( OperationFailedException | RuntimeException e ) {
+      metrics.recordFailure( System.currentTimeMillis() - start );
+      throw e;
+    } finally {
+      if ( logger.isDebugEnabled() ) {
+        logger.debug( "Folders of provider " + fileProvider.getType() + " loaded in " //$NON-NLS-1$ //$NON-NLS-2$
+          + ( System.currentTimeMillis() - start ) + " ms; " + metrics ); //$NON-NLS-1$
+      }
+    }
+  }
+
+  @NonNull
+  private static GenericFileProviderMetrics getProviderMetrics( @NonNull IGenericFileProvider<?> fileProvider ) {
+    return providerMetrics.computeIfAbsent( fileProvider.getType(), type -> new GenericFileProviderMetrics() );
+  }
+
+  /**
+   * Runs a task with the session, security context and locale of the calling thread, which the providers rely on.
+   */
+  @NonNull
+  private static <T> Callable<T> withCallerContext( @NonNull Callable<T> task ) {
+    IPentahoSession session = PentahoSessionHolder.getSession();
+    SecurityContext securityContext = SecurityContextHolder.getContext();
+    Locale locale = LocaleHelper.getLocale();
+    return () -> {
+      // Restored afterwards, as the task runs on the calling thread itself when the pool is saturated.
+      IPentahoSession previousSession = PentahoSessionHolder.getSession();
+      SecurityContext previousSecurityContext = SecurityContextHolder.getContext();
+      Locale previousLocale = LocaleHelper.getLocale();
+      setSession( session );
+      SecurityContextHolder.setContext( securityContext );
+      LocaleHelper.setLocale( locale );
+      try {
+        return task.call();
+      } finally {
+        setSession( previousSession );
+        SecurityContextHolder.setContext( previousSecurityContext );
+        LocaleHelper.setLocale( previousLocale );
+      }
+    };
+  }
+
+  private static void setSession( @Nullable IPentahoSession session ) {
+    if ( session != null ) {
+      PentahoSessionHolder.setSession( session );
+    } else {
+      PentahoSessionHolder.removeSession();
+    }
+  }
+
+  private static synchronized ExecutorService getProviderExecutor() {
+    if ( providerExecutor == null ) {
+      AtomicInteger threadCount = new AtomicInteger();
+      ThreadPoolExecutor executor = new ThreadPoolExecutor( MAX_PROVIDER_THREADS, MAX_PROVIDER_THREADS, 60,
+        TimeUnit.SECONDS, new ArrayBlockingQueue<>( MAX_QUEUED_PROVIDER_LOADS ), runnable -> {
+          Thread thread = new Thread( runnable, "GenericFileProvider-" + threadCount.incrementAndGet() ); //$NON-NLS-1$
+          thread.setDaemon( true );
+          return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy() );
+      executor.allowCoreThreadTimeOut( true );
+      providerExecutor = executor;
+    }
+    return providerExecutor;
+  }
+
   @NonNull
   private static BaseGenericFileTree createMultipleProviderTreeRoot() {
     BaseGenericFile entity = new BaseGenericFile();
@@ -114,6 +293,48 @@ public class DefaultGenericFileService implements IGenericFileService {
     };
   }
 
+  @NonNull
+  public IGenericFilePage getFolderChildren( @Nullable String path, int offset, int limit )
+    throws OperationFailedException {
+    if ( StringUtil.isEmpty( path ) ) {
+      return getRootFolders( offset, limit );
+    }
+
+    return getOwnerFileProvider( path )
+      .orElseThrow( NotFoundException::new )
+      .getFolderChildren( path, offset, limit );
+  }
+
+  /**
+   * Lists the root folder of each available provider, skipping the providers that fail, unless all do.
+   */
+  @NonNull
+  private IGenericFilePage getRootFolders( int offset, int limit ) throws OperationFailedException {
+    List<IGenericFile> rootFolders = new ArrayList<>();
+
+    OperationFailedException firstProviderException = null;
+    for ( IGenericFileProvider<?> fileProvider : fileProviders ) {
+      if ( fileProvider.isAvailable() ) {
+        try {
+          rootFolders.add( getFolders( fileProvider, 0 ).getFile() );
+        } catch ( OperationFailedException e ) {
+          if ( firstProviderException == null ) {
+            firstProviderException = e;
+          }
+
+          logger.warn( "Root folder of provider " + fileProvider.getType() //$NON-NLS-1$
+            + " could not be listed", e ); //$NON-NLS-1$
+        }
+      }
+    }
+
+    if ( firstProviderException != null && rootFolders.isEmpty() ) {
+      throw firstProviderException;
+    }
+
+    return BaseGenericFilePage.of( null, rootFolders, offset, limit );
+  }
+
   public boolean doesFolderExist( @NonNull String path ) throws OperationFailedException {
     Optional<IGenericFileProvider<?>> fileProvider = getOwnerFileProvider( path );
 
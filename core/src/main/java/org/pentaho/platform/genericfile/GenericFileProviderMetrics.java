@@ -0,0 +1,108 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.genericfile;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Counts the folder tree loads of a file provider and how long they took. The counters are updated without locking by
+ * the threads loading the trees and may be read at any time.
+ */
+public class GenericFileProviderMetrics {
+
+  private final AtomicLong loads = new AtomicLong();
+
+  private final AtomicLong failures = new AtomicLong();
+
+  private final AtomicLong timeouts = new AtomicLong();
+
+  private final AtomicLong totalMillis = new AtomicLong();
+
+  private final LongAccumulator maxMillis = new LongAccumulator( Math::max, 0 );
+
+  private volatile long lastMillis;
+
+  void recordLoad( long millis ) {
+    record( millis );
+  }
+
+  void recordFailure( long millis ) {
+    failures.incrementAndGet();
+    record( millis );
+  }
+
+  /**
+   * Counts a load that was given up on; it is recorded again once it completes, fails or is interrupted.
+   */
+  void recordTimeout() {
+    timeouts.incrementAndGet();
+  }
+
+  private void record( long millis ) {
+    loads.incrementAndGet();
+    totalMillis.addAndGet( millis );
+    maxMillis.accumulate( millis );
+    lastMillis = millis;
+  }
+
+  /**
+   * @return the number of loads, including those that failed
+   */
+  public long getLoads() {
+    return loads.get();
+  }
+
+  public long getFailures() {
+    return failures.get();
+  }
+
+  /**
+   * @return the number of loads not waited for any longer, when several providers are combined
+   */
+  public long getTimeouts() {
+    return timeouts.get();
+  }
+
+  public long getTotalMillis() {
+    return totalMillis.get();
+  }
+
+  public long getMaxMillis() {
+    return maxMillis.get();
+  }
+
+  public long getLastMillis() {
+    return lastMillis;
+  }
+
+  public long getAverageMillis() {
+    long count = loads.get();
+    return count == 0 ? 0 : totalMillis.get() / count;
+  }
+
+  @Override
+  public String toString() {
+    return "loads=" + getLoads() //$NON-NLS-1$
+      + ", failures=" + getFailures() + ", timeouts=" + getTimeouts() //$NON-NLS-1$ //$NON-NLS-2$
+      + ", avgMillis=" + getAverageMillis() + ", maxMillis=" + getMaxMillis(); //$NON-NLS-1$ //$NON-NLS-2$
+  }
+}
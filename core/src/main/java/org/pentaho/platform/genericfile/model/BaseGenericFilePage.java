@@ -0,0 +1,95 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.genericfile.model;
+
+import org.pentaho.platform.api.genericfile.model.IGenericFile;
+import org.pentaho.platform.api.genericfile.model.IGenericFilePage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class BaseGenericFilePage implements IGenericFilePage {
+  private String path;
+  private List<IGenericFile> files = new ArrayList<>();
+  private int offset;
+  private int totalCount;
+
+  public BaseGenericFilePage() {
+  }
+
+  public BaseGenericFilePage( String path, List<IGenericFile> files, int offset, int totalCount ) {
+    this.path = path;
+    this.files = files;
+    this.offset = offset;
+    this.totalCount = totalCount;
+  }
+
+  /**
+   * @param path     the path of the folder the files are the children of
+   * @param children all the children of the folder
+   * @param offset   the position of the first child of the page
+   * @param limit    the number of children of the page at most
+   * @return the page of the children
+   */
+  public static BaseGenericFilePage of( String path, List<? extends IGenericFile> children, int offset, int limit ) {
+    int from = Math.min( offset, children.size() );
+    int to = (int) Math.min( (long) from + limit, children.size() );
+    List<IGenericFile> files = new ArrayList<>( children.subList( from, to ) );
+    return new BaseGenericFilePage( path, files, offset, children.size() );
+  }
+
+  @Override
+  public String getPath() {
+    return path;
+  }
+
+  public void setPath( String path ) {
+    this.path = path;
+  }
+
+  @Override
+  public List<IGenericFile> getFiles() {
+    return files != null ? files : Collections.emptyList();
+  }
+
+  public void setFiles( List<IGenericFile> files ) {
+    this.files = files;
+  }
+
+  @Override
+  public int getOffset() {
+    return offset;
+  }
+
+  public void setOffset( int offset ) {
+    this.offset = offset;
+  }
+
+  @Override
+  public int getTotalCount() {
+    return totalCount;
+  }
+
+  public void setTotalCount( int totalCount ) {
+    this.totalCount = totalCount;
+  }
+}
@@ -22,24 +22,31 @@ package org.pentaho.platform.genericfile.providers.repository;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
+import org.pentaho.platform.api.engine.IPentahoSession;
 import org.pentaho.platform.api.genericfile.IGenericFileProvider;
 import org.pentaho.platform.api.genericfile.exception.AccessControlException;
 import org.pentaho.platform.api.genericfile.exception.InvalidPathException;
+import org.pentaho.platform.api.genericfile.exception.NotFoundException;
 import org.pentaho.platform.api.genericfile.exception.OperationFailedException;
+import org.pentaho.platform.api.genericfile.model.IGenericFile;
 import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
 import org.pentaho.platform.api.repository2.unified.UnifiedRepositoryAccessDeniedException;
 import org.pentaho.platform.api.repository2.unified.webservices.RepositoryFileDto;
 import org.pentaho.platform.api.repository2.unified.webservices.RepositoryFileTreeDto;
 import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.genericfile.model.BaseGenericFilePage;
 import org.pentaho.platform.genericfile.messages.Messages;
 import org.pentaho.platform.genericfile.providers.repository.model.RepositoryFile;
 import org.pentaho.platform.genericfile.providers.repository.model.RepositoryFileTree;
 import org.pentaho.platform.genericfile.providers.repository.model.RepositoryFolder;
 import org.pentaho.platform.genericfile.providers.repository.model.RepositoryObject;
+import org.pentaho.platform.util.messages.LocaleHelper;
 import org.pentaho.platform.web.http.api.resources.services.FileService;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import static org.pentaho.platform.util.RepositoryPathEncoder.encodeRepositoryPath;
 
@@ -52,9 +59,11 @@ public class RepositoryFileProvider implements IGenericFileProvider<RepositoryFi
     return RepositoryFile.class;
   }
 
-  private RepositoryFileTree tree;
   public static final String TYPE = "repository";
 
+  // Shared by the sessions of all users, each of which has its own provider.
+  private static final RepositoryFolderTreeCache folderTreeCache = new RepositoryFolderTreeCache();
+
   public RepositoryFileProvider() {
     unifiedRepository = PentahoSystem.get( IUnifiedRepository.class, PentahoSessionHolder.getSession() );
   }
@@ -71,7 +80,7 @@ public class RepositoryFileProvider implements IGenericFileProvider<RepositoryFi
 
   @Override
   public boolean createFolder( @NonNull String path ) throws OperationFailedException {
-    FileService fileService = new FileService();
+    FileService fileService = createFileService();
 
     // When parent path is not found, its creation is attempted.
 
@@ -85,7 +94,7 @@ public class RepositoryFileProvider implements IGenericFileProvider<RepositoryFi
     }
 
     if ( folderCreated ) {
-      clearFolderCache();
+      folderTreeCache.invalidatePath( path );
     }
 
     return folderCreated;
@@ -94,16 +103,17 @@ public class RepositoryFileProvider implements IGenericFileProvider<RepositoryFi
   @Override
   @NonNull
   public RepositoryFileTree getFolders( @Nullable Integer depth ) {
-    if ( tree != null ) {
-      return tree;
-    }
+    return folderTreeCache.get( getUserName(), LocaleHelper.getLocale(), depth, () -> loadFolders( depth ) );
+  }
 
-    FileService fileService = new FileService();
+  @NonNull
+  private RepositoryFileTree loadFolders( @Nullable Integer depth ) {
+    FileService fileService = createFileService();
     RepositoryFileTreeDto nativeTree =
       fileService.doGetTree( "/", depth, "*|FOLDERS", true, false, false );
 
 
-    tree = convertToTreeNode( nativeTree, null );
+    RepositoryFileTree tree = convertToTreeNode( nativeTree, null );
 
     RepositoryFolder repositoryFolder = (RepositoryFolder) tree.getFile();
     repositoryFolder.setName( Messages.getString( "GenericFileRepository.REPOSITORY_FOLDER_DISPLAY" ) );
@@ -114,9 +124,56 @@ public class RepositoryFileProvider implements IGenericFileProvider<RepositoryFi
     return tree;
   }
 
+  @Override
+  @NonNull
+  public BaseGenericFilePage getFolderChildren( @NonNull String path, int offset, int limit )
+    throws OperationFailedException {
+    FileService fileService = createFileService();
+    List<RepositoryFileDto> nativeChildren;
+    try {
+      nativeChildren = fileService.doGetChildren( encodeRepositoryPath( path ), "*|FOLDERS", true, false );
+    } catch ( UnifiedRepositoryAccessDeniedException e ) {
+      throw new AccessControlException( e );
+    }
+
+    if ( nativeChildren.isEmpty() && !doesFolderExist( path ) ) {
+      throw new NotFoundException();
+    }
+
+    // Only the children of the page are converted.
+    RepositoryFolder parentFolder = new RepositoryFolder();
+    parentFolder.setPath( path );
+    int from = Math.min( offset, nativeChildren.size() );
+    int to = (int) Math.min( (long) from + limit, nativeChildren.size() );
+    List<IGenericFile> children = new ArrayList<>( to - from );
+    for ( RepositoryFileDto nativeChild : nativeChildren.subList( from, to ) ) {
+      children.add( convert( nativeChild, parentFolder ) );
+    }
+
+    return new BaseGenericFilePage( path, children, offset, nativeChildren.size() );
+  }
+
+  FileService createFileService() {
+    return new FileService();
+  }
+
   @Override
   public void clearFolderCache() {
-    tree = null;
+    folderTreeCache.invalidateUser( getUserName() );
+  }
+
+  /**
+   * @return the folder tree cache of all users
+   */
+  @NonNull
+  public static RepositoryFolderTreeCache getFolderTreeCache() {
+    return folderTreeCache;
+  }
+
+  @NonNull
+  private static String getUserName() {
+    IPentahoSession session = PentahoSessionHolder.getSession();
+    return session != null && session.getName() != null ? session.getName() : "";
   }
 
   @Override
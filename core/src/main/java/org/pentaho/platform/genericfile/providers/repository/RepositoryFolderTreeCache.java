@@ -0,0 +1,295 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.genericfile.providers.repository;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import org.pentaho.platform.api.genericfile.model.IGenericFileTree;
+import org.pentaho.platform.genericfile.providers.repository.model.RepositoryFileTree;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caches the repository folder trees loaded for each user, locale and depth, since the folders a user can see depend
+ * on the user's permissions and the name of the root folder on the locale. At most {@link #getMaxTrees()} trees are
+ * kept, the least recently used being evicted first, and a tree is reloaded once it is older than
+ * {@link #getTtlMillis()}, which bounds how long changes made elsewhere go unnoticed.
+ * <p>
+ * When a folder is created, only the trees that show the contents of the folder it is created in, or of its nearest
+ * ancestor they hold, are dropped; trees too shallow to reach it are kept. A tree being loaded while trees are dropped
+ * is returned but not cached.
+ */
+public class RepositoryFolderTreeCache {
+
+  static final int DEFAULT_MAX_TREES = 200;
+
+  static final long DEFAULT_TTL_MILLIS = 5 * 60000L;
+
+  private static final int UNLIMITED_DEPTH = -1;
+
+  private final int maxTrees;
+
+  private final long ttlMillis;
+
+  private final LongSupplier clock;
+
+  private final Map<TreeKey, CachedTree> trees;
+
+  // guarded by this; incremented whenever trees are dropped
+  private long generation;
+
+  private final AtomicLong hits = new AtomicLong();
+
+  private final AtomicLong misses = new AtomicLong();
+
+  private final AtomicLong evictions = new AtomicLong();
+
+  private final AtomicLong invalidations = new AtomicLong();
+
+  private final AtomicLong loadMillis = new AtomicLong();
+
+  private final LongAccumulator maxLoadMillis = new LongAccumulator( Math::max, 0 );
+
+  public RepositoryFolderTreeCache() {
+    this( DEFAULT_MAX_TREES, DEFAULT_TTL_MILLIS, System::currentTimeMillis );
+  }
+
+  RepositoryFolderTreeCache( int maxTrees, long ttlMillis, LongSupplier clock ) {
+    this.maxTrees = maxTrees;
+    this.ttlMillis = ttlMillis;
+    this.clock = clock;
+    this.trees = new LinkedHashMap<TreeKey, CachedTree>( 16, 0.75f, true ) {
+      @Override
+      protected boolean removeEldestEntry( Map.Entry<TreeKey, CachedTree> eldest ) {
+        if ( size() > RepositoryFolderTreeCache.this.maxTrees ) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  public int getMaxTrees() {
+    return maxTrees;
+  }
+
+  public long getTtlMillis() {
+    return ttlMillis;
+  }
+
+  /**
+   * @param user   the name of the user the tree is loaded for
+   * @param locale the locale the tree is loaded in
+   * @param depth  the depth of the tree; null or negative for the whole tree
+   * @param loader loads the tree when it is not cached or too old
+   * @return the cached or loaded tree, which must not be modified
+   */
+  @NonNull
+  public RepositoryFileTree get( @NonNull String user, @NonNull Locale locale, @Nullable Integer depth,
+                                 @NonNull Supplier<RepositoryFileTree> loader ) {
+    TreeKey key = new TreeKey( user, locale, depth == null || depth < 0 ? UNLIMITED_DEPTH : depth );
+    long loadGeneration;
+    synchronized ( this ) {
+      CachedTree cached = trees.get( key );
+      if ( cached != null && clock.getAsLong() - cached.loadedAt < ttlMillis ) {
+        hits.incrementAndGet();
+        return cached.tree;
+      }
+      loadGeneration = generation;
+    }
+
+    misses.incrementAndGet();
+    long start = clock.getAsLong();
+    RepositoryFileTree tree = loader.get();
+    long millis = clock.getAsLong() - start;
+    loadMillis.addAndGet( millis );
+    maxLoadMillis.accumulate( millis );
+
+    synchronized ( this ) {
+      if ( generation == loadGeneration ) {
+        trees.put( key, new CachedTree( tree, start ) );
+      }
+    }
+    return tree;
+  }
+
+  /**
+   * Drops the trees of a user.
+   */
+  public synchronized void invalidateUser( @NonNull String user ) {
+    generation++;
+    trees.keySet().removeIf( key -> {
+      boolean invalidated = key.user.equals( user );
+      if ( invalidated ) {
+        invalidations.incrementAndGet();
+      }
+      return invalidated;
+    } );
+  }
+
+  /**
+   * Drops the trees of all users that a folder created at a path, together with any missing ancestors, would appear in.
+   *
+   * @param path the path of the created folder
+   */
+  public synchronized void invalidatePath( @NonNull String path ) {
+    generation++;
+    String folderPath = path.length() > 1 && path.endsWith( "/" ) ? path.substring( 0, path.length() - 1 ) : path;
+    for ( Iterator<Map.Entry<TreeKey, CachedTree>> i = trees.entrySet().iterator(); i.hasNext(); ) {
+      Map.Entry<TreeKey, CachedTree> entry = i.next();
+      if ( wouldShow( entry.getValue().tree, entry.getKey().depth, folderPath ) ) {
+        i.remove();
+        invalidations.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Drops all trees.
+   */
+  public synchronized void clear() {
+    generation++;
+    invalidations.addAndGet( trees.size() );
+    trees.clear();
+  }
+
+  public synchronized int size() {
+    return trees.size();
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * @return the share of the requests answered from the cache, between 0 and 1
+   */
+  public double getHitRatio() {
+    long hitCount = hits.get();
+    long requests = hitCount + misses.get();
+    return requests == 0 ? 0 : (double) hitCount / requests;
+  }
+
+  /**
+   * @return the number of trees dropped to keep at most {@link #getMaxTrees()}
+   */
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  /**
+   * @return the number of trees dropped because of a change
+   */
+  public long getInvalidations() {
+    return invalidations.get();
+  }
+
+  public long getAverageLoadMillis() {
+    long loads = misses.get();
+    return loads == 0 ? 0 : loadMillis.get() / loads;
+  }
+
+  public long getMaxLoadMillis() {
+    return maxLoadMillis.get();
+  }
+
+  /**
+   * Walks down the tree along the path to the deepest folder it holds; the new folder, or its first missing
+   * ancestor, appears among the children of that folder if the tree is deep enough to show them.
+   */
+  private static boolean wouldShow( IGenericFileTree tree, int depth, String folderPath ) {
+    IGenericFileTree node = tree;
+    for ( int level = 0; depth == UNLIMITED_DEPTH || level < depth; level++ ) {
+      IGenericFileTree next = null;
+      for ( IGenericFileTree child : node.getChildren() ) {
+        String childPath = child.getFile().getPath();
+        if ( folderPath.equals( childPath ) ) {
+          // already shown
+          return false;
+        }
+        if ( childPath != null && folderPath.startsWith( childPath.endsWith( "/" ) ? childPath : childPath + "/" ) ) {
+          next = child;
+          break;
+        }
+      }
+      if ( next == null ) {
+        return true;
+      }
+      node = next;
+    }
+    return false;
+  }
+
+  private static class TreeKey {
+    final String user;
+
+    final Locale locale;
+
+    final int depth;
+
+    TreeKey( String user, Locale locale, int depth ) {
+      this.user = user;
+      this.locale = locale;
+      this.depth = depth;
+    }
+
+    @Override
+    public boolean equals( Object o ) {
+      if ( this == o ) {
+        return true;
+      }
+      if ( !( o instanceof TreeKey ) ) {
+        return false;
+      }
+      TreeKey other = (TreeKey) o;
+      return depth == other.depth && user.equals( other.user ) && locale.equals( other.locale );
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash( user, locale, depth );
+    }
+  }
+
+  private static class CachedTree {
+    final RepositoryFileTree tree;
+
+    final long loadedAt;
+
+    CachedTree( RepositoryFileTree tree, long loadedAt ) {
+      this.tree = tree;
+      this.loadedAt = loadedAt;
+    }
+  }
+}
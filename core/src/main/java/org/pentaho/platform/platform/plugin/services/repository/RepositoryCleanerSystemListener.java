@@ -27,6 +27,7 @@ import org.pentaho.platform.api.engine.IPentahoSystemListener;
 import org.pentaho.platform.api.scheduler2.IComplexJobTrigger;
 import org.pentaho.platform.api.scheduler2.IJob;
 import org.pentaho.platform.api.scheduler2.IJobFilter;
+import org.pentaho.platform.api.scheduler2.JobCriteriaFilter;
 import org.pentaho.platform.api.scheduler2.IJobTrigger;
 import org.pentaho.platform.api.scheduler2.IScheduler;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
@@ -123,7 +124,10 @@ public class RepositoryCleanerSystemListener implements IPentahoSystemListener,
     }
 
     try {
-      List<IJob> jobs = scheduler.getJobs( this );
+      JobCriteriaFilter filter = new JobCriteriaFilter();
+      filter.setJobNames( RepositoryGcJob.JOB_NAME );
+      filter.setFilter( this );
+      List<IJob> jobs = scheduler.getJobs( filter );
       if ( gcEnabled ) {
         if ( jobs.isEmpty() ) {
           scheduleJob( scheduler );
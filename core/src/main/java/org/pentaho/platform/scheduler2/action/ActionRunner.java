@@ -29,6 +29,7 @@ import org.pentaho.platform.api.action.IAction;
 import org.pentaho.platform.api.action.IPostProcessingAction;
 import org.pentaho.platform.api.action.IStreamingAction;
 import org.pentaho.platform.api.action.IVarArgsAction;
+import org.pentaho.platform.api.engine.IPentahoSession;
 import org.pentaho.platform.api.repository.IContentItem;
 import org.pentaho.platform.api.repository2.unified.ISourcesStreamEvents;
 import org.pentaho.platform.api.repository2.unified.IStreamListener;
@@ -37,21 +38,42 @@ import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 import org.pentaho.platform.api.scheduler2.IBackgroundExecutionStreamProvider;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
 import org.pentaho.platform.engine.core.output.FileContentItem;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.engine.core.system.StandaloneSession;
 import org.pentaho.platform.engine.services.solution.ActionSequenceCompatibilityFormatter;
 import org.pentaho.platform.scheduler2.ISchedulerOutputPathResolver;
 import org.pentaho.platform.scheduler2.messsages.Messages;
+import org.pentaho.platform.scheduler2.quartz.ExecutionTrace;
+import org.pentaho.platform.scheduler2.quartz.JobAdmissionControl;
+import org.pentaho.platform.scheduler2.quartz.JobWatchdog;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+import org.pentaho.platform.scheduler2.quartz.SchedulerMetrics;
 import org.pentaho.platform.util.ActionUtil;
 import org.pentaho.platform.util.beans.ActionHarness;
 import org.pentaho.platform.util.messages.LocaleHelper;
+import org.pentaho.platform.web.http.api.resources.RepositoryFileStreamProvider;
 import org.pentaho.platform.workitem.WorkItemLifecycleEventUtil;
 import org.pentaho.platform.workitem.WorkItemLifecyclePhase;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
 
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class ActionRunner implements IActionRunner {
@@ -63,13 +85,33 @@ public class ActionRunner implements IActionRunner {
   protected IBackgroundExecutionStreamProvider streamProvider;
   protected String actionUser;
 
-  protected String outputFilePath = null;
-  protected boolean streamComplete = false;
-  protected Object lock = new Object();
+  protected volatile String outputFilePath = null;
+  protected volatile boolean streamComplete = false;
+
+  /**
+   * Completes once the action and its post-processing have finished.
+   */
+  private volatile CompletableFuture<Void> postProcessing = CompletableFuture.completedFuture( null );
 
   public static final String KEY_USE_JCR = "useJcr"; // TODO move to more common place
   public static final String KEY_JCR_OUTPUT_PATH = "jcrOutputPath"; // TODO move to more common place
 
+  /**
+   * Threads that post-process the output of actions, e.g. email it; further post-processing waits in a queue of
+   * {@link #MAX_QUEUED_POST_PROCESSING} and beyond that runs on the thread of the action.
+   */
+  static final int MAX_POST_PROCESSING_THREADS = 4;
+
+  static final int MAX_QUEUED_POST_PROCESSING = 100;
+
+  /**
+   * How long the post-processing waits for the stream of the output to report the file it created, after the action
+   * has closed it.
+   */
+  static final long OUTPUT_CREATED_TIMEOUT_MILLIS = 60000L;
+
+  private static ExecutorService postProcessingExecutor;
+
   public ActionRunner() {
     // empty constructor
   }
@@ -113,10 +155,6 @@ public class ActionRunner implements IActionRunner {
       }
       return result.updateRequired();
     } catch ( final Throwable t ) {
-      // ensure that the main thread isn't blocked on lock
-      synchronized ( lock ) {
-        lock.notifyAll();
-      }
       WorkItemLifecycleEventUtil.publish( workItemName, params, WorkItemLifecyclePhase.FAILED, t.toString() );
       // We should not distinguish between checked and unchecked exceptions here. All job execution failures
       // should result in a rethrow of the exception
@@ -152,6 +190,8 @@ public class ActionRunner implements IActionRunner {
 
     boolean waitForFileCreated = false;
     OutputStream stream = null;
+    // completed with the path of the output file once it exists, or with null if the stream completes without one
+    final CompletableFuture<String> outputCreated = new CompletableFuture<>();
 
     if ( streamProvider != null ) {
       actionParams.remove( "inputStream" );
@@ -160,7 +200,9 @@ public class ActionRunner implements IActionRunner {
       }
 
       // BISERVER-9414 - validate that output path still exist
+      long stageStart = System.nanoTime();
       String outputPath = resolveOutputFilePath();
+      ExecutionTrace.recordStage( "resolveOutputPath", stageStart ); //$NON-NLS-1$
 
       if ( outputPath == null ) {
         return new ExecutionResult( true, false );
@@ -178,18 +220,14 @@ public class ActionRunner implements IActionRunner {
       if ( stream instanceof ISourcesStreamEvents ) {
         ( (ISourcesStreamEvents) stream ).addListener( new IStreamListener() {
           public void fileCreated( final String filePath ) {
-            synchronized ( lock ) {
-              outputFilePath = filePath;
-              lock.notifyAll();
-            }
+            outputFilePath = filePath;
+            outputCreated.complete( filePath );
           }
 
           @Override
           public void streamComplete() {
-            synchronized ( lock ) {
-              lock.notifyAll();
-              streamComplete = true;
-            }
+            streamComplete = true;
+            outputCreated.complete( outputFilePath );
           }
         } );
         waitForFileCreated = true;
@@ -198,28 +236,154 @@ public class ActionRunner implements IActionRunner {
       actionHarness.setValues( actionParams );
     }
 
-    actionBean.execute();
+    if ( JobWatchdog.isCancelled() ) {
+      throw new InterruptedException( "The run of the action was cancelled" ); //$NON-NLS-1$
+    }
+    final SchedulerMetrics metrics = getMetrics();
+    final long executionStart = System.currentTimeMillis();
+    final long executionStartNanos = System.nanoTime();
+    try {
+      actionBean.execute();
+    } finally {
+      ExecutionTrace.recordStage( "execute", executionStartNanos ); //$NON-NLS-1$
+    }
+    final long executionEnd = System.currentTimeMillis();
+    if ( metrics != null ) {
+      metrics.recordActionExecution( getActionType(), executionEnd - executionStart );
+    }
     executionStatus = actionBean.isExecutionSuccessful();
     if ( stream != null ) {
       IOUtils.closeQuietly( stream );
     }
+    // the output of a cancelled run is incomplete, so it is neither emailed nor tagged as generated content
+    final boolean cancelled = JobWatchdog.isCancelled();
 
-    if ( waitForFileCreated ) {
-      synchronized ( lock ) {
-        while ( outputFilePath == null && !streamComplete ) {
-          lock.wait( 1000 );
-        }
-      }
-      sendEmail( actionParams );
-      deleteFileIfEmpty();
-    }
+    // the output is post-processed in stages once it exists, off the thread of the action
+    final boolean emailOutput = waitForFileCreated && !cancelled;
+    final boolean tagOutput = actionBean instanceof IPostProcessingAction && !cancelled;
     if ( actionBean instanceof IPostProcessingAction ) {
       closeContentOutputStreams( (IPostProcessingAction) actionBean );
-      markContentAsGenerated( (IPostProcessingAction) actionBean );
+    }
+    if ( emailOutput || tagOutput ) {
+      final Executor executor = getPostProcessingExecutor();
+      final PostProcessingContext context = new PostProcessingContext();
+      CompletableFuture<?> stages = CompletableFuture.completedFuture( null );
+      if ( emailOutput ) {
+        stages = outputCreated.orTimeout( OUTPUT_CREATED_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS )
+          .exceptionally( t -> {
+            logger.warn( "The output of " + actionBean.getClass().getName() + " was not reported within " //$NON-NLS-1$
+              + OUTPUT_CREATED_TIMEOUT_MILLIS + " ms, post-processing it anyway" ); //$NON-NLS-1$
+            return null;
+          } )
+          .thenRunAsync( context.stage( "sendEmail", () -> sendEmail( actionParams ) ), executor ) //$NON-NLS-1$
+          .thenRunAsync( context.stage( "deleteFileIfEmpty", this::deleteFileIfEmpty ), executor ); //$NON-NLS-1$
+      }
+      if ( tagOutput ) {
+        final IPostProcessingAction postProcessingAction = (IPostProcessingAction) actionBean;
+        stages = stages.thenRunAsync( context.stage( "lineage", //$NON-NLS-1$
+          () -> markContentAsGenerated( postProcessingAction ) ), executor );
+      }
+      postProcessing = stages.handle( ( result, t ) -> {
+        if ( t != null ) {
+          logger.error( "Cannot post-process the output of " + actionBean.getClass().getName(), t ); //$NON-NLS-1$
+        }
+        context.close();
+        if ( metrics != null ) {
+          metrics.recordPostProcessing( System.currentTimeMillis() - executionEnd );
+        }
+        return null;
+      } );
     }
 
     // Create the ExecutionResult to return the status and whether the update is required or not
-    return new ExecutionResult( false, executionStatus );
+    return new ExecutionResult( false, executionStatus && !cancelled );
+  }
+
+  /**
+   * @return a future that completes once the output of the last call has been post-processed, i.e. emailed, removed
+   * if empty and tagged with the lineage of the job; failures are logged rather than reported through the future
+   */
+  public CompletableFuture<Void> getPostProcessing() {
+    return postProcessing;
+  }
+
+  /**
+   * @return the metrics of the scheduler, or {@code null} if they are disabled
+   */
+  protected SchedulerMetrics getMetrics() {
+    QuartzScheduler scheduler = QuartzScheduler.getPlatformScheduler();
+    return scheduler != null ? scheduler.getMetrics() : null;
+  }
+
+  /**
+   * @return the extension of the input file of the action in lower case, as the admission control names it
+   */
+  private String getActionType() {
+    if ( streamProvider instanceof RepositoryFileStreamProvider ) {
+      return JobAdmissionControl.getActionTypeOfFile(
+        ( (RepositoryFileStreamProvider) streamProvider ).getInputFilePath() );
+    }
+    return JobAdmissionControl.getActionType( params );
+  }
+
+  /**
+   * @return the executor that runs the post-processing stages of the output
+   */
+  protected Executor getPostProcessingExecutor() {
+    synchronized ( ActionRunner.class ) {
+      if ( postProcessingExecutor == null ) {
+        AtomicInteger threadCount = new AtomicInteger();
+        // a stage that cannot be queued, or is chained after the executor was shut down, runs on the calling thread
+        ThreadPoolExecutor executor = new ThreadPoolExecutor( MAX_POST_PROCESSING_THREADS,
+          MAX_POST_PROCESSING_THREADS, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>( MAX_QUEUED_POST_PROCESSING ),
+          runnable -> {
+            Thread thread =
+              new Thread( runnable, "ActionPostProcessing-" + threadCount.incrementAndGet() ); //$NON-NLS-1$
+            thread.setDaemon( true );
+            return thread;
+          }, ( runnable, rejectedBy ) -> runnable.run() );
+        executor.allowCoreThreadTimeOut( true );
+        postProcessingExecutor = executor;
+      }
+      return postProcessingExecutor;
+    }
+  }
+
+  /**
+   * Stops the threads that post-process the output of actions once the stages already queued have run; the scheduler
+   * calls it when it shuts down, and a later action starts them again.
+   */
+  public static void shutdownPostProcessing() {
+    synchronized ( ActionRunner.class ) {
+      if ( postProcessingExecutor != null ) {
+        postProcessingExecutor.shutdown();
+        postProcessingExecutor = null;
+      }
+    }
+  }
+
+  private static void setSession( IPentahoSession session ) {
+    if ( session != null ) {
+      PentahoSessionHolder.setSession( session );
+    } else {
+      PentahoSessionHolder.removeSession();
+    }
+  }
+
+  /**
+   * @return a session of the same user that outlives the given one, or null if there is none
+   */
+  private static IPentahoSession copySession( IPentahoSession session ) {
+    if ( session == null ) {
+      return null;
+    }
+    IPentahoSession copy = new StandaloneSession( session.getName(), session.getId() );
+    Iterator<?> names = session.getAttributeNames();
+    while ( names.hasNext() ) {
+      String name = (String) names.next();
+      copy.setAttribute( name, session.getAttribute( name ) );
+    }
+    return copy;
   }
 
   /**
@@ -314,26 +478,23 @@ public class ActionRunner implements IActionRunner {
   private void markContentAsGenerated( IPostProcessingAction actionBean ) {
     IUnifiedRepository repo = PentahoSystem.get( IUnifiedRepository.class );
     String lineageId = (String) params.get( ActionUtil.QUARTZ_LINEAGE_ID );
-    for ( IContentItem contentItem : actionBean.getActionOutputContents() ) {
-      RepositoryFile sourceFile = getRepositoryFileSafe( repo, contentItem.getPath() );
-      // add metadata if we have access and we have file
-      if ( sourceFile != null ) {
-        Map<String, Serializable> metadata = repo.getFileMetadata( sourceFile.getId() );
-        metadata.put( ActionUtil.QUARTZ_LINEAGE_ID, lineageId );
-        repo.setFileMetadata( sourceFile.getId(), metadata );
-      } else {
+    LineageMetadataWriter writer = new LineageMetadataWriter( repo, lineageId );
+    List<IContentItem> contentItems = actionBean.getActionOutputContents();
+    for ( IContentItem contentItem : contentItems ) {
+      writer.add( contentItem.getPath() );
+    }
+    LineageMetadataWriter.Result result = writer.write();
+    for ( IContentItem contentItem : contentItems ) {
+      // not tagged if we have no access or no file
+      if ( !result.getTaggedPaths().contains( contentItem.getPath() ) ) {
         String fileName = getFSFileNameSafe( contentItem );
         logger.warn( Messages.getInstance().getSkipRemovingOutputFile( fileName ) );
       }
     }
-  }
-
-  private RepositoryFile getRepositoryFileSafe( IUnifiedRepository repo, String path ) {
-    try {
-      return repo.getFile( path );
-    } catch ( Exception e ) {
-      logger.debug( Messages.getInstance().getCannotGetRepoFile( path, e.getMessage() ) );
-      return null;
+    if ( logger.isDebugEnabled() ) {
+      logger.debug( "Tagged " + result.getTaggedPaths().size() + " outputs of job " //$NON-NLS-1$ //$NON-NLS-2$
+        + ActionUtil.extractName( params ) + " with lineage " + lineageId + " in " //$NON-NLS-1$ //$NON-NLS-2$
+        + result.getElapsedMillis() + " ms" ); //$NON-NLS-1$
     }
   }
 
@@ -344,6 +505,65 @@ public class ActionRunner implements IActionRunner {
     return null;
   }
 
+  /**
+   * The session, authentication, locale and trace of the action, which the post-processing stages run with. The
+   * session and the security context of the action are torn down as soon as {@link #call()} returns, so the stages
+   * get copies of their own, which {@link #close()} releases once the last stage has run.
+   */
+  private class PostProcessingContext {
+    private final IPentahoSession session;
+
+    private final Authentication authentication;
+
+    private final Locale locale;
+
+    private final ExecutionTrace trace;
+
+    PostProcessingContext() {
+      session = copySession( PentahoSessionHolder.getSession() );
+      authentication = SecurityContextHolder.getContext().getAuthentication();
+      locale = LocaleHelper.getLocale();
+      trace = ExecutionTrace.current();
+    }
+
+    /**
+     * @return the stage, run with the context of the action; a failure is logged so that the later stages still run
+     */
+    Runnable stage( String name, Runnable stage ) {
+      return () -> {
+        // Restored afterwards, as the stage runs on the thread of the action itself when the pool is saturated.
+        IPentahoSession previousSession = PentahoSessionHolder.getSession();
+        SecurityContext previousSecurityContext = SecurityContextHolder.getContext();
+        Locale previousLocale = LocaleHelper.getLocale();
+        SecurityContext securityContext = new SecurityContextImpl();
+        securityContext.setAuthentication( authentication );
+        setSession( session );
+        SecurityContextHolder.setContext( securityContext );
+        LocaleHelper.setLocale( locale );
+        long stageStart = System.nanoTime();
+        try {
+          stage.run();
+        } catch ( RuntimeException e ) {
+          logger.error( "Cannot run the " + name + " stage of the output of " //$NON-NLS-1$ //$NON-NLS-2$
+            + actionBean.getClass().getName(), e );
+        } finally {
+          if ( trace != null ) {
+            trace.addStage( name, stageStart, System.nanoTime() );
+          }
+          setSession( previousSession );
+          SecurityContextHolder.setContext( previousSecurityContext );
+          LocaleHelper.setLocale( previousLocale );
+        }
+      };
+    }
+
+    void close() {
+      if ( session != null ) {
+        session.destroy();
+      }
+    }
+  }
+
   /**
    * Class to hold the result of the invoke Action
    */
@@ -32,6 +32,7 @@ import org.pentaho.platform.api.scheduler2.IScheduler;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.engine.security.SecurityHelper;
 import org.pentaho.platform.scheduler2.messsages.Messages;
+import org.pentaho.platform.scheduler2.quartz.ExecutionTrace;
 import org.pentaho.platform.util.ActionUtil;
 import org.pentaho.platform.util.StringUtil;
 import org.pentaho.platform.util.messages.LocaleHelper;
@@ -162,6 +163,7 @@ public class DefaultActionInvoker implements IActionInvoker {
     status.setStreamProvider( streamProvider );
 
     boolean requiresUpdate = false;
+    final long stageStart = System.nanoTime();
     try {
       if ( ( StringUtil.isEmpty( actionUser ) ) || ( actionUser.equals( "system session" ) ) ) { //$NON-NLS-1$
         // For now, don't try to run quartz jobs as authenticated if the user
@@ -173,6 +175,8 @@ public class DefaultActionInvoker implements IActionInvoker {
     } catch ( final Throwable t ) {
       WorkItemLifecycleEventUtil.publish( workItemName, params, WorkItemLifecyclePhase.FAILED, t.toString() );
       status.setThrowable( t );
+    } finally {
+      ExecutionTrace.recordStage( "runAsUser", stageStart ); //$NON-NLS-1$
     }
     status.setRequiresUpdate( requiresUpdate );
     // Set the execution Status
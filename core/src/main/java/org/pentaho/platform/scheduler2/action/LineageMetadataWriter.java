@@ -0,0 +1,177 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.action;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
+import org.pentaho.platform.api.repository2.unified.RepositoryFile;
+import org.pentaho.platform.util.ActionUtil;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Tags the files generated by an execution with the lineage id of its job. The files are collected with
+ * {@link #add(String)} and written together by {@link #write()}, which looks the files up one by one, unless a folder
+ * holds at least {@link #MIN_FILES_PER_LISTING} of them, e.g. the outputs of a bursting report, in which case the
+ * folder is listed once instead. Files that already carry the lineage id are left untouched. A file missing from the
+ * listing, or the files of a folder that cannot be listed, fall back to a lookup of their own.
+ * <p>
+ * The repository has no bulk metadata update, so the metadata of each file is still read and written on its own.
+ */
+public class LineageMetadataWriter {
+
+  /**
+   * The files of a folder that are resolved by listing the folder rather than one by one. A listing returns every
+   * child of the folder, and output folders such as the home folders of users often hold thousands of files, so it only
+   * pays off when a single execution writes a large number of files into the folder.
+   */
+  static final int MIN_FILES_PER_LISTING = 50;
+
+  private static final Log logger = LogFactory.getLog( LineageMetadataWriter.class );
+
+  private final IUnifiedRepository repo;
+
+  private final String lineageId;
+
+  private final Set<String> paths = new LinkedHashSet<>();
+
+  /**
+   * @param repo      the repository holding the generated files
+   * @param lineageId the lineage id of the job that generated them
+   */
+  public LineageMetadataWriter( IUnifiedRepository repo, String lineageId ) {
+    this.repo = repo;
+    this.lineageId = lineageId;
+  }
+
+  /**
+   * @param path the repository path of a generated file; files added twice are tagged once
+   */
+  public void add( String path ) {
+    if ( path != null ) {
+      paths.add( path );
+    }
+  }
+
+  /**
+   * Tags the files added so far.
+   *
+   * @return the paths of the files tagged, or found tagged already, and the time it took
+   */
+  public Result write() {
+    long start = System.currentTimeMillis();
+    Set<String> tagged = new LinkedHashSet<>();
+    for ( Map.Entry<String, List<String>> folder : groupByFolder().entrySet() ) {
+      Map<String, RepositoryFile> files = folder.getValue().size() >= MIN_FILES_PER_LISTING
+        ? listFolder( folder.getKey() ) : Collections.emptyMap();
+      for ( String path : folder.getValue() ) {
+        RepositoryFile file = files.get( path );
+        if ( file == null ) {
+          file = getFileSafe( path );
+        }
+        if ( file != null ) {
+          tag( file );
+          tagged.add( path );
+        }
+      }
+    }
+    return new Result( tagged, System.currentTimeMillis() - start );
+  }
+
+  private Map<String, List<String>> groupByFolder() {
+    Map<String, List<String>> folders = new LinkedHashMap<>();
+    for ( String path : paths ) {
+      folders.computeIfAbsent( FilenameUtils.getFullPathNoEndSeparator( path ), folder -> new ArrayList<>() )
+        .add( path );
+    }
+    return folders;
+  }
+
+  private Map<String, RepositoryFile> listFolder( String folderPath ) {
+    try {
+      RepositoryFile folder = repo.getFile( folderPath );
+      if ( folder == null ) {
+        return Collections.emptyMap();
+      }
+      Map<String, RepositoryFile> files = new HashMap<>();
+      for ( RepositoryFile child : repo.getChildren( folder.getId() ) ) {
+        files.put( child.getPath(), child );
+      }
+      return files;
+    } catch ( Exception e ) {
+      logger.debug( "Cannot list " + folderPath + ", looking up its files one by one", e ); //$NON-NLS-1$ //$NON-NLS-2$
+      return Collections.emptyMap();
+    }
+  }
+
+  private RepositoryFile getFileSafe( String path ) {
+    try {
+      return repo.getFile( path );
+    } catch ( Exception e ) {
+      logger.debug( "Cannot get " + path + ": " + e.getMessage() ); //$NON-NLS-1$ //$NON-NLS-2$
+      return null;
+    }
+  }
+
+  private void tag( RepositoryFile file ) {
+    Map<String, Serializable> metadata = repo.getFileMetadata( file.getId() );
+    if ( !Objects.equals( lineageId, metadata.get( ActionUtil.QUARTZ_LINEAGE_ID ) ) ) {
+      metadata.put( ActionUtil.QUARTZ_LINEAGE_ID, lineageId );
+      repo.setFileMetadata( file.getId(), metadata );
+    }
+  }
+
+  /**
+   * The outcome of {@link #write()}.
+   */
+  public static class Result {
+    private final Set<String> taggedPaths;
+
+    private final long elapsedMillis;
+
+    Result( Set<String> taggedPaths, long elapsedMillis ) {
+      this.taggedPaths = Collections.unmodifiableSet( taggedPaths );
+      this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return the paths of the files that carry the lineage id; the other files were not found in the repository
+     */
+    public Set<String> getTaggedPaths() {
+      return taggedPaths;
+    }
+
+    public long getElapsedMillis() {
+      return elapsedMillis;
+    }
+  }
+}
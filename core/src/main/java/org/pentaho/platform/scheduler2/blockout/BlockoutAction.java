@@ -27,10 +27,12 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.pentaho.platform.api.action.IVarArgsAction;
 import org.pentaho.platform.api.scheduler2.IBlockoutManager;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
 
 /**
- * @author wseyler This is the job that executes when the a block out trigger fires. This job essentially does nothing
- *         more than logging the firing of the trigger.
+ * @author wseyler This is the job that executes when the a block out trigger fires. This job records the window the
+ *         blockout is in effect for with the scheduler's {@link BlockoutRegistry} and returns, so that it does not
+ *         hold a worker thread for the duration of the blockout.
  */
 public class BlockoutAction implements IVarArgsAction {
 
@@ -42,17 +44,25 @@ public class BlockoutAction implements IVarArgsAction {
   @Override
   public void execute() throws Exception {
     Date startDate = new Date();
-    long effectiveDuration = duration - ( startDate.getTime() - scheduledFireTime.getTime() );
+    long end = scheduledFireTime.getTime() + duration;
+    long effectiveDuration = end - startDate.getTime();
     if ( effectiveDuration < 0 ) {
       logger.warn( "Blocking Scheduled for " + scheduledFireTime + " for " + this.duration
           + " milliseconds has already expired" );
     } else {
+      BlockoutRegistry blockoutRegistry = getBlockoutRegistry();
+      if ( blockoutRegistry != null ) {
+        blockoutRegistry.activate( scheduledFireTime.getTime(), end );
+      }
       logger.warn( "Blocking Started at: " + startDate + " and will last: " + effectiveDuration + " milliseconds" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-      Thread.sleep( effectiveDuration );
-      logger.warn( "Blockout that started at: " + startDate + " has ended at: " + new Date() ); //$NON-NLS-1$ //$NON-NLS-2$
     }
   }
 
+  BlockoutRegistry getBlockoutRegistry() {
+    QuartzScheduler scheduler = QuartzScheduler.getPlatformScheduler();
+    return scheduler != null ? scheduler.getBlockoutRegistry() : null;
+  }
+
   @Override
   public void setVarArgs( Map<String, Object> args ) {
     if ( args.containsKey( IBlockoutManager.DURATION_PARAM ) ) {
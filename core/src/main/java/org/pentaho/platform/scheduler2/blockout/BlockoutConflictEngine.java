@@ -0,0 +1,207 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.pentaho.platform.scheduler2.blockout.BlockoutManagerUtil.TIME;
+import org.pentaho.platform.scheduler2.quartz.QuartzJobKey;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+import org.quartz.Trigger;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Answers how a set of blockouts affects schedules. The blockouts are turned into {@link BlockoutWindows} once, for
+ * the next {@link #HORIZON_MILLIS}; each schedule then costs one pass over its fire times, swept against the windows.
+ * <p>
+ * A schedule is checked at its first {@link #MAX_FIRE_TIMES} fire times within the horizon, the same fire times that
+ * {@link BlockoutManagerUtil} has always considered. An engine may be shared by concurrent callers.
+ */
+public class BlockoutConflictEngine {
+
+  /**
+   * Fire times of a schedule that are checked against the blockouts.
+   */
+  public static final int MAX_FIRE_TIMES = 1000;
+
+  public static final long HORIZON_MILLIS = 4 * TIME.YEAR.time;
+
+  private final long from;
+
+  private final BlockoutWindows windows;
+
+  /**
+   * @param blockOutTriggers the blockout triggers, with their durations set
+   */
+  public BlockoutConflictEngine( List<IJobTrigger> blockOutTriggers ) {
+    this( blockOutTriggers, System.currentTimeMillis() );
+  }
+
+  /**
+   * @param blockOutTriggers the blockout triggers, with their durations set
+   * @param from             the instant after which fire times are considered
+   */
+  public BlockoutConflictEngine( List<IJobTrigger> blockOutTriggers, long from ) {
+    this.from = from;
+    this.windows = BlockoutWindows.build( blockOutTriggers, from, from + HORIZON_MILLIS );
+  }
+
+  public BlockoutWindows getWindows() {
+    return windows;
+  }
+
+  /**
+   * @param scheduleTrigger the trigger of a schedule
+   * @return whether a blockout is in effect at any of the schedule's fire times
+   */
+  public boolean isPartiallyBlocked( IJobTrigger scheduleTrigger ) {
+    return !windows.isEmpty() && isPartiallyBlocked( getFireTimes( scheduleTrigger ) );
+  }
+
+  /**
+   * @param fireTimes fire times of a schedule in ascending order, possibly computed earlier; those outside the
+   *                  horizon and beyond the first {@link #MAX_FIRE_TIMES} within it are ignored
+   * @return whether a blockout is in effect at any of the fire times
+   */
+  public boolean isPartiallyBlocked( long[] fireTimes ) {
+    if ( windows.isEmpty() ) {
+      return false;
+    }
+    int begin = indexAfter( fireTimes, from );
+    int end = checkedEnd( fireTimes, begin );
+    BlockoutWindows.Cursor cursor = windows.cursor();
+    for ( int i = begin; i < end; i++ ) {
+      if ( cursor.contains( fireTimes[ i ] ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param scheduleTrigger the trigger of a schedule
+   * @return whether the schedule fires at least once and a blockout is in effect at every fire time
+   */
+  public boolean isTotallyBlocked( IJobTrigger scheduleTrigger ) {
+    return isTotallyBlocked( getFireTimes( scheduleTrigger ) );
+  }
+
+  /**
+   * @param fireTimes fire times of a schedule in ascending order, possibly computed earlier; those outside the
+   *                  horizon and beyond the first {@link #MAX_FIRE_TIMES} within it are ignored
+   * @return whether there is at least one fire time and a blockout is in effect at every fire time
+   */
+  public boolean isTotallyBlocked( long[] fireTimes ) {
+    int begin = indexAfter( fireTimes, from );
+    int end = checkedEnd( fireTimes, begin );
+    return end > begin && firstUnblocked( fireTimes, begin, end ) < 0;
+  }
+
+  /**
+   * @param scheduleTrigger the trigger of a schedule
+   * @return whether the schedule is not {@link #isTotallyBlocked(IJobTrigger) totally blocked}
+   */
+  public boolean willFire( IJobTrigger scheduleTrigger ) {
+    return !isTotallyBlocked( scheduleTrigger );
+  }
+
+  /**
+   * @param scheduleTrigger the trigger of a schedule
+   * @return the first fire time of the schedule at which no blockout is in effect, or null if there is none within
+   * the fire times checked
+   */
+  public Date getNextUnblockedFireTime( IJobTrigger scheduleTrigger ) {
+    long[] fireTimes = getFireTimes( scheduleTrigger );
+    int i = firstUnblocked( fireTimes, 0, fireTimes.length );
+    return i < 0 ? null : new Date( fireTimes[ i ] );
+  }
+
+  /**
+   * @param scheduleTrigger the trigger of a schedule
+   * @return the fire times of the schedule that are checked, in ascending order
+   */
+  public long[] getFireTimes( IJobTrigger scheduleTrigger ) {
+    return getFireTimes( scheduleTrigger, from, windows.getEnd(), MAX_FIRE_TIMES );
+  }
+
+  private int firstUnblocked( long[] fireTimes, int begin, int end ) {
+    BlockoutWindows.Cursor cursor = windows.cursor();
+    for ( int i = begin; i < end; i++ ) {
+      if ( !cursor.contains( fireTimes[ i ] ) ) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private int checkedEnd( long[] fireTimes, int begin ) {
+    return Math.min( indexAfter( fireTimes, windows.getEnd() ), begin + MAX_FIRE_TIMES );
+  }
+
+  // index of the first fire time after the instant
+  private static int indexAfter( long[] fireTimes, long time ) {
+    int low = 0;
+    int high = fireTimes.length;
+    while ( low < high ) {
+      int mid = ( low + high ) >>> 1;
+      if ( fireTimes[ mid ] <= time ) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @param jobTrigger the trigger
+   * @param from       the instant after which fire times are returned
+   * @param to         the last instant at which a fire time is returned
+   * @param max        the number of fire times returned at most
+   * @return the fire times of the trigger, in ascending order
+   */
+  public static long[] getFireTimes( IJobTrigger jobTrigger, long from, long to, int max ) {
+    Trigger trigger;
+    try {
+      trigger = QuartzScheduler.createQuartzTrigger( jobTrigger, new QuartzJobKey( "test", "test" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+    } catch ( SchedulerException e ) {
+      throw new RuntimeException( e );
+    }
+    if ( jobTrigger.getEndTime() != null ) {
+      to = Math.min( to, jobTrigger.getEndTime().getTime() );
+    }
+
+    long[] fireTimes = new long[ Math.min( max, 64 ) ];
+    int count = 0;
+    Date fireTime = trigger.getFireTimeAfter( new Date( from ) );
+    while ( count < max && fireTime != null && fireTime.getTime() <= to ) {
+      if ( count == fireTimes.length ) {
+        fireTimes = Arrays.copyOf( fireTimes, Math.min( max, count * 2 ) );
+      }
+      fireTimes[ count++ ] = fireTime.getTime();
+      fireTime = trigger.getFireTimeAfter( fireTime );
+    }
+    return count == fireTimes.length ? fireTimes : Arrays.copyOf( fireTimes, count );
+  }
+}
@@ -0,0 +1,289 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.scheduler2.blockout.BlockoutManagerUtil.TIME;
+import org.pentaho.platform.scheduler2.quartz.QuartzCronStringFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Evaluates every schedule of a scheduler against a candidate blockout, so that the impact of a blockout can be shown
+ * before it is saved. The blockout windows are built once per analysis with a {@link BlockoutConflictEngine}; the
+ * schedules are then split across a fork-join pool of at most {@link #getParallelism()} threads, which is only
+ * started on the first analysis large enough to need it.
+ * <p>
+ * The fire times of a schedule do not depend on the blockout, so they are kept in a bounded, least recently used
+ * cache keyed by the schedule's recurrence and reused by later analyses, e.g. while an administrator adjusts a
+ * blockout. A cached sequence is trimmed to the fire times still ahead and dropped after
+ * {@link #MAX_SEQUENCE_AGE_MILLIS}, so a reused sequence may lack the fire times a fresh one would gain at the far end
+ * of the horizon in the meantime.
+ */
+public class BlockoutImpactAnalyzer {
+
+  /**
+   * The effect of a blockout on a schedule.
+   */
+  public enum Impact {
+    /** the blockout is not in effect at any fire time of the schedule */
+    NONE,
+    /** the blockout is in effect at some fire times of the schedule */
+    PARTIAL,
+    /** the blockout is in effect at every fire time of the schedule */
+    TOTAL
+  }
+
+  static final int DEFAULT_PARALLELISM = Math.max( 1, Math.min( 4, Runtime.getRuntime().availableProcessors() ) );
+
+  static final int MAX_CACHED_SEQUENCES = 1000;
+
+  static final long MAX_SEQUENCE_AGE_MILLIS = 5 * TIME.MINUTE.time;
+
+  /**
+   * Schedules evaluated by a single fork-join task; smaller analyses run on the calling thread.
+   */
+  static final int SCHEDULES_PER_TASK = 64;
+
+  private static final Log logger = LogFactory.getLog( BlockoutImpactAnalyzer.class );
+
+  private final int parallelism;
+
+  private final LongSupplier clock;
+
+  private final Map<String, FireTimes> sequences = new LinkedHashMap<String, FireTimes>( 16, 0.75f, true ) {
+    @Override
+    protected boolean removeEldestEntry( Map.Entry<String, FireTimes> eldest ) {
+      return size() > MAX_CACHED_SEQUENCES;
+    }
+  };
+
+  private final AtomicLong sequenceHits = new AtomicLong();
+
+  private final AtomicLong sequenceMisses = new AtomicLong();
+
+  private ForkJoinPool pool;
+
+  public BlockoutImpactAnalyzer() {
+    this( DEFAULT_PARALLELISM );
+  }
+
+  /**
+   * @param parallelism the number of threads evaluating schedules at most; 1 evaluates them on the calling thread
+   */
+  public BlockoutImpactAnalyzer( int parallelism ) {
+    this( parallelism, System::currentTimeMillis );
+  }
+
+  BlockoutImpactAnalyzer( int parallelism, LongSupplier clock ) {
+    this.parallelism = Math.max( 1, parallelism );
+    this.clock = clock;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * @return the number of fire time sequences taken from the cache
+   */
+  public long getSequenceHits() {
+    return sequenceHits.get();
+  }
+
+  /**
+   * @return the number of fire time sequences computed
+   */
+  public long getSequenceMisses() {
+    return sequenceMisses.get();
+  }
+
+  /**
+   * @param blockOutTrigger  the candidate blockout, with its duration set
+   * @param scheduleTriggers the triggers of the schedules
+   * @return the impact of the blockout on each schedule, in the order of the schedules; a schedule whose fire times
+   * cannot be computed is reported as {@link Impact#NONE}
+   */
+  public Impact[] analyze( IJobTrigger blockOutTrigger, List<IJobTrigger> scheduleTriggers ) {
+    long now = clock.getAsLong();
+    BlockoutConflictEngine engine = new BlockoutConflictEngine( Collections.singletonList( blockOutTrigger ), now );
+    Impact[] impacts = new Impact[ scheduleTriggers.size() ];
+    if ( engine.getWindows().isEmpty() ) {
+      Arrays.fill( impacts, Impact.NONE );
+      return impacts;
+    }
+    AnalyzeTask task = new AnalyzeTask( engine, now, scheduleTriggers, impacts, 0, impacts.length );
+    if ( parallelism == 1 || impacts.length <= SCHEDULES_PER_TASK ) {
+      task.compute();
+    } else {
+      getPool().invoke( task );
+    }
+    return impacts;
+  }
+
+  /**
+   * Stops the threads of the pool; a later analysis starts them again.
+   */
+  public synchronized void shutdown() {
+    if ( pool != null ) {
+      pool.shutdownNow();
+      pool = null;
+    }
+  }
+
+  private synchronized ForkJoinPool getPool() {
+    if ( pool == null ) {
+      pool = new ForkJoinPool( parallelism );
+    }
+    return pool;
+  }
+
+  Impact analyze( BlockoutConflictEngine engine, long now, IJobTrigger scheduleTrigger ) {
+    try {
+      long[] fireTimes = getFireTimes( scheduleTrigger, now );
+      if ( !engine.isPartiallyBlocked( fireTimes ) ) {
+        return Impact.NONE;
+      }
+      return engine.isTotallyBlocked( fireTimes ) ? Impact.TOTAL : Impact.PARTIAL;
+    } catch ( RuntimeException e ) {
+      logger.warn( "Cannot check schedule " + scheduleTrigger + " against blockout", e ); //$NON-NLS-1$ //$NON-NLS-2$
+      return Impact.NONE;
+    }
+  }
+
+  long[] getFireTimes( IJobTrigger scheduleTrigger, long now ) {
+    String key = getSequenceKey( scheduleTrigger );
+    if ( key != null ) {
+      FireTimes cached;
+      synchronized ( sequences ) {
+        cached = sequences.get( key );
+      }
+      if ( cached != null && now >= cached.from && now - cached.from < MAX_SEQUENCE_AGE_MILLIS ) {
+        sequenceHits.incrementAndGet();
+        return cached.after( now );
+      }
+    }
+    sequenceMisses.incrementAndGet();
+    long[] fireTimes = BlockoutConflictEngine.getFireTimes( scheduleTrigger, now,
+      now + BlockoutConflictEngine.HORIZON_MILLIS, BlockoutConflictEngine.MAX_FIRE_TIMES );
+    if ( key != null ) {
+      synchronized ( sequences ) {
+        sequences.put( key, new FireTimes( now, fireTimes ) );
+      }
+    }
+    return fireTimes;
+  }
+
+  /**
+   * @return a key identifying the fire times of the trigger, or null if they should not be cached
+   */
+  static String getSequenceKey( IJobTrigger trigger ) {
+    if ( trigger instanceof SimpleJobTrigger ) {
+      SimpleJobTrigger simpleTrigger = (SimpleJobTrigger) trigger;
+      return "simple:" + getTime( trigger.getStartTime() ) //$NON-NLS-1$
+        + ":" + getTime( trigger.getEndTime() ) //$NON-NLS-1$
+        + ":" + simpleTrigger.getRepeatCount() + ":" + simpleTrigger.getRepeatInterval(); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    if ( trigger instanceof ComplexJobTrigger ) {
+      String cronString = trigger.getCronString() != null ? trigger.getCronString()
+        : QuartzCronStringFactory.createCronString( (ComplexJobTrigger) trigger );
+      return "complex:" + cronString + ":" + getTime( trigger.getEndTime() ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    return null;
+  }
+
+  private static String getTime( Date date ) {
+    return date == null ? "" : String.valueOf( date.getTime() ); //$NON-NLS-1$
+  }
+
+  /**
+   * Fire times computed after an instant.
+   */
+  private static class FireTimes {
+    final long from;
+
+    final long[] times;
+
+    FireTimes( long from, long[] times ) {
+      this.from = from;
+      this.times = times;
+    }
+
+    long[] after( long now ) {
+      int i = Arrays.binarySearch( times, now );
+      i = i < 0 ? -i - 1 : i + 1;
+      return i == 0 ? times : Arrays.copyOfRange( times, i, times.length );
+    }
+  }
+
+  /**
+   * Evaluates a range of schedules, splitting it in halves until it is small enough.
+   */
+  private class AnalyzeTask extends RecursiveAction {
+    private final BlockoutConflictEngine engine;
+
+    private final long now;
+
+    private final List<IJobTrigger> scheduleTriggers;
+
+    private final Impact[] impacts;
+
+    private final int begin;
+
+    private final int end;
+
+    AnalyzeTask( BlockoutConflictEngine engine, long now, List<IJobTrigger> scheduleTriggers, Impact[] impacts,
+                 int begin, int end ) {
+      this.engine = engine;
+      this.now = now;
+      this.scheduleTriggers = scheduleTriggers;
+      this.impacts = impacts;
+      this.begin = begin;
+      this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+      if ( end - begin <= SCHEDULES_PER_TASK ) {
+        for ( int i = begin; i < end; i++ ) {
+          impacts[ i ] = analyze( engine, now, scheduleTriggers.get( i ) );
+        }
+        return;
+      }
+      int middle = ( begin + end ) >>> 1;
+      invokeAll( new AnalyzeTask( engine, now, scheduleTriggers, impacts, begin, middle ),
+        new AnalyzeTask( engine, now, scheduleTriggers, impacts, middle, end ) );
+    }
+  }
+}
@@ -0,0 +1,244 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Holds the blockout triggers of a scheduler together with a sorted index of the blockout windows they produce over
+ * the next {@link #getHorizonMillis()}, so that {@link #shouldFireNow(Supplier)} is a binary search
+ * rather than a job store scan on every job fire.
+ * <p>
+ * The triggers are reloaded only after {@link #invalidate()}, which the scheduler calls whenever a blockout job is
+ * created, updated or removed, or once {@link #getMaxAgeMillis()} has passed, which bounds how long a blockout changed
+ * on another node of a cluster goes unnoticed. The window index is rebuilt from the cached triggers, without I/O,
+ * when the horizon runs out.
+ * <p>
+ * The triggers are loaded outside of any lock, by one fire at a time; the fires meanwhile use the triggers loaded
+ * before. A load that fails is logged and retried after {@link #getRetryMillis()}, and until then the triggers loaded
+ * before apply. Only when no triggers have been loaded yet does the failure reach the fire, so that a job does not
+ * run through a blockout that could not be checked.
+ * <p>
+ * The windows are those of {@link BlockoutWindows}. In addition, a {@link BlockoutAction} that fires records the window
+ * it starts with {@link #activate(long, long)} and returns at once rather than holding a worker thread for the
+ * duration; a recorded window blocks jobs even before the blockout that produced it has been loaded, and
+ * {@link #isInBlockout()} answers whether one is in effect.
+ */
+public class BlockoutRegistry {
+
+  private static final Log logger = LogFactory.getLog( BlockoutRegistry.class );
+
+  static final long DEFAULT_MAX_AGE_MILLIS = 60000L;
+
+  static final long DEFAULT_HORIZON_MILLIS = BlockoutManagerUtil.TIME.DAY.time;
+
+  static final long DEFAULT_RETRY_MILLIS = 5000L;
+
+  private final long maxAgeMillis;
+
+  private final long horizonMillis;
+
+  private final long retryMillis;
+
+  private final LongSupplier clock;
+
+  private final AtomicLong generation = new AtomicLong();
+
+  private final AtomicReference<WindowIndex> index = new AtomicReference<>();
+
+  private final AtomicBoolean loading = new AtomicBoolean();
+
+  // start to end of the windows recorded by blockouts that fired
+  private final ConcurrentNavigableMap<Long, Long> activeWindows = new ConcurrentSkipListMap<>();
+
+  public BlockoutRegistry() {
+    this( DEFAULT_MAX_AGE_MILLIS, DEFAULT_HORIZON_MILLIS, DEFAULT_RETRY_MILLIS, System::currentTimeMillis );
+  }
+
+  BlockoutRegistry( long maxAgeMillis, long horizonMillis, long retryMillis, LongSupplier clock ) {
+    this.maxAgeMillis = maxAgeMillis;
+    this.horizonMillis = horizonMillis;
+    this.retryMillis = Math.min( retryMillis, maxAgeMillis );
+    this.clock = clock;
+  }
+
+  public long getMaxAgeMillis() {
+    return maxAgeMillis;
+  }
+
+  public long getHorizonMillis() {
+    return horizonMillis;
+  }
+
+  public long getRetryMillis() {
+    return retryMillis;
+  }
+
+  /**
+   * Forgets the cached blockout triggers; the next check reloads them.
+   */
+  public void invalidate() {
+    generation.incrementAndGet();
+  }
+
+  /**
+   * Records that a blockout that fired is in effect between two instants.
+   *
+   * @param start the scheduled fire time of the blockout
+   * @param end   the fire time plus the blockout's duration
+   */
+  public void activate( long start, long end ) {
+    if ( end >= clock.getAsLong() ) {
+      activeWindows.merge( start, end, Math::max );
+    }
+  }
+
+  /**
+   * @return whether a window recorded with {@link #activate(long, long)} is in effect now
+   */
+  public boolean isInBlockout() {
+    return getActiveUntil() >= 0;
+  }
+
+  /**
+   * @return the end of the recorded window in effect now that ends last, or -1 if there is none
+   */
+  public long getActiveUntil() {
+    return getActiveUntil( clock.getAsLong() );
+  }
+
+  /**
+   * @param blockOutTriggers loads the current blockout triggers, with their durations set; only called when the
+   *                         cached triggers are missing, invalidated or too old
+   * @return whether a job may fire now, i.e. no blockout is in effect
+   * @throws RuntimeException as thrown by {@code blockOutTriggers} when no triggers have been loaded before
+   */
+  public boolean shouldFireNow( Supplier<List<IJobTrigger>> blockOutTriggers ) {
+    long now = clock.getAsLong();
+    return getActiveUntil( now ) < 0 && !getIndex( now, blockOutTriggers ).windows.contains( now );
+  }
+
+  private long getActiveUntil( long now ) {
+    long activeUntil = -1;
+    for ( Map.Entry<Long, Long> window : activeWindows.headMap( now, true ).entrySet() ) {
+      if ( window.getValue() < now ) {
+        // only if it has not been extended meanwhile
+        activeWindows.remove( window.getKey(), window.getValue() );
+      } else {
+        activeUntil = Math.max( activeUntil, window.getValue() );
+      }
+    }
+    return activeUntil;
+  }
+
+  private WindowIndex getIndex( long now, Supplier<List<IJobTrigger>> blockOutTriggers ) {
+    WindowIndex current = index.get();
+    if ( current != null && current.isCurrent( now ) ) {
+      return current;
+    }
+    long loadGeneration = generation.get();
+    if ( current != null && current.generation == loadGeneration && now - current.loadedAt < maxAgeMillis ) {
+      // only the horizon has run out
+      return publish( current, new WindowIndex( current.triggers, loadGeneration, current.loadedAt, now ) );
+    }
+    boolean loader = loading.compareAndSet( false, true );
+    if ( !loader && current != null ) {
+      // another fire is loading the triggers; the ones loaded before apply meanwhile
+      return current.covers( now ) ? current : new WindowIndex( current.triggers, current.generation,
+        current.loadedAt, now );
+    }
+    try {
+      List<IJobTrigger> triggers;
+      long loadedAt = now;
+      try {
+        triggers = new ArrayList<>( blockOutTriggers.get() );
+      } catch ( RuntimeException e ) {
+        if ( current == null ) {
+          throw e;
+        }
+        logger.warn( "Cannot load the blockouts; the ones loaded before apply for " //$NON-NLS-1$
+          + retryMillis / 1000 + "s", e ); //$NON-NLS-1$
+        triggers = current.triggers;
+        // reloaded once the retry interval has passed
+        loadedAt = now - maxAgeMillis + retryMillis;
+      }
+      return publish( current, new WindowIndex( triggers, loadGeneration, loadedAt, now ) );
+    } finally {
+      if ( loader ) {
+        loading.set( false );
+      }
+    }
+  }
+
+  private WindowIndex publish( WindowIndex expected, WindowIndex built ) {
+    if ( index.compareAndSet( expected, built ) ) {
+      return built;
+    }
+    // published by another fire meanwhile: kept if it is at least as recent
+    WindowIndex published = index.get();
+    return published != null && published.isCurrent( built.from ) ? published : built;
+  }
+
+  /**
+   * The blockout windows of a set of triggers between {@code from} and the end of the horizon.
+   */
+  class WindowIndex {
+    final List<IJobTrigger> triggers;
+
+    final long generation;
+
+    final long loadedAt;
+
+    final long from;
+
+    final BlockoutWindows windows;
+
+    WindowIndex( List<IJobTrigger> triggers, long generation, long loadedAt, long from ) {
+      this.triggers = Collections.unmodifiableList( triggers );
+      this.generation = generation;
+      this.loadedAt = loadedAt;
+      this.from = from;
+      this.windows = BlockoutWindows.build( this.triggers, from, from + horizonMillis );
+    }
+
+    boolean isCurrent( long now ) {
+      return generation == BlockoutRegistry.this.generation.get() && now - loadedAt < maxAgeMillis && covers( now );
+    }
+
+    boolean covers( long now ) {
+      return now >= windows.getStart() && now <= windows.getEnd();
+    }
+  }
+}
@@ -0,0 +1,290 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.scheduler2.quartz.QuartzJobKey;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+import org.quartz.Trigger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The blockout windows of a set of blockout triggers between two instants, merged into disjoint, sorted intervals held
+ * in primitive arrays, so that checking an instant is a binary search and checking ascending instants is a single
+ * forward sweep.
+ * <p>
+ * A window runs from a fire time of the blockout to fire time plus duration, inclusive, within the blockout's start and
+ * end time; a simple blockout fires no more often than its repeat count allows, and a complex one not before its start
+ * time. A simple blockout without a repeat interval is the open range between its start time and start time plus
+ * duration. Complex blockouts take their fire times from their own schedule; when one of them fires more than
+ * {@link #MAX_WINDOWS_PER_TRIGGER} times, {@link #getEnd()} is pulled in to its last indexed window. Simple blockouts
+ * that recur that often are not materialized but checked arithmetically. Triggers that cannot be turned into windows
+ * are logged and left out.
+ */
+public class BlockoutWindows {
+
+  static final int MAX_WINDOWS_PER_TRIGGER = 10000;
+
+  private static final Log logger = LogFactory.getLog( BlockoutWindows.class );
+
+  private static final long[] NONE = new long[ 0 ];
+
+  private final long start;
+
+  private long end;
+
+  private long[] starts = NONE;
+
+  private long[] ends = NONE;
+
+  private final List<Recurrence> recurrences = new ArrayList<>();
+
+  private BlockoutWindows( long start, long end ) {
+    this.start = start;
+    this.end = end;
+  }
+
+  /**
+   * @param blockOutTriggers the blockout triggers, with their durations set
+   * @param from             the first instant of interest
+   * @param to               the last instant of interest
+   * @return the windows of the triggers that contain an instant between {@code from} and {@code to}
+   */
+  public static BlockoutWindows build( List<IJobTrigger> blockOutTriggers, long from, long to ) {
+    BlockoutWindows windows = new BlockoutWindows( from, to );
+    WindowList list = new WindowList();
+    for ( IJobTrigger trigger : blockOutTriggers ) {
+      try {
+        windows.addWindows( trigger, list );
+      } catch ( SchedulerException | RuntimeException e ) {
+        logger.warn( "Blockout " + trigger + " is ignored", e ); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+    }
+    windows.merge( list );
+    return windows;
+  }
+
+  /**
+   * @return the first instant covered
+   */
+  public long getStart() {
+    return start;
+  }
+
+  /**
+   * @return the last instant covered, which is before the requested end when a blockout fires too often
+   */
+  public long getEnd() {
+    return end;
+  }
+
+  /**
+   * @return the number of merged windows held in the arrays
+   */
+  public int size() {
+    return starts.length;
+  }
+
+  /**
+   * @return whether no blockout is in effect at any instant covered
+   */
+  public boolean isEmpty() {
+    return starts.length == 0 && recurrences.isEmpty();
+  }
+
+  /**
+   * @param time an instant between {@link #getStart()} and {@link #getEnd()}
+   * @return whether a blockout is in effect at that instant
+   */
+  public boolean contains( long time ) {
+    int i = Arrays.binarySearch( starts, time );
+    if ( i < 0 ) {
+      // index of the last window starting before the time
+      i = -i - 2;
+    }
+    return ( i >= 0 && time <= ends[ i ] ) || isRecurring( time );
+  }
+
+  /**
+   * @return a cursor for checking instants in ascending order
+   */
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  private boolean isRecurring( long time ) {
+    for ( Recurrence recurrence : recurrences ) {
+      if ( recurrence.contains( time ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void addWindows( IJobTrigger trigger, WindowList list ) throws SchedulerException {
+    long triggerStart = trigger.getStartTime().getTime();
+    long triggerEnd = trigger.getEndTime() == null ? Long.MAX_VALUE : trigger.getEndTime().getTime();
+    long duration = trigger.getDuration();
+    if ( BlockoutManagerUtil.isComplexTrigger( trigger ) ) {
+      Trigger quartzTrigger =
+        QuartzScheduler.createQuartzTrigger( trigger, new QuartzJobKey( "test", "test" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+      // from the first fire time whose window reaches the start, but not before the blockout starts; the start time
+      // of the Quartz trigger is set too, as it defaults to now
+      Date after = new Date( Math.max( start - duration, triggerStart ) - 1 );
+      quartzTrigger.setStartTime( after );
+      Date fireTime = quartzTrigger.getFireTimeAfter( after );
+      int count = 0;
+      while ( fireTime != null && fireTime.getTime() <= end ) {
+        if ( ++count > MAX_WINDOWS_PER_TRIGGER ) {
+          end = fireTime.getTime() - 1;
+          break;
+        }
+        list.add( fireTime.getTime(), Math.min( fireTime.getTime() + duration, triggerEnd ) );
+        fireTime = quartzTrigger.getFireTimeAfter( fireTime );
+      }
+      return;
+    }
+    SimpleJobTrigger simpleTrigger = (SimpleJobTrigger) trigger;
+    long interval = simpleTrigger.getRepeatInterval() * 1000;
+    if ( interval <= 0 ) {
+      // a single blockout, which has always been treated as the open range between start and start + duration
+      list.add( triggerStart + 1, Math.min( triggerStart + duration - 1, triggerEnd ) );
+      return;
+    }
+    int repeatCount = simpleTrigger.getRepeatCount();
+    if ( repeatCount >= 0 ) {
+      // the blockout fires repeatCount + 1 times
+      triggerEnd = Math.min( triggerEnd, triggerStart + repeatCount * interval + duration );
+    }
+    long first = Math.max( 0, Math.floorDiv( start - triggerStart - duration, interval ) );
+    long last = Math.floorDiv( Math.min( end, triggerEnd ) - triggerStart, interval );
+    if ( repeatCount >= 0 ) {
+      last = Math.min( last, repeatCount );
+    }
+    if ( last - first >= MAX_WINDOWS_PER_TRIGGER ) {
+      recurrences.add( new Recurrence( triggerStart, triggerEnd, interval, duration ) );
+      return;
+    }
+    for ( long k = first; k <= last; k++ ) {
+      long windowStart = triggerStart + k * interval;
+      list.add( windowStart, Math.min( windowStart + duration, triggerEnd ) );
+    }
+  }
+
+  private void merge( WindowList list ) {
+    if ( list.size == 0 ) {
+      return;
+    }
+    // The starts and the ends are sorted separately, in place and without boxing. Their union is unchanged: at any
+    // instant as many windows start no later and end earlier as before, and the i-th smallest end is never before
+    // the i-th smallest start, so the pairs are still windows.
+    Arrays.sort( list.starts, 0, list.size );
+    Arrays.sort( list.ends, 0, list.size );
+
+    long[] mergedStarts = new long[ list.size ];
+    long[] mergedEnds = new long[ list.size ];
+    int count = 0;
+    for ( int i = 0; i < list.size; i++ ) {
+      long windowStart = list.starts[ i ];
+      long windowEnd = list.ends[ i ];
+      if ( count > 0 && windowStart <= mergedEnds[ count - 1 ] ) {
+        mergedEnds[ count - 1 ] = Math.max( mergedEnds[ count - 1 ], windowEnd );
+      } else {
+        mergedStarts[ count ] = windowStart;
+        mergedEnds[ count ] = windowEnd;
+        count++;
+      }
+    }
+    starts = Arrays.copyOf( mergedStarts, count );
+    ends = Arrays.copyOf( mergedEnds, count );
+  }
+
+  /**
+   * Checks instants in ascending order by walking the windows once, instead of searching them for every instant.
+   */
+  public class Cursor {
+    private int next;
+
+    /**
+     * @param time an instant no earlier than the one previously checked
+     * @return whether a blockout is in effect at that instant
+     */
+    public boolean contains( long time ) {
+      while ( next < ends.length && ends[ next ] < time ) {
+        next++;
+      }
+      return ( next < starts.length && starts[ next ] <= time ) || isRecurring( time );
+    }
+  }
+
+  /**
+   * A simple blockout recurring too often for its windows to be materialized.
+   */
+  private static class Recurrence {
+    final long start;
+
+    final long end;
+
+    final long interval;
+
+    final long duration;
+
+    Recurrence( long start, long end, long interval, long duration ) {
+      this.start = start;
+      this.end = end;
+      this.interval = interval;
+      this.duration = duration;
+    }
+
+    boolean contains( long time ) {
+      return time >= start && time <= end && Math.floorMod( time - start, interval ) <= duration;
+    }
+  }
+
+  private static class WindowList {
+    long[] starts = new long[ 64 ];
+
+    long[] ends = new long[ 64 ];
+
+    int size;
+
+    void add( long windowStart, long windowEnd ) {
+      if ( windowStart > windowEnd ) {
+        return;
+      }
+      if ( size == starts.length ) {
+        starts = Arrays.copyOf( starts, size * 2 );
+        ends = Arrays.copyOf( ends, size * 2 );
+      }
+      starts[ size ] = windowStart;
+      ends[ size ] = windowEnd;
+      size++;
+    }
+  }
+}
@@ -28,16 +28,25 @@ import org.pentaho.platform.api.scheduler2.IJob;
 import org.pentaho.platform.api.scheduler2.IJobFilter;
 import org.pentaho.platform.api.scheduler2.IJobTrigger;
 import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.api.scheduler2.JobCriteriaFilter;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.scheduler2.quartz.BlockingQuartzJob;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
 
 public class PentahoBlockoutManager implements IBlockoutManager {
 
   private IScheduler scheduler;
 
   public PentahoBlockoutManager() {
-    this.scheduler = PentahoSystem.get( IScheduler.class, "IScheduler2", null ); //$NON-NLS-1$
+    this( PentahoSystem.get( IScheduler.class, "IScheduler2", null ) ); //$NON-NLS-1$
+  }
+
+  /**
+   * @param scheduler the scheduler whose blockouts are managed
+   */
+  public PentahoBlockoutManager( IScheduler scheduler ) {
+    this.scheduler = scheduler;
   }
 
   public IJobTrigger getBlockOut( String blockOutJobId ) {
@@ -54,16 +63,15 @@ public class PentahoBlockoutManager implements IBlockoutManager {
   @Override
   public List<IJob> getBlockOutJobs() {
     try {
-      List<IJob> jobs = scheduler.getJobs( new IJobFilter() {
+      JobCriteriaFilter filter = new JobCriteriaFilter();
+      filter.setJobNames( BLOCK_OUT_JOB_NAME );
+      filter.setFilter( new IJobFilter() {
         @Override public boolean accept( IJob job ) {
-          if ( BLOCK_OUT_JOB_NAME.equals( job.getJobName() ) ) {
-            job.getJobTrigger().setDuration( ( (Number) job.getJobParams().get( DURATION_PARAM ) ).longValue() );
-            return true;
-          }
-          return false;
+          job.getJobTrigger().setDuration( ( (Number) job.getJobParams().get( DURATION_PARAM ) ).longValue() );
+          return true;
         }
       } );
-      return jobs;
+      return scheduler.getJobs( filter );
     } catch ( SchedulerException e ) {
       throw new RuntimeException( e );
     }
@@ -77,6 +85,10 @@ public class PentahoBlockoutManager implements IBlockoutManager {
 
   @Override
   public boolean shouldFireNow() {
+    if ( this.scheduler instanceof QuartzScheduler ) {
+      return ( (QuartzScheduler) this.scheduler ).getBlockoutRegistry()
+        .shouldFireNow( this::getBlockOutJobTriggers );
+    }
     return BlockoutManagerUtil.shouldFireNow( getBlockOutJobTriggers(), this.scheduler );
   }
 
@@ -85,24 +97,24 @@ public class PentahoBlockoutManager implements IBlockoutManager {
 
     List<IJob> scheduledJobs = new ArrayList<>();
     try {
-      scheduledJobs = this.scheduler.getJobs( new IJobFilter() {
-
-        @Override
-        public boolean accept( IJob job ) {
-          return !BLOCK_OUT_JOB_NAME.equals( job.getJobName() );
-        }
-      } );
+      JobCriteriaFilter filter = new JobCriteriaFilter();
+      filter.setExcludedJobNames( BLOCK_OUT_JOB_NAME );
+      scheduledJobs = this.scheduler.getJobs( filter );
     } catch ( SchedulerException e ) {
       throw new RuntimeException( e );
     }
 
-    // Loop over trigger group names
+    List<IJobTrigger> scheduleTriggers = new ArrayList<>( scheduledJobs.size() );
     for ( IJob scheduledJob : scheduledJobs ) {
+      scheduleTriggers.add( scheduledJob.getJobTrigger() );
+    }
+    BlockoutImpactAnalyzer.Impact[] impacts = getBlockoutImpactAnalyzer().analyze( testBlockOutJobTrigger,
+      scheduleTriggers );
+    for ( int i = 0; i < impacts.length; i++ ) {
 
       // Add schedule to list if block out conflicts at all
-      if ( BlockoutManagerUtil.willBlockSchedule( scheduledJob.getJobTrigger(),
-              testBlockOutJobTrigger, this.scheduler ) ) {
-        blockedSchedules.add( scheduledJob.getJobTrigger() );
+      if ( impacts[ i ] != BlockoutImpactAnalyzer.Impact.NONE ) {
+        blockedSchedules.add( scheduleTriggers.get( i ) );
       }
     }
 
@@ -114,6 +126,13 @@ public class PentahoBlockoutManager implements IBlockoutManager {
     return BlockoutManagerUtil.isPartiallyBlocked( scheduleJobTrigger, getBlockOutJobTriggers(), this.scheduler );
   }
 
+  private BlockoutImpactAnalyzer getBlockoutImpactAnalyzer() {
+    if ( this.scheduler instanceof QuartzScheduler ) {
+      return ( (QuartzScheduler) this.scheduler ).getBlockoutImpactAnalyzer();
+    }
+    return new BlockoutImpactAnalyzer( 1 );
+  }
+
   private List<IJobTrigger> getBlockOutJobTriggers() {
     List<IJobTrigger> blockOutJobTriggers = new ArrayList<IJobTrigger>();
 
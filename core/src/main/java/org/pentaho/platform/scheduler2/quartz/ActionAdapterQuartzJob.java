@@ -68,6 +68,20 @@ public class ActionAdapterQuartzJob implements Job {
 
   private IActionInvoker actionInvoker = new DefaultActionInvoker(); // default
 
+  // the metrics of the scheduler, passed down by the job that runs this one
+  private final SchedulerMetrics metrics;
+
+  public ActionAdapterQuartzJob() {
+    this( null );
+  }
+
+  /**
+   * @param metrics the metrics of the scheduler, or {@code null} if they are disabled
+   */
+  public ActionAdapterQuartzJob( SchedulerMetrics metrics ) {
+    this.metrics = metrics;
+  }
+
   @Override
   public void execute( JobExecutionContext context ) throws JobExecutionException {
     JobDataMap jobDataMap = context.getMergedJobDataMap();
@@ -158,10 +172,14 @@ public class ActionAdapterQuartzJob implements Job {
 
     // creates an instance of IActionInvoker, which knows how to invoke this IAction - if the IActionInvoker bean is
     // not defined through spring, fall back on the default action invoker
+    long stageStart = System.nanoTime();
     final IActionInvoker actionInvoker = Optional.ofNullable( PentahoSystem.get( IActionInvoker.class ) ).orElse(
       getActionInvoker() );
+    ExecutionTrace.recordStage( "invokerLookup", stageStart ); //$NON-NLS-1$
     // Instantiate the requested IAction bean
+    stageStart = System.nanoTime();
     final IAction actionBean = (IAction) ActionUtil.createActionBean( actionClassName, actionId );
+    ExecutionTrace.recordStage( "createActionBean", stageStart ); //$NON-NLS-1$
 
     if ( actionInvoker == null ||  actionBean == null ) {
       final String failureMessage = Messages.getInstance().getErrorString(
@@ -175,8 +193,28 @@ public class ActionAdapterQuartzJob implements Job {
       params.put( IBlockoutManager.SCHEDULED_FIRE_TIME, context.getScheduledFireTime() );
     }
 
+    checkCancelled( context );
+
     // Invoke the action and get the status of the invocation
-    final IActionInvokeStatus status = actionInvoker.invokeAction( actionBean, actionUser, getSerializableMap( params ) );
+    final SchedulerMetrics metrics = getMetrics();
+    final String actionType = metrics != null ? JobAdmissionControl.getActionType( params ) : null;
+    stageStart = System.nanoTime();
+    final Map<String, Serializable> serializableParams = getSerializableMap( params );
+    ExecutionTrace.recordStage( "serializeParams", stageStart ); //$NON-NLS-1$
+    final long invocationStart = System.currentTimeMillis();
+    stageStart = System.nanoTime();
+    final IActionInvokeStatus status;
+    try {
+      status = actionInvoker.invokeAction( actionBean, actionUser, serializableParams );
+    } finally {
+      ExecutionTrace.recordStage( "invokeAction", stageStart ); //$NON-NLS-1$
+      if ( metrics != null ) {
+        metrics.recordInvocation( actionType, System.currentTimeMillis() - invocationStart );
+      }
+    }
+
+    // a cancelled run is not restarted, whatever the action made of the interrupt
+    checkCancelled( context );
 
     // Status may not be available for remote execution, which is expected
     if ( status == null ) {
@@ -214,6 +252,9 @@ public class ActionAdapterQuartzJob implements Job {
       Object restartFlag = jobParams.get( QuartzScheduler.RESERVEDMAPKEY_RESTART_FLAG );
       if ( restartFlag == null ) {
         final SimpleJobTrigger trigger = new SimpleJobTrigger( new Date(), null, 0, 0 );
+        if ( context.getTrigger() != null ) {
+          trigger.setPriority( context.getTrigger().getPriority() );
+        }
         final Class<IAction> iaction = (Class<IAction>) actionBean.getClass();
         // recreate the job in the context of the original creator
         SecurityHelper.getInstance().runAsUser( actionUser, new Callable<Void>() {
@@ -227,6 +268,9 @@ public class ActionAdapterQuartzJob implements Job {
             jobParams.put( QuartzScheduler.RESERVEDMAPKEY_RESTART_FLAG, Boolean.TRUE );
             WorkItemLifecycleEventUtil.publish( workItemName, params, WorkItemLifecyclePhase.RESTARTED );
             scheduler.createJob( jobName, iaction, jobParams, trigger, streamProvider );
+            if ( metrics != null ) {
+              metrics.recordRestart();
+            }
             log.warn( "New RunOnce job created for " + jobName + " -> possible startup synchronization error" );
             return null;
           }
@@ -289,7 +333,24 @@ public class ActionAdapterQuartzJob implements Job {
 
   }
 
+  /**
+   * @throws LoggingJobExecutionException if the run has been cancelled by the watchdog or through the scheduler
+   */
+  private void checkCancelled( JobExecutionContext context ) throws LoggingJobExecutionException {
+    if ( JobWatchdog.isCancelled() ) {
+      throw new LoggingJobExecutionException(
+        "The run of job '" + context.getJobDetail().getName() + "' was cancelled" ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+  }
+
   public IActionInvoker getActionInvoker() {
     return actionInvoker;
   }
+
+  /**
+   * @return the metrics of the scheduler, or {@code null} if they are disabled
+   */
+  protected SchedulerMetrics getMetrics() {
+    return metrics;
+  }
 }
@@ -0,0 +1,626 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.engine.core.audit.AuditHelper;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the audit records of scheduled jobs on a background thread, so that the latency of the audit database is not
+ * added to the run of every job nor holds a Quartz worker thread. Records are put in a queue of at most
+ * {@link #getQueueCapacity()} records, which the writer thread drains in batches of up to {@link #getBatchSize()}
+ * records, in the order they were submitted.
+ * <p>
+ * When the queue is full the {@link OverflowPolicy} applies: the job thread waits for room, the record is dropped and
+ * counted, or the record is appended to a local spill file, which the writer thread replays once the queue is empty.
+ * A spill file left over by a previous process is replayed too. {@link #flush()} writes the queued records on the
+ * calling thread and stops the writer thread, e.g. when the scheduler shuts down; the next record submitted starts it
+ * again.
+ * <p>
+ * As the audit entries are timestamped when they are written, a record is dated a little after the event it records,
+ * by the time it spent in the queue; records replayed from the spill file are dated when they are replayed.
+ */
+public class AuditRecordWriter {
+
+  public static final String PROP_ASYNC_ENABLED = "org.pentaho.scheduler.audit.async.enabled"; //$NON-NLS-1$
+
+  public static final String PROP_QUEUE_SIZE = "org.pentaho.scheduler.audit.async.queueSize"; //$NON-NLS-1$
+
+  public static final String PROP_BATCH_SIZE = "org.pentaho.scheduler.audit.async.batchSize"; //$NON-NLS-1$
+
+  public static final String PROP_OVERFLOW_POLICY = "org.pentaho.scheduler.audit.async.overflowPolicy"; //$NON-NLS-1$
+
+  public static final String PROP_SPILL_FILE = "org.pentaho.scheduler.audit.async.spillFile"; //$NON-NLS-1$
+
+  static final int DEFAULT_QUEUE_SIZE = 10000;
+
+  static final int DEFAULT_BATCH_SIZE = 100;
+
+  static final String DEFAULT_SPILL_FILE_NAME = "pentaho-scheduler-audit.spill"; //$NON-NLS-1$
+
+  /**
+   * How long the writer thread waits for a record before it checks whether to replay the spill file or stop.
+   */
+  static final long POLL_MILLIS = 100;
+
+  static final long STOP_WAIT_MILLIS = 30000;
+
+  private static final String NULL_FIELD = "\\N"; //$NON-NLS-1$
+
+  private static final Log logger = LogFactory.getLog( AuditRecordWriter.class );
+
+  /**
+   * What happens to a record submitted while the queue is full.
+   */
+  public enum OverflowPolicy {
+    /** the submitting thread waits for room in the queue */
+    BLOCK,
+    /** the record is dropped and counted */
+    DROP,
+    /** the record is appended to the spill file and written once the queue is empty */
+    SPILL
+  }
+
+  /**
+   * Where the records are written to.
+   */
+  interface Sink {
+    void write( AuditRecord record );
+  }
+
+  private final BlockingQueue<AuditRecord> queue;
+
+  private final int batchSize;
+
+  private final OverflowPolicy overflowPolicy;
+
+  private final File spillFile;
+
+  private final File replayFile;
+
+  private final Sink sink;
+
+  private final Object spillLock = new Object();
+
+  private volatile boolean spillPending;
+
+  // guarded by this
+
+  private Thread writerThread;
+
+  private volatile boolean stopping;
+
+  private final AtomicLong submittedCount = new AtomicLong();
+
+  private final AtomicLong writtenCount = new AtomicLong();
+
+  private final AtomicLong failedCount = new AtomicLong();
+
+  private final AtomicLong droppedCount = new AtomicLong();
+
+  private final AtomicLong spilledCount = new AtomicLong();
+
+  private final AtomicLong blockedCount = new AtomicLong();
+
+  private final AtomicLong batchCount = new AtomicLong();
+
+  private final AtomicLong totalFlushNanos = new AtomicLong();
+
+  private final AtomicLong maxFlushNanos = new AtomicLong();
+
+  private volatile long lastFlushNanos;
+
+  /**
+   * @param queueSize      the number of records queued at most
+   * @param batchSize      the number of records written per batch at most
+   * @param overflowPolicy what happens to a record submitted while the queue is full
+   * @param spillFile      the file overflowing records are appended to with {@link OverflowPolicy#SPILL}
+   */
+  public AuditRecordWriter( int queueSize, int batchSize, OverflowPolicy overflowPolicy, File spillFile ) {
+    this( queueSize, batchSize, overflowPolicy, spillFile, AuditRecord::write );
+  }
+
+  AuditRecordWriter( int queueSize, int batchSize, OverflowPolicy overflowPolicy, File spillFile, Sink sink ) {
+    if ( queueSize <= 0 || batchSize <= 0 ) {
+      throw new IllegalArgumentException(
+        "queueSize and batchSize must be positive: " + queueSize + ", " + batchSize ); //$NON-NLS-1$
+    }
+    this.queue = new ArrayBlockingQueue<>( queueSize );
+    this.batchSize = batchSize;
+    this.overflowPolicy = overflowPolicy;
+    this.spillFile = spillFile;
+    this.replayFile = new File( spillFile.getPath() + ".replay" ); //$NON-NLS-1$
+    this.sink = sink;
+    this.spillPending = spillFile.exists() || replayFile.exists();
+  }
+
+  /**
+   * @param quartzProperties the properties of the Quartz scheduler, or {@code null}
+   * @return the writer configured by the {@code org.pentaho.scheduler.audit.async.*} properties, or {@code null} if
+   * audit records are written on the job threads
+   */
+  public static AuditRecordWriter create( Properties quartzProperties ) {
+    if ( quartzProperties == null
+      || !Boolean.parseBoolean( quartzProperties.getProperty( PROP_ASYNC_ENABLED, "false" ) ) ) { //$NON-NLS-1$
+      return null;
+    }
+    OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+    String policy = quartzProperties.getProperty( PROP_OVERFLOW_POLICY );
+    if ( policy != null ) {
+      try {
+        overflowPolicy = OverflowPolicy.valueOf( policy.trim().toUpperCase( Locale.ROOT ) );
+      } catch ( IllegalArgumentException e ) {
+        logger.warn( "Invalid " + PROP_OVERFLOW_POLICY + " '" + policy //$NON-NLS-1$ //$NON-NLS-2$
+          + "', using " + overflowPolicy ); //$NON-NLS-1$
+      }
+    }
+    String spillFile = quartzProperties.getProperty( PROP_SPILL_FILE );
+    return new AuditRecordWriter( getPositiveInt( quartzProperties, PROP_QUEUE_SIZE, DEFAULT_QUEUE_SIZE ),
+      getPositiveInt( quartzProperties, PROP_BATCH_SIZE, DEFAULT_BATCH_SIZE ), overflowPolicy,
+      spillFile != null && !spillFile.trim().isEmpty() ? new File( spillFile.trim() )
+        : new File( System.getProperty( "java.io.tmpdir" ), DEFAULT_SPILL_FILE_NAME ) ); //$NON-NLS-1$
+  }
+
+  private static int getPositiveInt( Properties quartzProperties, String name, int defaultValue ) {
+    String value = quartzProperties.getProperty( name );
+    if ( value == null ) {
+      return defaultValue;
+    }
+    try {
+      int parsed = Integer.parseInt( value.trim() );
+      if ( parsed > 0 ) {
+        return parsed;
+      }
+    } catch ( NumberFormatException e ) {
+      // warned below
+    }
+    logger.warn( "Invalid " + name + " '" + value + "', using " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+      + defaultValue );
+    return defaultValue;
+  }
+
+  public int getQueueCapacity() {
+    return queue.size() + queue.remainingCapacity();
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  public File getSpillFile() {
+    return spillFile;
+  }
+
+  /**
+   * @return the number of records waiting in the queue
+   */
+  public int getQueueDepth() {
+    return queue.size();
+  }
+
+  public long getSubmittedCount() {
+    return submittedCount.get();
+  }
+
+  /**
+   * @return the number of records written, including those replayed from the spill file
+   */
+  public long getWrittenCount() {
+    return writtenCount.get();
+  }
+
+  /**
+   * @return the number of records that could not be written
+   */
+  public long getFailedCount() {
+    return failedCount.get();
+  }
+
+  /**
+   * @return the number of records dropped as the queue was full, or as they could not be spilled
+   */
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  /**
+   * @return the number of records appended to the spill file
+   */
+  public long getSpilledCount() {
+    return spilledCount.get();
+  }
+
+  /**
+   * @return the number of records whose job thread waited for room in the queue
+   */
+  public long getBlockedCount() {
+    return blockedCount.get();
+  }
+
+  /**
+   * @return the number of batches written
+   */
+  public long getBatchCount() {
+    return batchCount.get();
+  }
+
+  /**
+   * @return how long the last batch took to write, in milliseconds
+   */
+  public long getLastFlushMillis() {
+    return TimeUnit.NANOSECONDS.toMillis( lastFlushNanos );
+  }
+
+  /**
+   * @return how long the slowest batch took to write, in milliseconds
+   */
+  public long getMaxFlushMillis() {
+    return TimeUnit.NANOSECONDS.toMillis( maxFlushNanos.get() );
+  }
+
+  /**
+   * @return how long a batch took to write on average, in milliseconds
+   */
+  public double getAverageFlushMillis() {
+    long batches = batchCount.get();
+    return batches == 0 ? 0 : totalFlushNanos.get() / 1e6 / batches;
+  }
+
+  /**
+   * Queues a record for the writer thread, starting it if needed.
+   *
+   * @param record the record
+   */
+  public void submit( AuditRecord record ) {
+    submittedCount.incrementAndGet();
+    ensureStarted();
+    if ( queue.offer( record ) ) {
+      return;
+    }
+    switch ( overflowPolicy ) {
+      case DROP:
+        droppedCount.incrementAndGet();
+        break;
+      case SPILL:
+        spill( record );
+        break;
+      default:
+        blockedCount.incrementAndGet();
+        try {
+          queue.put( record );
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+          // written here rather than lost
+          write( Collections.singletonList( record ) );
+        }
+    }
+  }
+
+  /**
+   * Writes the queued records, and those of the spill file, on the calling thread once the writer thread has stopped.
+   * The next record submitted starts the writer thread again.
+   */
+  public synchronized void flush() {
+    Thread thread = writerThread;
+    if ( thread != null ) {
+      stopping = true;
+      try {
+        thread.join( STOP_WAIT_MILLIS );
+        if ( thread.isAlive() ) {
+          logger.warn( "The audit writer did not stop within " + STOP_WAIT_MILLIS + " ms" ); //$NON-NLS-1$ //$NON-NLS-2$
+          thread.interrupt();
+          thread.join( STOP_WAIT_MILLIS );
+        }
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      } finally {
+        stopping = false;
+        writerThread = null;
+      }
+    }
+    List<AuditRecord> batch = new ArrayList<>( batchSize );
+    while ( queue.drainTo( batch, batchSize ) > 0 ) {
+      write( batch );
+      batch.clear();
+    }
+    replaySpill();
+  }
+
+  private synchronized void ensureStarted() {
+    if ( writerThread == null ) {
+      writerThread = new Thread( this::run, "PentahoAuditWriter" ); //$NON-NLS-1$
+      writerThread.setDaemon( true );
+      writerThread.start();
+    }
+  }
+
+  private void run() {
+    List<AuditRecord> batch = new ArrayList<>( batchSize );
+    try {
+      while ( true ) {
+        AuditRecord first = queue.poll( POLL_MILLIS, TimeUnit.MILLISECONDS );
+        if ( first == null ) {
+          if ( stopping ) {
+            return;
+          }
+          replaySpill();
+          continue;
+        }
+        batch.add( first );
+        queue.drainTo( batch, batchSize - 1 );
+        write( batch );
+        batch.clear();
+      }
+    } catch ( InterruptedException e ) {
+      // stopping; the remaining records are written by flush
+    }
+  }
+
+  private void write( List<AuditRecord> batch ) {
+    long start = System.nanoTime();
+    for ( AuditRecord record : batch ) {
+      try {
+        sink.write( record );
+        writtenCount.incrementAndGet();
+      } catch ( RuntimeException e ) {
+        failedCount.incrementAndGet();
+        logger.warn( "Cannot write audit record " + record, e ); //$NON-NLS-1$
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+    lastFlushNanos = elapsed;
+    maxFlushNanos.accumulateAndGet( elapsed, Math::max );
+    totalFlushNanos.addAndGet( elapsed );
+    batchCount.incrementAndGet();
+  }
+
+  private void spill( AuditRecord record ) {
+    synchronized ( spillLock ) {
+      try ( Writer writer = Files.newBufferedWriter( spillFile.toPath(), StandardCharsets.UTF_8,
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND ) ) {
+        writer.write( record.toLine() );
+        writer.write( '\n' );
+        spilledCount.incrementAndGet();
+        spillPending = true;
+      } catch ( IOException e ) {
+        droppedCount.incrementAndGet();
+        logger.warn( "Cannot spill audit record " + record + " to " + spillFile, e ); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+    }
+  }
+
+  // called by one thread at a time: the writer thread, or flush once it has stopped
+  private void replaySpill() {
+    if ( !spillPending ) {
+      return;
+    }
+    synchronized ( spillLock ) {
+      spillPending = false;
+      if ( !replayFile.exists() ) {
+        if ( !spillFile.exists() ) {
+          return;
+        }
+        if ( !spillFile.renameTo( replayFile ) ) {
+          logger.warn( "Cannot move " + spillFile + " to " + replayFile ); //$NON-NLS-1$ //$NON-NLS-2$
+          return;
+        }
+      } else if ( spillFile.exists() ) {
+        // replayed next time
+        spillPending = true;
+      }
+    }
+    List<AuditRecord> batch = new ArrayList<>( batchSize );
+    try ( BufferedReader reader = Files.newBufferedReader( replayFile.toPath(), StandardCharsets.UTF_8 ) ) {
+      for ( String line = reader.readLine(); line != null; line = reader.readLine() ) {
+        AuditRecord record = AuditRecord.fromLine( line );
+        if ( record == null ) {
+          failedCount.incrementAndGet();
+          logger.warn( "Cannot read spilled audit record '" + line + "'" ); //$NON-NLS-1$ //$NON-NLS-2$
+          continue;
+        }
+        batch.add( record );
+        if ( batch.size() == batchSize ) {
+          write( batch );
+          batch.clear();
+        }
+      }
+    } catch ( IOException e ) {
+      logger.warn( "Cannot replay the audit records spilled to " + replayFile, e ); //$NON-NLS-1$
+      return;
+    }
+    if ( !batch.isEmpty() ) {
+      write( batch );
+    }
+    if ( !replayFile.delete() ) {
+      logger.warn( "Cannot delete " + replayFile ); //$NON-NLS-1$
+    }
+  }
+
+  /**
+   * The arguments of an {@link AuditHelper#audit} call.
+   */
+  public static class AuditRecord {
+    private final String instanceId;
+
+    private final String userId;
+
+    private final String actionName;
+
+    private final String objectType;
+
+    private final String processId;
+
+    private final String messageType;
+
+    private final String message;
+
+    private final float duration;
+
+    public AuditRecord( String instanceId, String userId, String actionName, String objectType, String processId,
+                        String messageType, String message, float duration ) {
+      this.instanceId = instanceId;
+      this.userId = userId;
+      this.actionName = actionName;
+      this.objectType = objectType;
+      this.processId = processId;
+      this.messageType = messageType;
+      this.message = message;
+      this.duration = duration;
+    }
+
+    public String getInstanceId() {
+      return instanceId;
+    }
+
+    public String getUserId() {
+      return userId;
+    }
+
+    public String getActionName() {
+      return actionName;
+    }
+
+    public String getObjectType() {
+      return objectType;
+    }
+
+    public String getProcessId() {
+      return processId;
+    }
+
+    public String getMessageType() {
+      return messageType;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+
+    public float getDuration() {
+      return duration;
+    }
+
+    /**
+     * Writes the record to the audit log on the calling thread.
+     */
+    public void write() {
+      AuditHelper.audit( instanceId, userId, actionName, objectType, processId, messageType, message, null, duration,
+        null );
+    }
+
+    String toLine() {
+      StringBuilder line = new StringBuilder();
+      for ( String field : new String[] { instanceId, userId, actionName, objectType, processId, messageType,
+        message } ) {
+        line.append( escape( field ) ).append( '\t' );
+      }
+      return line.append( duration ).toString();
+    }
+
+    /**
+     * @return the record written by {@link #toLine()}, or {@code null} if the line is not one
+     */
+    static AuditRecord fromLine( String line ) {
+      String[] fields = line.split( "\t", -1 ); //$NON-NLS-1$
+      if ( fields.length != 8 ) {
+        return null;
+      }
+      try {
+        return new AuditRecord( unescape( fields[ 0 ] ), unescape( fields[ 1 ] ), unescape( fields[ 2 ] ),
+          unescape( fields[ 3 ] ), unescape( fields[ 4 ] ), unescape( fields[ 5 ] ), unescape( fields[ 6 ] ),
+          Float.parseFloat( fields[ 7 ] ) );
+      } catch ( NumberFormatException e ) {
+        return null;
+      }
+    }
+
+    private static String escape( String field ) {
+      if ( field == null ) {
+        return NULL_FIELD;
+      }
+      StringBuilder escaped = new StringBuilder( field.length() );
+      for ( int i = 0; i < field.length(); i++ ) {
+        char c = field.charAt( i );
+        switch ( c ) {
+          case '\\':
+            escaped.append( "\\\\" ); //$NON-NLS-1$
+            break;
+          case '\t':
+            escaped.append( "\\t" ); //$NON-NLS-1$
+            break;
+          case '\n':
+            escaped.append( "\\n" ); //$NON-NLS-1$
+            break;
+          case '\r':
+            escaped.append( "\\r" ); //$NON-NLS-1$
+            break;
+          default:
+            escaped.append( c );
+        }
+      }
+      return escaped.toString();
+    }
+
+    private static String unescape( String field ) {
+      if ( NULL_FIELD.equals( field ) ) {
+        return null;
+      }
+      StringBuilder unescaped = new StringBuilder( field.length() );
+      for ( int i = 0; i < field.length(); i++ ) {
+        char c = field.charAt( i );
+        if ( c == '\\' && i + 1 < field.length() ) {
+          char next = field.charAt( ++i );
+          unescaped.append( next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next );
+        } else {
+          unescaped.append( c );
+        }
+      }
+      return unescaped.toString();
+    }
+
+    @Override
+    public String toString() {
+      return "AuditRecord[processId=" + processId + ", messageType=" + messageType //$NON-NLS-1$ //$NON-NLS-2$
+        + ", message=" + message + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+  }
+}
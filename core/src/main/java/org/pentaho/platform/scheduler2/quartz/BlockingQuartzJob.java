@@ -23,25 +23,37 @@ package org.pentaho.platform.scheduler2.quartz;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.pentaho.platform.api.scheduler2.IBlockoutManager;
-import org.pentaho.platform.engine.core.audit.AuditHelper;
+import org.pentaho.platform.api.scheduler2.JobTrigger;
 import org.pentaho.platform.engine.core.audit.MDCUtil;
 import org.pentaho.platform.engine.core.audit.MessageTypes;
 import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.scheduler2.blockout.BlockoutAction;
+import org.pentaho.platform.scheduler2.blockout.BlockoutRegistry;
 import org.pentaho.platform.scheduler2.blockout.PentahoBlockoutManager;
+import org.quartz.InterruptableJob;
 import org.quartz.Job;
 import org.quartz.JobDataMap;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.UnableToInterruptJobException;
 
 /**
  * A Quartz job that checks if execution is currently suspended before passing on to the underlying job
  * 
  * @author kwalker
  */
-public class BlockingQuartzJob implements Job {
+public class BlockingQuartzJob implements InterruptableJob {
+
+  // the run in progress, which Quartz creates an instance of this job for
+  private volatile JobWatchdog.Execution execution;
+
+  // the scheduler whose components the run uses, looked up once at its start
+  private QuartzScheduler scheduler;
+
   public void execute( final JobExecutionContext jobExecutionContext ) throws JobExecutionException {
+    scheduler = getScheduler();
     JobDataMap jobDataMap = null;
     if ( jobExecutionContext.getJobDetail() != null && jobExecutionContext.getJobDetail().getJobDataMap() != null ) {
       jobDataMap = jobExecutionContext.getJobDetail().getJobDataMap();
@@ -55,13 +67,62 @@ public class BlockingQuartzJob implements Job {
     String messageType = jobRestarted ? MessageTypes.RECREATED_INSTANCE_START : MessageTypes.INSTANCE_START;
     long start = System.currentTimeMillis();
     long end = start;
+    boolean started = false;
+    SchedulerMetrics metrics = getMetrics();
+    if ( metrics != null ) {
+      metrics.recordFire( SchedulerMetrics.getFireLag( jobExecutionContext ) );
+    }
+    ExecutionTrace trace = beginTrace( jobDataMap, jobExecutionContext );
+    long stageStart = System.nanoTime();
     try {
-      if ( getBlockoutManager().shouldFireNow() || isBlockoutAction( jobExecutionContext ) ) { // We should always let the blockouts fire //$NON-NLS-1$
-        makeAuditRecord( 0, messageType, jobExecutionContext );
-        createUnderlyingJob().execute( jobExecutionContext );
-        end = System.currentTimeMillis();
-        messageType = jobRestarted ? MessageTypes.RECREATED_INSTANCE_END : MessageTypes.INSTANCE_END;
+      // A blockout that fired records its window, which is checked first as it costs no lookups
+      BlockoutRegistry blockoutRegistry = getBlockoutRegistry();
+      boolean inBlockout = blockoutRegistry != null && blockoutRegistry.isInBlockout();
+      // We should always let the blockouts fire
+      boolean fire = ( !inBlockout && getBlockoutManager().shouldFireNow() ) || isBlockoutAction( jobExecutionContext );
+      ExecutionTrace.recordStage( "blockoutCheck", stageStart ); //$NON-NLS-1$
+      if ( fire ) {
+        stageStart = System.nanoTime();
+        JobAdmissionControl.Permit permit = admit( jobDataMap, jobExecutionContext );
+        ExecutionTrace.recordStage( "admission", stageStart ); //$NON-NLS-1$
+        if ( permit == null ) {
+          if ( metrics != null ) {
+            metrics.recordRejectedFire();
+          }
+          // skipped like a fire during a blockout, so neither the failures nor the durations of the job include it
+          getLogger().warn(
+              "Job '" + jobExecutionContext.getJobDetail().getName()
+                  + "' was not admitted as too many jobs of its type are running or waiting."
+                  + "  This job was not executed" );
+        } else {
+          try {
+            // the time spent waiting for admission is not part of the run
+            start = System.currentTimeMillis();
+            stageStart = System.nanoTime();
+            makeAuditRecord( 0, messageType, jobExecutionContext );
+            ExecutionTrace.recordStage( "audit", stageStart ); //$NON-NLS-1$
+            started = true;
+            execution = beginExecution( jobDataMap, jobExecutionContext );
+            stageStart = System.nanoTime();
+            createUnderlyingJob().execute( jobExecutionContext );
+            end = System.currentTimeMillis();
+            messageType = jobRestarted ? MessageTypes.RECREATED_INSTANCE_END : MessageTypes.INSTANCE_END;
+          } finally {
+            if ( started ) {
+              ExecutionTrace.recordStage( "job", stageStart ); //$NON-NLS-1$
+            }
+            if ( execution != null ) {
+              // returns the worker to the pool without the interrupt of a cancellation
+              execution.close();
+              execution = null;
+            }
+            permit.close();
+          }
+        }
       } else {
+        if ( metrics != null ) {
+          metrics.recordBlockedFire();
+        }
         getLogger().warn(
             "Job '" + jobExecutionContext.getJobDetail().getName()
                 + "' attempted to run during a blockout period.  This job was not executed" );
@@ -81,16 +142,176 @@ public class BlockingQuartzJob implements Job {
       end = System.currentTimeMillis();
       messageType = jobRestarted ? MessageTypes.RECREATED_INSTANCE_END : MessageTypes.INSTANCE_END;
     } finally {
-      makeAuditRecord( ( (float) ( end - start ) / 1000 ), messageType, jobExecutionContext );
+      try {
+        stageStart = System.nanoTime();
+        makeAuditRecord( ( (float) ( end - start ) / 1000 ), messageType, jobExecutionContext );
+        ExecutionTrace.recordStage( "audit", stageStart ); //$NON-NLS-1$
+        recordRun( start, end, messageType, started, jobDataMap, jobExecutionContext );
+        if ( metrics != null && started && jobDataMap != null ) {
+          metrics.recordExecution( JobAdmissionControl.getActionType( jobDataMap.getWrappedMap() ),
+            ( end > start ? end : System.currentTimeMillis() ) - start, !isEnd( messageType ) );
+        }
+      } finally {
+        if ( trace != null ) {
+          // unbinds the trace from the worker thread
+          trace.finish( getOutcome( messageType, started ) );
+        }
+      }
+    }
+  }
+
+  private static boolean isEnd( String messageType ) {
+    return MessageTypes.INSTANCE_END.equals( messageType )
+      || MessageTypes.RECREATED_INSTANCE_END.equals( messageType );
+  }
+
+  private static boolean isFailed( String messageType ) {
+    return MessageTypes.INSTANCE_FAILED.equals( messageType )
+      || MessageTypes.RECREATED_INSTANCE_FAILED.equals( messageType );
+  }
+
+  /**
+   * @param started whether the underlying job was started; a job that started but neither ended nor failed has thrown
+   * @return how a run that ended with the given audit message type ended
+   */
+  static JobHistoryStore.Outcome getOutcome( String messageType, boolean started ) {
+    if ( isEnd( messageType ) ) {
+      return JobHistoryStore.Outcome.SUCCEEDED;
+    }
+    return isFailed( messageType ) || started ? JobHistoryStore.Outcome.FAILED : JobHistoryStore.Outcome.SKIPPED;
+  }
+
+  /**
+   * Begins the trace of the run in the flight recorder of the scheduler, if any. Blockouts are not traced.
+   *
+   * @return the trace, bound to the calling thread, or {@code null} if the run is not traced
+   */
+  ExecutionTrace beginTrace( JobDataMap jobDataMap, JobExecutionContext jobExecutionContext ) {
+    ExecutionTraceRecorder traceRecorder = getTraceRecorder();
+    if ( traceRecorder == null || jobDataMap == null
+      || BlockoutAction.class.getName().equals( jobDataMap.get( QuartzScheduler.RESERVEDMAPKEY_ACTIONCLASS ) ) ) {
+      return null;
+    }
+    return traceRecorder.begin( jobExecutionContext.getJobDetail().getName(),
+      JobAdmissionControl.getActionType( jobDataMap.getWrappedMap() ) );
+  }
+
+  ExecutionTraceRecorder getTraceRecorder() {
+    return scheduler != null ? scheduler.getTraceRecorder() : null;
+  }
+
+  /**
+   * Cancels the run in progress, if any: it is stopped at its next stage and its thread is interrupted.
+   */
+  @Override
+  public void interrupt() throws UnableToInterruptJobException {
+    JobWatchdog.Execution current = execution;
+    if ( current == null ) {
+      throw new UnableToInterruptJobException( "The job is not running" ); //$NON-NLS-1$
     }
+    current.cancel();
+  }
+
+  /**
+   * Begins the run of the underlying job, watched for overruns by the watchdog of the scheduler, if any. Blockouts are
+   * not watched.
+   *
+   * @return the run, bound to the calling thread
+   */
+  JobWatchdog.Execution beginExecution( JobDataMap jobDataMap, JobExecutionContext jobExecutionContext ) {
+    JobWatchdog watchdog = getWatchdog();
+    if ( watchdog == null || jobDataMap == null
+      || BlockoutAction.class.getName().equals( jobDataMap.get( QuartzScheduler.RESERVEDMAPKEY_ACTIONCLASS ) ) ) {
+      return JobWatchdog.beginUnwatched( null );
+    }
+    String jobId = jobExecutionContext.getJobDetail().getName();
+    JobHistoryStore historyStore = getJobHistoryStore();
+    JobHistoryStore.JobStats stats = null;
+    if ( historyStore != null ) {
+      Object lineageId = jobDataMap.get( QuartzScheduler.RESERVEDMAPKEY_LINEAGE_ID );
+      // the runs of the earlier versions of the job count too
+      stats = lineageId != null ? historyStore.getLineageStats( lineageId.toString() ) : historyStore.getStats( jobId );
+    }
+    return watchdog.begin( jobId, jobDataMap.getWrappedMap(), stats );
+  }
+
+  JobWatchdog getWatchdog() {
+    return scheduler != null ? scheduler.getWatchdog() : null;
   }
 
   IBlockoutManager getBlockoutManager() throws SchedulerException {
-    return new PentahoBlockoutManager();
+    return scheduler != null ? new PentahoBlockoutManager( scheduler ) : new PentahoBlockoutManager();
+  }
+
+  BlockoutRegistry getBlockoutRegistry() {
+    return scheduler != null ? scheduler.getBlockoutRegistry() : null;
+  }
+
+  JobAdmissionControl getAdmissionControl() {
+    return scheduler != null ? scheduler.getAdmissionControl() : null;
+  }
+
+  /**
+   * Waits until the job may run under the admission control of the scheduler, if any. Blockouts are always admitted,
+   * and so are jobs whose trigger has an interactive priority.
+   *
+   * @return the permit to run the job, or {@code null} if the job was rejected
+   */
+  JobAdmissionControl.Permit admit( JobDataMap jobDataMap, JobExecutionContext jobExecutionContext ) {
+    JobAdmissionControl admissionControl = getAdmissionControl();
+    if ( admissionControl == null || jobDataMap == null
+      || BlockoutAction.class.getName().equals( jobDataMap.get( QuartzScheduler.RESERVEDMAPKEY_ACTIONCLASS ) ) ) {
+      return JobAdmissionControl.UNLIMITED;
+    }
+    Trigger trigger = jobExecutionContext.getTrigger();
+    return admissionControl.admit( JobAdmissionControl.getActionType( jobDataMap.getWrappedMap() ),
+      trigger != null ? trigger.getPriority() : JobTrigger.DEFAULT_PRIORITY );
+  }
+
+  AuditRecordWriter getAuditWriter() {
+    return scheduler != null ? scheduler.getAuditWriter() : null;
+  }
+
+  SchedulerMetrics getMetrics() {
+    return scheduler != null ? scheduler.getMetrics() : null;
+  }
+
+  JobHistoryStore getJobHistoryStore() {
+    return scheduler != null ? scheduler.getJobHistoryStore() : null;
+  }
+
+  /**
+   * Appends the run to the job history store of the scheduler, if any. Blockouts are not recorded.
+   *
+   * @param started whether the underlying job was started; a job that started but neither ended nor failed has thrown
+   */
+  void recordRun( long start, long end, String messageType, boolean started, JobDataMap jobDataMap,
+                  JobExecutionContext jobExecutionContext ) {
+    JobHistoryStore historyStore = getJobHistoryStore();
+    if ( historyStore == null || jobDataMap == null
+      || BlockoutAction.class.getName().equals( jobDataMap.get( QuartzScheduler.RESERVEDMAPKEY_ACTIONCLASS ) ) ) {
+      return;
+    }
+    JobHistoryStore.Outcome outcome = getOutcome( messageType, started );
+    if ( started && !isEnd( messageType ) && !isFailed( messageType ) ) {
+      end = System.currentTimeMillis();
+    }
+    Object lineageId = jobDataMap.get( QuartzScheduler.RESERVEDMAPKEY_LINEAGE_ID );
+    try {
+      historyStore.record( new JobHistoryStore.JobRun( jobExecutionContext.getJobDetail().getName(),
+        lineageId != null ? lineageId.toString() : null, start, end, outcome,
+        JobHistoryStore.getOutputPath( jobDataMap.getWrappedMap() ) ) );
+    } catch ( RuntimeException e ) {
+      getLogger().warn( "Cannot record the run of job '" + jobExecutionContext.getJobDetail().getName() + "'", e );
+    }
   }
 
   Job createUnderlyingJob() {
-    return new ActionAdapterQuartzJob();
+    return new ActionAdapterQuartzJob( getMetrics() );
+  }
+
+  QuartzScheduler getScheduler() {
+    return QuartzScheduler.getPlatformScheduler();
   }
 
   Log getLogger() {
@@ -117,16 +338,23 @@ public class BlockingQuartzJob implements Job {
         return;
       }
 
-      AuditHelper.audit( PentahoSessionHolder.getSession() != null ? PentahoSessionHolder.getSession().getId() : "",
+      AuditRecordWriter.AuditRecord record = new AuditRecordWriter.AuditRecord(
+        PentahoSessionHolder.getSession() != null ? PentahoSessionHolder.getSession().getId() : "",
         jobDataMap.get( QuartzScheduler.RESERVEDMAPKEY_ACTIONUSER ) != null ? jobDataMap.get( QuartzScheduler.RESERVEDMAPKEY_ACTIONUSER ).toString() : "",
         jobDataMap.get( QuartzScheduler.RESERVEDMAPKEY_STREAMPROVIDER ) != null ? jobDataMap.get( QuartzScheduler.RESERVEDMAPKEY_STREAMPROVIDER ).toString() : "",
         jobExecutionContext.getJobDetail().getJobClass() != null ? jobExecutionContext.getJobDetail().getJobClass().getName() : "",
         jobDataMap.get( QuartzScheduler.RESERVEDMAPKEY_ACTIONID ) != null ? jobDataMap.get( QuartzScheduler.RESERVEDMAPKEY_ACTIONID ).toString() : "",
         messageType,
         jobDataMap.get( "lineage-id" ) != null ? jobDataMap.get( "lineage-id" ).toString() : "",
-        null,
-        time,
-        null ); //$NON-NLS-1$
+        time ); //$NON-NLS-1$
+
+      // written on this thread unless the scheduler writes audit records in the background
+      AuditRecordWriter auditWriter = getAuditWriter();
+      if ( auditWriter != null ) {
+        auditWriter.submit( record );
+      } else {
+        record.write();
+      }
     }
   }
 }
@@ -0,0 +1,389 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.pentaho.platform.scheduler2.messsages.Messages;
+import org.pentaho.platform.scheduler2.recur.ITimeRecurrence;
+import org.pentaho.platform.scheduler2.recur.IncrementalRecurrence;
+import org.pentaho.platform.scheduler2.recur.QualifiedDayOfMonth;
+import org.pentaho.platform.scheduler2.recur.QualifiedDayOfWeek;
+import org.pentaho.platform.scheduler2.recur.QualifiedDayOfWeek.DayOfWeek;
+import org.pentaho.platform.scheduler2.recur.QualifiedDayOfWeek.DayOfWeekQualifier;
+import org.pentaho.platform.scheduler2.recur.RecurrenceList;
+import org.pentaho.platform.scheduler2.recur.SequentialRecurrence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses cron expressions into the {@link ITimeRecurrence}s of a
+ * {@link org.pentaho.platform.api.scheduler2.ComplexJobTrigger}. An expression is split into its fields in one pass
+ * and each token is classified by scanning its characters, without regular expressions.
+ * <p>
+ * The result of parsing is an immutable {@link ParsedCron}, kept in a bounded, least recently used cache keyed by
+ * expression, as many jobs share the same few expressions. Recurrence objects are mutable, so a {@link ParsedCron}
+ * holds a description of them and creates new ones on every request.
+ */
+final class CronRecurrenceParser {
+
+  static final int MAX_CACHED_EXPRESSIONS = 1000;
+
+  static final int SECONDS = 0;
+
+  static final int MINUTES = 1;
+
+  static final int HOURS = 2;
+
+  static final int DAYS_OF_MONTH = 3;
+
+  static final int MONTHS = 4;
+
+  static final int DAYS_OF_WEEK = 5;
+
+  static final int YEARS = 6;
+
+  private static final Map<String, ParsedCron> cache = new LinkedHashMap<String, ParsedCron>( 16, 0.75f, true ) {
+    @Override
+    protected boolean removeEldestEntry( Map.Entry<String, ParsedCron> eldest ) {
+      return size() > MAX_CACHED_EXPRESSIONS;
+    }
+  };
+
+  private CronRecurrenceParser() {
+  }
+
+  /**
+   * @param cronExpression a cron expression; missing trailing fields, typically the optional year, are unrestricted
+   * @return the parsed expression, from the cache when it has been parsed before
+   * @throws IllegalArgumentException if the expression cannot be parsed
+   */
+  static ParsedCron parse( String cronExpression ) {
+    ParsedCron parsedCron;
+    synchronized ( cache ) {
+      parsedCron = cache.get( cronExpression );
+    }
+    if ( parsedCron == null ) {
+      parsedCron = parseUncached( cronExpression );
+      synchronized ( cache ) {
+        cache.put( cronExpression, parsedCron );
+      }
+    }
+    return parsedCron;
+  }
+
+  static ParsedCron parseUncached( String cronExpression ) {
+    List<String> fields = splitFields( cronExpression );
+    Recurrence[][] recurrences = new Recurrence[ YEARS + 1 ][];
+    for ( int field = SECONDS; field <= YEARS; field++ ) {
+      if ( field >= fields.size() ) {
+        // e.g. a six field expression, without the year
+        recurrences[ field ] = Recurrence.NONE;
+      } else {
+        recurrences[ field ] =
+          field == DAYS_OF_WEEK ? parseDayOfWeekField( fields.get( field ) ) : parseField( fields.get( field ) );
+      }
+    }
+    return new ParsedCron( recurrences );
+  }
+
+  static void clearCache() {
+    synchronized ( cache ) {
+      cache.clear();
+    }
+  }
+
+  /**
+   * Splits at runs of spaces, keeping a leading empty field and dropping trailing ones, like
+   * {@code split( "[ ]+" )}.
+   */
+  static List<String> splitFields( String cronExpression ) {
+    List<String> fields = new ArrayList<>( 7 );
+    int length = cronExpression.length();
+    int start = 0;
+    int i = 0;
+    while ( i < length ) {
+      if ( cronExpression.charAt( i ) == ' ' ) {
+        int end = i;
+        while ( i < length && cronExpression.charAt( i ) == ' ' ) {
+          i++;
+        }
+        fields.add( cronExpression.substring( start, end ) );
+        start = i;
+      } else {
+        i++;
+      }
+    }
+    if ( start < length ) {
+      fields.add( cronExpression.substring( start ) );
+    }
+    return fields;
+  }
+
+  private static Recurrence[] parseField( String field ) {
+    String[] tokens = field.split( "," ); //$NON-NLS-1$
+    if ( isUnrestricted( tokens ) ) {
+      return Recurrence.NONE;
+    }
+    List<Recurrence> recurrences = new ArrayList<>();
+    ListBuilder list = new ListBuilder( recurrences );
+    for ( String token : tokens ) {
+      if ( isDigits( token, 0, token.length() ) ) {
+        list.add( Integer.parseInt( token ) );
+        continue;
+      }
+      list.close();
+      int separator;
+      if ( ( separator = indexOfBetweenDigits( token, '-' ) ) > 0 ) {
+        recurrences.add( Recurrence.sequence( Integer.parseInt( token.substring( 0, separator ) ),
+          Integer.parseInt( token.substring( separator + 1 ) ) ) );
+      } else if ( ( separator = indexOfInterval( token ) ) > 0 ) {
+        recurrences.add( Recurrence.increment( token.substring( 0, separator ),
+          Integer.parseInt( token.substring( separator + 1 ) ) ) );
+      } else if ( "L".equalsIgnoreCase( token ) ) { //$NON-NLS-1$
+        recurrences.add( Recurrence.LAST_DAY_OF_MONTH );
+      } else {
+        throw invalidCronExpression();
+      }
+    }
+    list.close();
+    return recurrences.toArray( Recurrence.NONE );
+  }
+
+  private static Recurrence[] parseDayOfWeekField( String field ) {
+    String[] tokens = field.split( "," ); //$NON-NLS-1$
+    if ( isUnrestricted( tokens ) ) {
+      return Recurrence.NONE;
+    }
+    List<Recurrence> recurrences = new ArrayList<>();
+    ListBuilder list = new ListBuilder( recurrences );
+    for ( String token : tokens ) {
+      if ( isDigits( token, 0, token.length() ) ) {
+        list.add( Integer.parseInt( token ) );
+        continue;
+      }
+      list.close();
+      int separator;
+      if ( ( separator = indexOfBetweenDigits( token, '-' ) ) > 0 ) {
+        recurrences.add( Recurrence.sequence( Integer.parseInt( token.substring( 0, separator ) ),
+          Integer.parseInt( token.substring( separator + 1 ) ) ) );
+      } else if ( ( separator = indexOfInterval( token ) ) > 0 ) {
+        recurrences.add( Recurrence.increment( token.substring( 0, separator ),
+          Integer.parseInt( token.substring( separator + 1 ) ) ) );
+      } else if ( ( separator = indexOfBetweenDigits( token, '#' ) ) > 0 ) {
+        recurrences.add( Recurrence.qualifiedDayOfWeek( Integer.parseInt( token.substring( separator + 1 ) ),
+          Integer.parseInt( token.substring( 0, separator ) ) ) );
+      } else if ( token.length() > 1 && token.charAt( token.length() - 1 ) == 'L'
+        && isDigits( token, 0, token.length() - 1 ) ) {
+        DayOfWeek dayOfWeek =
+          DayOfWeek.values()[ ( Integer.parseInt( token.substring( 0, token.length() - 1 ) ) - 1 ) % 7 ];
+        recurrences.add( Recurrence.lastDayOfWeek( dayOfWeek ) );
+      } else if ( token.indexOf( '-' ) >= 0 ) {
+        String[] days = token.split( "-" ); //$NON-NLS-1$
+        recurrences.add( Recurrence.sequence( DayOfWeek.valueOf( days[ 0 ] ).ordinal(),
+          DayOfWeek.valueOf( days[ 1 ] ).ordinal() ) );
+      } else {
+        recurrences.add( Recurrence.list( new int[] { DayOfWeek.valueOf( token ).ordinal() } ) );
+      }
+    }
+    list.close();
+    return recurrences.toArray( Recurrence.NONE );
+  }
+
+  private static boolean isUnrestricted( String[] tokens ) {
+    return tokens.length == 1 && ( tokens[ 0 ].equals( "*" ) || tokens[ 0 ].equals( "?" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
+  private static boolean isDigits( String token, int from, int to ) {
+    if ( from >= to ) {
+      return false;
+    }
+    for ( int i = from; i < to; i++ ) {
+      char c = token.charAt( i );
+      if ( c < '0' || c > '9' ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the index of the separator in a token of the form digits, separator, digits, or -1
+   */
+  private static int indexOfBetweenDigits( String token, char separator ) {
+    int i = token.indexOf( separator );
+    return i > 0 && isDigits( token, 0, i ) && isDigits( token, i + 1, token.length() ) ? i : -1;
+  }
+
+  /**
+   * @return the index of the slash in a token of the form digits or asterisks, slash, digits, or -1
+   */
+  private static int indexOfInterval( String token ) {
+    int i = token.indexOf( '/' );
+    if ( i <= 0 || !isDigits( token, i + 1, token.length() ) ) {
+      return -1;
+    }
+    for ( int j = 0; j < i; j++ ) {
+      char c = token.charAt( j );
+      if ( c != '*' && ( c < '0' || c > '9' ) ) {
+        return -1;
+      }
+    }
+    return i;
+  }
+
+  private static IllegalArgumentException invalidCronExpression() {
+    return new IllegalArgumentException( Messages.getInstance().getErrorString(
+      "ComplexJobTrigger.ERROR_0001_InvalidCronExpression" ) ); //$NON-NLS-1$
+  }
+
+  /**
+   * The recurrences of each field of a cron expression.
+   */
+  static final class ParsedCron {
+    private final Recurrence[][] recurrences;
+
+    private ParsedCron( Recurrence[][] recurrences ) {
+      this.recurrences = recurrences;
+    }
+
+    /**
+     * @param field one of {@link #SECONDS} to {@link #YEARS}
+     * @return new recurrence objects for the field, empty if the field is unrestricted
+     */
+    List<ITimeRecurrence> getRecurrences( int field ) {
+      Recurrence[] fieldRecurrences = recurrences[ field ];
+      if ( fieldRecurrences.length == 0 ) {
+        return Collections.emptyList();
+      }
+      List<ITimeRecurrence> timeRecurrences = new ArrayList<>( fieldRecurrences.length );
+      for ( Recurrence recurrence : fieldRecurrences ) {
+        timeRecurrences.add( recurrence.create() );
+      }
+      return timeRecurrences;
+    }
+  }
+
+  /**
+   * An immutable description of a recurrence.
+   */
+  private static final class Recurrence {
+    static final Recurrence[] NONE = new Recurrence[ 0 ];
+
+    static final Recurrence LAST_DAY_OF_MONTH = new Recurrence( Kind.LAST_DAY_OF_MONTH, null, 0, 0, null, null );
+
+    enum Kind { LIST, SEQUENCE, INCREMENT, QUALIFIED_DAY_OF_WEEK, LAST_DAY_OF_WEEK, LAST_DAY_OF_MONTH }
+
+    final Kind kind;
+
+    final int[] values;
+
+    final int first;
+
+    final int second;
+
+    final String startingValue;
+
+    final DayOfWeek dayOfWeek;
+
+    private Recurrence( Kind kind, int[] values, int first, int second, String startingValue, DayOfWeek dayOfWeek ) {
+      this.kind = kind;
+      this.values = values;
+      this.first = first;
+      this.second = second;
+      this.startingValue = startingValue;
+      this.dayOfWeek = dayOfWeek;
+    }
+
+    static Recurrence list( int[] values ) {
+      return new Recurrence( Kind.LIST, values, 0, 0, null, null );
+    }
+
+    static Recurrence sequence( int first, int last ) {
+      return new Recurrence( Kind.SEQUENCE, null, first, last, null, null );
+    }
+
+    static Recurrence increment( String startingValue, int increment ) {
+      return new Recurrence( Kind.INCREMENT, null, 0, increment, startingValue, null );
+    }
+
+    static Recurrence qualifiedDayOfWeek( int qualifier, int dayOfWeek ) {
+      return new Recurrence( Kind.QUALIFIED_DAY_OF_WEEK, null, qualifier, dayOfWeek, null, null );
+    }
+
+    static Recurrence lastDayOfWeek( DayOfWeek dayOfWeek ) {
+      return new Recurrence( Kind.LAST_DAY_OF_WEEK, null, 0, 0, null, dayOfWeek );
+    }
+
+    ITimeRecurrence create() {
+      switch ( kind ) {
+        case LIST:
+          RecurrenceList list = new RecurrenceList();
+          for ( int value : values ) {
+            list.getValues().add( value );
+          }
+          return list;
+        case SEQUENCE:
+          return new SequentialRecurrence( first, second );
+        case INCREMENT:
+          return new IncrementalRecurrence( startingValue, second );
+        case QUALIFIED_DAY_OF_WEEK:
+          return new QualifiedDayOfWeek( first, second );
+        case LAST_DAY_OF_WEEK:
+          return new QualifiedDayOfWeek( DayOfWeekQualifier.LAST, dayOfWeek );
+        default:
+          return new QualifiedDayOfMonth();
+      }
+    }
+  }
+
+  /**
+   * Collects consecutive single values into one list recurrence.
+   */
+  private static final class ListBuilder {
+    private final List<Recurrence> recurrences;
+
+    private int[] values = new int[ 8 ];
+
+    private int size;
+
+    ListBuilder( List<Recurrence> recurrences ) {
+      this.recurrences = recurrences;
+    }
+
+    void add( int value ) {
+      if ( size == values.length ) {
+        values = Arrays.copyOf( values, size * 2 );
+      }
+      values[ size++ ] = value;
+    }
+
+    void close() {
+      if ( size > 0 ) {
+        recurrences.add( Recurrence.list( Arrays.copyOf( values, size ) ) );
+        size = 0;
+      }
+    }
+  }
+}
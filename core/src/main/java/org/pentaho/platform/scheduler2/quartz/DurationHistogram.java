@@ -0,0 +1,136 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.scheduler2.quartz;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations that many threads record into without locking. The durations are counted in buckets on a
+ * log scale: the values 0 to 3 have a bucket each, then every power of two is split into four buckets, so the upper
+ * bound of a bucket is at most a quarter above any duration in it, from a millisecond to hundreds of years. The unit
+ * of the durations is up to the caller.
+ * <p>
+ * Reads are not atomic with respect to concurrent records; a percentile read while durations are recorded may miss
+ * the latest of them.
+ */
+public class DurationHistogram {
+
+  /**
+   * The number of buckets: 0 to 3 exactly, then four per power of two up to {@link Long#MAX_VALUE}.
+   */
+  public static final int BUCKETS = 4 + 61 * 4;
+
+  private final AtomicLongArray counts = new AtomicLongArray( BUCKETS );
+
+  private final LongAdder count = new LongAdder();
+
+  private final LongAdder sum = new LongAdder();
+
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * @param duration a duration; a negative one is counted as 0
+   */
+  public void record( long duration ) {
+    duration = Math.max( 0, duration );
+    counts.incrementAndGet( getBucket( duration ) );
+    count.increment();
+    sum.add( duration );
+    long current = max.get();
+    while ( duration > current && !max.compareAndSet( current, duration ) ) {
+      current = max.get();
+    }
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getSum() {
+    return sum.sum();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * @param bucket a bucket, from 0 to {@link #BUCKETS} - 1
+   * @return the number of durations recorded in the bucket
+   */
+  public long getCount( int bucket ) {
+    return counts.get( bucket );
+  }
+
+  /**
+   * @param percent the percentile, from 0 to 100
+   * @return the upper bound of the bucket holding the percentile of the durations, or -1 if none was recorded
+   */
+  public long getPercentile( double percent ) {
+    long[] snapshot = new long[ BUCKETS ];
+    long total = 0;
+    for ( int bucket = 0; bucket < BUCKETS; bucket++ ) {
+      snapshot[ bucket ] = counts.get( bucket );
+      total += snapshot[ bucket ];
+    }
+    if ( total == 0 ) {
+      return -1;
+    }
+    // the rank of the percentile among the durations, from 1
+    long rank = Math.max( 1, (long) Math.ceil( total * percent / 100 ) );
+    long seen = 0;
+    for ( int bucket = 0; bucket < BUCKETS; bucket++ ) {
+      seen += snapshot[ bucket ];
+      if ( seen >= rank ) {
+        return Math.min( getUpperBound( bucket ), getMax() );
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * @param duration a duration, not negative
+   * @return the bucket counting the duration
+   */
+  public static int getBucket( long duration ) {
+    if ( duration < 4 ) {
+      return (int) Math.max( 0, duration );
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros( duration );
+    int quarter = (int) ( duration >>> ( exponent - 2 ) ) & 3;
+    return 4 + ( exponent - 2 ) * 4 + quarter;
+  }
+
+  /**
+   * @param bucket a bucket, from 0 to {@link #BUCKETS} - 1
+   * @return the longest duration counted in the bucket
+   */
+  public static long getUpperBound( int bucket ) {
+    if ( bucket < 4 ) {
+      return bucket;
+    }
+    int exponent = ( bucket - 4 ) / 4 + 2;
+    int quarter = ( bucket - 4 ) % 4;
+    long bound = ( 5L + quarter ) << ( exponent - 2 );
+    return bound <= 0 ? Long.MAX_VALUE : bound - 1;
+  }
+}
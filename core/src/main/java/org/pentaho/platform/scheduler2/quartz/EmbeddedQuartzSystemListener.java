@@ -114,6 +114,15 @@ public class EmbeddedQuartzSystemListener implements IPluginLifecycleListener {
           quartzProps.store( System.out, "debugging" ); //$NON-NLS-1$
         }
         scheduler.setQuartzSchedulerFactory( new org.quartz.impl.StdSchedulerFactory( quartzProps ) );
+        scheduler.setJobStoreBulkReader( QuartzJobStoreBulkReader.create( quartzProps ) );
+        scheduler.setJobCatalog( QuartzJobCatalog.create( quartzProps ) );
+        scheduler.setFireTimeForecast( FireTimeForecast.create( quartzProps ) );
+        scheduler.setAdmissionControl( JobAdmissionControl.create( quartzProps ) );
+        scheduler.setJobHistoryStore( JobHistoryStore.create( quartzProps ) );
+        scheduler.setAuditWriter( AuditRecordWriter.create( quartzProps ) );
+        scheduler.setMetrics( SchedulerMetrics.create( quartzProps ) );
+        scheduler.setTraceRecorder( ExecutionTraceRecorder.create( quartzProps ) );
+        scheduler.setWatchdog( JobWatchdog.create( quartzProps ) );
         if ( logger.isDebugEnabled() ) {
           logger.debug( scheduler.getQuartzScheduler().getSchedulerName() );
         }
@@ -0,0 +1,191 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.scheduler2.quartz;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The stages of a run of a job and how long each took, e.g. the blockout check, the creation of the action bean, the
+ * resolution of the output path, the execution of the action and the email of its output.
+ * <p>
+ * A trace is bound to the thread of its job from {@link ExecutionTraceRecorder#begin(String, String)} to
+ * {@link #finish(JobHistoryStore.Outcome)}, so that the code a job calls adds its stages with
+ * {@link #recordStage(String, long)} without the trace being passed around; there is nothing to record when the job
+ * is not traced. A stage that runs on another thread, e.g. post-processing, is added to the trace taken with
+ * {@link #current()} beforehand, and may be added after the run has finished.
+ * <p>
+ * Stages are appended without locking, at most {@link #MAX_STAGES} of them; further stages are dropped.
+ */
+public class ExecutionTrace {
+
+  static final int MAX_STAGES = 64;
+
+  private static final ThreadLocal<ExecutionTrace> CURRENT = new ThreadLocal<>();
+
+  private final String jobId;
+
+  private final String actionType;
+
+  private final long start;
+
+  private final long startNanos;
+
+  private final AtomicReferenceArray<Stage> stages = new AtomicReferenceArray<>( MAX_STAGES );
+
+  private final AtomicInteger stageCount = new AtomicInteger();
+
+  private volatile long durationNanos = -1;
+
+  private volatile JobHistoryStore.Outcome outcome;
+
+  ExecutionTrace( String jobId, String actionType, long start, long startNanos ) {
+    this.jobId = jobId;
+    this.actionType = actionType;
+    this.start = start;
+    this.startNanos = startNanos;
+  }
+
+  /**
+   * @return the trace of the run of the job on the calling thread, or {@code null} if it is not traced
+   */
+  public static ExecutionTrace current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Adds a stage that ends now to the trace of the run on the calling thread, if any.
+   *
+   * @param stage      the name of the stage
+   * @param startNanos the {@link System#nanoTime()} at which the stage started
+   */
+  public static void recordStage( String stage, long startNanos ) {
+    ExecutionTrace trace = CURRENT.get();
+    if ( trace != null ) {
+      trace.addStage( stage, startNanos, System.nanoTime() );
+    }
+  }
+
+  /**
+   * @param stage      the name of the stage
+   * @param startNanos the {@link System#nanoTime()} at which the stage started
+   * @param endNanos   the {@link System#nanoTime()} at which the stage ended
+   */
+  public void addStage( String stage, long startNanos, long endNanos ) {
+    int index = stageCount.getAndIncrement();
+    if ( index < MAX_STAGES ) {
+      stages.set( index, new Stage( stage, startNanos - this.startNanos, endNanos - startNanos ) );
+    }
+  }
+
+  void attach() {
+    CURRENT.set( this );
+  }
+
+  /**
+   * Records how the run ended and unbinds the trace from the calling thread.
+   */
+  public void finish( JobHistoryStore.Outcome outcome ) {
+    this.outcome = outcome;
+    durationNanos = System.nanoTime() - startNanos;
+    if ( CURRENT.get() == this ) {
+      CURRENT.remove();
+    }
+  }
+
+  public String getJobId() {
+    return jobId;
+  }
+
+  public String getActionType() {
+    return actionType;
+  }
+
+  /**
+   * @return the time at which the run started, in milliseconds since the epoch
+   */
+  public long getStart() {
+    return start;
+  }
+
+  /**
+   * @return the duration of the run in nanoseconds, or -1 if it is still running
+   */
+  public long getDurationNanos() {
+    return durationNanos;
+  }
+
+  /**
+   * @return how the run ended, or {@code null} if it is still running
+   */
+  public JobHistoryStore.Outcome getOutcome() {
+    return outcome;
+  }
+
+  /**
+   * @return the stages recorded so far, in the order they ended
+   */
+  public List<Stage> getStages() {
+    int count = Math.min( stageCount.get(), MAX_STAGES );
+    List<Stage> recorded = new ArrayList<>( count );
+    for ( int i = 0; i < count; i++ ) {
+      Stage stage = stages.get( i );
+      // null while another thread is adding it
+      if ( stage != null ) {
+        recorded.add( stage );
+      }
+    }
+    return recorded;
+  }
+
+  /**
+   * A stage of a run.
+   */
+  public static class Stage {
+    private final String name;
+
+    private final long offsetNanos;
+
+    private final long durationNanos;
+
+    Stage( String name, long offsetNanos, long durationNanos ) {
+      this.name = name;
+      this.offsetNanos = offsetNanos;
+      this.durationNanos = durationNanos;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return the time between the start of the run and the start of the stage, in nanoseconds
+     */
+    public long getOffsetNanos() {
+      return offsetNanos;
+    }
+
+    public long getDurationNanos() {
+      return durationNanos;
+    }
+  }
+}
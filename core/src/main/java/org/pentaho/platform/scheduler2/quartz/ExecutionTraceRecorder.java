@@ -0,0 +1,254 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * A flight recorder of the latest runs of jobs: the {@link ExecutionTrace traces} of the last {@link #getCapacity()}
+ * runs are kept in a ring, the oldest overwritten as new runs begin. A run enters the ring when it begins, so the
+ * runs in progress are seen too. Runs begin without locking.
+ * <p>
+ * {@link #getStageLatencies(List)} breaks the traces down into the latency of each stage across runs, which shows
+ * which stage a slow job spends its time in, e.g. the resolution of its output path rather than its action.
+ */
+public class ExecutionTraceRecorder {
+
+  public static final String PROP_TRACE_ENABLED = "org.pentaho.scheduler.trace.enabled"; //$NON-NLS-1$
+
+  public static final String PROP_CAPACITY = "org.pentaho.scheduler.trace.capacity"; //$NON-NLS-1$
+
+  static final int DEFAULT_CAPACITY = 256;
+
+  private static final Log logger = LogFactory.getLog( ExecutionTraceRecorder.class );
+
+  private final int capacity;
+
+  private final LongSupplier clock;
+
+  private final AtomicReferenceArray<ExecutionTrace> traces;
+
+  // the number of runs begun
+  private final AtomicLong sequence = new AtomicLong();
+
+  public ExecutionTraceRecorder() {
+    this( DEFAULT_CAPACITY );
+  }
+
+  /**
+   * @param capacity the number of runs kept
+   */
+  public ExecutionTraceRecorder( int capacity ) {
+    this( capacity, System::currentTimeMillis );
+  }
+
+  ExecutionTraceRecorder( int capacity, LongSupplier clock ) {
+    if ( capacity <= 0 ) {
+      throw new IllegalArgumentException( "capacity must be positive: " + capacity ); //$NON-NLS-1$
+    }
+    this.capacity = capacity;
+    this.clock = clock;
+    this.traces = new AtomicReferenceArray<>( capacity );
+  }
+
+  /**
+   * @param quartzProperties the properties of the Quartz scheduler, or {@code null}
+   * @return the recorder configured by the {@code org.pentaho.scheduler.trace.*} properties, or {@code null} if it is
+   * disabled
+   */
+  public static ExecutionTraceRecorder create( Properties quartzProperties ) {
+    if ( quartzProperties == null ) {
+      return new ExecutionTraceRecorder();
+    }
+    if ( !Boolean.parseBoolean( quartzProperties.getProperty( PROP_TRACE_ENABLED, "true" ) ) ) { //$NON-NLS-1$
+      return null;
+    }
+    int capacity = DEFAULT_CAPACITY;
+    String value = quartzProperties.getProperty( PROP_CAPACITY );
+    if ( value != null ) {
+      try {
+        capacity = Integer.parseInt( value.trim() );
+      } catch ( NumberFormatException e ) {
+        capacity = -1;
+      }
+      if ( capacity <= 0 ) {
+        logger.warn( "Invalid " + PROP_CAPACITY + " '" + value + "', using " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+          + DEFAULT_CAPACITY );
+        capacity = DEFAULT_CAPACITY;
+      }
+    }
+    return new ExecutionTraceRecorder( capacity );
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @return the number of runs begun, including those no longer kept
+   */
+  public long getRunCount() {
+    return sequence.get();
+  }
+
+  /**
+   * Begins the trace of a run and binds it to the calling thread until it is
+   * {@link ExecutionTrace#finish(JobHistoryStore.Outcome) finished}.
+   *
+   * @param jobId      the id of the job
+   * @param actionType the action type of the job
+   * @return the trace of the run
+   */
+  public ExecutionTrace begin( String jobId, String actionType ) {
+    ExecutionTrace trace = new ExecutionTrace( jobId, actionType, clock.getAsLong(), System.nanoTime() );
+    traces.set( (int) ( sequence.getAndIncrement() % capacity ), trace );
+    trace.attach();
+    return trace;
+  }
+
+  /**
+   * @param jobId the id of a job, or {@code null} for the runs of every job
+   * @param limit the number of runs returned at most
+   * @return the latest runs kept, of the job if given, the latest first
+   */
+  public List<ExecutionTrace> getTraces( String jobId, int limit ) {
+    List<ExecutionTrace> latest = new ArrayList<>();
+    long last = sequence.get();
+    for ( long i = last - 1; i >= Math.max( 0, last - capacity ) && latest.size() < limit; i-- ) {
+      ExecutionTrace trace = traces.get( (int) ( i % capacity ) );
+      if ( trace != null && ( jobId == null || jobId.equals( trace.getJobId() ) ) ) {
+        latest.add( trace );
+      }
+    }
+    return latest;
+  }
+
+  /**
+   * Forgets the runs kept.
+   */
+  public void clear() {
+    for ( int i = 0; i < capacity; i++ ) {
+      traces.set( i, null );
+    }
+  }
+
+  /**
+   * @param traces the traces of runs
+   * @return the latency of each stage across the runs, in the order the stages first appear; the stages of the same
+   * name in a run are added up
+   */
+  public static List<StageLatency> getStageLatencies( List<ExecutionTrace> traces ) {
+    Map<String, long[]> durations = new LinkedHashMap<>();
+    Map<String, Integer> counts = new LinkedHashMap<>();
+    for ( ExecutionTrace trace : traces ) {
+      Map<String, Long> runDurations = new LinkedHashMap<>();
+      for ( ExecutionTrace.Stage stage : trace.getStages() ) {
+        runDurations.merge( stage.getName(), stage.getDurationNanos(), Long::sum );
+      }
+      for ( Map.Entry<String, Long> stage : runDurations.entrySet() ) {
+        long[] stageDurations = durations.computeIfAbsent( stage.getKey(), key -> new long[ traces.size() ] );
+        int count = counts.getOrDefault( stage.getKey(), 0 );
+        stageDurations[ count ] = stage.getValue();
+        counts.put( stage.getKey(), count + 1 );
+      }
+    }
+    List<StageLatency> latencies = new ArrayList<>( durations.size() );
+    for ( Map.Entry<String, long[]> stage : durations.entrySet() ) {
+      latencies.add( new StageLatency( stage.getKey(),
+        Arrays.copyOf( stage.getValue(), counts.get( stage.getKey() ) ) ) );
+    }
+    return latencies;
+  }
+
+  /**
+   * The latency of a stage across runs.
+   */
+  public static class StageLatency {
+    private final String stage;
+
+    private final int count;
+
+    private final long meanNanos;
+
+    private final long medianNanos;
+
+    private final long p95Nanos;
+
+    private final long maxNanos;
+
+    StageLatency( String stage, long[] durations ) {
+      Arrays.sort( durations );
+      long total = 0;
+      for ( long duration : durations ) {
+        total += duration;
+      }
+      this.stage = stage;
+      this.count = durations.length;
+      this.meanNanos = total / durations.length;
+      this.medianNanos = getPercentile( durations, 50 );
+      this.p95Nanos = getPercentile( durations, 95 );
+      this.maxNanos = durations[ durations.length - 1 ];
+    }
+
+    // the nearest rank
+    private static long getPercentile( long[] sorted, int percent ) {
+      int rank = Math.max( 1, ( sorted.length * percent + 99 ) / 100 );
+      return sorted[ rank - 1 ];
+    }
+
+    public String getStage() {
+      return stage;
+    }
+
+    /**
+     * @return the number of runs that went through the stage
+     */
+    public int getCount() {
+      return count;
+    }
+
+    public long getMeanNanos() {
+      return meanNanos;
+    }
+
+    public long getMedianNanos() {
+      return medianNanos;
+    }
+
+    public long getP95Nanos() {
+      return p95Nanos;
+    }
+
+    public long getMaxNanos() {
+      return maxNanos;
+    }
+  }
+}
@@ -0,0 +1,754 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.scheduler2.IBlockoutManager;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.quartz.Calendar;
+import org.quartz.Scheduler;
+import org.quartz.Trigger;
+import org.quartz.listeners.SchedulerListenerSupport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * An index of the upcoming fire times of every schedule of a scheduler, so that questions such as "what runs between
+ * two instants" or "how many jobs fire in each five minutes of the next week" are answered from memory rather than by
+ * computing fire times for every schedule on every call.
+ * <p>
+ * The index covers a window of {@link #getHorizonMillis()} that starts at the beginning of the current
+ * {@link #BUCKET_MILLIS} bucket. Each schedule keeps its fire times in the window in a sorted {@code long[]}; the
+ * number of fire times per bucket is kept in an {@code int[]}. The index is maintained incrementally and lazily: once
+ * registered with a Quartz {@link Scheduler}, the listener callbacks only record which schedules changed, and the next
+ * query reloads those schedules alone. As time passes the window rolls forward a bucket at a time, dropping the fire
+ * times that have passed and computing only the ones that enter at the far end. The whole index is rebuilt on the
+ * first query, after a change to a whole group of schedules, and every {@link #getMaxAgeMillis()}, which bounds how
+ * long a schedule changed on another node of a cluster goes unnoticed.
+ * <p>
+ * Blockouts and run-now triggers are not forecast, nor are paused schedules. A schedule fires at most
+ * {@link #MAX_FIRE_TIMES} times within the window; further fire times are left out of both the fire times and the
+ * bucket counts.
+ */
+public class FireTimeForecast {
+
+  public static final String PROP_FORECAST_ENABLED = "org.pentaho.scheduler.forecast.enabled"; //$NON-NLS-1$
+
+  public static final String PROP_HORIZON_MILLIS = "org.pentaho.scheduler.forecast.horizonMillis"; //$NON-NLS-1$
+
+  public static final String PROP_MAX_AGE_MILLIS = "org.pentaho.scheduler.forecast.maxAgeMillis"; //$NON-NLS-1$
+
+  /**
+   * The granularity of the window and of the load counts.
+   */
+  public static final long BUCKET_MILLIS = 5 * 60000L;
+
+  /**
+   * Fire times of a schedule that are kept within the window, one a minute for a week.
+   */
+  public static final int MAX_FIRE_TIMES = 7 * 24 * 60;
+
+  static final long DEFAULT_HORIZON_MILLIS = 7 * 24 * 3600000L;
+
+  static final long DEFAULT_MAX_AGE_MILLIS = 3600000L;
+
+  static final String LISTENER_NAME = "PentahoFireTimeForecastListener"; //$NON-NLS-1$
+
+  private static final String MANUAL_TRIGGER_GROUP = "MANUAL_TRIGGER"; //$NON-NLS-1$
+
+  private static final long[] NO_FIRE_TIMES = new long[ 0 ];
+
+  private static final Log logger = LogFactory.getLog( FireTimeForecast.class );
+
+  private final long maxAgeMillis;
+
+  private final LongSupplier clock;
+
+  private final int bucketCount;
+
+  // guarded by this, like the index
+
+  private Scheduler scheduler;
+
+  private QuartzJobStoreBulkReader jobStoreBulkReader;
+
+  private final Map<String, Schedule> schedules = new HashMap<>();
+
+  private final int[] fireCounts;
+
+  private long windowStart;
+
+  private long loadedAt;
+
+  // written by the listener, applied by the next query
+
+  private final Set<String> changedJobIds = ConcurrentHashMap.newKeySet();
+
+  private volatile boolean rebuildNeeded = true;
+
+  private final AtomicLong rebuildCount = new AtomicLong();
+
+  private final AtomicLong updateCount = new AtomicLong();
+
+  private final AtomicLong rollCount = new AtomicLong();
+
+  public FireTimeForecast( long horizonMillis, long maxAgeMillis ) {
+    this( horizonMillis, maxAgeMillis, System::currentTimeMillis );
+  }
+
+  FireTimeForecast( long horizonMillis, long maxAgeMillis, LongSupplier clock ) {
+    if ( horizonMillis <= 0 || maxAgeMillis <= 0 ) {
+      throw new IllegalArgumentException(
+        "horizonMillis and maxAgeMillis must be positive: " + horizonMillis + ", " + maxAgeMillis ); //$NON-NLS-1$
+    }
+    long buckets = ( horizonMillis + BUCKET_MILLIS - 1 ) / BUCKET_MILLIS;
+    if ( buckets > Integer.MAX_VALUE ) {
+      throw new IllegalArgumentException( "horizonMillis is too large: " + horizonMillis ); //$NON-NLS-1$
+    }
+    this.bucketCount = (int) buckets;
+    this.fireCounts = new int[ bucketCount ];
+    this.maxAgeMillis = maxAgeMillis;
+    this.clock = clock;
+  }
+
+  /**
+   * Creates a forecast configured by the given Quartz properties.
+   *
+   * @param quartzProperties the properties the Quartz scheduler was created with
+   * @return a forecast, or {@code null} if {@link #PROP_FORECAST_ENABLED} is {@code false}
+   */
+  public static FireTimeForecast create( Properties quartzProperties ) {
+    if ( quartzProperties == null ) {
+      return new FireTimeForecast( DEFAULT_HORIZON_MILLIS, DEFAULT_MAX_AGE_MILLIS );
+    }
+    if ( !Boolean.parseBoolean( quartzProperties.getProperty( PROP_FORECAST_ENABLED, "true" ) ) ) { //$NON-NLS-1$
+      return null;
+    }
+    return new FireTimeForecast( getPositiveMillis( quartzProperties, PROP_HORIZON_MILLIS, DEFAULT_HORIZON_MILLIS ),
+      getPositiveMillis( quartzProperties, PROP_MAX_AGE_MILLIS, DEFAULT_MAX_AGE_MILLIS ) );
+  }
+
+  private static long getPositiveMillis( Properties quartzProperties, String name, long defaultValue ) {
+    String value = quartzProperties.getProperty( name );
+    if ( value == null ) {
+      return defaultValue;
+    }
+    try {
+      long millis = Long.parseLong( value.trim() );
+      if ( millis > 0 ) {
+        return millis;
+      }
+    } catch ( NumberFormatException e ) {
+      // warned below
+    }
+    logger.warn( "Invalid " + name + " '" + value + "', using " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+      + defaultValue );
+    return defaultValue;
+  }
+
+  /**
+   * Registers the listener that keeps the forecast in step with the given scheduler, from which the schedules are
+   * read.
+   *
+   * @param scheduler          the Quartz scheduler whose schedules are forecast
+   * @param jobStoreBulkReader reads every schedule at once when the forecast is rebuilt, or {@code null} to read them
+   *                           one at a time through the scheduler
+   */
+  public void register( Scheduler scheduler, QuartzJobStoreBulkReader jobStoreBulkReader )
+    throws org.quartz.SchedulerException {
+    synchronized ( this ) {
+      this.scheduler = scheduler;
+      this.jobStoreBulkReader = jobStoreBulkReader;
+    }
+    invalidateAll();
+    scheduler.addSchedulerListener( new ForecastSchedulerListener() );
+  }
+
+  public long getHorizonMillis() {
+    return bucketCount * BUCKET_MILLIS;
+  }
+
+  public long getMaxAgeMillis() {
+    return maxAgeMillis;
+  }
+
+  /**
+   * Records that a schedule changed; it is reloaded by the next query.
+   *
+   * @param jobId the id of the job whose schedule changed
+   */
+  public void invalidate( String jobId ) {
+    if ( jobId != null ) {
+      changedJobIds.add( jobId );
+    }
+  }
+
+  /**
+   * Records that any schedule may have changed; the whole forecast is rebuilt by the next query.
+   */
+  public void invalidateAll() {
+    rebuildNeeded = true;
+  }
+
+  /**
+   * @param from   the first instant of the period
+   * @param to     the instant the period ends, exclusive
+   * @param offset the position of the first fire time to return among all fire times of the period
+   * @param limit  the number of fire times to return at most
+   * @return the fire times of the period that lie within the window, in ascending order, ties ordered by job id
+   */
+  public synchronized FireTimes getFireTimes( long from, long to, int offset, int limit )
+    throws SchedulerException {
+    refresh();
+    from = Math.max( from, windowStart );
+    to = Math.min( to, getWindowEnd() );
+
+    int totalCount = 0;
+    PriorityQueue<Cursor> cursors = new PriorityQueue<>(
+      Comparator.comparingLong( Cursor::getTime ).thenComparing( cursor -> cursor.schedule.jobId ) );
+    if ( from < to ) {
+      for ( Schedule schedule : schedules.values() ) {
+        int begin = indexAtOrAfter( schedule.times, schedule.count, from );
+        int end = indexAtOrAfter( schedule.times, schedule.count, to );
+        if ( begin < end ) {
+          totalCount += end - begin;
+          cursors.add( new Cursor( schedule, begin, end ) );
+        }
+      }
+    }
+
+    List<FireTime> fireTimes = new ArrayList<>();
+    int position = 0;
+    while ( fireTimes.size() < limit && !cursors.isEmpty() ) {
+      Cursor cursor = cursors.poll();
+      if ( position++ >= offset ) {
+        fireTimes.add( new FireTime( cursor.schedule.jobId, cursor.schedule.userName, cursor.schedule.jobName,
+          cursor.getTime() ) );
+      }
+      if ( ++cursor.position < cursor.end ) {
+        cursors.add( cursor );
+      }
+    }
+    return new FireTimes( Collections.unmodifiableList( fireTimes ), Math.min( offset, totalCount ), totalCount );
+  }
+
+  /**
+   * @param from         the first instant of the period, rounded down to a multiple of {@link #BUCKET_MILLIS}
+   * @param to           the instant the period ends, exclusive, rounded up to a multiple of {@link #BUCKET_MILLIS}
+   * @param bucketMillis the length of the buckets counted, a positive multiple of {@link #BUCKET_MILLIS}
+   * @return the number of fire times in each bucket of the period that lies within the window
+   */
+  public synchronized Load getLoad( long from, long to, long bucketMillis ) throws SchedulerException {
+    if ( bucketMillis <= 0 || bucketMillis % BUCKET_MILLIS != 0 ) {
+      throw new IllegalArgumentException(
+        "bucketMillis must be a positive multiple of " + BUCKET_MILLIS + ": " + bucketMillis ); //$NON-NLS-1$
+    }
+    refresh();
+    from = Math.max( alignDown( from ), windowStart );
+    to = Math.min( alignDown( to + BUCKET_MILLIS - 1 ), getWindowEnd() );
+    if ( from >= to ) {
+      return new Load( from, bucketMillis, new int[ 0 ] );
+    }
+    int[] counts = new int[ (int) ( ( to - from + bucketMillis - 1 ) / bucketMillis ) ];
+    int first = getBucket( from );
+    int last = getBucket( to - 1 );
+    int perBucket = (int) ( bucketMillis / BUCKET_MILLIS );
+    for ( int bucket = first; bucket <= last; bucket++ ) {
+      counts[ ( bucket - first ) / perBucket ] += fireCounts[ bucket ];
+    }
+    return new Load( from, bucketMillis, counts );
+  }
+
+  /**
+   * @return the number of schedules in the forecast
+   */
+  public synchronized int getScheduleCount() {
+    return schedules.size();
+  }
+
+  /**
+   * @return the number of times the whole forecast was rebuilt
+   */
+  public long getRebuildCount() {
+    return rebuildCount.get();
+  }
+
+  /**
+   * @return the number of times a single schedule was reloaded
+   */
+  public long getUpdateCount() {
+    return updateCount.get();
+  }
+
+  /**
+   * @return the number of times the window rolled forward
+   */
+  public long getRollCount() {
+    return rollCount.get();
+  }
+
+  /**
+   * Empties the forecast, e.g. when the scheduler is shut down.
+   */
+  public synchronized void clear() {
+    schedules.clear();
+    Arrays.fill( fireCounts, 0 );
+    changedJobIds.clear();
+    rebuildNeeded = true;
+  }
+
+  /**
+   * Brings the index up to date: rebuilds it if needed, rolls the window forward to the current bucket and reloads
+   * the schedules that changed.
+   */
+  private void refresh() throws SchedulerException {
+    long now = clock.getAsLong();
+    long start = alignDown( now );
+    if ( rebuildNeeded || now - loadedAt >= maxAgeMillis ) {
+      rebuild( start, now );
+      return;
+    }
+    if ( start > windowStart ) {
+      roll( start );
+    }
+    for ( Iterator<String> changed = changedJobIds.iterator(); changed.hasNext(); ) {
+      String jobId = changed.next();
+      changed.remove();
+      update( jobId );
+    }
+  }
+
+  private void rebuild( long start, long now ) throws SchedulerException {
+    // changes signalled from here on are applied by the next query
+    rebuildNeeded = false;
+    changedJobIds.clear();
+    List<Schedule> loaded;
+    try {
+      loaded = loadSchedules();
+    } catch ( SchedulerException | RuntimeException e ) {
+      rebuildNeeded = true;
+      throw e;
+    }
+    schedules.clear();
+    Arrays.fill( fireCounts, 0 );
+    windowStart = start;
+    loadedAt = now;
+    for ( Schedule schedule : loaded ) {
+      add( schedule );
+    }
+    rebuildCount.incrementAndGet();
+  }
+
+  private void update( String jobId ) throws SchedulerException {
+    Schedule loaded;
+    try {
+      loaded = loadSchedule( jobId );
+    } catch ( SchedulerException | RuntimeException e ) {
+      changedJobIds.add( jobId );
+      throw e;
+    }
+    Schedule previous = schedules.remove( jobId );
+    if ( previous != null ) {
+      for ( int i = 0; i < previous.count; i++ ) {
+        fireCounts[ getBucket( previous.times[ i ] ) ]--;
+      }
+    }
+    if ( loaded != null ) {
+      add( loaded );
+    }
+    updateCount.incrementAndGet();
+  }
+
+  private void add( Schedule schedule ) {
+    schedules.put( schedule.jobId, schedule );
+    appendFireTimes( schedule, windowStart );
+  }
+
+  /**
+   * Moves the window forward: the buckets and fire times that have passed are dropped and each schedule gains the
+   * fire times between the old and the new end of the window.
+   */
+  private void roll( long start ) {
+    long previousEnd = getWindowEnd();
+    int shift = (int) Math.min( bucketCount, ( start - windowStart ) / BUCKET_MILLIS );
+    System.arraycopy( fireCounts, shift, fireCounts, 0, bucketCount - shift );
+    Arrays.fill( fireCounts, bucketCount - shift, bucketCount, 0 );
+    windowStart = start;
+    for ( Schedule schedule : schedules.values() ) {
+      int passed = indexAtOrAfter( schedule.times, schedule.count, start );
+      System.arraycopy( schedule.times, passed, schedule.times, 0, schedule.count - passed );
+      schedule.count -= passed;
+      // a schedule cut off at MAX_FIRE_TIMES continues after its last fire time rather than at the old end
+      long from = schedule.truncated && schedule.count > 0 ? schedule.times[ schedule.count - 1 ] + 1
+        : Math.max( previousEnd, start );
+      appendFireTimes( schedule, from );
+    }
+    rollCount.incrementAndGet();
+  }
+
+  private void appendFireTimes( Schedule schedule, long from ) {
+    long end = getWindowEnd();
+    schedule.truncated = false;
+    Date fireTime = schedule.trigger.getFireTimeAfter( new Date( from - 1 ) );
+    while ( fireTime != null && fireTime.getTime() < end ) {
+      long time = fireTime.getTime();
+      if ( schedule.calendar == null || schedule.calendar.isTimeIncluded( time ) ) {
+        if ( schedule.count == MAX_FIRE_TIMES ) {
+          schedule.truncated = true;
+          return;
+        }
+        if ( schedule.count == schedule.times.length ) {
+          schedule.times = Arrays.copyOf( schedule.times, Math.min( MAX_FIRE_TIMES, Math.max( 16,
+            schedule.count * 2 ) ) );
+        }
+        schedule.times[ schedule.count++ ] = time;
+        fireCounts[ getBucket( time ) ]++;
+      }
+      fireTime = schedule.trigger.getFireTimeAfter( fireTime );
+    }
+  }
+
+  private List<Schedule> loadSchedules() throws SchedulerException {
+    List<Schedule> loaded = new ArrayList<>();
+    if ( scheduler == null ) {
+      return loaded;
+    }
+    try {
+      if ( jobStoreBulkReader != null ) {
+        List<QuartzJobStoreBulkReader.JobRecord> records = null;
+        try {
+          records = jobStoreBulkReader.readJobs( scheduler );
+        } catch ( org.quartz.SchedulerException e ) {
+          logger.warn( "Bulk job listing failed, reading schedules one at a time instead", e ); //$NON-NLS-1$
+        }
+        if ( records != null ) {
+          for ( QuartzJobStoreBulkReader.JobRecord record : records ) {
+            Schedule schedule = toSchedule( record.getTrigger(), record.getTriggerState(), record.getCalendar() );
+            if ( schedule != null ) {
+              loaded.add( schedule );
+            }
+          }
+          return loaded;
+        }
+      }
+      for ( String groupName : scheduler.getJobGroupNames() ) {
+        for ( String jobId : scheduler.getJobNames( groupName ) ) {
+          Schedule schedule = loadSchedule( scheduler, jobId, groupName );
+          if ( schedule != null ) {
+            loaded.add( schedule );
+          }
+        }
+      }
+    } catch ( org.quartz.SchedulerException e ) {
+      throw new SchedulerException( e );
+    }
+    return loaded;
+  }
+
+  private Schedule loadSchedule( String jobId ) throws SchedulerException {
+    if ( scheduler == null ) {
+      return null;
+    }
+    try {
+      return loadSchedule( scheduler, jobId, QuartzJobKey.parse( jobId ).getUserName() );
+    } catch ( SchedulerException e ) {
+      // not a job created by this scheduler
+      return null;
+    } catch ( org.quartz.SchedulerException e ) {
+      throw new SchedulerException( e );
+    }
+  }
+
+  private static Schedule loadSchedule( Scheduler scheduler, String jobId, String groupName )
+    throws org.quartz.SchedulerException {
+    for ( Trigger trigger : scheduler.getTriggersOfJob( jobId, groupName ) ) {
+      if ( MANUAL_TRIGGER_GROUP.equals( trigger.getGroup() ) ) {
+        continue;
+      }
+      Calendar calendar = trigger.getCalendarName() == null ? null : scheduler.getCalendar( trigger.getCalendarName() );
+      return toSchedule( trigger, scheduler.getTriggerState( trigger.getName(), trigger.getGroup() ), calendar );
+    }
+    return null;
+  }
+
+  private static Schedule toSchedule( Trigger trigger, int triggerState, Calendar calendar ) {
+    if ( MANUAL_TRIGGER_GROUP.equals( trigger.getGroup() )
+      || ( triggerState != Trigger.STATE_NORMAL && triggerState != Trigger.STATE_BLOCKED ) ) {
+      return null;
+    }
+    QuartzJobKey jobKey;
+    try {
+      jobKey = QuartzJobKey.parse( trigger.getJobName() );
+    } catch ( SchedulerException e ) {
+      return null;
+    }
+    if ( IBlockoutManager.BLOCK_OUT_JOB_NAME.equals( jobKey.getJobName() ) ) {
+      return null;
+    }
+    return new Schedule( trigger.getJobName(), jobKey.getUserName(), jobKey.getJobName(), trigger, calendar );
+  }
+
+  private long getWindowEnd() {
+    return windowStart + bucketCount * BUCKET_MILLIS;
+  }
+
+  private int getBucket( long time ) {
+    return (int) ( ( time - windowStart ) / BUCKET_MILLIS );
+  }
+
+  private static long alignDown( long time ) {
+    return time - Math.floorMod( time, BUCKET_MILLIS );
+  }
+
+  // index of the first of the first count times at or after the instant
+  private static int indexAtOrAfter( long[] times, int count, long time ) {
+    int low = 0;
+    int high = count;
+    while ( low < high ) {
+      int mid = ( low + high ) >>> 1;
+      if ( times[ mid ] < time ) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * A fire time of a schedule.
+   */
+  public static class FireTime {
+    private final String jobId;
+
+    private final String userName;
+
+    private final String jobName;
+
+    private final long time;
+
+    FireTime( String jobId, String userName, String jobName, long time ) {
+      this.jobId = jobId;
+      this.userName = userName;
+      this.jobName = jobName;
+      this.time = time;
+    }
+
+    public String getJobId() {
+      return jobId;
+    }
+
+    public String getUserName() {
+      return userName;
+    }
+
+    public String getJobName() {
+      return jobName;
+    }
+
+    public long getTime() {
+      return time;
+    }
+  }
+
+  /**
+   * A page of the fire times of a period.
+   */
+  public static class FireTimes {
+    private final List<FireTime> fireTimes;
+
+    private final int offset;
+
+    private final int totalCount;
+
+    FireTimes( List<FireTime> fireTimes, int offset, int totalCount ) {
+      this.fireTimes = fireTimes;
+      this.offset = offset;
+      this.totalCount = totalCount;
+    }
+
+    public List<FireTime> getFireTimes() {
+      return fireTimes;
+    }
+
+    public int getOffset() {
+      return offset;
+    }
+
+    /**
+     * @return the number of fire times in the period, across all pages
+     */
+    public int getTotalCount() {
+      return totalCount;
+    }
+  }
+
+  /**
+   * The number of fire times in consecutive buckets of equal length.
+   */
+  public static class Load {
+    private final long from;
+
+    private final long bucketMillis;
+
+    private final int[] counts;
+
+    Load( long from, long bucketMillis, int[] counts ) {
+      this.from = from;
+      this.bucketMillis = bucketMillis;
+      this.counts = counts;
+    }
+
+    /**
+     * @return the start of the first bucket
+     */
+    public long getFrom() {
+      return from;
+    }
+
+    public long getBucketMillis() {
+      return bucketMillis;
+    }
+
+    public int[] getCounts() {
+      return counts.clone();
+    }
+  }
+
+  private static class Schedule {
+    final String jobId;
+
+    final String userName;
+
+    final String jobName;
+
+    final Trigger trigger;
+
+    final Calendar calendar;
+
+    // the fire times within the window, ascending, in the first count elements
+    long[] times = NO_FIRE_TIMES;
+
+    int count;
+
+    // whether fire times beyond MAX_FIRE_TIMES were left out
+    boolean truncated;
+
+    Schedule( String jobId, String userName, String jobName, Trigger trigger, Calendar calendar ) {
+      this.jobId = jobId;
+      this.userName = userName;
+      this.jobName = jobName;
+      this.trigger = trigger;
+      this.calendar = calendar;
+    }
+  }
+
+  private static class Cursor {
+    final Schedule schedule;
+
+    final int end;
+
+    int position;
+
+    Cursor( Schedule schedule, int position, int end ) {
+      this.schedule = schedule;
+      this.position = position;
+      this.end = end;
+    }
+
+    long getTime() {
+      return schedule.times[ position ];
+    }
+  }
+
+  /**
+   * Records the schedules affected by scheduling changes. Quartz passes a {@code null} name when a whole group (the
+   * jobs of one user) changes.
+   */
+  class ForecastSchedulerListener extends SchedulerListenerSupport {
+
+    @Override
+    public void jobScheduled( Trigger trigger ) {
+      changed( trigger.getJobName(), trigger.getGroup() );
+    }
+
+    @Override
+    public void jobUnscheduled( String triggerName, String triggerGroup ) {
+      changed( triggerName, triggerGroup );
+    }
+
+    @Override
+    public void triggerFinalized( Trigger trigger ) {
+      changed( trigger.getJobName(), trigger.getGroup() );
+    }
+
+    @Override
+    public void triggersPaused( String triggerName, String triggerGroup ) {
+      changed( triggerName, triggerGroup );
+    }
+
+    @Override
+    public void triggersResumed( String triggerName, String triggerGroup ) {
+      changed( triggerName, triggerGroup );
+    }
+
+    @Override
+    public void jobsPaused( String jobName, String jobGroup ) {
+      changed( jobName, jobGroup );
+    }
+
+    @Override
+    public void jobsResumed( String jobName, String jobGroup ) {
+      changed( jobName, jobGroup );
+    }
+
+    @Override
+    public void schedulerShutdown() {
+      invalidateAll();
+    }
+
+    private void changed( String jobId, String group ) {
+      if ( MANUAL_TRIGGER_GROUP.equals( group ) ) {
+        return;
+      }
+      if ( jobId == null ) {
+        invalidateAll();
+      } else {
+        invalidate( jobId );
+      }
+    }
+  }
+}
@@ -0,0 +1,417 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.api.scheduler2.JobTrigger;
+import org.pentaho.platform.web.http.api.resources.RepositoryFileStreamProvider;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits how many scheduled jobs of each action type run at once, so that a burst of fires, e.g. every schedule set to
+ * the top of the hour, does not run them all together against the repository and the data sources.
+ * <p>
+ * The action type of a job is the extension of its input file, e.g. {@code ktr}, {@code kjb} or {@code prpt}. A type
+ * runs at most {@link #PROP_MAX_CONCURRENT_PREFIX}{@code <type>} jobs at once; types without a limit of their own share
+ * the {@link #DEFAULT_ACTION_TYPE} limit, if set, and are not limited otherwise. A fire beyond the limit waits for a
+ * running job of its type to finish, holding its Quartz worker thread; at most {@link #getMaxQueued()} fires wait per
+ * type, each for at most {@link #getMaxWaitMillis()}. A fire that cannot wait, or waits in vain, is rejected and does
+ * not run; the next fire of its schedule runs as usual.
+ * <p>
+ * Each fire may also be delayed by a random jitter of up to {@link #getMaxJitterMillis()} before it is admitted, which
+ * spreads fires scheduled for the same instant.
+ * <p>
+ * A fire whose trigger priority is at least {@link #getInteractivePriority()}, e.g. a "Run in background" request, is
+ * interactive: it is admitted at once, without jitter, and not counted against any limit. Limiting the action types
+ * to fewer jobs than the Quartz thread pool has threads thus keeps threads free for interactive jobs however much batch
+ * work is due, as Quartz has a single pool shared by all jobs.
+ */
+public class JobAdmissionControl {
+
+  public static final String PROP_ADMISSION_ENABLED = "org.pentaho.scheduler.admission.enabled"; //$NON-NLS-1$
+
+  /**
+   * Followed by an action type, or by {@link #DEFAULT_ACTION_TYPE}.
+   */
+  public static final String PROP_MAX_CONCURRENT_PREFIX =
+    "org.pentaho.scheduler.admission.maxConcurrent."; //$NON-NLS-1$
+
+  public static final String PROP_MAX_QUEUED = "org.pentaho.scheduler.admission.maxQueued"; //$NON-NLS-1$
+
+  public static final String PROP_MAX_WAIT_MILLIS = "org.pentaho.scheduler.admission.maxWaitMillis"; //$NON-NLS-1$
+
+  public static final String PROP_MAX_JITTER_MILLIS = "org.pentaho.scheduler.admission.maxJitterMillis"; //$NON-NLS-1$
+
+  public static final String PROP_INTERACTIVE_PRIORITY =
+    "org.pentaho.scheduler.admission.interactivePriority"; //$NON-NLS-1$
+
+  /**
+   * The action type of jobs without an input file extension, and the limit of types without a limit of their own.
+   */
+  public static final String DEFAULT_ACTION_TYPE = "default"; //$NON-NLS-1$
+
+  /**
+   * Admits every fire; returned when admission control does not apply.
+   */
+  public static final Permit UNLIMITED = () -> {
+  };
+
+  static final int DEFAULT_MAX_QUEUED = 100;
+
+  static final long DEFAULT_MAX_WAIT_MILLIS = 600000L;
+
+  private static final Log logger = LogFactory.getLog( JobAdmissionControl.class );
+
+  private final Map<String, Lane> lanes;
+
+  private final Lane defaultLane;
+
+  private final int maxQueued;
+
+  private final long maxWaitMillis;
+
+  private final long maxJitterMillis;
+
+  private final int interactivePriority;
+
+  private final Sleeper sleeper;
+
+  private final AtomicLong admittedCount = new AtomicLong();
+
+  private final AtomicLong queuedCount = new AtomicLong();
+
+  private final AtomicLong rejectedCount = new AtomicLong();
+
+  private final AtomicLong interactiveCount = new AtomicLong();
+
+  /**
+   * @param maxConcurrent   the jobs of each action type that run at once at most, by action type
+   * @param maxQueued       the fires of each action type that wait for admission at most
+   * @param maxWaitMillis   how long a fire waits for admission at most
+   * @param maxJitterMillis the longest random delay of a fire before admission, or 0 for none
+   */
+  public JobAdmissionControl( Map<String, Integer> maxConcurrent, int maxQueued, long maxWaitMillis,
+                              long maxJitterMillis ) {
+    this( maxConcurrent, maxQueued, maxWaitMillis, maxJitterMillis, JobTrigger.HIGH_PRIORITY );
+  }
+
+  /**
+   * @param maxConcurrent       the jobs of each action type that run at once at most, by action type
+   * @param maxQueued           the fires of each action type that wait for admission at most
+   * @param maxWaitMillis       how long a fire waits for admission at most
+   * @param maxJitterMillis     the longest random delay of a fire before admission, or 0 for none
+   * @param interactivePriority the lowest trigger priority of the fires that are admitted at once
+   */
+  public JobAdmissionControl( Map<String, Integer> maxConcurrent, int maxQueued, long maxWaitMillis,
+                              long maxJitterMillis, int interactivePriority ) {
+    this( maxConcurrent, maxQueued, maxWaitMillis, maxJitterMillis, interactivePriority, Thread::sleep );
+  }
+
+  JobAdmissionControl( Map<String, Integer> maxConcurrent, int maxQueued, long maxWaitMillis, long maxJitterMillis,
+                       int interactivePriority, Sleeper sleeper ) {
+    if ( maxQueued < 0 || maxWaitMillis < 0 || maxJitterMillis < 0 ) {
+      throw new IllegalArgumentException( "maxQueued, maxWaitMillis and maxJitterMillis must not be negative: "
+        + maxQueued + ", " + maxWaitMillis + ", " + maxJitterMillis ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    Map<String, Lane> configuredLanes = new HashMap<>();
+    for ( Map.Entry<String, Integer> limit : maxConcurrent.entrySet() ) {
+      if ( limit.getValue() <= 0 ) {
+        throw new IllegalArgumentException( "maxConcurrent must be positive: " + limit ); //$NON-NLS-1$
+      }
+      configuredLanes.put( limit.getKey().toLowerCase( Locale.ROOT ), new Lane( limit.getValue() ) );
+    }
+    this.lanes = Collections.unmodifiableMap( configuredLanes );
+    this.defaultLane = lanes.get( DEFAULT_ACTION_TYPE );
+    this.maxQueued = maxQueued;
+    this.maxWaitMillis = maxWaitMillis;
+    this.maxJitterMillis = maxJitterMillis;
+    this.interactivePriority = interactivePriority;
+    this.sleeper = sleeper;
+  }
+
+  /**
+   * Creates an admission control configured by the given Quartz properties.
+   *
+   * @param quartzProperties the properties the Quartz scheduler was created with
+   * @return an admission control, or {@code null} unless {@link #PROP_ADMISSION_ENABLED} is {@code true}
+   */
+  public static JobAdmissionControl create( Properties quartzProperties ) {
+    if ( quartzProperties == null
+      || !Boolean.parseBoolean( quartzProperties.getProperty( PROP_ADMISSION_ENABLED, "false" ) ) ) { //$NON-NLS-1$
+      return null;
+    }
+    Map<String, Integer> maxConcurrent = new HashMap<>();
+    for ( String name : quartzProperties.stringPropertyNames() ) {
+      if ( name.startsWith( PROP_MAX_CONCURRENT_PREFIX ) && name.length() > PROP_MAX_CONCURRENT_PREFIX.length() ) {
+        long limit = getLong( quartzProperties, name, 0 );
+        if ( limit > 0 ) {
+          maxConcurrent.put( name.substring( PROP_MAX_CONCURRENT_PREFIX.length() ), (int) Math.min( limit,
+            Integer.MAX_VALUE ) );
+        }
+      }
+    }
+    return new JobAdmissionControl( maxConcurrent,
+      (int) Math.min( getLong( quartzProperties, PROP_MAX_QUEUED, DEFAULT_MAX_QUEUED ), Integer.MAX_VALUE ),
+      getLong( quartzProperties, PROP_MAX_WAIT_MILLIS, DEFAULT_MAX_WAIT_MILLIS ),
+      getLong( quartzProperties, PROP_MAX_JITTER_MILLIS, 0 ),
+      (int) Math.min( getLong( quartzProperties, PROP_INTERACTIVE_PRIORITY, JobTrigger.HIGH_PRIORITY ),
+        Integer.MAX_VALUE ) );
+  }
+
+  private static long getLong( Properties quartzProperties, String name, long defaultValue ) {
+    String value = quartzProperties.getProperty( name );
+    if ( value == null ) {
+      return defaultValue;
+    }
+    try {
+      long parsed = Long.parseLong( value.trim() );
+      if ( parsed >= 0 ) {
+        return parsed;
+      }
+    } catch ( NumberFormatException e ) {
+      // warned below
+    }
+    logger.warn( "Invalid " + name + " '" + value + "', using " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+      + defaultValue );
+    return defaultValue;
+  }
+
+  /**
+   * @param jobParams the parameters of a job
+   * @return the extension of the job's input file in lower case, or {@link #DEFAULT_ACTION_TYPE} if it has none
+   */
+  public static String getActionType( Map<String, Serializable> jobParams ) {
+    String inputFile = null;
+    Object streamProvider = jobParams.get( IScheduler.RESERVEDMAPKEY_STREAMPROVIDER );
+    if ( streamProvider instanceof RepositoryFileStreamProvider ) {
+      inputFile = ( (RepositoryFileStreamProvider) streamProvider ).getInputFilePath();
+    } else if ( streamProvider instanceof String ) {
+      // input = <input file>:outputFile = <output file>
+      String input = ( (String) streamProvider ).split( ":" )[ 0 ]; //$NON-NLS-1$
+      inputFile = input.substring( input.indexOf( '=' ) + 1 ).trim();
+    } else if ( jobParams.get( "transformation" ) != null ) { //$NON-NLS-1$
+      return "ktr"; //$NON-NLS-1$
+    } else if ( jobParams.get( "job" ) != null ) { //$NON-NLS-1$
+      return "kjb"; //$NON-NLS-1$
+    }
+    return getActionTypeOfFile( inputFile );
+  }
+
+  /**
+   * @param inputFile the input file of a job, or {@code null}
+   * @return the extension of the file in lower case, or {@link #DEFAULT_ACTION_TYPE} if it has none
+   */
+  public static String getActionTypeOfFile( String inputFile ) {
+    String extension = inputFile == null ? "" : FilenameUtils.getExtension( inputFile ); //$NON-NLS-1$
+    return extension.isEmpty() ? DEFAULT_ACTION_TYPE : extension.toLowerCase( Locale.ROOT );
+  }
+
+  /**
+   * Delays the calling thread by the jitter, then waits until a job of the given type may run.
+   *
+   * @param actionType the action type of the job that fired
+   * @return the permit to run the job, to be closed once the job has finished, or {@code null} if the job is rejected
+   */
+  public Permit admit( String actionType ) {
+    return admit( actionType, JobTrigger.DEFAULT_PRIORITY );
+  }
+
+  /**
+   * Admits an interactive job at once; otherwise delays the calling thread by the jitter, then waits until a job of
+   * the given type may run.
+   *
+   * @param actionType the action type of the job that fired
+   * @param priority   the priority of the trigger that fired
+   * @return the permit to run the job, to be closed once the job has finished, or {@code null} if the job is rejected
+   */
+  public Permit admit( String actionType, int priority ) {
+    if ( priority >= interactivePriority ) {
+      interactiveCount.incrementAndGet();
+      admittedCount.incrementAndGet();
+      return UNLIMITED;
+    }
+    try {
+      if ( maxJitterMillis > 0 ) {
+        sleeper.sleep( ThreadLocalRandom.current().nextLong( maxJitterMillis ) );
+      }
+      Lane lane = getLane( actionType );
+      if ( lane == null ) {
+        admittedCount.incrementAndGet();
+        return UNLIMITED;
+      }
+      // unlike tryAcquire(), honours the fairness towards the fires already waiting
+      if ( lane.permits.tryAcquire( 0, TimeUnit.MILLISECONDS ) ) {
+        admittedCount.incrementAndGet();
+        return new LanePermit( lane );
+      }
+      if ( lane.waiting.incrementAndGet() > maxQueued ) {
+        lane.waiting.decrementAndGet();
+        rejectedCount.incrementAndGet();
+        return null;
+      }
+      queuedCount.incrementAndGet();
+      try {
+        if ( lane.permits.tryAcquire( maxWaitMillis, TimeUnit.MILLISECONDS ) ) {
+          admittedCount.incrementAndGet();
+          return new LanePermit( lane );
+        }
+      } finally {
+        lane.waiting.decrementAndGet();
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    rejectedCount.incrementAndGet();
+    return null;
+  }
+
+  private Lane getLane( String actionType ) {
+    Lane lane = actionType == null ? null : lanes.get( actionType.toLowerCase( Locale.ROOT ) );
+    return lane != null ? lane : defaultLane;
+  }
+
+  /**
+   * @return the action types with a limit of their own, {@link #DEFAULT_ACTION_TYPE} included if it is limited
+   */
+  public Set<String> getLimitedActionTypes() {
+    return lanes.keySet();
+  }
+
+  /**
+   * @param actionType an action type
+   * @return the number of jobs counted against the limit of the action type that are running
+   */
+  public int getRunningCount( String actionType ) {
+    Lane lane = getLane( actionType );
+    return lane == null ? 0 : lane.limit - lane.permits.availablePermits();
+  }
+
+  /**
+   * @param actionType an action type
+   * @return the number of fires counted against the limit of the action type that are waiting for admission
+   */
+  public int getWaitingCount( String actionType ) {
+    Lane lane = getLane( actionType );
+    return lane == null ? 0 : lane.waiting.get();
+  }
+
+  public int getMaxQueued() {
+    return maxQueued;
+  }
+
+  public long getMaxWaitMillis() {
+    return maxWaitMillis;
+  }
+
+  public long getMaxJitterMillis() {
+    return maxJitterMillis;
+  }
+
+  public int getInteractivePriority() {
+    return interactivePriority;
+  }
+
+  /**
+   * @return the number of fires admitted, at once or after waiting
+   */
+  public long getAdmittedCount() {
+    return admittedCount.get();
+  }
+
+  /**
+   * @return the number of fires admitted at once as interactive, included in {@link #getAdmittedCount()}
+   */
+  public long getInteractiveCount() {
+    return interactiveCount.get();
+  }
+
+  /**
+   * @return the number of fires that had to wait for admission
+   */
+  public long getQueuedCount() {
+    return queuedCount.get();
+  }
+
+  /**
+   * @return the number of fires rejected because too many fires were waiting already or the wait timed out
+   */
+  public long getRejectedCount() {
+    return rejectedCount.get();
+  }
+
+  /**
+   * The right of an admitted job to run; closing it lets the next job of its type in.
+   */
+  public interface Permit extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  interface Sleeper {
+    void sleep( long millis ) throws InterruptedException;
+  }
+
+  private static class Lane {
+    final int limit;
+
+    final Semaphore permits;
+
+    final AtomicInteger waiting = new AtomicInteger();
+
+    Lane( int limit ) {
+      this.limit = limit;
+      this.permits = new Semaphore( limit, true );
+    }
+  }
+
+  private static class LanePermit implements Permit {
+    private final Lane lane;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    LanePermit( Lane lane ) {
+      this.lane = lane;
+    }
+
+    @Override
+    public void close() {
+      if ( closed.compareAndSet( false, true ) ) {
+        lane.permits.release();
+      }
+    }
+  }
+}
@@ -0,0 +1,524 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.scheduler2.IBackgroundExecutionStreamProvider;
+import org.pentaho.platform.api.scheduler2.IJobResult;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the latest runs of every job in memory, so that "the last runs of this job" is answered without a scan of the
+ * audit table. The runs of a job are appended to a ring of at most {@link #getMaxRunsPerJob()} runs, the oldest
+ * dropping off as new ones arrive; they are indexed by job id and, as a job keeps its lineage id when it is updated
+ * under a new job id, by lineage id too. At most {@link #getMaxJobs()} jobs and lineages are kept each, the least
+ * recently used dropping off first.
+ * <p>
+ * Each ring maintains the statistics of its runs as they are appended and dropped: the number of runs, of failed and
+ * of skipped runs, and a histogram of the durations of the runs that ran, in the buckets of a
+ * {@link DurationHistogram}, from which the median and 95th percentile are read in constant time. A percentile is the
+ * upper bound of its bucket, at most a quarter above the exact duration.
+ * <p>
+ * The store is local to a node and lost on restart; the audit table remains the durable record of the runs.
+ */
+public class JobHistoryStore {
+
+  public static final String PROP_HISTORY_ENABLED = "org.pentaho.scheduler.history.enabled"; //$NON-NLS-1$
+
+  public static final String PROP_MAX_RUNS_PER_JOB = "org.pentaho.scheduler.history.maxRunsPerJob"; //$NON-NLS-1$
+
+  public static final String PROP_MAX_JOBS = "org.pentaho.scheduler.history.maxJobs"; //$NON-NLS-1$
+
+  static final int DEFAULT_MAX_RUNS_PER_JOB = 50;
+
+  static final int DEFAULT_MAX_JOBS = 10000;
+
+  private static final String OUTPUT_FILE_TOKEN = "outputFile"; //$NON-NLS-1$
+
+  private static final Log logger = LogFactory.getLog( JobHistoryStore.class );
+
+  /**
+   * How a run ended.
+   */
+  public enum Outcome {
+    /** the job ran and completed */
+    SUCCEEDED,
+    /** the job ran and failed */
+    FAILED,
+    /** the job did not run, e.g. during a blockout or as it was not admitted */
+    SKIPPED
+  }
+
+  private final int maxRunsPerJob;
+
+  private final int maxJobs;
+
+  // access ordered, guarded by themselves
+
+  private final Map<String, History> jobs;
+
+  private final Map<String, History> lineages;
+
+  private final AtomicLong recordCount = new AtomicLong();
+
+  public JobHistoryStore() {
+    this( DEFAULT_MAX_RUNS_PER_JOB, DEFAULT_MAX_JOBS );
+  }
+
+  /**
+   * @param maxRunsPerJob the number of runs kept per job and per lineage
+   * @param maxJobs       the number of jobs, and of lineages, whose runs are kept
+   */
+  public JobHistoryStore( int maxRunsPerJob, int maxJobs ) {
+    if ( maxRunsPerJob <= 0 || maxJobs <= 0 ) {
+      throw new IllegalArgumentException(
+        "maxRunsPerJob and maxJobs must be positive: " + maxRunsPerJob + ", " + maxJobs ); //$NON-NLS-1$
+    }
+    this.maxRunsPerJob = maxRunsPerJob;
+    this.maxJobs = maxJobs;
+    this.jobs = createIndex( maxJobs );
+    this.lineages = createIndex( maxJobs );
+  }
+
+  /**
+   * @param quartzProperties the properties of the Quartz scheduler, or {@code null}
+   * @return the store configured by the {@code org.pentaho.scheduler.history.*} properties, or {@code null} if it is
+   * disabled
+   */
+  public static JobHistoryStore create( Properties quartzProperties ) {
+    if ( quartzProperties == null ) {
+      return new JobHistoryStore();
+    }
+    if ( !Boolean.parseBoolean( quartzProperties.getProperty( PROP_HISTORY_ENABLED, "true" ) ) ) { //$NON-NLS-1$
+      return null;
+    }
+    return new JobHistoryStore( getPositiveInt( quartzProperties, PROP_MAX_RUNS_PER_JOB, DEFAULT_MAX_RUNS_PER_JOB ),
+      getPositiveInt( quartzProperties, PROP_MAX_JOBS, DEFAULT_MAX_JOBS ) );
+  }
+
+  private static int getPositiveInt( Properties quartzProperties, String name, int defaultValue ) {
+    String value = quartzProperties.getProperty( name );
+    if ( value == null ) {
+      return defaultValue;
+    }
+    try {
+      int parsed = Integer.parseInt( value.trim() );
+      if ( parsed > 0 ) {
+        return parsed;
+      }
+    } catch ( NumberFormatException e ) {
+      // warned below
+    }
+    logger.warn( "Invalid " + name + " '" + value + "', using " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+      + defaultValue );
+    return defaultValue;
+  }
+
+  private static Map<String, History> createIndex( final int maxEntries ) {
+    return new LinkedHashMap<String, History>( 16, 0.75f, true ) {
+      @Override
+      protected boolean removeEldestEntry( Map.Entry<String, History> eldest ) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  public int getMaxRunsPerJob() {
+    return maxRunsPerJob;
+  }
+
+  public int getMaxJobs() {
+    return maxJobs;
+  }
+
+  /**
+   * @return the number of runs recorded since the store was created
+   */
+  public long getRecordCount() {
+    return recordCount.get();
+  }
+
+  /**
+   * @return the number of jobs whose runs are kept
+   */
+  public int getJobCount() {
+    synchronized ( jobs ) {
+      return jobs.size();
+    }
+  }
+
+  /**
+   * Appends a run to the history of its job and of its lineage.
+   *
+   * @param run the run
+   */
+  public void record( JobRun run ) {
+    recordCount.incrementAndGet();
+    getHistory( jobs, run.getJobId(), true ).append( run );
+    if ( run.getLineageId() != null ) {
+      getHistory( lineages, run.getLineageId(), true ).append( run );
+    }
+  }
+
+  /**
+   * @param jobId the id of the job
+   * @param limit the number of runs returned at most
+   * @return the latest runs of the job, the latest first
+   */
+  public List<JobRun> getRuns( String jobId, int limit ) {
+    History history = getHistory( jobs, jobId, false );
+    return history == null ? Collections.<JobRun>emptyList() : history.getRuns( limit );
+  }
+
+  /**
+   * @param jobId the id of the job
+   * @return the statistics of the runs of the job that are kept, or {@code null} if none is
+   */
+  public JobStats getStats( String jobId ) {
+    History history = getHistory( jobs, jobId, false );
+    return history == null ? null : history.getStats();
+  }
+
+  /**
+   * @param lineageId the lineage id shared by the versions of a job
+   * @param limit     the number of runs returned at most
+   * @return the latest runs of the lineage, the latest first
+   */
+  public List<JobRun> getLineageRuns( String lineageId, int limit ) {
+    History history = getHistory( lineages, lineageId, false );
+    return history == null ? Collections.<JobRun>emptyList() : history.getRuns( limit );
+  }
+
+  /**
+   * @param lineageId the lineage id shared by the versions of a job
+   * @return the statistics of the runs of the lineage that are kept, or {@code null} if none is
+   */
+  public JobStats getLineageStats( String lineageId ) {
+    History history = getHistory( lineages, lineageId, false );
+    return history == null ? null : history.getStats();
+  }
+
+  /**
+   * Forgets the runs of a job, e.g. when it is removed; the runs remain in the history of its lineage.
+   *
+   * @param jobId the id of the job
+   */
+  public void remove( String jobId ) {
+    synchronized ( jobs ) {
+      jobs.remove( jobId );
+    }
+  }
+
+  /**
+   * Forgets every run.
+   */
+  public void clear() {
+    synchronized ( jobs ) {
+      jobs.clear();
+    }
+    synchronized ( lineages ) {
+      lineages.clear();
+    }
+  }
+
+  private History getHistory( Map<String, History> index, String key, boolean create ) {
+    if ( key == null ) {
+      return null;
+    }
+    synchronized ( index ) {
+      History history = index.get( key );
+      if ( history == null && create ) {
+        history = new History( maxRunsPerJob );
+        index.put( key, history );
+      }
+      return history;
+    }
+  }
+
+  /**
+   * @param jobParams the parameters of a job
+   * @return the output path of the job's stream provider, the path of the last file it generated if it has run in
+   * this process, or {@code null} if the job has no output file
+   */
+  public static String getOutputPath( Map<String, ? extends Serializable> jobParams ) {
+    Object streamProvider = jobParams.get( IScheduler.RESERVEDMAPKEY_STREAMPROVIDER );
+    if ( streamProvider instanceof IBackgroundExecutionStreamProvider ) {
+      return ( (IBackgroundExecutionStreamProvider) streamProvider ).getOutputPath();
+    }
+    if ( streamProvider instanceof String ) {
+      // input = <input file>:outputFile = <output file>
+      String resource = (String) streamProvider;
+      int outputFileIndex = resource.indexOf( OUTPUT_FILE_TOKEN );
+      if ( outputFileIndex >= 0 ) {
+        String output = resource.substring( outputFileIndex + OUTPUT_FILE_TOKEN.length() );
+        return output.substring( output.indexOf( '=' ) + 1 ).trim();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * A run of a job.
+   */
+  public static class JobRun implements IJobResult, Serializable {
+
+    private static final long serialVersionUID = -3471866301459208523L;
+
+    private final String jobId;
+
+    private final String lineageId;
+
+    private final long start;
+
+    private final long end;
+
+    private final Outcome outcome;
+
+    private final String outputPath;
+
+    /**
+     * @param jobId      the id of the job
+     * @param lineageId  the lineage id of the job, or {@code null}
+     * @param start      the instant the run started, in milliseconds since the epoch
+     * @param end        the instant the run ended, in milliseconds since the epoch
+     * @param outcome    how the run ended
+     * @param outputPath the path of the output of the run, or {@code null}
+     */
+    public JobRun( String jobId, String lineageId, long start, long end, Outcome outcome, String outputPath ) {
+      if ( jobId == null || outcome == null ) {
+        throw new IllegalArgumentException( "jobId and outcome are required" ); //$NON-NLS-1$
+      }
+      this.jobId = jobId;
+      this.lineageId = lineageId;
+      this.start = start;
+      this.end = Math.max( start, end );
+      this.outcome = outcome;
+      this.outputPath = outputPath;
+    }
+
+    public String getJobId() {
+      return jobId;
+    }
+
+    public String getLineageId() {
+      return lineageId;
+    }
+
+    public Date getStart() {
+      return new Date( start );
+    }
+
+    public Date getEnd() {
+      return new Date( end );
+    }
+
+    /**
+     * @return the duration of the run in milliseconds
+     */
+    public long getDuration() {
+      return end - start;
+    }
+
+    public Outcome getOutcome() {
+      return outcome;
+    }
+
+    public String getOutputPath() {
+      return outputPath;
+    }
+
+    @Override
+    public String toString() {
+      return "JobRun[jobId=" + jobId + ", start=" + start //$NON-NLS-1$ //$NON-NLS-2$
+        + ", duration=" + getDuration() + ", outcome=" + outcome + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+  }
+
+  /**
+   * The statistics of the runs of a job or lineage that are kept.
+   */
+  public static class JobStats {
+    private final int runCount;
+
+    private final int failureCount;
+
+    private final int skippedCount;
+
+    private final long totalCount;
+
+    private final long medianDuration;
+
+    private final long p95Duration;
+
+    private final long p99Duration;
+
+    JobStats( int runCount, int failureCount, int skippedCount, long totalCount, long medianDuration,
+              long p95Duration, long p99Duration ) {
+      this.runCount = runCount;
+      this.failureCount = failureCount;
+      this.skippedCount = skippedCount;
+      this.totalCount = totalCount;
+      this.medianDuration = medianDuration;
+      this.p95Duration = p95Duration;
+      this.p99Duration = p99Duration;
+    }
+
+    /**
+     * @return the number of runs kept, at most {@link JobHistoryStore#getMaxRunsPerJob()}
+     */
+    public int getRunCount() {
+      return runCount;
+    }
+
+    public int getFailureCount() {
+      return failureCount;
+    }
+
+    public int getSkippedCount() {
+      return skippedCount;
+    }
+
+    /**
+     * @return the number of runs recorded, including those no longer kept
+     */
+    public long getTotalCount() {
+      return totalCount;
+    }
+
+    /**
+     * @return the share of the runs kept that failed, from 0 to 1
+     */
+    public double getFailureRate() {
+      return runCount == 0 ? 0 : (double) failureCount / runCount;
+    }
+
+    /**
+     * @return the median duration of the runs kept that ran, in milliseconds, or -1 if none ran
+     */
+    public long getMedianDuration() {
+      return medianDuration;
+    }
+
+    /**
+     * @return the 95th percentile of the durations of the runs kept that ran, in milliseconds, or -1 if none ran
+     */
+    public long getP95Duration() {
+      return p95Duration;
+    }
+
+    /**
+     * @return the 99th percentile of the durations of the runs kept that ran, in milliseconds, or -1 if none ran
+     */
+    public long getP99Duration() {
+      return p99Duration;
+    }
+  }
+
+  /**
+   * The ring of the latest runs of a job or lineage, with their statistics.
+   */
+  private static class History {
+    private final JobRun[] runs;
+
+    // the position of the next run
+    private int next;
+
+    private int size;
+
+    private long totalCount;
+
+    private int failureCount;
+
+    private int skippedCount;
+
+    private int timedCount;
+
+    private final int[] durationCounts = new int[ DurationHistogram.BUCKETS ];
+
+    History( int maxRuns ) {
+      runs = new JobRun[ maxRuns ];
+    }
+
+    synchronized void append( JobRun run ) {
+      if ( size == runs.length ) {
+        count( runs[ next ], -1 );
+      } else {
+        size++;
+      }
+      runs[ next ] = run;
+      next = ( next + 1 ) % runs.length;
+      totalCount++;
+      count( run, 1 );
+    }
+
+    private void count( JobRun run, int delta ) {
+      if ( run.getOutcome() == Outcome.SKIPPED ) {
+        skippedCount += delta;
+        return;
+      }
+      if ( run.getOutcome() == Outcome.FAILED ) {
+        failureCount += delta;
+      }
+      timedCount += delta;
+      durationCounts[ DurationHistogram.getBucket( run.getDuration() ) ] += delta;
+    }
+
+    synchronized List<JobRun> getRuns( int limit ) {
+      int count = Math.max( 0, Math.min( limit, size ) );
+      List<JobRun> latest = new ArrayList<>( count );
+      for ( int i = 1; i <= count; i++ ) {
+        latest.add( runs[ ( next - i + runs.length ) % runs.length ] );
+      }
+      return latest;
+    }
+
+    synchronized JobStats getStats() {
+      return new JobStats( size, failureCount, skippedCount, totalCount, getPercentile( 50 ), getPercentile( 95 ),
+        getPercentile( 99 ) );
+    }
+
+    private long getPercentile( int percent ) {
+      if ( timedCount == 0 ) {
+        return -1;
+      }
+      // the rank of the percentile among the durations, from 1
+      long rank = Math.max( 1, ( (long) timedCount * percent + 99 ) / 100 );
+      long seen = 0;
+      for ( int bucket = 0; bucket < durationCounts.length; bucket++ ) {
+        seen += durationCounts[ bucket ];
+        if ( seen >= rank ) {
+          return DurationHistogram.getUpperBound( bucket );
+        }
+      }
+      return -1;
+    }
+  }
+}
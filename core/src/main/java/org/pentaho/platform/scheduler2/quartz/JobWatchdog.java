@@ -0,0 +1,439 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Watches the runs of jobs in progress and cancels those that overrun, so that a hung action does not hold a worker
+ * thread of the Quartz pool until the server restarts.
+ * <p>
+ * A run times out once it has run for longer than the timeout of its job, given in seconds by the
+ * {@link #RESERVEDMAPKEY_TIMEOUT} parameter, or else than {@link #getDefaultTimeoutMillis()}; a run that times out is
+ * cancelled. A run is also flagged as slow once it has run for {@link #getSlowRunFactor()} times the 99th percentile of
+ * the latest runs of its job, provided at least {@link #MIN_TIMED_RUNS} of them are kept; a slow run is only cancelled
+ * if {@link #isCancelSlowRuns()}, as the history may not reflect a legitimately larger input.
+ * <p>
+ * Cancellation is cooperative: the thread of the run is interrupted once, which stops a blocking wait, and the
+ * scheduler checks {@link Execution#isCancelled()} between the stages of the run. The thread is not interrupted again,
+ * so that the cleanup and the auditing of the run, and their I/O, are not broken off. The runs are checked every
+ * {@link #getCheckIntervalMillis()} by a daemon thread, started with the first run watched.
+ */
+public class JobWatchdog {
+
+  public static final String PROP_WATCHDOG_ENABLED = "org.pentaho.scheduler.watchdog.enabled"; //$NON-NLS-1$
+
+  public static final String PROP_DEFAULT_TIMEOUT = "org.pentaho.scheduler.watchdog.defaultTimeout"; //$NON-NLS-1$
+
+  public static final String PROP_CHECK_INTERVAL = "org.pentaho.scheduler.watchdog.checkInterval"; //$NON-NLS-1$
+
+  public static final String PROP_SLOW_RUN_FACTOR = "org.pentaho.scheduler.watchdog.slowRunFactor"; //$NON-NLS-1$
+
+  public static final String PROP_CANCEL_SLOW_RUNS = "org.pentaho.scheduler.watchdog.cancelSlowRuns"; //$NON-NLS-1$
+
+  /**
+   * The job parameter holding the timeout of the runs of the job in seconds; 0 disables the default timeout.
+   */
+  public static final String RESERVEDMAPKEY_TIMEOUT = "ActionAdapterQuartzJob-Timeout"; //$NON-NLS-1$
+
+  static final long DEFAULT_CHECK_INTERVAL_MILLIS = 30000L;
+
+  static final double DEFAULT_SLOW_RUN_FACTOR = 3;
+
+  /**
+   * Runs of a job that must be kept before its 99th percentile is trusted.
+   */
+  static final int MIN_TIMED_RUNS = 20;
+
+  private static final Log logger = LogFactory.getLog( JobWatchdog.class );
+
+  private static final ThreadLocal<Execution> CURRENT = new ThreadLocal<>();
+
+  private final long defaultTimeoutMillis;
+
+  private final long checkIntervalMillis;
+
+  private final double slowRunFactor;
+
+  private final boolean cancelSlowRuns;
+
+  private final LongSupplier clock;
+
+  private final Set<Execution> executions = ConcurrentHashMap.newKeySet();
+
+  private final AtomicLong timedOutCount = new AtomicLong();
+
+  private final AtomicLong slowCount = new AtomicLong();
+
+  private ScheduledExecutorService timer;
+
+  public JobWatchdog() {
+    this( 0, DEFAULT_CHECK_INTERVAL_MILLIS, DEFAULT_SLOW_RUN_FACTOR, false );
+  }
+
+  /**
+   * @param defaultTimeoutMillis the timeout of the runs of jobs that have none, or 0 for none
+   * @param checkIntervalMillis  the interval between two checks of the runs
+   * @param slowRunFactor        the multiple of the 99th percentile of the runs of a job beyond which a run is slow, or
+   *                             0 to flag no run as slow
+   * @param cancelSlowRuns       whether slow runs are cancelled as well
+   */
+  public JobWatchdog( long defaultTimeoutMillis, long checkIntervalMillis, double slowRunFactor,
+                      boolean cancelSlowRuns ) {
+    this( defaultTimeoutMillis, checkIntervalMillis, slowRunFactor, cancelSlowRuns, System::currentTimeMillis );
+  }
+
+  JobWatchdog( long defaultTimeoutMillis, long checkIntervalMillis, double slowRunFactor, boolean cancelSlowRuns,
+               LongSupplier clock ) {
+    if ( checkIntervalMillis <= 0 ) {
+      throw new IllegalArgumentException(
+        "checkIntervalMillis must be positive: " + checkIntervalMillis ); //$NON-NLS-1$
+    }
+    this.defaultTimeoutMillis = Math.max( 0, defaultTimeoutMillis );
+    this.checkIntervalMillis = checkIntervalMillis;
+    this.slowRunFactor = Math.max( 0, slowRunFactor );
+    this.cancelSlowRuns = cancelSlowRuns;
+    this.clock = clock;
+  }
+
+  /**
+   * @param quartzProperties the properties of the Quartz scheduler, or {@code null}
+   * @return the watchdog configured by the {@code org.pentaho.scheduler.watchdog.*} properties, or {@code null} if it
+   * is disabled
+   */
+  public static JobWatchdog create( Properties quartzProperties ) {
+    if ( quartzProperties == null
+      || !Boolean.parseBoolean( quartzProperties.getProperty( PROP_WATCHDOG_ENABLED, "false" ) ) ) { //$NON-NLS-1$
+      return null;
+    }
+    long defaultTimeout = getSeconds( quartzProperties, PROP_DEFAULT_TIMEOUT, 0, 0 );
+    long checkInterval = getSeconds( quartzProperties, PROP_CHECK_INTERVAL, DEFAULT_CHECK_INTERVAL_MILLIS, 1 );
+    double slowRunFactor = DEFAULT_SLOW_RUN_FACTOR;
+    String value = quartzProperties.getProperty( PROP_SLOW_RUN_FACTOR );
+    if ( value != null ) {
+      try {
+        slowRunFactor = Double.parseDouble( value.trim() );
+      } catch ( NumberFormatException e ) {
+        slowRunFactor = -1;
+      }
+      if ( slowRunFactor != 0 && !( slowRunFactor >= 1 ) ) {
+        logger.warn( "Invalid " + PROP_SLOW_RUN_FACTOR + " '" + value //$NON-NLS-1$ //$NON-NLS-2$
+          + "', using " + DEFAULT_SLOW_RUN_FACTOR ); //$NON-NLS-1$
+        slowRunFactor = DEFAULT_SLOW_RUN_FACTOR;
+      }
+    }
+    boolean cancelSlowRuns = Boolean.parseBoolean( quartzProperties.getProperty( PROP_CANCEL_SLOW_RUNS, "false" ) );
+    return new JobWatchdog( defaultTimeout, checkInterval, slowRunFactor, cancelSlowRuns );
+  }
+
+  // a number of seconds, in milliseconds
+  private static long getSeconds( Properties quartzProperties, String name, long defaultMillis, long min ) {
+    String value = quartzProperties.getProperty( name );
+    if ( value == null ) {
+      return defaultMillis;
+    }
+    long seconds;
+    try {
+      seconds = Long.parseLong( value.trim() );
+    } catch ( NumberFormatException e ) {
+      seconds = -1;
+    }
+    if ( seconds < min ) {
+      logger.warn( "Invalid " + name + " '" + value + "', using " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        + defaultMillis / 1000 );
+      return defaultMillis;
+    }
+    return TimeUnit.SECONDS.toMillis( seconds );
+  }
+
+  /**
+   * @return the timeout of the runs of jobs that have none, in milliseconds, or 0 for none
+   */
+  public long getDefaultTimeoutMillis() {
+    return defaultTimeoutMillis;
+  }
+
+  public long getCheckIntervalMillis() {
+    return checkIntervalMillis;
+  }
+
+  /**
+   * @return the multiple of the 99th percentile of the runs of a job beyond which a run is slow, or 0 if no run is
+   */
+  public double getSlowRunFactor() {
+    return slowRunFactor;
+  }
+
+  public boolean isCancelSlowRuns() {
+    return cancelSlowRuns;
+  }
+
+  /**
+   * @return the number of runs that timed out and were cancelled
+   */
+  public long getTimedOutCount() {
+    return timedOutCount.get();
+  }
+
+  /**
+   * @return the number of runs flagged as slow
+   */
+  public long getSlowCount() {
+    return slowCount.get();
+  }
+
+  /**
+   * @return the number of runs watched now
+   */
+  public int getRunningCount() {
+    return executions.size();
+  }
+
+  /**
+   * @param jobParams the parameters of a job
+   * @return the timeout of the job in milliseconds, 0 for none, or -1 if the job has none and the default applies
+   */
+  public static long getTimeoutMillis( Map<String, ? extends Serializable> jobParams ) {
+    Object timeout = jobParams.get( RESERVEDMAPKEY_TIMEOUT );
+    if ( timeout == null ) {
+      return -1;
+    }
+    try {
+      long seconds = timeout instanceof Number ? ( (Number) timeout ).longValue()
+        : Long.parseLong( timeout.toString().trim() );
+      return seconds < 0 ? -1 : TimeUnit.SECONDS.toMillis( seconds );
+    } catch ( NumberFormatException e ) {
+      logger.warn( "Invalid timeout '" + timeout + "', using the default" ); //$NON-NLS-1$ //$NON-NLS-2$
+      return -1;
+    }
+  }
+
+  /**
+   * @return the run of the job on the calling thread, or {@code null} if there is none
+   */
+  public static Execution current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * @return whether the run of the job on the calling thread has been cancelled
+   */
+  public static boolean isCancelled() {
+    Execution execution = CURRENT.get();
+    return execution != null && execution.isCancelled();
+  }
+
+  /**
+   * Begins a run that is not watched, which may still be cancelled, e.g. when its job is interrupted through the
+   * scheduler. The run is bound to the calling thread until it is {@link Execution#close() closed}.
+   *
+   * @param jobId the id of the job
+   * @return the run
+   */
+  public static Execution beginUnwatched( String jobId ) {
+    Execution execution = new Execution( null, jobId, 0, 0, -1 );
+    CURRENT.set( execution );
+    return execution;
+  }
+
+  /**
+   * Begins to watch a run of a job on the calling thread, which is bound to it until it is
+   * {@link Execution#close() closed}.
+   *
+   * @param jobId     the id of the job
+   * @param jobParams the parameters of the job, which may hold its timeout
+   * @param stats     the statistics of the latest runs of the job, or {@code null} if there are none
+   * @return the run
+   */
+  public Execution begin( String jobId, Map<String, ? extends Serializable> jobParams,
+                          JobHistoryStore.JobStats stats ) {
+    long timeoutMillis = getTimeoutMillis( jobParams );
+    if ( timeoutMillis < 0 ) {
+      timeoutMillis = defaultTimeoutMillis;
+    }
+    long slowAfterMillis = -1;
+    if ( slowRunFactor > 0 && stats != null && stats.getRunCount() - stats.getSkippedCount() >= MIN_TIMED_RUNS
+      && stats.getP99Duration() >= 0 ) {
+      slowAfterMillis = (long) ( stats.getP99Duration() * slowRunFactor );
+    }
+    Execution execution = new Execution( this, jobId, clock.getAsLong(), timeoutMillis, slowAfterMillis );
+    CURRENT.set( execution );
+    if ( timeoutMillis > 0 || slowAfterMillis >= 0 ) {
+      executions.add( execution );
+      ensureStarted();
+    }
+    return execution;
+  }
+
+  /**
+   * Checks the runs watched, cancelling those that timed out.
+   */
+  void check() {
+    long now = clock.getAsLong();
+    for ( Execution execution : executions ) {
+      long elapsed = now - execution.start;
+      if ( execution.isCancelled() ) {
+        // interrupted already, and stopped at its next stage
+        continue;
+      }
+      if ( execution.timeoutMillis > 0 && elapsed > execution.timeoutMillis ) {
+        timedOutCount.incrementAndGet();
+        logger.warn( "Job '" + execution.jobId + "' has run for " + elapsed / 1000 //$NON-NLS-1$ //$NON-NLS-2$
+          + "s, beyond its timeout of " + execution.timeoutMillis / 1000 //$NON-NLS-1$
+          + "s; cancelling it" ); //$NON-NLS-1$
+        execution.cancel();
+      } else if ( execution.slowAfterMillis >= 0 && elapsed > execution.slowAfterMillis && !execution.slow ) {
+        execution.slow = true;
+        slowCount.incrementAndGet();
+        logger.warn( "Job '" + execution.jobId + "' has run for " + elapsed / 1000 //$NON-NLS-1$ //$NON-NLS-2$
+          + "s, " + slowRunFactor + " times the 99th percentile of its latest runs" //$NON-NLS-1$ //$NON-NLS-2$
+          + ( cancelSlowRuns ? "; cancelling it" : "" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        if ( cancelSlowRuns ) {
+          execution.cancel();
+        }
+      }
+    }
+  }
+
+  private synchronized void ensureStarted() {
+    if ( timer == null ) {
+      timer = Executors.newSingleThreadScheduledExecutor( runnable -> {
+        Thread thread = new Thread( runnable, "PentahoSchedulerWatchdog" ); //$NON-NLS-1$
+        thread.setDaemon( true );
+        return thread;
+      } );
+      timer.scheduleWithFixedDelay( () -> {
+        try {
+          check();
+        } catch ( RuntimeException e ) {
+          logger.error( "Cannot check the running jobs", e ); //$NON-NLS-1$
+        }
+      }, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS );
+    }
+  }
+
+  /**
+   * Stops the thread that checks the runs; the next run watched starts it again.
+   */
+  public synchronized void shutdown() {
+    if ( timer != null ) {
+      timer.shutdownNow();
+      timer = null;
+    }
+  }
+
+  /**
+   * A run of a job in progress.
+   */
+  public static class Execution {
+    private final JobWatchdog watchdog;
+
+    private final String jobId;
+
+    private final Thread thread;
+
+    private final long start;
+
+    private final long timeoutMillis;
+
+    private final long slowAfterMillis;
+
+    private volatile boolean cancelled;
+
+    private volatile boolean slow;
+
+    private boolean closed;
+
+    Execution( JobWatchdog watchdog, String jobId, long start, long timeoutMillis, long slowAfterMillis ) {
+      this.watchdog = watchdog;
+      this.jobId = jobId;
+      this.thread = Thread.currentThread();
+      this.start = start;
+      this.timeoutMillis = timeoutMillis;
+      this.slowAfterMillis = slowAfterMillis;
+    }
+
+    public String getJobId() {
+      return jobId;
+    }
+
+    /**
+     * @return the timeout of the run in milliseconds, or 0 for none
+     */
+    public long getTimeoutMillis() {
+      return timeoutMillis;
+    }
+
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    /**
+     * @return whether the run has been flagged as slow
+     */
+    public boolean isSlow() {
+      return slow;
+    }
+
+    /**
+     * Cancels the run: the scheduler stops it at the next stage and its thread is interrupted. Does nothing once the
+     * run has ended.
+     */
+    public synchronized void cancel() {
+      if ( !closed && !cancelled ) {
+        cancelled = true;
+        thread.interrupt();
+      }
+    }
+
+    /**
+     * Ends the run and unbinds it from its thread, clearing an interrupt left by its cancellation so that the thread
+     * returns to the pool ready for the next job.
+     */
+    public void close() {
+      synchronized ( this ) {
+        closed = true;
+      }
+      if ( watchdog != null ) {
+        watchdog.executions.remove( this );
+      }
+      if ( Thread.currentThread() == thread ) {
+        if ( cancelled ) {
+          Thread.interrupted();
+        }
+        if ( CURRENT.get() == this ) {
+          CURRENT.remove();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,457 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.scheduler2.IJob;
+import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.Trigger;
+import org.quartz.listeners.SchedulerListenerSupport;
+import org.quartz.listeners.TriggerListenerSupport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A read-through cache of the {@link Job}s built by {@link QuartzScheduler}, so that repeated reads of the same jobs
+ * (UI polling, blockout checks, the read-modify-read of pause and resume) do not go back to the job store every time.
+ * <p>
+ * Single jobs are cached by {@link QuartzJobKey}; the complete job listing is cached as a whole. Once registered with
+ * a Quartz {@link Scheduler}, the catalog follows the scheduler's listener callbacks: scheduling, unscheduling,
+ * pausing and resuming invalidate the affected jobs and the listing, and trigger fires update the run times of the
+ * cached jobs in place. A fire does not invalidate the loads in flight; its run times are applied to what they load.
+ * Changes made by other nodes of a cluster are not signalled to this node, so every entry also expires
+ * {@link #getMaxAgeMillis()} after it was loaded; that window bounds how stale a read can be.
+ * <p>
+ * Callers always receive copies of the jobs, with parameter maps of their own. The job triggers and the parameter
+ * values are shared with the cached jobs, so callers must not modify them, other than setting what follows from the
+ * job itself, such as the duration of a blockout trigger from its parameters.
+ */
+public class QuartzJobCatalog {
+
+  public static final String PROP_CATALOG_ENABLED = "org.pentaho.scheduler.jobCatalog.enabled"; //$NON-NLS-1$
+
+  public static final String PROP_MAX_AGE_MILLIS = "org.pentaho.scheduler.jobCatalog.maxAgeMillis"; //$NON-NLS-1$
+
+  static final long DEFAULT_MAX_AGE_MILLIS = 30000L;
+
+  static final String LISTENER_NAME = "PentahoJobCatalogListener"; //$NON-NLS-1$
+
+  private static final String MANUAL_TRIGGER_GROUP = "MANUAL_TRIGGER"; //$NON-NLS-1$
+
+  private static final Log logger = LogFactory.getLog( QuartzJobCatalog.class );
+
+  private final long maxAgeMillis;
+
+  private final LongSupplier clock;
+
+  private final Map<QuartzJobKey, Entry<Job>> jobs = new ConcurrentHashMap<>();
+
+  private volatile Entry<List<Job>> listing;
+
+  /**
+   * The run times of the latest fire of each job since the last invalidation, by job id, which are applied to the jobs
+   * of loads that were in flight when the job fired.
+   */
+  private final Map<String, RunTimes> fires = new ConcurrentHashMap<>();
+
+  /**
+   * Incremented on every invalidation. A load only populates the catalog if no invalidation happened while it ran.
+   */
+  private final AtomicLong generation = new AtomicLong();
+
+  private final AtomicLong hitCount = new AtomicLong();
+
+  private final AtomicLong missCount = new AtomicLong();
+
+  private final AtomicLong invalidationCount = new AtomicLong();
+
+  public QuartzJobCatalog( long maxAgeMillis ) {
+    this( maxAgeMillis, System::currentTimeMillis );
+  }
+
+  QuartzJobCatalog( long maxAgeMillis, LongSupplier clock ) {
+    if ( maxAgeMillis <= 0 ) {
+      throw new IllegalArgumentException( "maxAgeMillis must be positive: " + maxAgeMillis ); //$NON-NLS-1$
+    }
+    this.maxAgeMillis = maxAgeMillis;
+    this.clock = clock;
+  }
+
+  /**
+   * Creates a catalog configured by the given Quartz properties.
+   *
+   * @param quartzProperties the properties the Quartz scheduler was created with
+   * @return a catalog, or {@code null} unless {@link #PROP_CATALOG_ENABLED} is {@code true} and
+   * {@link #PROP_MAX_AGE_MILLIS}, if set, is positive
+   */
+  public static QuartzJobCatalog create( Properties quartzProperties ) {
+    if ( quartzProperties == null
+      || !Boolean.parseBoolean( quartzProperties.getProperty( PROP_CATALOG_ENABLED, "false" ) ) ) { //$NON-NLS-1$
+      return null;
+    }
+    long maxAgeMillis = DEFAULT_MAX_AGE_MILLIS;
+    String maxAge = quartzProperties.getProperty( PROP_MAX_AGE_MILLIS );
+    if ( maxAge != null ) {
+      try {
+        maxAgeMillis = Long.parseLong( maxAge.trim() );
+      } catch ( NumberFormatException e ) {
+        logger.warn( "Invalid " + PROP_MAX_AGE_MILLIS + " '" + maxAge + "', using " //$NON-NLS-1$ //$NON-NLS-2$
+          + DEFAULT_MAX_AGE_MILLIS ); //$NON-NLS-1$
+      }
+    }
+    return maxAgeMillis > 0 ? new QuartzJobCatalog( maxAgeMillis ) : null;
+  }
+
+  /**
+   * Registers the listeners that keep the catalog in step with the given scheduler.
+   *
+   * @param scheduler the Quartz scheduler whose jobs are cached
+   */
+  public void register( Scheduler scheduler ) throws org.quartz.SchedulerException {
+    scheduler.addGlobalTriggerListener( new CatalogTriggerListener() );
+    scheduler.addSchedulerListener( new CatalogSchedulerListener() );
+  }
+
+  public long getMaxAgeMillis() {
+    return maxAgeMillis;
+  }
+
+  /**
+   * @return the current invalidation generation, to be passed back to {@link #putJob(long, QuartzJobKey, Job)} or
+   * {@link #putJobs(long, List)} once the jobs have been loaded
+   */
+  public long getGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * @param jobKey the key of the job
+   * @return a copy of the cached job, or {@code null} if the job is not cached or its entry has expired
+   */
+  public Job getJob( QuartzJobKey jobKey ) {
+    Entry<Job> entry = jobs.get( jobKey );
+    if ( entry == null || isExpired( entry ) ) {
+      missCount.incrementAndGet();
+      return null;
+    }
+    hitCount.incrementAndGet();
+    return copy( entry.value );
+  }
+
+  public void putJob( long loadGeneration, QuartzJobKey jobKey, Job job ) {
+    if ( job == null ) {
+      return;
+    }
+    Job copy = copy( job );
+    long loadedAt = clock.getAsLong();
+    synchronized ( this ) {
+      if ( loadGeneration == generation.get() ) {
+        jobs.put( jobKey, new Entry<>( applyFire( copy ), loadedAt ) );
+      }
+    }
+  }
+
+  /**
+   * @return copies of every job, as listed by {@link QuartzScheduler#getJobs} without a filter, or {@code null} if
+   * the listing is not cached or has expired
+   */
+  public List<Job> getJobs() {
+    Entry<List<Job>> entry = listing;
+    if ( entry == null || isExpired( entry ) ) {
+      missCount.incrementAndGet();
+      return null;
+    }
+    hitCount.incrementAndGet();
+    List<Job> copies = new ArrayList<>( entry.value.size() );
+    for ( Job job : entry.value ) {
+      copies.add( copy( job ) );
+    }
+    return copies;
+  }
+
+  public void putJobs( long loadGeneration, List<? extends IJob> allJobs ) {
+    List<Job> snapshot = new ArrayList<>( allJobs.size() );
+    for ( IJob job : allJobs ) {
+      snapshot.add( copy( (Job) job ) );
+    }
+    long loadedAt = clock.getAsLong();
+    synchronized ( this ) {
+      if ( loadGeneration == generation.get() ) {
+        if ( !fires.isEmpty() ) {
+          snapshot.replaceAll( this::applyFire );
+        }
+        listing = new Entry<>( Collections.unmodifiableList( snapshot ), loadedAt );
+      }
+    }
+  }
+
+  /**
+   * Drops a job and the listing from the catalog.
+   *
+   * @param jobId the id of the job that changed
+   */
+  public void invalidate( String jobId ) {
+    QuartzJobKey jobKey = parseJobKey( jobId );
+    synchronized ( this ) {
+      generation.incrementAndGet();
+      invalidationCount.incrementAndGet();
+      listing = null;
+      fires.clear();
+      if ( jobKey != null ) {
+        jobs.remove( jobKey );
+      }
+    }
+  }
+
+  /**
+   * Drops the jobs of a user, or of every user, and the listing from the catalog.
+   *
+   * @param userName the owner of the jobs that changed, or {@code null} for all jobs
+   */
+  public void invalidateAll( String userName ) {
+    synchronized ( this ) {
+      generation.incrementAndGet();
+      invalidationCount.incrementAndGet();
+      listing = null;
+      fires.clear();
+      if ( userName == null ) {
+        jobs.clear();
+      } else {
+        jobs.keySet().removeIf( jobKey -> userName.equals( jobKey.getUserName() ) );
+      }
+    }
+  }
+
+  /**
+   * Records a fire of a trigger: the cached jobs of the trigger take its new previous and next fire times, and so do
+   * the jobs of the loads in flight once they are put.
+   */
+  void triggerFired( Trigger trigger ) {
+    if ( MANUAL_TRIGGER_GROUP.equals( trigger.getGroup() ) || trigger.getJobName() == null ) {
+      return;
+    }
+    RunTimes fire = new RunTimes( trigger.getPreviousFireTime(), QuartzScheduler.getNextRun( trigger ) );
+    QuartzJobKey jobKey = parseJobKey( trigger.getJobName() );
+    synchronized ( this ) {
+      fires.put( trigger.getJobName(), fire );
+      if ( jobKey != null ) {
+        jobs.computeIfPresent( jobKey, ( key, entry ) -> new Entry<>( fire.applyTo( copy( entry.value ) ),
+          entry.loadedAt ) );
+      }
+      Entry<List<Job>> entry = listing;
+      if ( entry == null ) {
+        return;
+      }
+      List<Job> updated = new ArrayList<>( entry.value.size() );
+      for ( Job job : entry.value ) {
+        if ( trigger.getJobName().equals( job.getJobId() ) ) {
+          job = fire.applyTo( copy( job ) );
+        }
+        updated.add( job );
+      }
+      listing = new Entry<>( Collections.unmodifiableList( updated ), entry.loadedAt );
+    }
+  }
+
+  // the job with the run times of its latest fire, if it fired since the last invalidation
+  private Job applyFire( Job job ) {
+    RunTimes fire = job.getJobId() != null ? fires.get( job.getJobId() ) : null;
+    return fire != null ? fire.applyTo( job ) : job;
+  }
+
+  /**
+   * Empties the catalog, e.g. when the scheduler is shut down.
+   */
+  public void clear() {
+    invalidateAll( null );
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  public long getInvalidationCount() {
+    return invalidationCount.get();
+  }
+
+  /**
+   * @return the number of single jobs currently cached, expired entries included
+   */
+  public int getSize() {
+    return jobs.size();
+  }
+
+  private boolean isExpired( Entry<?> entry ) {
+    return clock.getAsLong() - entry.loadedAt >= maxAgeMillis;
+  }
+
+  private static QuartzJobKey parseJobKey( String jobId ) {
+    try {
+      return jobId == null ? null : QuartzJobKey.parse( jobId );
+    } catch ( SchedulerException e ) {
+      // not a job created by this scheduler, so it cannot be cached individually
+      return null;
+    }
+  }
+
+  static Job copy( Job job ) {
+    Job copy = new Job();
+    copy.setJobTrigger( job.getJobTrigger() );
+    copy.setJobParams( job.getJobParams() );
+    copy.setLastRun( job.getLastRun() );
+    copy.setNextRun( job.getNextRun() );
+    copy.setSchedulableClass( job.getSchedulableClass() );
+    copy.setJobId( job.getJobId() );
+    copy.setUserName( job.getUserName() );
+    copy.setJobName( job.getJobName() );
+    copy.setGroupName( job.getGroupName() );
+    copy.setState( job.getState() );
+    return copy;
+  }
+
+  /**
+   * The previous and next fire times of a trigger after a fire.
+   */
+  private static class RunTimes {
+    final Date lastRun;
+
+    final Date nextRun;
+
+    RunTimes( Date lastRun, Date nextRun ) {
+      this.lastRun = lastRun;
+      this.nextRun = nextRun;
+    }
+
+    Job applyTo( Job job ) {
+      job.setLastRun( lastRun );
+      job.setNextRun( nextRun );
+      return job;
+    }
+  }
+
+  private static class Entry<T> {
+    final T value;
+
+    final long loadedAt;
+
+    Entry( T value, long loadedAt ) {
+      this.value = value;
+      this.loadedAt = loadedAt;
+    }
+  }
+
+  /**
+   * Keeps the run times of the listed jobs current as triggers fire or misfire.
+   */
+  class CatalogTriggerListener extends TriggerListenerSupport {
+
+    @Override
+    public String getName() {
+      return LISTENER_NAME;
+    }
+
+    @Override
+    public void triggerFired( Trigger trigger, JobExecutionContext context ) {
+      QuartzJobCatalog.this.triggerFired( trigger );
+    }
+
+    @Override
+    public void triggerMisfired( Trigger trigger ) {
+      QuartzJobCatalog.this.triggerFired( trigger );
+    }
+  }
+
+  /**
+   * Invalidates the jobs affected by scheduling changes. Quartz passes a {@code null} name when a whole group (the
+   * jobs of one user) changes.
+   */
+  class CatalogSchedulerListener extends SchedulerListenerSupport {
+
+    @Override
+    public void jobScheduled( Trigger trigger ) {
+      invalidate( trigger.getJobName(), trigger.getGroup() );
+    }
+
+    @Override
+    public void jobUnscheduled( String triggerName, String triggerGroup ) {
+      invalidate( triggerName, triggerGroup );
+    }
+
+    @Override
+    public void triggerFinalized( Trigger trigger ) {
+      invalidate( trigger.getJobName(), trigger.getGroup() );
+    }
+
+    @Override
+    public void triggersPaused( String triggerName, String triggerGroup ) {
+      invalidate( triggerName, triggerGroup );
+    }
+
+    @Override
+    public void triggersResumed( String triggerName, String triggerGroup ) {
+      invalidate( triggerName, triggerGroup );
+    }
+
+    @Override
+    public void jobsPaused( String jobName, String jobGroup ) {
+      invalidate( jobName, jobGroup );
+    }
+
+    @Override
+    public void jobsResumed( String jobName, String jobGroup ) {
+      invalidate( jobName, jobGroup );
+    }
+
+    @Override
+    public void schedulerShutdown() {
+      clear();
+    }
+
+    // Trigger names are job ids (see QuartzScheduler.createQuartzTrigger), so either name identifies the job.
+    // Manual triggers ("run now") are not part of the listing and come and go without changing the job.
+    private void invalidate( String name, String group ) {
+      if ( MANUAL_TRIGGER_GROUP.equals( group ) ) {
+        return;
+      }
+      if ( name == null ) {
+        invalidateAll( group );
+      } else {
+        QuartzJobCatalog.this.invalidate( name );
+      }
+    }
+  }
+}
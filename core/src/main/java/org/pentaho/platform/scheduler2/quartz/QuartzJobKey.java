@@ -99,4 +99,22 @@ public class QuartzJobKey {
   public String toString() {
     return userName + "\t" + jobName + "\t" + randomUuid; //$NON-NLS-1$ //$NON-NLS-2$
   }
+
+  @Override
+  public boolean equals( Object obj ) {
+    if ( this == obj ) {
+      return true;
+    }
+    if ( !( obj instanceof QuartzJobKey ) ) {
+      return false;
+    }
+    QuartzJobKey other = (QuartzJobKey) obj;
+    return StringUtils.equals( userName, other.userName ) && StringUtils.equals( jobName, other.jobName )
+      && StringUtils.equals( randomUuid, other.randomUuid );
+  }
+
+  @Override
+  public int hashCode() {
+    return toString().hashCode();
+  }
 }
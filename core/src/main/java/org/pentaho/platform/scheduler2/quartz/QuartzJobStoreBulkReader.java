@@ -0,0 +1,494 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.scheduler2.JobCriteriaFilter;
+import org.quartz.Calendar;
+import org.quartz.CronTrigger;
+import org.quartz.JobDataMap;
+import org.quartz.JobPersistenceException;
+import org.quartz.Scheduler;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.quartz.impl.jdbcjobstore.Constants;
+import org.quartz.impl.jdbcjobstore.JobStoreSupport;
+import org.quartz.simpl.CascadingClassLoadHelper;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.utils.DBConnectionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TimeZone;
+
+/**
+ * Reads the job details, triggers, trigger states and calendars of a Quartz JDBC job store with a fixed number of
+ * set-based queries. {@link QuartzScheduler#getJobs(org.pentaho.platform.api.scheduler2.IJobFilter)} uses it to avoid
+ * the four or five job store round trips per job that the {@link Scheduler} API requires.
+ * <p>
+ * The reader only understands job stores that keep the job data map as a serialized blob (the
+ * {@code org.quartz.jobStore.useProperties = false} default). For any other configuration {@link #create(Properties)}
+ * returns {@code null} and callers are expected to keep using the {@link Scheduler} API.
+ * <p>
+ * The classes of the deserialized job data maps and calendars are resolved through the Quartz {@link ClassLoadHelper}
+ * the scheduler is configured with, then through the context class loader of the calling thread, so that parameter
+ * values whose classes come from plugins are read back.
+ */
+public class QuartzJobStoreBulkReader {
+
+  public static final String PROP_BULK_READ_ENABLED = "org.pentaho.scheduler.bulkJobListing.enabled"; //$NON-NLS-1$
+
+  static final String PROP_JOB_STORE_CLASS = "org.quartz.jobStore.class"; //$NON-NLS-1$
+
+  static final String PROP_DATA_SOURCE = "org.quartz.jobStore.dataSource"; //$NON-NLS-1$
+
+  static final String PROP_TABLE_PREFIX = "org.quartz.jobStore.tablePrefix"; //$NON-NLS-1$
+
+  static final String PROP_USE_PROPERTIES = "org.quartz.jobStore.useProperties"; //$NON-NLS-1$
+
+  static final String PROP_CLASS_LOAD_HELPER = "org.quartz.scheduler.classLoadHelper.class"; //$NON-NLS-1$
+
+  static final String TABLE_PREFIX_SUBST = "{0}"; //$NON-NLS-1$
+
+  static final String SELECT_TRIGGERS =
+    "SELECT T.TRIGGER_NAME, T.TRIGGER_GROUP, T.JOB_NAME, T.JOB_GROUP, T.NEXT_FIRE_TIME, T.PREV_FIRE_TIME, "
+      + "T.PRIORITY, T.TRIGGER_STATE, T.TRIGGER_TYPE, T.START_TIME, T.END_TIME, T.CALENDAR_NAME, T.MISFIRE_INSTR, "
+      + "C.CRON_EXPRESSION, C.TIME_ZONE_ID, S.REPEAT_COUNT, S.REPEAT_INTERVAL, S.TIMES_TRIGGERED "
+      + "FROM {0}TRIGGERS T "
+      + "LEFT OUTER JOIN {0}CRON_TRIGGERS C ON C.TRIGGER_NAME = T.TRIGGER_NAME AND C.TRIGGER_GROUP = T.TRIGGER_GROUP "
+      + "LEFT OUTER JOIN {0}SIMPLE_TRIGGERS S ON S.TRIGGER_NAME = T.TRIGGER_NAME AND S.TRIGGER_GROUP = T.TRIGGER_GROUP "
+      + "WHERE T.TRIGGER_GROUP <> ? ORDER BY T.JOB_GROUP, T.JOB_NAME"; //$NON-NLS-1$
+
+  static final String SELECT_JOB_DETAILS = "SELECT JOB_NAME, JOB_GROUP, JOB_DATA FROM {0}JOB_DETAILS"; //$NON-NLS-1$
+
+  static final String SELECT_CALENDARS = "SELECT CALENDAR_NAME, CALENDAR FROM {0}CALENDARS"; //$NON-NLS-1$
+
+  private static final Log logger = LogFactory.getLog( QuartzJobStoreBulkReader.class );
+
+  /**
+   * Supplies the connection the reader runs its queries on. The connection is closed once the read completes.
+   */
+  public interface ConnectionSource {
+    Connection getConnection() throws SQLException;
+  }
+
+  private final ConnectionSource connectionSource;
+
+  private final String tablePrefix;
+
+  private final ClassLoadHelper classLoadHelper;
+
+  public QuartzJobStoreBulkReader( ConnectionSource connectionSource, String tablePrefix ) {
+    this( connectionSource, tablePrefix, null );
+  }
+
+  /**
+   * @param connectionSource supplies the connections to the job store
+   * @param tablePrefix      the prefix of the job store tables, or {@code null} for the Quartz default
+   * @param classLoadHelper  resolves the classes of the serialized job data, or {@code null} to resolve them through
+   *                         the context class loader only
+   */
+  public QuartzJobStoreBulkReader( ConnectionSource connectionSource, String tablePrefix,
+                                   ClassLoadHelper classLoadHelper ) {
+    this.connectionSource = connectionSource;
+    this.tablePrefix = tablePrefix == null ? Constants.DEFAULT_TABLE_PREFIX : tablePrefix;
+    this.classLoadHelper = classLoadHelper;
+  }
+
+  /**
+   * Creates a reader for the job store described by the given Quartz properties.
+   *
+   * @param quartzProperties the properties the Quartz scheduler was created with
+   * @return a reader, or {@code null} if the job store is not a JDBC job store this reader understands or if bulk
+   * listing has been disabled through {@link #PROP_BULK_READ_ENABLED}
+   */
+  public static QuartzJobStoreBulkReader create( Properties quartzProperties ) {
+    if ( quartzProperties == null
+      || !Boolean.parseBoolean( quartzProperties.getProperty( PROP_BULK_READ_ENABLED, "true" ) ) ) { //$NON-NLS-1$
+      return null;
+    }
+    if ( Boolean.parseBoolean( quartzProperties.getProperty( PROP_USE_PROPERTIES, "false" ) ) ) { //$NON-NLS-1$
+      return null;
+    }
+    final String dataSourceName = quartzProperties.getProperty( PROP_DATA_SOURCE );
+    if ( dataSourceName == null || !isJdbcJobStore( quartzProperties.getProperty( PROP_JOB_STORE_CLASS ) ) ) {
+      return null;
+    }
+    return new QuartzJobStoreBulkReader( new ConnectionSource() {
+      @Override public Connection getConnection() throws SQLException {
+        return DBConnectionManager.getInstance().getConnection( dataSourceName );
+      }
+    }, quartzProperties.getProperty( PROP_TABLE_PREFIX ), createClassLoadHelper( quartzProperties ) );
+  }
+
+  private static ClassLoadHelper createClassLoadHelper( Properties quartzProperties ) {
+    String className = quartzProperties.getProperty( PROP_CLASS_LOAD_HELPER );
+    try {
+      ClassLoadHelper classLoadHelper = className == null ? new CascadingClassLoadHelper()
+        : (ClassLoadHelper) Class.forName( className ).getDeclaredConstructor().newInstance();
+      classLoadHelper.initialize();
+      return classLoadHelper;
+    } catch ( ReflectiveOperationException | ClassCastException | LinkageError e ) {
+      logger.warn( "Cannot create the class load helper " + className //$NON-NLS-1$
+        + "; job data classes are resolved through the context class loader", e ); //$NON-NLS-1$
+      return null;
+    }
+  }
+
+  private static boolean isJdbcJobStore( String jobStoreClassName ) {
+    if ( jobStoreClassName == null ) {
+      return false;
+    }
+    try {
+      return JobStoreSupport.class.isAssignableFrom( Class.forName( jobStoreClassName ) );
+    } catch ( ClassNotFoundException | LinkageError e ) {
+      return false;
+    }
+  }
+
+  /**
+   * Reads every job in the store that has at least one trigger outside of the
+   * {@link Scheduler#DEFAULT_MANUAL_TRIGGERS} group. One record is returned per trigger, ordered by job group and job
+   * name. Jobs whose trigger type cannot be rebuilt from the trigger tables (blob triggers) are loaded individually
+   * through the given {@link Scheduler}.
+   *
+   * @param scheduler the scheduler used for the rare triggers that cannot be read in bulk
+   * @return the job records
+   * @throws org.quartz.SchedulerException if the store cannot be read
+   */
+  public List<JobRecord> readJobs( Scheduler scheduler ) throws org.quartz.SchedulerException {
+    return readJobs( scheduler, null );
+  }
+
+  /**
+   * Reads the jobs in the store whose owner and job name meet the given criteria. The job data of any other job is
+   * never deserialized. The action class and state criteria are left to the caller.
+   *
+   * @param scheduler the scheduler used for the rare triggers that cannot be read in bulk
+   * @param criteria  the owner and job name criteria, or {@code null} to read every job
+   * @return the job records
+   * @throws org.quartz.SchedulerException if the store cannot be read
+   * @see #readJobs(Scheduler)
+   */
+  public List<JobRecord> readJobs( Scheduler scheduler, JobCriteriaFilter criteria )
+    throws org.quartz.SchedulerException {
+    Connection connection = null;
+    try {
+      connection = connectionSource.getConnection();
+      Map<String, Map<String, Serializable>> jobParams = selectJobParams( connection, criteria );
+      Map<String, Calendar> calendars = null;
+      Map<String, Integer> triggerStates = new HashMap<>();
+      List<Trigger> triggers = new ArrayList<>();
+
+      try ( PreparedStatement ps = connection.prepareStatement( rtp( SELECT_TRIGGERS ) ) ) {
+        ps.setString( 1, Scheduler.DEFAULT_MANUAL_TRIGGERS );
+        try ( ResultSet rs = ps.executeQuery() ) {
+          while ( rs.next() ) {
+            String triggerName = rs.getString( "TRIGGER_NAME" ); //$NON-NLS-1$
+            String triggerGroup = rs.getString( "TRIGGER_GROUP" ); //$NON-NLS-1$
+            triggerStates.put( key( triggerGroup, triggerName ), toTriggerState( rs.getString( "TRIGGER_STATE" ) ) ); //$NON-NLS-1$
+            if ( !jobParams.containsKey( key( rs.getString( "JOB_GROUP" ), rs.getString( "JOB_NAME" ) ) ) ) { //$NON-NLS-1$ //$NON-NLS-2$
+              continue;
+            }
+            Trigger trigger = toTrigger( rs );
+            if ( trigger == null ) {
+              trigger = scheduler.getTrigger( triggerName, triggerGroup );
+            }
+            if ( trigger != null ) {
+              triggers.add( trigger );
+            }
+          }
+        }
+      }
+
+      List<JobRecord> records = new ArrayList<>( triggers.size() );
+      for ( Trigger trigger : triggers ) {
+        Calendar calendar = null;
+        if ( trigger instanceof CronTrigger && trigger.getCalendarName() != null ) {
+          if ( calendars == null ) {
+            calendars = selectCalendars( connection );
+          }
+          calendar = calendars.get( trigger.getCalendarName() );
+        }
+        records.add( new JobRecord( trigger.getJobGroup(), trigger.getJobName(),
+          jobParams.get( key( trigger.getJobGroup(), trigger.getJobName() ) ), trigger,
+          getTriggerState( triggerStates, trigger.getJobName() ), calendar ) );
+      }
+      return records;
+    } catch ( SQLException | IOException | ClassNotFoundException | ParseException e ) {
+      throw new JobPersistenceException( "Couldn't read jobs in bulk: " + e.getMessage(), e ); //$NON-NLS-1$
+    } finally {
+      closeQuietly( connection );
+    }
+  }
+
+  /**
+   * Mirrors {@link QuartzScheduler}'s per-job lookup, which asks for the state of the trigger named after the job in
+   * the group of the job's owner.
+   */
+  private static int getTriggerState( Map<String, Integer> triggerStates, String jobName ) {
+    try {
+      Integer state = triggerStates.get( key( QuartzJobKey.parse( jobName ).getUserName(), jobName ) );
+      return state == null ? Trigger.STATE_NONE : state;
+    } catch ( org.pentaho.platform.api.scheduler2.SchedulerException e ) {
+      return Trigger.STATE_NONE;
+    }
+  }
+
+  private Map<String, Map<String, Serializable>> selectJobParams( Connection connection, JobCriteriaFilter criteria )
+    throws SQLException, IOException, ClassNotFoundException {
+    Map<String, Map<String, Serializable>> jobParams = new HashMap<>();
+    try ( PreparedStatement ps = connection.prepareStatement( rtp( SELECT_JOB_DETAILS ) );
+          ResultSet rs = ps.executeQuery() ) {
+      while ( rs.next() ) {
+        String jobGroup = rs.getString( "JOB_GROUP" ); //$NON-NLS-1$
+        String jobName = rs.getString( "JOB_NAME" ); //$NON-NLS-1$
+        if ( criteria == null || accepts( criteria, jobGroup, jobName ) ) {
+          jobParams.put( key( jobGroup, jobName ), toJobParams( readObject( rs, "JOB_DATA" ) ) ); //$NON-NLS-1$
+        }
+      }
+    }
+    return jobParams;
+  }
+
+  private static boolean accepts( JobCriteriaFilter criteria, String jobGroup, String jobName ) {
+    if ( !criteria.acceptsUserName( jobGroup ) ) {
+      return false;
+    }
+    try {
+      return criteria.acceptsJobName( QuartzJobKey.parse( jobName ).getJobName() );
+    } catch ( org.pentaho.platform.api.scheduler2.SchedulerException e ) {
+      return false;
+    }
+  }
+
+  private Map<String, Calendar> selectCalendars( Connection connection )
+    throws SQLException, IOException, ClassNotFoundException {
+    Map<String, Calendar> calendars = new HashMap<>();
+    try ( PreparedStatement ps = connection.prepareStatement( rtp( SELECT_CALENDARS ) );
+          ResultSet rs = ps.executeQuery() ) {
+      while ( rs.next() ) {
+        Object calendar = readObject( rs, "CALENDAR" ); //$NON-NLS-1$
+        if ( calendar instanceof Calendar ) {
+          calendars.put( rs.getString( "CALENDAR_NAME" ), (Calendar) calendar ); //$NON-NLS-1$
+        }
+      }
+    }
+    return calendars;
+  }
+
+  /**
+   * Rebuilds a trigger the same way Quartz's {@code StdJDBCDelegate.selectTrigger} does.
+   *
+   * @return the trigger, or {@code null} if the trigger type is not a simple or cron trigger
+   */
+  private static Trigger toTrigger( ResultSet rs ) throws SQLException, ParseException {
+    String triggerName = rs.getString( "TRIGGER_NAME" ); //$NON-NLS-1$
+    String triggerGroup = rs.getString( "TRIGGER_GROUP" ); //$NON-NLS-1$
+    String jobName = rs.getString( "JOB_NAME" ); //$NON-NLS-1$
+    String jobGroup = rs.getString( "JOB_GROUP" ); //$NON-NLS-1$
+    String triggerType = rs.getString( "TRIGGER_TYPE" ); //$NON-NLS-1$
+    Date startTime = new Date( rs.getLong( "START_TIME" ) ); //$NON-NLS-1$
+    Date endTime = toDate( rs.getLong( "END_TIME" ) ); //$NON-NLS-1$
+
+    Trigger trigger;
+    if ( Constants.TTYPE_CRON.equals( triggerType ) && rs.getString( "CRON_EXPRESSION" ) != null ) { //$NON-NLS-1$
+      String timeZoneId = rs.getString( "TIME_ZONE_ID" ); //$NON-NLS-1$
+      trigger = new CronTrigger( triggerName, triggerGroup, jobName, jobGroup, startTime, endTime,
+        rs.getString( "CRON_EXPRESSION" ), timeZoneId == null ? null : TimeZone.getTimeZone( timeZoneId ) ); //$NON-NLS-1$
+    } else if ( Constants.TTYPE_SIMPLE.equals( triggerType ) ) {
+      SimpleTrigger simpleTrigger = new SimpleTrigger( triggerName, triggerGroup, jobName, jobGroup, startTime, endTime,
+        rs.getInt( "REPEAT_COUNT" ), rs.getLong( "REPEAT_INTERVAL" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+      simpleTrigger.setTimesTriggered( rs.getInt( "TIMES_TRIGGERED" ) ); //$NON-NLS-1$
+      trigger = simpleTrigger;
+    } else {
+      return null;
+    }
+
+    trigger.setCalendarName( rs.getString( "CALENDAR_NAME" ) ); //$NON-NLS-1$
+    trigger.setMisfireInstruction( rs.getInt( "MISFIRE_INSTR" ) ); //$NON-NLS-1$
+    trigger.setPriority( rs.getInt( "PRIORITY" ) ); //$NON-NLS-1$
+    trigger.setNextFireTime( toDate( rs.getLong( "NEXT_FIRE_TIME" ) ) ); //$NON-NLS-1$
+    trigger.setPreviousFireTime( toDate( rs.getLong( "PREV_FIRE_TIME" ) ) ); //$NON-NLS-1$
+    return trigger;
+  }
+
+  /**
+   * Same mapping as {@code JobStoreSupport.getTriggerState}.
+   */
+  static int toTriggerState( String state ) {
+    if ( state == null || Constants.STATE_DELETED.equals( state ) ) {
+      return Trigger.STATE_NONE;
+    }
+    if ( Constants.STATE_COMPLETE.equals( state ) ) {
+      return Trigger.STATE_COMPLETE;
+    }
+    if ( Constants.STATE_PAUSED.equals( state ) || Constants.STATE_PAUSED_BLOCKED.equals( state ) ) {
+      return Trigger.STATE_PAUSED;
+    }
+    if ( Constants.STATE_ERROR.equals( state ) ) {
+      return Trigger.STATE_ERROR;
+    }
+    if ( Constants.STATE_BLOCKED.equals( state ) ) {
+      return Trigger.STATE_BLOCKED;
+    }
+    return Trigger.STATE_NORMAL;
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private static Map<String, Serializable> toJobParams( Object jobData ) {
+    if ( jobData instanceof JobDataMap ) {
+      return ( (JobDataMap) jobData ).getWrappedMap();
+    } else if ( jobData instanceof Map ) {
+      return new HashMap<String, Serializable>( (Map<String, Serializable>) jobData );
+    }
+    return Collections.emptyMap();
+  }
+
+  private Object readObject( ResultSet rs, String column ) throws SQLException, IOException,
+    ClassNotFoundException {
+    byte[] bytes = rs.getBytes( column );
+    if ( bytes == null || bytes.length == 0 ) {
+      return null;
+    }
+    try ( ObjectInputStream in = new JobDataInputStream( new ByteArrayInputStream( bytes ) ) ) {
+      return in.readObject();
+    }
+  }
+
+  private static Date toDate( long millis ) {
+    return millis > 0 ? new Date( millis ) : null;
+  }
+
+  private static String key( String group, String name ) {
+    return group + "\n" + name; //$NON-NLS-1$
+  }
+
+  private String rtp( String query ) {
+    return query.replace( TABLE_PREFIX_SUBST, tablePrefix );
+  }
+
+  private static void closeQuietly( Connection connection ) {
+    if ( connection != null ) {
+      try {
+        connection.close();
+      } catch ( SQLException e ) {
+        logger.debug( "Failed to close job store connection", e ); //$NON-NLS-1$
+      }
+    }
+  }
+
+  /**
+   * Resolves the classes of the serialized objects through the class load helper and the context class loader, rather
+   * than through the class loader of the code that called {@link ObjectInputStream}.
+   */
+  private class JobDataInputStream extends ObjectInputStream {
+
+    JobDataInputStream( InputStream in ) throws IOException {
+      super( in );
+    }
+
+    @Override
+    protected Class<?> resolveClass( ObjectStreamClass desc ) throws IOException, ClassNotFoundException {
+      String name = desc.getName();
+      if ( classLoadHelper != null ) {
+        try {
+          return classLoadHelper.loadClass( name );
+        } catch ( ClassNotFoundException e ) {
+          // e.g. an array class, which the class load helpers do not resolve
+        }
+      }
+      ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+      if ( contextClassLoader != null ) {
+        try {
+          return Class.forName( name, false, contextClassLoader );
+        } catch ( ClassNotFoundException e ) {
+          // resolved below
+        }
+      }
+      return super.resolveClass( desc );
+    }
+  }
+
+  /**
+   * Everything {@link QuartzScheduler} needs to assemble a {@link org.pentaho.platform.api.scheduler2.Job} without
+   * going back to the job store.
+   */
+  public static class JobRecord {
+    private final String jobGroup;
+    private final String jobName;
+    private final Map<String, Serializable> jobParams;
+    private final Trigger trigger;
+    private final int triggerState;
+    private final Calendar calendar;
+
+    public JobRecord( String jobGroup, String jobName, Map<String, Serializable> jobParams, Trigger trigger,
+                      int triggerState, Calendar calendar ) {
+      this.jobGroup = jobGroup;
+      this.jobName = jobName;
+      this.jobParams = jobParams;
+      this.trigger = trigger;
+      this.triggerState = triggerState;
+      this.calendar = calendar;
+    }
+
+    public String getJobGroup() {
+      return jobGroup;
+    }
+
+    public String getJobName() {
+      return jobName;
+    }
+
+    public Map<String, Serializable> getJobParams() {
+      return jobParams;
+    }
+
+    public Trigger getTrigger() {
+      return trigger;
+    }
+
+    public int getTriggerState() {
+      return triggerState;
+    }
+
+    public Calendar getCalendar() {
+      return calendar;
+    }
+  }
+}
@@ -29,6 +29,7 @@ import org.pentaho.platform.api.engine.IPentahoSession;
 import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
 import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.IBlockoutManager;
 import org.pentaho.platform.api.scheduler2.CronJobTrigger;
 import org.pentaho.platform.api.scheduler2.IBackgroundExecutionStreamProvider;
 import org.pentaho.platform.api.scheduler2.IComplexJobTrigger;
@@ -46,6 +47,7 @@ import org.pentaho.platform.api.scheduler2.ISchedulerListener;
 import org.pentaho.platform.api.scheduler2.ISchedulerResource;
 import org.pentaho.platform.api.scheduler2.ISimpleJobTrigger;
 import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.JobCriteriaFilter;
 import org.pentaho.platform.api.scheduler2.JobState;
 import org.pentaho.platform.api.scheduler2.JobTrigger;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
@@ -53,15 +55,12 @@ import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
 import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.engine.security.SecurityHelper;
+import org.pentaho.platform.scheduler2.action.ActionRunner;
+import org.pentaho.platform.scheduler2.blockout.BlockoutImpactAnalyzer;
+import org.pentaho.platform.scheduler2.blockout.BlockoutRegistry;
 import org.pentaho.platform.scheduler2.messsages.Messages;
 import org.pentaho.platform.scheduler2.recur.ITimeRecurrence;
 import org.pentaho.platform.scheduler2.recur.IncrementalRecurrence;
-import org.pentaho.platform.scheduler2.recur.QualifiedDayOfMonth;
-import org.pentaho.platform.scheduler2.recur.QualifiedDayOfWeek;
-import org.pentaho.platform.scheduler2.recur.QualifiedDayOfWeek.DayOfWeek;
-import org.pentaho.platform.scheduler2.recur.QualifiedDayOfWeek.DayOfWeekQualifier;
-import org.pentaho.platform.scheduler2.recur.RecurrenceList;
-import org.pentaho.platform.scheduler2.recur.SequentialRecurrence;
 import org.pentaho.platform.web.http.api.resources.JobRequest;
 import org.pentaho.platform.web.http.api.resources.JobScheduleParam;
 import org.pentaho.platform.web.http.api.resources.JobScheduleRequest;
@@ -89,7 +88,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
 import java.util.UUID;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
 
 /**
  * A Quartz implementation of {@link IScheduler}
@@ -106,17 +105,27 @@ public class QuartzScheduler implements IScheduler {
 
   private ArrayList<ISchedulerListener> listeners = new ArrayList<ISchedulerListener>();
 
-  private static final Pattern listPattern = Pattern.compile( "\\d+" ); //$NON-NLS-1$
+  private QuartzJobStoreBulkReader jobStoreBulkReader;
 
-  private static final Pattern dayOfWeekRangePattern = Pattern.compile( ".*\\-.*" ); //$NON-NLS-1$
+  private QuartzJobCatalog jobCatalog;
 
-  private static final Pattern sequencePattern = Pattern.compile( "\\d+\\-\\d+" ); //$NON-NLS-1$
+  private FireTimeForecast fireTimeForecast;
 
-  private static final Pattern intervalPattern = Pattern.compile( "[\\d*]+/[\\d]+" ); //$NON-NLS-1$
+  private JobAdmissionControl admissionControl;
 
-  private static final Pattern qualifiedDayPattern = Pattern.compile( "\\d+#\\d+" ); //$NON-NLS-1$
+  private JobHistoryStore jobHistoryStore;
 
-  private static final Pattern lastDayPattern = Pattern.compile( "\\d+L" ); //$NON-NLS-1$
+  private AuditRecordWriter auditWriter;
+
+  private SchedulerMetrics metrics;
+
+  private ExecutionTraceRecorder traceRecorder;
+
+  private JobWatchdog watchdog;
+
+  private final BlockoutRegistry blockoutRegistry = new BlockoutRegistry();
+
+  private final BlockoutImpactAnalyzer blockoutImpactAnalyzer = new BlockoutImpactAnalyzer();
 
   public QuartzScheduler( SchedulerFactory schedulerFactory ) {
     this.quartzSchedulerFactory = schedulerFactory;
@@ -157,6 +166,15 @@ public class QuartzScheduler implements IScheduler {
        * us in that regard.
        */
       quartzScheduler = quartzSchedulerFactory.getScheduler();
+      if ( jobCatalog != null ) {
+        jobCatalog.register( quartzScheduler );
+      }
+      if ( fireTimeForecast != null ) {
+        fireTimeForecast.register( quartzScheduler, jobStoreBulkReader );
+      }
+      if ( metrics != null ) {
+        metrics.register( quartzScheduler );
+      }
     }
 
     logger.debug( "Using quartz scheduler " + quartzScheduler ); //$NON-NLS-1$
@@ -167,6 +185,202 @@ public class QuartzScheduler implements IScheduler {
     this.quartzScheduler = quartzScheduler;
   }
 
+  public QuartzJobStoreBulkReader getJobStoreBulkReader() {
+    return jobStoreBulkReader;
+  }
+
+  /**
+   * Sets the reader used by {@link #getJobs(IJobFilter)} to load every job with a fixed number of job store queries.
+   * When {@code null} (the default) jobs are listed one at a time through the Quartz {@link Scheduler} API.
+   *
+   * @param jobStoreBulkReader the bulk reader, or {@code null} to disable bulk listing
+   */
+  public void setJobStoreBulkReader( QuartzJobStoreBulkReader jobStoreBulkReader ) {
+    this.jobStoreBulkReader = jobStoreBulkReader;
+  }
+
+  public QuartzJobCatalog getJobCatalog() {
+    return jobCatalog;
+  }
+
+  /**
+   * Sets the cache {@link #getJob(String)} and {@link #getJobs(IJobFilter)} read through. When {@code null} (the
+   * default) every read goes to the job store.
+   *
+   * @param jobCatalog the job catalog, or {@code null} to disable caching
+   */
+  public void setJobCatalog( QuartzJobCatalog jobCatalog ) throws org.quartz.SchedulerException {
+    this.jobCatalog = jobCatalog;
+    if ( jobCatalog != null && quartzScheduler != null ) {
+      jobCatalog.register( quartzScheduler );
+    }
+  }
+
+  public FireTimeForecast getFireTimeForecast() {
+    return fireTimeForecast;
+  }
+
+  /**
+   * Sets the index of upcoming fire times queried by the forecast REST endpoints. When {@code null} the forecast is
+   * not available. The forecast reads schedules through the {@link #getJobStoreBulkReader() bulk reader} set when the
+   * Quartz scheduler is created.
+   *
+   * @param fireTimeForecast the forecast, or {@code null} to disable it
+   */
+  public void setFireTimeForecast( FireTimeForecast fireTimeForecast ) throws org.quartz.SchedulerException {
+    this.fireTimeForecast = fireTimeForecast;
+    if ( fireTimeForecast != null && quartzScheduler != null ) {
+      fireTimeForecast.register( quartzScheduler, jobStoreBulkReader );
+    }
+  }
+
+  public JobAdmissionControl getAdmissionControl() {
+    return admissionControl;
+  }
+
+  /**
+   * Sets the limits on the jobs of each action type that run at once. When {@code null} (the default) every job runs
+   * as soon as Quartz fires it.
+   *
+   * @param admissionControl the admission control, or {@code null} to disable it
+   */
+  public void setAdmissionControl( JobAdmissionControl admissionControl ) {
+    this.admissionControl = admissionControl;
+  }
+
+  public JobHistoryStore getJobHistoryStore() {
+    return jobHistoryStore;
+  }
+
+  /**
+   * Sets the store of the latest runs of each job, returned by {@link #getJobHistory(String)}. When {@code null} no
+   * runs are kept.
+   *
+   * @param jobHistoryStore the store, or {@code null} to disable it
+   */
+  public void setJobHistoryStore( JobHistoryStore jobHistoryStore ) {
+    this.jobHistoryStore = jobHistoryStore;
+  }
+
+  public AuditRecordWriter getAuditWriter() {
+    return auditWriter;
+  }
+
+  /**
+   * Sets the writer of the audit records of scheduled jobs. When {@code null} (the default) each record is written on
+   * the thread of its job.
+   *
+   * @param auditWriter the writer, or {@code null} to write the records on the job threads
+   */
+  public void setAuditWriter( AuditRecordWriter auditWriter ) {
+    this.auditWriter = auditWriter;
+  }
+
+  public SchedulerMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Sets the runtime metrics recorded by the jobs and by this scheduler, which also exposes the counters of its other
+   * components through them. When {@code null} no metrics are recorded.
+   *
+   * @param metrics the metrics, or {@code null} to disable them
+   */
+  public void setMetrics( SchedulerMetrics metrics ) throws org.quartz.SchedulerException {
+    this.metrics = metrics;
+    if ( metrics == null ) {
+      return;
+    }
+    metrics.registerCounter( "admitted_fires_total", //$NON-NLS-1$
+      "Jobs admitted by the admission control", //$NON-NLS-1$
+      () -> admissionControl != null ? admissionControl.getAdmittedCount() : null );
+    metrics.registerCounter( "queued_fires_total", //$NON-NLS-1$
+      "Jobs that waited for admission", //$NON-NLS-1$
+      () -> admissionControl != null ? admissionControl.getQueuedCount() : null );
+    metrics.registerGauge( "audit_queue_depth", //$NON-NLS-1$
+      "Audit records waiting to be written", //$NON-NLS-1$
+      () -> auditWriter != null ? auditWriter.getQueueDepth() : null );
+    metrics.registerCounter( "audit_records_dropped_total", //$NON-NLS-1$
+      "Audit records dropped as the queue was full", //$NON-NLS-1$
+      () -> auditWriter != null ? auditWriter.getDroppedCount() : null );
+    metrics.registerCounter( "job_catalog_hits_total", //$NON-NLS-1$
+      "Jobs read from the job catalog rather than the job store", //$NON-NLS-1$
+      () -> jobCatalog != null ? jobCatalog.getHitCount() : null );
+    metrics.registerCounter( "job_catalog_misses_total", //$NON-NLS-1$
+      "Jobs read from the job store as the job catalog did not hold them", //$NON-NLS-1$
+      () -> jobCatalog != null ? jobCatalog.getMissCount() : null );
+    metrics.registerCounter( "timed_out_runs_total", //$NON-NLS-1$
+      "Runs of jobs cancelled by the watchdog as they ran beyond their timeout", //$NON-NLS-1$
+      () -> watchdog != null ? watchdog.getTimedOutCount() : null );
+    metrics.registerCounter( "slow_runs_total", //$NON-NLS-1$
+      "Runs of jobs flagged by the watchdog as they ran well beyond the 99th percentile of their job", //$NON-NLS-1$
+      () -> watchdog != null ? watchdog.getSlowCount() : null );
+    metrics.registerGauge( "watched_runs", //$NON-NLS-1$
+      "Runs of jobs in progress watched by the watchdog", //$NON-NLS-1$
+      () -> watchdog != null ? watchdog.getRunningCount() : null );
+    if ( quartzScheduler != null ) {
+      metrics.register( quartzScheduler );
+    }
+  }
+
+  public ExecutionTraceRecorder getTraceRecorder() {
+    return traceRecorder;
+  }
+
+  /**
+   * Sets the flight recorder of the latest runs of jobs, whose traces break each run down into its stages. When
+   * {@code null} no runs are traced.
+   *
+   * @param traceRecorder the recorder, or {@code null} to disable tracing
+   */
+  public void setTraceRecorder( ExecutionTraceRecorder traceRecorder ) {
+    this.traceRecorder = traceRecorder;
+  }
+
+  public JobWatchdog getWatchdog() {
+    return watchdog;
+  }
+
+  /**
+   * Sets the watchdog that cancels the runs of jobs that run beyond their timeout. When {@code null} runs are only
+   * cancelled when their job is interrupted.
+   *
+   * @param watchdog the watchdog, or {@code null} to disable it
+   */
+  public void setWatchdog( JobWatchdog watchdog ) {
+    this.watchdog = watchdog;
+  }
+
+  private void recordJobStoreCall( String operation, long startNanos ) {
+    SchedulerMetrics current = metrics;
+    if ( current != null ) {
+      current.recordJobStoreCall( operation, System.nanoTime() - startNanos );
+    }
+  }
+
+  /**
+   * @return the scheduler of the platform, or {@code null} if it is not a {@code QuartzScheduler}; a run of a job looks
+   * it up once and takes the components it needs from it
+   */
+  public static QuartzScheduler getPlatformScheduler() {
+    IScheduler scheduler = PentahoSystem.get( IScheduler.class, "IScheduler2", null ); //$NON-NLS-1$
+    return scheduler instanceof QuartzScheduler ? (QuartzScheduler) scheduler : null;
+  }
+
+  /**
+   * @return the blockouts of this scheduler, which are reloaded whenever a blockout job changes
+   */
+  public BlockoutRegistry getBlockoutRegistry() {
+    return blockoutRegistry;
+  }
+
+  /**
+   * @return evaluates the schedules of this scheduler against candidate blockouts
+   */
+  public BlockoutImpactAnalyzer getBlockoutImpactAnalyzer() {
+    return blockoutImpactAnalyzer;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -256,6 +470,10 @@ public class QuartzScheduler implements IScheduler {
       throw new SchedulerException(
         Messages.getInstance().getString( "QuartzScheduler.ERROR_0002_TRIGGER_WRONG_TYPE" ) ); //$NON-NLS-1$
     }
+    if ( jobTrigger instanceof JobTrigger ) {
+      // stored with the trigger; Quartz starts the higher priority trigger first when several are due at once
+      quartzTrigger.setPriority( ( (JobTrigger) jobTrigger ).getPriority() );
+    }
     quartzTrigger.setMisfireInstruction( SimpleTrigger.MISFIRE_INSTRUCTION_FIRE_NOW );
     if ( quartzTrigger instanceof SimpleTrigger ) {
       if ( ( (SimpleTrigger) quartzTrigger ).getRepeatCount() != 0 ) {
@@ -342,7 +560,11 @@ public class QuartzScheduler implements IScheduler {
         }
       }
 
+      long callStart = System.nanoTime();
       scheduler.scheduleJob( jobDetail, quartzTrigger );
+      recordJobStoreCall( "scheduleJob", callStart ); //$NON-NLS-1$
+      invalidateCatalog( jobId.toString() );
+      invalidateBlockouts( jobId );
 
       logger.debug( MessageFormat.format( "Scheduled job {0} successfully", jobId.toString() ) ); //$NON-NLS-1$
     } catch ( org.quartz.SchedulerException e ) {
@@ -381,7 +603,9 @@ public class QuartzScheduler implements IScheduler {
       // if (triggerState != Trigger.STATE_PAUSED) {
       // scheduler.pauseTrigger(jobId, jobKey.getUserName());
       // }
+      long callStart = System.nanoTime();
       JobDetail origJobDetail = scheduler.getJobDetail( jobId, jobKey.getUserName() );
+      recordJobStoreCall( "getJobDetail", callStart ); //$NON-NLS-1$
       if ( origJobDetail.getJobDataMap().containsKey( IScheduler.RESERVEDMAPKEY_ACTIONCLASS ) ) {
         jobParams.put( IScheduler.RESERVEDMAPKEY_ACTIONCLASS,
           origJobDetail.getJobDataMap().get( IScheduler.RESERVEDMAPKEY_ACTIONCLASS )
@@ -401,7 +625,9 @@ public class QuartzScheduler implements IScheduler {
       }
 
       JobDetail jobDetail = createJobDetails( jobKey, jobParams );
+      callStart = System.nanoTime();
       scheduler.addJob( jobDetail, true );
+      recordJobStoreCall( "addJob", callStart ); //$NON-NLS-1$
       if ( triggerCalendar != null ) {
         scheduler.addCalendar( jobId.toString(), triggerCalendar, true, true );
         quartzTrigger.setCalendarName( jobId.toString() );
@@ -414,7 +640,11 @@ public class QuartzScheduler implements IScheduler {
         }
       }
 
+      callStart = System.nanoTime();
       scheduler.rescheduleJob( jobId, jobKey.getUserName(), quartzTrigger );
+      recordJobStoreCall( "rescheduleJob", callStart ); //$NON-NLS-1$
+      invalidateCatalog( jobId );
+      invalidateBlockouts( jobKey );
       // if (triggerState != Trigger.STATE_PAUSED) {
       // scheduler.resumeTrigger(jobId, jobKey.getUserName());
       // }
@@ -439,10 +669,15 @@ public class QuartzScheduler implements IScheduler {
 
   /**
    * {@inheritDoc}
+   * <p>
+   * The results are the {@link JobHistoryStore.JobRun runs} of the job kept by the {@link #getJobHistoryStore() job
+   * history store}, the latest first; there are none when the store is disabled.
    */
   public List<IJobResult> getJobHistory( String jobId ) {
-    // TODO Auto-generated method stub
-    return null;
+    if ( jobHistoryStore == null ) {
+      return new ArrayList<IJobResult>();
+    }
+    return new ArrayList<IJobResult>( jobHistoryStore.getRuns( jobId, jobHistoryStore.getMaxRunsPerJob() ) );
   }
 
   /**
@@ -479,9 +714,12 @@ public class QuartzScheduler implements IScheduler {
         // it won't run because Quartz will set the next fire date to the trigger's
         // originally configured first execution date.  Therefor we trigger manually
         if ( !scheduleAlreadyFired || nextIntendedFireDate.before( firstExecutionDate ) ) {
+          long callStart = System.nanoTime();
           scheduler.triggerJob( jobId, jobKey.getUserName() );
+          recordJobStoreCall( "triggerJob", callStart ); //$NON-NLS-1$
         }
       }
+      invalidateCatalog( jobId );
 
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException( Messages.getInstance().getString(
@@ -497,8 +735,22 @@ public class QuartzScheduler implements IScheduler {
   /**
    * {@inheritDoc}
    */
-  @SuppressWarnings( "unchecked" )
   public Job getJob( String jobId ) throws SchedulerException {
+    if ( jobCatalog == null ) {
+      return loadJob( jobId );
+    }
+    QuartzJobKey jobKey = QuartzJobKey.parse( jobId );
+    Job job = jobCatalog.getJob( jobKey );
+    if ( job == null ) {
+      long generation = jobCatalog.getGeneration();
+      job = loadJob( jobId );
+      jobCatalog.putJob( generation, jobKey, job );
+    }
+    return job;
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private Job loadJob( String jobId ) throws SchedulerException {
     try {
       Scheduler scheduler = getQuartzScheduler();
       QuartzJobKey jobKey = QuartzJobKey.parse( jobId );
@@ -529,17 +781,75 @@ public class QuartzScheduler implements IScheduler {
   /**
    * {@inheritDoc}
    */
-  @SuppressWarnings( "unchecked" )
   public List<IJob> getJobs( IJobFilter filter ) throws SchedulerException {
     ArrayList<IJob> jobs = new ArrayList<>();
+    getJobs( filter, jobs::add );
+    return jobs;
+  }
+
+  /**
+   * Passes the jobs accepted by the filter to the consumer one at a time, as {@link #getJobs(IJobFilter)} would list
+   * them, without collecting them first. When jobs are read one at a time from the job store, each job is passed on as
+   * soon as it has been read; a bulk read or the job catalog hold the job store contents in memory regardless.
+   *
+   * @param filter   the filter, or {@code null} for all jobs
+   * @param consumer receives the jobs
+   */
+  public void getJobs( IJobFilter filter, Consumer<? super IJob> consumer ) throws SchedulerException {
+    if ( jobCatalog == null ) {
+      loadJobs( filter, consumer );
+      return;
+    }
+    List<? extends IJob> allJobs = jobCatalog.getJobs();
+    if ( allJobs == null ) {
+      long generation = jobCatalog.getGeneration();
+      ArrayList<IJob> loadedJobs = new ArrayList<>();
+      loadJobs( null, loadedJobs::add );
+      jobCatalog.putJobs( generation, loadedJobs );
+      allJobs = loadedJobs;
+    }
+    for ( IJob job : allJobs ) {
+      if ( ( filter == null ) || filter.accept( job ) ) {
+        consumer.accept( job );
+      }
+    }
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private void loadJobs( IJobFilter filter, Consumer<? super IJob> consumer ) throws SchedulerException {
+    if ( jobStoreBulkReader != null ) {
+      List<QuartzJobStoreBulkReader.JobRecord> records = null;
+      try {
+        Scheduler scheduler = getQuartzScheduler();
+        long callStart = System.nanoTime();
+        records = jobStoreBulkReader.readJobs( scheduler, getCriteria( filter ) );
+        recordJobStoreCall( "readJobs", callStart ); //$NON-NLS-1$
+      } catch ( org.quartz.SchedulerException e ) {
+        logger.warn( "Bulk job listing failed, listing jobs one at a time instead", e ); //$NON-NLS-1$
+      }
+      if ( records != null ) {
+        getJobsInBulk( records, filter, consumer );
+        return;
+      }
+    }
+    JobCriteriaFilter criteria = getCriteria( filter );
     try {
       Scheduler scheduler = getQuartzScheduler();
+      // the listing as a whole, as it interleaves many calls to the job store
+      long callStart = System.nanoTime();
       for ( String groupName : scheduler.getJobGroupNames() ) {
+        if ( criteria != null && !criteria.acceptsUserName( groupName ) ) {
+          continue;
+        }
         for ( String jobId : scheduler.getJobNames( groupName ) ) {
+          if ( criteria != null && !criteria.acceptsJobName( QuartzJobKey.parse( jobId ).getJobName() ) ) {
+            continue;
+          }
           for ( Trigger trigger : scheduler.getTriggersOfJob( jobId, groupName ) ) {
             if ( "MANUAL_TRIGGER".equals( trigger.getGroup() ) ) {
               continue;
             }
+            QuartzJobKey jobKey = QuartzJobKey.parse( jobId );
             Job job = new Job();
             job.setGroupName( groupName );
             JobDetail jobDetail = scheduler.getJobDetail( jobId, groupName );
@@ -551,39 +861,107 @@ public class QuartzScheduler implements IScheduler {
                 job.setJobParams( wrappedMap );
               }
             }
+            if ( criteria != null && !criteria.acceptsJobParams( job.getJobParams() ) ) {
+              continue;
+            }
+            int triggerState = scheduler.getTriggerState( jobId, jobKey.getUserName() );
+            if ( criteria != null && !criteria.acceptsState( toJobState( triggerState ) ) ) {
+              continue;
+            }
 
             job.setJobId( jobId );
-            setJobTrigger( scheduler, job, trigger );
-            job.setJobName( QuartzJobKey.parse( jobId ).getJobName() );
+            setJobTrigger( scheduler, job, trigger, triggerState );
+            job.setJobName( jobKey.getJobName() );
             setJobNextRun( job, trigger );
             job.setLastRun( trigger.getPreviousFireTime() );
             if ( ( filter == null ) || filter.accept( job ) ) {
-              jobs.add( job );
+              consumer.accept( job );
             }
           }
         }
       }
+      recordJobStoreCall( "listJobs", callStart ); //$NON-NLS-1$
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException(
         Messages.getInstance().getString( "QuartzScheduler.ERROR_0004_FAILED_TO_LIST_JOBS" ), e ); //$NON-NLS-1$
     }
-    return jobs;
+  }
+
+  private static JobCriteriaFilter getCriteria( IJobFilter filter ) {
+    return filter instanceof JobCriteriaFilter ? (JobCriteriaFilter) filter : null;
+  }
+
+  /**
+   * Lists jobs from a single bulk read of the job store. Produces the same jobs as the per-job listing in
+   * {@link #getJobs(IJobFilter)}, without a job store round trip per job.
+   */
+  private void getJobsInBulk( List<QuartzJobStoreBulkReader.JobRecord> records, IJobFilter filter,
+                              Consumer<? super IJob> consumer ) throws SchedulerException {
+    JobCriteriaFilter criteria = getCriteria( filter );
+    for ( QuartzJobStoreBulkReader.JobRecord record : records ) {
+      if ( criteria != null && ( !criteria.acceptsJobParams( record.getJobParams() )
+        || !criteria.acceptsState( toJobState( record.getTriggerState() ) ) ) ) {
+        continue;
+      }
+      Trigger trigger = record.getTrigger();
+      Job job = new Job();
+      job.setGroupName( record.getJobGroup() );
+      job.setUserName( record.getJobGroup() );
+      job.setJobParams( record.getJobParams() );
+      job.setJobId( record.getJobName() );
+      setJobTrigger( job, trigger, record.getCalendar(), record.getTriggerState() );
+      job.setJobName( QuartzJobKey.parse( record.getJobName() ).getJobName() );
+      setJobNextRun( job, trigger );
+      job.setLastRun( trigger.getPreviousFireTime() );
+      if ( ( filter == null ) || filter.accept( job ) ) {
+        consumer.accept( job );
+      }
+    }
   }
 
   protected void setJobNextRun( Job job, Trigger trigger ) {
+    job.setNextRun( getNextRun( trigger ) );
+  }
+
+  static Date getNextRun( Trigger trigger ) {
     //if getNextFireTime() is in the future, then we use it
     //if it is in past, we call getFireTimeAfter( new Date() ) to get the correct next date from today on
     Date nextFire = trigger.getNextFireTime();
-    job.setNextRun( nextFire != null && ( nextFire.getTime() < new Date().getTime() )
+    return nextFire != null && ( nextFire.getTime() < new Date().getTime() )
       ? trigger.getFireTimeAfter( new Date() )
-      : nextFire );
+      : nextFire;
+  }
+
+  private void invalidateCatalog( String jobId ) {
+    if ( jobCatalog != null ) {
+      jobCatalog.invalidate( jobId );
+    }
+  }
+
+  private void invalidateBlockouts( QuartzJobKey jobKey ) {
+    if ( IBlockoutManager.BLOCK_OUT_JOB_NAME.equals( jobKey.getJobName() ) ) {
+      blockoutRegistry.invalidate();
+    }
   }
 
   private void setJobTrigger( Scheduler scheduler, Job job, Trigger trigger ) throws SchedulerException,
     org.quartz.SchedulerException {
     QuartzJobKey jobKey = QuartzJobKey.parse( job.getJobId() );
     String groupName = jobKey.getUserName();
+    setJobTrigger( scheduler, job, trigger, scheduler.getTriggerState( job.getJobId(), groupName ) );
+  }
 
+  private void setJobTrigger( Scheduler scheduler, Job job, Trigger trigger, int triggerState )
+    throws SchedulerException, org.quartz.SchedulerException {
+    Calendar calendar = null;
+    if ( trigger instanceof CronTrigger && trigger.getCalendarName() != null ) {
+      calendar = scheduler.getCalendar( trigger.getCalendarName() );
+    }
+    setJobTrigger( job, trigger, calendar, triggerState );
+  }
+
+  private void setJobTrigger( Job job, Trigger trigger, Calendar calendar, int triggerState )
+    throws SchedulerException {
     if ( trigger instanceof SimpleTrigger ) {
       SimpleTrigger simpleTrigger = (SimpleTrigger) trigger;
       SimpleJobTrigger simpleJobTrigger = new SimpleJobTrigger();
@@ -596,6 +974,7 @@ public class QuartzScheduler implements IScheduler {
       }
       simpleJobTrigger.setRepeatInterval( interval );
       simpleJobTrigger.setRepeatCount( simpleTrigger.getRepeatCount() );
+      simpleJobTrigger.setPriority( simpleTrigger.getPriority() );
       job.setJobTrigger( simpleJobTrigger );
     } else if ( trigger instanceof CronTrigger ) {
       CronTrigger cronTrigger = (CronTrigger) trigger;
@@ -603,7 +982,8 @@ public class QuartzScheduler implements IScheduler {
       ( (IJobTrigger) complexJobTrigger ).setUiPassParam(
         (String) job.getJobParams().get( RESERVEDMAPKEY_UIPASSPARAM ) );
       complexJobTrigger.setCronString( ( (CronTrigger) trigger ).getCronExpression() );
-      List<ITimeRecurrence> timeRecurrences = parseRecurrence( ( (IJobTrigger) complexJobTrigger ).getCronString(), 3 );
+      List<ITimeRecurrence> timeRecurrences = CronRecurrenceParser.parse( ( (IJobTrigger) complexJobTrigger )
+        .getCronString() ).getRecurrences( CronRecurrenceParser.DAYS_OF_MONTH );
       if ( timeRecurrences.size() > 0 ) {
         ITimeRecurrence recurrence = timeRecurrences.get( 0 );
         if ( recurrence instanceof IncrementalRecurrence ) {
@@ -612,43 +992,40 @@ public class QuartzScheduler implements IScheduler {
         }
       }
       job.setJobTrigger( (IJobTrigger) complexJobTrigger );
-      if ( trigger.getCalendarName() != null ) {
-        Calendar calendar = scheduler.getCalendar( trigger.getCalendarName() );
-        if ( calendar instanceof QuartzSchedulerAvailability ) {
-          QuartzSchedulerAvailability quartzSchedulerAvailability = (QuartzSchedulerAvailability) calendar;
-          ( (IJobTrigger) complexJobTrigger ).setStartTime( quartzSchedulerAvailability.getStartTime() );
-          ( (IJobTrigger) complexJobTrigger ).setEndTime( quartzSchedulerAvailability.getEndTime() );
-        }
+      if ( calendar instanceof QuartzSchedulerAvailability ) {
+        QuartzSchedulerAvailability quartzSchedulerAvailability = (QuartzSchedulerAvailability) calendar;
+        ( (IJobTrigger) complexJobTrigger ).setStartTime( quartzSchedulerAvailability.getStartTime() );
+        ( (IJobTrigger) complexJobTrigger ).setEndTime( quartzSchedulerAvailability.getEndTime() );
       }
       complexJobTrigger.setCronString( ( (CronTrigger) trigger ).getCronExpression() );
+      if ( complexJobTrigger instanceof JobTrigger ) {
+        ( (JobTrigger) complexJobTrigger ).setPriority( cronTrigger.getPriority() );
+      }
     }
 
-    int triggerState = scheduler.getTriggerState( job.getJobId(), groupName );
+    job.setState( toJobState( triggerState ) );
+
+    job.setJobName( QuartzJobKey.parse( job.getJobId() ).getJobName() );
+    job.setNextRun( trigger.getNextFireTime() );
+    job.setLastRun( trigger.getPreviousFireTime() );
+
+  }
+
+  static JobState toJobState( int triggerState ) {
     switch ( triggerState ) {
       case Trigger.STATE_NORMAL:
-        job.setState( JobState.NORMAL );
-        break;
+        return JobState.NORMAL;
       case Trigger.STATE_BLOCKED:
-        job.setState( JobState.BLOCKED );
-        break;
+        return JobState.BLOCKED;
       case Trigger.STATE_COMPLETE:
-        job.setState( JobState.COMPLETE );
-        break;
+        return JobState.COMPLETE;
       case Trigger.STATE_ERROR:
-        job.setState( JobState.ERROR );
-        break;
+        return JobState.ERROR;
       case Trigger.STATE_PAUSED:
-        job.setState( JobState.PAUSED );
-        break;
+        return JobState.PAUSED;
       default:
-        job.setState( JobState.UNKNOWN );
-        break;
+        return JobState.UNKNOWN;
     }
-
-    job.setJobName( QuartzJobKey.parse( job.getJobId() ).getJobName() );
-    job.setNextRun( trigger.getNextFireTime() );
-    job.setLastRun( trigger.getPreviousFireTime() );
-
   }
 
   /**
@@ -684,7 +1061,10 @@ public class QuartzScheduler implements IScheduler {
   public void pauseJob( String jobId ) throws SchedulerException {
     try {
       Scheduler scheduler = getQuartzScheduler();
+      long callStart = System.nanoTime();
       scheduler.pauseJob( jobId, QuartzJobKey.parse( jobId ).getUserName() );
+      recordJobStoreCall( "pauseJob", callStart ); //$NON-NLS-1$
+      invalidateCatalog( jobId );
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException( Messages.getInstance()
         .getString( "QuartzScheduler.ERROR_0005_FAILED_TO_PAUSE_JOBS" ), e ); //$NON-NLS-1$
@@ -697,7 +1077,15 @@ public class QuartzScheduler implements IScheduler {
   public void removeJob( String jobId ) throws SchedulerException {
     try {
       Scheduler scheduler = getQuartzScheduler();
-      scheduler.deleteJob( jobId, QuartzJobKey.parse( jobId ).getUserName() );
+      QuartzJobKey jobKey = QuartzJobKey.parse( jobId );
+      long callStart = System.nanoTime();
+      scheduler.deleteJob( jobId, jobKey.getUserName() );
+      recordJobStoreCall( "deleteJob", callStart ); //$NON-NLS-1$
+      invalidateCatalog( jobId );
+      invalidateBlockouts( jobKey );
+      if ( jobHistoryStore != null ) {
+        jobHistoryStore.remove( jobId );
+      }
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException( Messages.getInstance()
         .getString( "QuartzScheduler.ERROR_0005_FAILED_TO_PAUSE_JOBS" ), e ); //$NON-NLS-1$
@@ -721,7 +1109,10 @@ public class QuartzScheduler implements IScheduler {
   public void resumeJob( String jobId ) throws SchedulerException {
     try {
       Scheduler scheduler = getQuartzScheduler();
+      long callStart = System.nanoTime();
       scheduler.resumeJob( jobId, QuartzJobKey.parse( jobId ).getUserName() );
+      recordJobStoreCall( "resumeJob", callStart ); //$NON-NLS-1$
+      invalidateCatalog( jobId );
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException( Messages.getInstance().getString(
         "QuartzScheduler.ERROR_0005_FAILED_TO_RESUME_JOBS" ), e ); //$NON-NLS-1$
@@ -770,14 +1161,15 @@ public class QuartzScheduler implements IScheduler {
     complexJobTrigger.setMinuteRecurrence( (ITimeRecurrence) null );
     complexJobTrigger.setSecondRecurrence( (ITimeRecurrence) null );
 
-    for ( ITimeRecurrence recurrence : parseRecurrence( cronExpression, 6 ) ) {
+    CronRecurrenceParser.ParsedCron parsedCron = CronRecurrenceParser.parse( cronExpression );
+    for ( ITimeRecurrence recurrence : parsedCron.getRecurrences( CronRecurrenceParser.YEARS ) ) {
       complexJobTrigger.addYearlyRecurrence( recurrence );
     }
-    for ( ITimeRecurrence recurrence : parseRecurrence( cronExpression, 4 ) ) {
+    for ( ITimeRecurrence recurrence : parsedCron.getRecurrences( CronRecurrenceParser.MONTHS ) ) {
       complexJobTrigger.addMonthlyRecurrence( recurrence );
     }
-    List<ITimeRecurrence> dayOfWeekRecurrences = parseDayOfWeekRecurrences( cronExpression );
-    List<ITimeRecurrence> dayOfMonthRecurrences = parseRecurrence( cronExpression, 3 );
+    List<ITimeRecurrence> dayOfWeekRecurrences = parsedCron.getRecurrences( CronRecurrenceParser.DAYS_OF_WEEK );
+    List<ITimeRecurrence> dayOfMonthRecurrences = parsedCron.getRecurrences( CronRecurrenceParser.DAYS_OF_MONTH );
     if ( ( dayOfWeekRecurrences.size() > 0 ) && ( dayOfMonthRecurrences.size() == 0 ) ) {
       for ( ITimeRecurrence recurrence : dayOfWeekRecurrences ) {
         complexJobTrigger.addDayOfWeekRecurrence( recurrence );
@@ -787,13 +1179,13 @@ public class QuartzScheduler implements IScheduler {
         complexJobTrigger.addDayOfMonthRecurrence( recurrence );
       }
     }
-    for ( ITimeRecurrence recurrence : parseRecurrence( cronExpression, 2 ) ) {
+    for ( ITimeRecurrence recurrence : parsedCron.getRecurrences( CronRecurrenceParser.HOURS ) ) {
       complexJobTrigger.addHourlyRecurrence( recurrence );
     }
-    for ( ITimeRecurrence recurrence : parseRecurrence( cronExpression, 1 ) ) {
+    for ( ITimeRecurrence recurrence : parsedCron.getRecurrences( CronRecurrenceParser.MINUTES ) ) {
       complexJobTrigger.addMinuteRecurrence( recurrence );
     }
-    for ( ITimeRecurrence recurrence : parseRecurrence( cronExpression, 0 ) ) {
+    for ( ITimeRecurrence recurrence : parsedCron.getRecurrences( CronRecurrenceParser.SECONDS ) ) {
       complexJobTrigger.addSecondRecurrence( recurrence );
     }
     return complexJobTrigger;
@@ -814,121 +1206,6 @@ public class QuartzScheduler implements IScheduler {
     return null;
   }
 
-  private static List<ITimeRecurrence> parseDayOfWeekRecurrences( String cronExpression ) {
-    List<ITimeRecurrence> dayOfWeekRecurrence = new ArrayList<ITimeRecurrence>();
-    String delims = "[ ]+"; //$NON-NLS-1$
-    String[] tokens = cronExpression.split( delims );
-    if ( tokens.length >= 6 ) {
-      String dayOfWeekTokens = tokens[ 5 ];
-      tokens = dayOfWeekTokens.split( "," ); //$NON-NLS-1$
-      if ( ( tokens.length > 1 ) || !( tokens[ 0 ].equals( "*" ) || tokens[ 0 ].equals(
-        "?" ) ) ) { //$NON-NLS-1$ //$NON-NLS-2$
-        RecurrenceList dayOfWeekList = null;
-        for ( String token : tokens ) {
-          if ( listPattern.matcher( token ).matches() ) {
-            if ( dayOfWeekList == null ) {
-              dayOfWeekList = new RecurrenceList();
-            }
-            dayOfWeekList.getValues().add( Integer.parseInt( token ) );
-          } else {
-            if ( dayOfWeekList != null ) {
-              dayOfWeekRecurrence.add( dayOfWeekList );
-              dayOfWeekList = null;
-            }
-            if ( sequencePattern.matcher( token ).matches() ) {
-              String[] days = token.split( "-" ); //$NON-NLS-1$
-              dayOfWeekRecurrence.add( new SequentialRecurrence( Integer.parseInt( days[ 0 ] ), Integer
-                .parseInt( days[ 1 ] ) ) );
-            } else if ( intervalPattern.matcher( token ).matches() ) {
-              String[] days = token.split( "/" ); //$NON-NLS-1$
-              dayOfWeekRecurrence.add( new IncrementalRecurrence( days[ 0 ], Integer
-                .parseInt( days[ 1 ] ) ) );
-            } else if ( qualifiedDayPattern.matcher( token ).matches() ) {
-              String[] days = token.split( "#" ); //$NON-NLS-1$
-              dayOfWeekRecurrence
-                .add( new QualifiedDayOfWeek( Integer.parseInt( days[ 1 ] ), Integer.parseInt( days[ 0 ] ) ) );
-            } else if ( lastDayPattern.matcher( token ).matches() ) {
-              DayOfWeek dayOfWeek =
-                DayOfWeek.values()[ ( Integer.parseInt( token.substring( 0, token.length() - 1 ) ) - 1 ) % 7 ];
-              dayOfWeekRecurrence.add( new QualifiedDayOfWeek( DayOfWeekQualifier.LAST, dayOfWeek ) );
-            } else if ( dayOfWeekRangePattern.matcher( token ).matches() ) {
-              String[] days = token.split( "-" ); //$NON-NLS-1$
-              int start = DayOfWeek.valueOf( days[ 0 ] ).ordinal();
-              int finish = DayOfWeek.valueOf( days[ 1 ] ).ordinal();
-              dayOfWeekRecurrence.add( new SequentialRecurrence( start, finish ) );
-            } else {
-              dayOfWeekList = new RecurrenceList();
-              dayOfWeekList.getValues().add( DayOfWeek.valueOf( token ).ordinal() );
-              dayOfWeekRecurrence.add( dayOfWeekList );
-              dayOfWeekList = null;
-              // } else {
-              // throw new IllegalArgumentException(Messages.getInstance().getErrorString(
-              //                  "ComplexJobTrigger.ERROR_0001_InvalidCronExpression")); //$NON-NLS-1$
-            }
-          }
-
-        }
-        if ( dayOfWeekList != null ) {
-          dayOfWeekRecurrence.add( dayOfWeekList );
-        }
-      }
-    } else {
-      throw new IllegalArgumentException( Messages.getInstance().getErrorString(
-        "ComplexJobTrigger.ERROR_0001_InvalidCronExpression" ) ); //$NON-NLS-1$
-    }
-    return dayOfWeekRecurrence;
-  }
-
-  private static List<ITimeRecurrence> parseRecurrence( String cronExpression, int tokenIndex ) {
-    List<ITimeRecurrence> timeRecurrence = new ArrayList<ITimeRecurrence>();
-    String delims = "[ ]+"; //$NON-NLS-1$
-    String[] tokens = cronExpression.split( delims );
-    if ( tokens.length > tokenIndex ) {
-      String timeTokens = tokens[ tokenIndex ];
-      tokens = timeTokens.split( "," ); //$NON-NLS-1$
-      if ( ( tokens.length > 1 ) || !( tokens[ 0 ].equals( "*" ) || tokens[ 0 ].equals(
-        "?" ) ) ) { //$NON-NLS-1$ //$NON-NLS-2$
-        RecurrenceList timeList = null;
-        for ( String token : tokens ) {
-          if ( listPattern.matcher( token ).matches() ) {
-            if ( timeList == null ) {
-              timeList = new RecurrenceList();
-            }
-            timeList.getValues().add( Integer.parseInt( token ) );
-          } else {
-            if ( timeList != null ) {
-              timeRecurrence.add( timeList );
-              timeList = null;
-            }
-            if ( sequencePattern.matcher( token ).matches() ) {
-              String[] days = token.split( "-" ); //$NON-NLS-1$
-              timeRecurrence.add( new SequentialRecurrence( Integer.parseInt( days[ 0 ] ),
-                Integer.parseInt( days[ 1 ] ) ) );
-            } else if ( intervalPattern.matcher( token ).matches() ) {
-              String[] days = token.split( "/" ); //$NON-NLS-1$
-
-              timeRecurrence
-                .add( new IncrementalRecurrence( days[ 0 ], Integer.parseInt( days[ 1 ] ) ) );
-            } else if ( "L".equalsIgnoreCase( token ) ) {
-              timeRecurrence.add( new QualifiedDayOfMonth() );
-            } else {
-              throw new IllegalArgumentException( Messages.getInstance().getErrorString(
-                "ComplexJobTrigger.ERROR_0001_InvalidCronExpression" ) ); //$NON-NLS-1$
-            }
-          }
-
-        }
-        if ( timeList != null ) {
-          timeRecurrence.add( timeList );
-        }
-      }
-    } else {
-      throw new IllegalArgumentException( Messages.getInstance().getErrorString(
-        "ComplexJobTrigger.ERROR_0001_InvalidCronExpression" ) ); //$NON-NLS-1$
-    }
-    return timeRecurrence;
-  }
-
   /**
    * Update cronTrigger's timezone based on the info from caller
    *
@@ -972,6 +1249,27 @@ public class QuartzScheduler implements IScheduler {
       boolean waitForJobsToComplete = true;
       getQuartzScheduler().shutdown( waitForJobsToComplete );
       setQuartzScheduler( null );
+      if ( jobCatalog != null ) {
+        jobCatalog.clear();
+      }
+      if ( fireTimeForecast != null ) {
+        fireTimeForecast.clear();
+      }
+      if ( auditWriter != null ) {
+        // the jobs have completed, so their records are all queued
+        auditWriter.flush();
+      }
+      if ( metrics != null ) {
+        metrics.unregister();
+      }
+      if ( traceRecorder != null ) {
+        traceRecorder.clear();
+      }
+      if ( watchdog != null ) {
+        watchdog.shutdown();
+      }
+      blockoutImpactAnalyzer.shutdown();
+      ActionRunner.shutdownPostProcessing();
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException( e );
     }
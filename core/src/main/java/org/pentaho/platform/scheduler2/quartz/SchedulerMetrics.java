@@ -0,0 +1,657 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.Trigger;
+import org.quartz.listeners.TriggerListenerSupport;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * The runtime metrics of the scheduler: how often jobs fire and how late, how many fires are suppressed by blockouts,
+ * rejected by the admission control or misfired, how long jobs and their actions take per action type, how busy the
+ * Quartz thread pool is and how long the calls to the job store take. Together they tell whether a slow job waited for
+ * a thread, for the job store or for its action.
+ * <p>
+ * The jobs and the scheduler record into counters and {@link DurationHistogram histograms} without locking. The
+ * metrics are read through JMX, under {@link #OBJECT_NAME}, or as a whole in the Prometheus text format with
+ * {@link #toPrometheusText()}, where the durations are in seconds. Other components of the scheduler add their own
+ * counters and gauges with {@link #registerCounter(String, String, Supplier)} and
+ * {@link #registerGauge(String, String, Supplier)}.
+ * <p>
+ * At most {@link #MAX_LABEL_VALUES} action types and job store operations are told apart; the others are counted
+ * together as {@link #OTHER_LABEL_VALUE}. The metrics are local to a node and start from zero on restart.
+ */
+public class SchedulerMetrics implements SchedulerMetricsMBean {
+
+  public static final String PROP_METRICS_ENABLED = "org.pentaho.scheduler.metrics.enabled"; //$NON-NLS-1$
+
+  public static final String PROP_JMX_ENABLED = "org.pentaho.scheduler.metrics.jmx.enabled"; //$NON-NLS-1$
+
+  public static final String OBJECT_NAME = "org.pentaho.scheduler:type=SchedulerMetrics"; //$NON-NLS-1$
+
+  public static final String OTHER_LABEL_VALUE = "other"; //$NON-NLS-1$
+
+  static final String LISTENER_NAME = "PentahoSchedulerMetricsListener"; //$NON-NLS-1$
+
+  static final int MAX_LABEL_VALUES = 100;
+
+  /**
+   * The seconds over which {@link #getFiresPerSecond()} is averaged.
+   */
+  static final int RATE_SECONDS = 60;
+
+  // a power of two above RATE_SECONDS, so that the current second never overwrites one that is averaged
+  private static final int RATE_SLOTS = 64;
+
+  private static final String PREFIX = "pentaho_scheduler_"; //$NON-NLS-1$
+
+  private static final Log logger = LogFactory.getLog( SchedulerMetrics.class );
+
+  private final boolean jmxEnabled;
+
+  private final LongSupplier clock;
+
+  private final LongAdder fireCount = new LongAdder();
+
+  private final LongAdder blockedFireCount = new LongAdder();
+
+  private final LongAdder rejectedFireCount = new LongAdder();
+
+  private final LongAdder misfireCount = new LongAdder();
+
+  private final LongAdder restartCount = new LongAdder();
+
+  // the fires counted in each of the last seconds, and the second each slot counts
+  private final AtomicLongArray rateCounts = new AtomicLongArray( RATE_SLOTS );
+
+  private final AtomicLongArray rateSeconds = new AtomicLongArray( RATE_SLOTS );
+
+  // the durations are recorded in microseconds
+  private final DurationHistogram fireLag = new DurationHistogram();
+
+  private final ConcurrentNavigableMap<String, DurationHistogram> executions = new ConcurrentSkipListMap<>();
+
+  private final ConcurrentNavigableMap<String, LongAdder> executionFailures = new ConcurrentSkipListMap<>();
+
+  private final ConcurrentNavigableMap<String, DurationHistogram> invocations = new ConcurrentSkipListMap<>();
+
+  private final ConcurrentNavigableMap<String, DurationHistogram> actions = new ConcurrentSkipListMap<>();
+
+  private final DurationHistogram postProcessing = new DurationHistogram();
+
+  private final ConcurrentNavigableMap<String, DurationHistogram> jobStoreCalls = new ConcurrentSkipListMap<>();
+
+  private final DurationHistogram allJobStoreCalls = new DurationHistogram();
+
+  private final ConcurrentNavigableMap<String, Metric> registered = new ConcurrentSkipListMap<>();
+
+  private volatile Scheduler scheduler;
+
+  private ObjectName objectName;
+
+  public SchedulerMetrics() {
+    this( true );
+  }
+
+  /**
+   * @param jmxEnabled whether the metrics are registered as an MBean when registered with a scheduler
+   */
+  public SchedulerMetrics( boolean jmxEnabled ) {
+    this( jmxEnabled, System::currentTimeMillis );
+  }
+
+  SchedulerMetrics( boolean jmxEnabled, LongSupplier clock ) {
+    this.jmxEnabled = jmxEnabled;
+    this.clock = clock;
+  }
+
+  /**
+   * @param quartzProperties the properties of the Quartz scheduler, or {@code null}
+   * @return the metrics configured by the {@code org.pentaho.scheduler.metrics.*} properties, or {@code null} if they
+   * are disabled
+   */
+  public static SchedulerMetrics create( Properties quartzProperties ) {
+    if ( quartzProperties == null ) {
+      return new SchedulerMetrics();
+    }
+    if ( !Boolean.parseBoolean( quartzProperties.getProperty( PROP_METRICS_ENABLED, "true" ) ) ) { //$NON-NLS-1$
+      return null;
+    }
+    return new SchedulerMetrics(
+      Boolean.parseBoolean( quartzProperties.getProperty( PROP_JMX_ENABLED, "true" ) ) ); //$NON-NLS-1$
+  }
+
+  /**
+   * Registers the listener that counts the misfires of the given scheduler, whose thread pool is then reported, and,
+   * if enabled, the MBean of the metrics.
+   *
+   * @param scheduler the Quartz scheduler whose jobs are measured
+   */
+  public void register( Scheduler scheduler ) throws org.quartz.SchedulerException {
+    this.scheduler = scheduler;
+    scheduler.addGlobalTriggerListener( new MetricsTriggerListener() );
+    if ( jmxEnabled ) {
+      registerMBean();
+    }
+  }
+
+  /**
+   * Unregisters the MBean of the metrics, e.g. when the scheduler is shut down. The metrics recorded are kept.
+   */
+  public synchronized void unregister() {
+    scheduler = null;
+    if ( objectName != null ) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean( objectName );
+      } catch ( JMException e ) {
+        logger.warn( "Cannot unregister the MBean " + objectName, e ); //$NON-NLS-1$
+      }
+      objectName = null;
+    }
+  }
+
+  private synchronized void registerMBean() {
+    if ( objectName != null ) {
+      return;
+    }
+    try {
+      ObjectName name = new ObjectName( OBJECT_NAME );
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      if ( server.isRegistered( name ) ) {
+        // left behind by an earlier scheduler
+        server.unregisterMBean( name );
+      }
+      server.registerMBean( this, name );
+      objectName = name;
+    } catch ( JMException e ) {
+      logger.warn( "Cannot register the MBean " + OBJECT_NAME, e ); //$NON-NLS-1$
+    }
+  }
+
+  /**
+   * Adds a counter, e.g. of another component of the scheduler, to the metrics exposed in the Prometheus format.
+   *
+   * @param name  the name of the counter, without the {@code pentaho_scheduler_} prefix
+   * @param help  the description of the counter
+   * @param value reads the current value, or {@code null} if there is none, e.g. as the component is disabled
+   */
+  public void registerCounter( String name, String help, Supplier<? extends Number> value ) {
+    registered.put( name, new Metric( "counter", help, value ) ); //$NON-NLS-1$
+  }
+
+  /**
+   * Adds a gauge, e.g. of another component of the scheduler, to the metrics exposed in the Prometheus format.
+   *
+   * @param name  the name of the gauge, without the {@code pentaho_scheduler_} prefix
+   * @param help  the description of the gauge
+   * @param value reads the current value, or {@code null} if there is none, e.g. as the component is disabled
+   */
+  public void registerGauge( String name, String help, Supplier<? extends Number> value ) {
+    registered.put( name, new Metric( "gauge", help, value ) ); //$NON-NLS-1$
+  }
+
+  /**
+   * Records that a job fired and is about to be checked against the blockouts.
+   *
+   * @param lagMillis the time between the scheduled fire time of the job and its actual fire time
+   */
+  public void recordFire( long lagMillis ) {
+    fireCount.increment();
+    fireLag.record( TimeUnit.MILLISECONDS.toMicros( lagMillis ) );
+    long second = clock.getAsLong() / 1000;
+    int slot = (int) ( second & ( RATE_SLOTS - 1 ) );
+    long slotSecond = rateSeconds.get( slot );
+    if ( slotSecond != second && rateSeconds.compareAndSet( slot, slotSecond, second ) ) {
+      // a fire counted by another thread in between is lost, which the rate tolerates
+      rateCounts.set( slot, 0 );
+    }
+    rateCounts.incrementAndGet( slot );
+  }
+
+  /**
+   * Records that a job fired during a blockout and was not executed.
+   */
+  public void recordBlockedFire() {
+    blockedFireCount.increment();
+  }
+
+  /**
+   * Records that a job fired but was not admitted.
+   */
+  public void recordRejectedFire() {
+    rejectedFireCount.increment();
+  }
+
+  /**
+   * Records that a trigger missed its fire time.
+   */
+  public void recordMisfire() {
+    misfireCount.increment();
+  }
+
+  /**
+   * Records that a job whose action failed at startup was scheduled to run again.
+   */
+  public void recordRestart() {
+    restartCount.increment();
+  }
+
+  /**
+   * Records a job that ran, from the start of its underlying job to its end.
+   *
+   * @param actionType     the action type of the job
+   * @param durationMillis the duration of the job
+   * @param failed         whether the job failed
+   */
+  public void recordExecution( String actionType, long durationMillis, boolean failed ) {
+    get( executions, actionType, DurationHistogram::new ).record( TimeUnit.MILLISECONDS.toMicros( durationMillis ) );
+    if ( failed ) {
+      get( executionFailures, actionType, LongAdder::new ).increment();
+    }
+  }
+
+  /**
+   * Records the invocation of the action of a job through its action invoker.
+   *
+   * @param actionType     the action type of the job
+   * @param durationMillis the duration of the invocation
+   */
+  public void recordInvocation( String actionType, long durationMillis ) {
+    get( invocations, actionType, DurationHistogram::new ).record( TimeUnit.MILLISECONDS.toMicros( durationMillis ) );
+  }
+
+  /**
+   * Records the execution of an action bean, without the preparation of its parameters and output.
+   *
+   * @param actionType     the action type of the job
+   * @param durationMillis the duration of the execution
+   */
+  public void recordActionExecution( String actionType, long durationMillis ) {
+    get( actions, actionType, DurationHistogram::new ).record( TimeUnit.MILLISECONDS.toMicros( durationMillis ) );
+  }
+
+  /**
+   * Records the post-processing of the output of an action, from its first stage to its last.
+   *
+   * @param durationMillis the duration of the post-processing
+   */
+  public void recordPostProcessing( long durationMillis ) {
+    postProcessing.record( TimeUnit.MILLISECONDS.toMicros( durationMillis ) );
+  }
+
+  /**
+   * Records a call to the Quartz scheduler that reads or writes the job store.
+   *
+   * @param operation     the method of the Quartz scheduler called, e.g. {@code scheduleJob}
+   * @param durationNanos the duration of the call
+   */
+  public void recordJobStoreCall( String operation, long durationNanos ) {
+    long durationMicros = TimeUnit.NANOSECONDS.toMicros( durationNanos );
+    get( jobStoreCalls, operation, DurationHistogram::new ).record( durationMicros );
+    allJobStoreCalls.record( durationMicros );
+  }
+
+  // lock-free unless the label is new
+  private static <T> T get( ConcurrentNavigableMap<String, T> family, String label, Supplier<T> factory ) {
+    if ( label == null || label.isEmpty() ) {
+      label = JobAdmissionControl.DEFAULT_ACTION_TYPE;
+    }
+    T value = family.get( label );
+    if ( value == null ) {
+      if ( family.size() >= MAX_LABEL_VALUES ) {
+        label = OTHER_LABEL_VALUE;
+      }
+      value = family.computeIfAbsent( label, key -> factory.get() );
+    }
+    return value;
+  }
+
+  /**
+   * @param context the context of a job that fired
+   * @return the time between the scheduled fire time of the job and its actual fire time, or 0 if either is unknown
+   */
+  public static long getFireLag( JobExecutionContext context ) {
+    Date fireTime = context.getFireTime();
+    Date scheduledFireTime = context.getScheduledFireTime();
+    if ( fireTime == null || scheduledFireTime == null ) {
+      return 0;
+    }
+    return Math.max( 0, fireTime.getTime() - scheduledFireTime.getTime() );
+  }
+
+  @Override
+  public long getFireCount() {
+    return fireCount.sum();
+  }
+
+  @Override
+  public double getFiresPerSecond() {
+    long current = clock.getAsLong() / 1000;
+    long fires = 0;
+    for ( int slot = 0; slot < RATE_SLOTS; slot++ ) {
+      long second = rateSeconds.get( slot );
+      if ( second < current && second >= current - RATE_SECONDS ) {
+        fires += rateCounts.get( slot );
+      }
+    }
+    return (double) fires / RATE_SECONDS;
+  }
+
+  @Override
+  public long getBlockedFireCount() {
+    return blockedFireCount.sum();
+  }
+
+  @Override
+  public long getRejectedFireCount() {
+    return rejectedFireCount.sum();
+  }
+
+  @Override
+  public long getMisfireCount() {
+    return misfireCount.sum();
+  }
+
+  @Override
+  public long getRestartCount() {
+    return restartCount.sum();
+  }
+
+  @Override
+  public double getFireLagMedianMillis() {
+    return toMillis( fireLag.getPercentile( 50 ) );
+  }
+
+  @Override
+  public double getFireLagP95Millis() {
+    return toMillis( fireLag.getPercentile( 95 ) );
+  }
+
+  @Override
+  public double getFireLagMaxMillis() {
+    return fireLag.getCount() == 0 ? -1 : toMillis( fireLag.getMax() );
+  }
+
+  @Override
+  public long getExecutionCount() {
+    long count = 0;
+    for ( DurationHistogram histogram : executions.values() ) {
+      count += histogram.getCount();
+    }
+    return count;
+  }
+
+  @Override
+  public long getExecutionFailureCount() {
+    long count = 0;
+    for ( LongAdder failures : executionFailures.values() ) {
+      count += failures.sum();
+    }
+    return count;
+  }
+
+  @Override
+  public String[] getActionTypes() {
+    return executions.keySet().toArray( new String[ 0 ] );
+  }
+
+  @Override
+  public double getExecutionMedianMillis( String actionType ) {
+    DurationHistogram histogram = executions.get( actionType );
+    return histogram == null ? -1 : toMillis( histogram.getPercentile( 50 ) );
+  }
+
+  @Override
+  public double getExecutionP95Millis( String actionType ) {
+    DurationHistogram histogram = executions.get( actionType );
+    return histogram == null ? -1 : toMillis( histogram.getPercentile( 95 ) );
+  }
+
+  @Override
+  public long getJobStoreCallCount() {
+    return allJobStoreCalls.getCount();
+  }
+
+  @Override
+  public double getJobStoreCallMedianMillis() {
+    return toMillis( allJobStoreCalls.getPercentile( 50 ) );
+  }
+
+  @Override
+  public double getJobStoreCallP95Millis() {
+    return toMillis( allJobStoreCalls.getPercentile( 95 ) );
+  }
+
+  @Override
+  public int getThreadPoolSize() {
+    Scheduler current = scheduler;
+    try {
+      return current == null ? -1 : current.getMetaData().getThreadPoolSize();
+    } catch ( org.quartz.SchedulerException e ) {
+      return -1;
+    }
+  }
+
+  @Override
+  public int getBusyThreadCount() {
+    Scheduler current = scheduler;
+    try {
+      return current == null ? -1 : current.getCurrentlyExecutingJobs().size();
+    } catch ( org.quartz.SchedulerException e ) {
+      return -1;
+    }
+  }
+
+  @Override
+  public int getIdleThreadCount() {
+    int size = getThreadPoolSize();
+    int busy = getBusyThreadCount();
+    return size < 0 || busy < 0 ? -1 : Math.max( 0, size - busy );
+  }
+
+  private static double toMillis( long micros ) {
+    return micros < 0 ? -1 : micros / 1000.0;
+  }
+
+  /**
+   * @return the metrics in the Prometheus text exposition format, version 0.0.4
+   */
+  public String toPrometheusText() {
+    StringBuilder text = new StringBuilder( 8192 );
+    appendValue( text, "fires_total", "counter", "Jobs fired", fireCount.sum() ); //$NON-NLS-1$ //$NON-NLS-2$
+    appendValue( text, "fires_per_second", "gauge", //$NON-NLS-1$ //$NON-NLS-2$
+      "Jobs fired per second over the last minute", getFiresPerSecond() ); //$NON-NLS-1$
+    appendValue( text, "blocked_fires_total", "counter", //$NON-NLS-1$ //$NON-NLS-2$
+      "Jobs fired during a blockout and not executed", blockedFireCount.sum() ); //$NON-NLS-1$
+    appendValue( text, "rejected_fires_total", "counter", //$NON-NLS-1$ //$NON-NLS-2$
+      "Jobs fired but not admitted", rejectedFireCount.sum() ); //$NON-NLS-1$
+    appendValue( text, "misfires_total", "counter", //$NON-NLS-1$ //$NON-NLS-2$
+      "Triggers that missed their fire time", misfireCount.sum() ); //$NON-NLS-1$
+    appendValue( text, "restarts_total", "counter", //$NON-NLS-1$ //$NON-NLS-2$
+      "Jobs scheduled to run again as their action failed at startup", restartCount.sum() ); //$NON-NLS-1$
+    appendHistogram( text, "fire_lag_seconds", //$NON-NLS-1$
+      "Time between the scheduled and the actual fire time of jobs", null, null, fireLag ); //$NON-NLS-1$
+    appendHistograms( text, "job_duration_seconds", //$NON-NLS-1$
+      "Duration of the jobs that ran, by action type", "action_type", executions ); //$NON-NLS-1$ //$NON-NLS-2$
+    appendHeader( text, "job_failures_total", "counter", //$NON-NLS-1$ //$NON-NLS-2$
+      "Jobs that ran and failed, by action type" ); //$NON-NLS-1$
+    for ( Map.Entry<String, LongAdder> failures : executionFailures.entrySet() ) {
+      appendSample( text, "job_failures_total", "action_type", failures.getKey(), //$NON-NLS-1$ //$NON-NLS-2$
+        failures.getValue().sum() );
+    }
+    appendHistograms( text, "action_invocation_seconds", //$NON-NLS-1$
+      "Duration of the invocations of the actions of jobs, by action type", //$NON-NLS-1$
+      "action_type", invocations ); //$NON-NLS-1$
+    appendHistograms( text, "action_execution_seconds", //$NON-NLS-1$
+      "Duration of the executions of action beans, by action type", //$NON-NLS-1$
+      "action_type", actions ); //$NON-NLS-1$
+    appendHistogram( text, "post_processing_seconds", //$NON-NLS-1$
+      "Duration of the post-processing of the output of actions", null, null, postProcessing ); //$NON-NLS-1$
+    appendHistograms( text, "job_store_call_seconds", //$NON-NLS-1$
+      "Duration of the calls to the job store, by operation", "operation", jobStoreCalls ); //$NON-NLS-1$ //$NON-NLS-2$
+    int poolSize = getThreadPoolSize();
+    int busyThreads = getBusyThreadCount();
+    if ( poolSize >= 0 && busyThreads >= 0 ) {
+      appendValue( text, "thread_pool_size", "gauge", //$NON-NLS-1$ //$NON-NLS-2$
+        "Threads of the Quartz thread pool", poolSize ); //$NON-NLS-1$
+      appendValue( text, "thread_pool_busy_threads", "gauge", //$NON-NLS-1$ //$NON-NLS-2$
+        "Threads of the Quartz thread pool executing a job", busyThreads ); //$NON-NLS-1$
+      appendValue( text, "thread_pool_idle_threads", "gauge", //$NON-NLS-1$ //$NON-NLS-2$
+        "Threads of the Quartz thread pool waiting for a job", Math.max( 0, poolSize - busyThreads ) ); //$NON-NLS-1$
+    }
+    for ( Map.Entry<String, Metric> metric : registered.entrySet() ) {
+      Number value;
+      try {
+        value = metric.getValue().value.get();
+      } catch ( RuntimeException e ) {
+        logger.warn( "Cannot read the metric " + metric.getKey(), e ); //$NON-NLS-1$
+        continue;
+      }
+      if ( value != null ) {
+        appendValue( text, metric.getKey(), metric.getValue().type, metric.getValue().help, value );
+      }
+    }
+    return text.toString();
+  }
+
+  private static void appendHeader( StringBuilder text, String name, String type, String help ) {
+    text.append( "# HELP " ).append( PREFIX ).append( name ).append( ' ' ).append( help ).append( '\n' ); //$NON-NLS-1$
+    text.append( "# TYPE " ).append( PREFIX ).append( name ).append( ' ' ).append( type ).append( '\n' ); //$NON-NLS-1$
+  }
+
+  private static void appendValue( StringBuilder text, String name, String type, String help, Number value ) {
+    appendHeader( text, name, type, help );
+    appendSample( text, name, null, null, value );
+  }
+
+  private static void appendSample( StringBuilder text, String name, String labels, Number value ) {
+    text.append( PREFIX ).append( name );
+    if ( labels != null ) {
+      text.append( '{' ).append( labels ).append( '}' );
+    }
+    text.append( ' ' ).append( value ).append( '\n' );
+  }
+
+  private static void appendSample( StringBuilder text, String name, String label, String labelValue,
+                                    Number value ) {
+    appendSample( text, name, label == null ? null : label + "=\"" + escape( labelValue ) + "\"", //$NON-NLS-1$
+      value ); //$NON-NLS-1$
+  }
+
+  private static void appendHistograms( StringBuilder text, String name, String help, String label,
+                                        Map<String, DurationHistogram> histograms ) {
+    appendHeader( text, name, "histogram", help ); //$NON-NLS-1$
+    for ( Map.Entry<String, DurationHistogram> histogram : histograms.entrySet() ) {
+      appendBuckets( text, name, label, histogram.getKey(), histogram.getValue() );
+    }
+  }
+
+  private static void appendHistogram( StringBuilder text, String name, String help, String label,
+                                       String labelValue, DurationHistogram histogram ) {
+    appendHeader( text, name, "histogram", help ); //$NON-NLS-1$
+    appendBuckets( text, name, label, labelValue, histogram );
+  }
+
+  /**
+   * Appends the buckets of a histogram of microseconds in seconds, at every second power of two from 16 microseconds
+   * to about 5 hours.
+   */
+  private static void appendBuckets( StringBuilder text, String name, String label, String labelValue,
+                                     DurationHistogram histogram ) {
+    String labels = label == null ? "" : label + "=\"" + escape( labelValue ) + "\","; //$NON-NLS-1$ //$NON-NLS-2$
+    long cumulative = 0;
+    int bucket = 0;
+    // the last bucket of each power of two ends just below the next one
+    for ( int exponent = 3; exponent <= 33; exponent += 2 ) {
+      int last = 4 + ( exponent - 2 ) * 4 + 3;
+      for ( ; bucket <= last; bucket++ ) {
+        cumulative += histogram.getCount( bucket );
+      }
+      long bound = DurationHistogram.getUpperBound( last ) + 1;
+      appendSample( text, name + "_bucket", labels + "le=\"" //$NON-NLS-1$ //$NON-NLS-2$
+        + BigDecimal.valueOf( bound, 6 ).stripTrailingZeros().toPlainString() + "\"", cumulative ); //$NON-NLS-1$
+    }
+    for ( ; bucket < DurationHistogram.BUCKETS; bucket++ ) {
+      cumulative += histogram.getCount( bucket );
+    }
+    appendSample( text, name + "_bucket", labels + "le=\"+Inf\"", cumulative ); //$NON-NLS-1$ //$NON-NLS-2$
+    String sumLabels = label == null ? null : label + "=\"" + escape( labelValue ) + "\""; //$NON-NLS-1$ //$NON-NLS-2$
+    appendSample( text, name + "_sum", sumLabels, histogram.getSum() / 1000000.0 ); //$NON-NLS-1$
+    appendSample( text, name + "_count", sumLabels, cumulative ); //$NON-NLS-1$
+  }
+
+  private static String escape( String labelValue ) {
+    return labelValue.replace( "\\", "\\\\" ) //$NON-NLS-1$ //$NON-NLS-2$
+      .replace( "\"", "\\\"" ) //$NON-NLS-1$ //$NON-NLS-2$
+      .replace( "\n", "\\n" ); //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
+  /**
+   * A counter or gauge registered by another component.
+   */
+  private static class Metric {
+    final String type;
+
+    final String help;
+
+    final Supplier<? extends Number> value;
+
+    Metric( String type, String help, Supplier<? extends Number> value ) {
+      this.type = type;
+      this.help = help;
+      this.value = value;
+    }
+  }
+
+  /**
+   * Counts the triggers that misfire.
+   */
+  class MetricsTriggerListener extends TriggerListenerSupport {
+
+    @Override
+    public String getName() {
+      return LISTENER_NAME;
+    }
+
+    @Override
+    public void triggerMisfired( Trigger trigger ) {
+      recordMisfire();
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.scheduler2.quartz;
+
+/**
+ * The JMX view of the {@link SchedulerMetrics}. Durations are in milliseconds; a percentile of a histogram without
+ * durations and a gauge of a scheduler that is not running are -1.
+ */
+public interface SchedulerMetricsMBean {
+
+  long getFireCount();
+
+  /**
+   * @return the fires per second over the last minute
+   */
+  double getFiresPerSecond();
+
+  long getBlockedFireCount();
+
+  long getRejectedFireCount();
+
+  long getMisfireCount();
+
+  long getRestartCount();
+
+  double getFireLagMedianMillis();
+
+  double getFireLagP95Millis();
+
+  double getFireLagMaxMillis();
+
+  long getExecutionCount();
+
+  long getExecutionFailureCount();
+
+  /**
+   * @return the action types that jobs have been executed for
+   */
+  String[] getActionTypes();
+
+  double getExecutionMedianMillis( String actionType );
+
+  double getExecutionP95Millis( String actionType );
+
+  long getJobStoreCallCount();
+
+  double getJobStoreCallMedianMillis();
+
+  double getJobStoreCallP95Millis();
+
+  int getThreadPoolSize();
+
+  int getBusyThreadCount();
+
+  int getIdleThreadCount();
+}
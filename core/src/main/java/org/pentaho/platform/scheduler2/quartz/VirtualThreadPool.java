@@ -0,0 +1,290 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.ThreadPool;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Quartz {@link ThreadPool} that runs every job on a thread of its own, a virtual thread where the JVM has them, and
+ * caps the jobs that run at once with a semaphore of {@link #getThreadCount()} permits. Scheduled actions spend most
+ * of their time blocked on the repository, on output streams and on mail, so a virtual thread lets many more of them
+ * run at once than the same number of platform threads would, without the idle platform threads of a larger
+ * {@code SimpleThreadPool}.
+ * <p>
+ * Opted into in {@code quartz.properties}:
+ * <pre>
+ * org.quartz.threadPool.class = org.pentaho.platform.scheduler2.quartz.VirtualThreadPool
+ * org.quartz.threadPool.threadCount = 100
+ * </pre>
+ * Quartz sets the other {@code org.quartz.threadPool.*} properties through the setters of this class. On a JVM without
+ * virtual threads, or with {@code org.quartz.threadPool.virtualThreads = false}, each job runs on a new platform
+ * thread instead, with the same cap.
+ */
+public class VirtualThreadPool implements ThreadPool {
+
+  static final String DEFAULT_THREAD_NAME_PREFIX = "PentahoQuartzWorker-"; //$NON-NLS-1$
+
+  static final int DEFAULT_THREAD_COUNT = 10;
+
+  /**
+   * How often a wait for a permit checks whether the pool was shut down meanwhile.
+   */
+  private static final long POLL_MILLIS = 500L;
+
+  private static final Log logger = LogFactory.getLog( VirtualThreadPool.class );
+
+  private int threadCount = DEFAULT_THREAD_COUNT;
+
+  private int threadPriority = Thread.NORM_PRIORITY;
+
+  private boolean virtualThreads = true;
+
+  private boolean threadsInheritContextClassLoaderOfInitializingThread;
+
+  private String threadNamePrefix = DEFAULT_THREAD_NAME_PREFIX;
+
+  private Semaphore permits;
+
+  private ThreadFactory threadFactory;
+
+  private ClassLoader contextClassLoader;
+
+  private boolean usingVirtualThreads;
+
+  private final Set<Thread> runningThreads = ConcurrentHashMap.newKeySet();
+
+  private final AtomicLong runCount = new AtomicLong();
+
+  private volatile boolean shutdown;
+
+  /**
+   * @return the number of jobs that run at once at most
+   */
+  public int getThreadCount() {
+    return threadCount;
+  }
+
+  public void setThreadCount( int threadCount ) {
+    this.threadCount = threadCount;
+  }
+
+  public int getThreadPriority() {
+    return threadPriority;
+  }
+
+  /**
+   * @param threadPriority the priority of the platform threads; virtual threads always have the normal priority
+   */
+  public void setThreadPriority( int threadPriority ) {
+    this.threadPriority = threadPriority;
+  }
+
+  public boolean isVirtualThreads() {
+    return virtualThreads;
+  }
+
+  /**
+   * @param virtualThreads whether to run jobs on virtual threads where the JVM has them; {@code true} by default
+   */
+  public void setVirtualThreads( boolean virtualThreads ) {
+    this.virtualThreads = virtualThreads;
+  }
+
+  public boolean isThreadsInheritContextClassLoaderOfInitializingThread() {
+    return threadsInheritContextClassLoaderOfInitializingThread;
+  }
+
+  public void setThreadsInheritContextClassLoaderOfInitializingThread( boolean inheritLoader ) {
+    this.threadsInheritContextClassLoaderOfInitializingThread = inheritLoader;
+  }
+
+  public String getThreadNamePrefix() {
+    return threadNamePrefix;
+  }
+
+  public void setThreadNamePrefix( String threadNamePrefix ) {
+    this.threadNamePrefix = threadNamePrefix;
+  }
+
+  /**
+   * @return whether the jobs run on virtual threads, known once the pool is initialized
+   */
+  public boolean isUsingVirtualThreads() {
+    return usingVirtualThreads;
+  }
+
+  /**
+   * @return the number of jobs running
+   */
+  public int getRunningCount() {
+    return permits == null ? 0 : threadCount - permits.availablePermits();
+  }
+
+  /**
+   * @return the number of jobs started since the pool was initialized
+   */
+  public long getRunCount() {
+    return runCount.get();
+  }
+
+  @Override
+  public void initialize() throws SchedulerConfigException {
+    if ( threadCount <= 0 ) {
+      throw new SchedulerConfigException( "Thread count must be > 0" ); //$NON-NLS-1$
+    }
+    if ( threadPriority < Thread.MIN_PRIORITY || threadPriority > Thread.MAX_PRIORITY ) {
+      throw new SchedulerConfigException( "Thread priority must be > 0 and <= 10" ); //$NON-NLS-1$
+    }
+    permits = new Semaphore( threadCount, true );
+    if ( threadsInheritContextClassLoaderOfInitializingThread ) {
+      contextClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+    threadFactory = virtualThreads ? createVirtualThreadFactory( threadNamePrefix ) : null;
+    usingVirtualThreads = threadFactory != null;
+    if ( threadFactory == null ) {
+      threadFactory = createPlatformThreadFactory( threadNamePrefix, threadPriority );
+    }
+    logger.info( "Running at most " + threadCount + " jobs at once on " //$NON-NLS-1$ //$NON-NLS-2$
+      + ( usingVirtualThreads ? "virtual" : "platform" ) + " threads" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+  }
+
+  /**
+   * Waits until fewer than {@link #getThreadCount()} jobs are running, then starts the given one on a thread of its
+   * own.
+   *
+   * @return {@code false} if the pool was shut down meanwhile or the thread could not be started
+   */
+  @Override
+  public boolean runInThread( Runnable runnable ) {
+    if ( runnable == null || !acquire() ) {
+      return false;
+    }
+    Thread thread = null;
+    try {
+      thread = threadFactory.newThread( () -> {
+        try {
+          runnable.run();
+        } finally {
+          permits.release();
+          runningThreads.remove( Thread.currentThread() );
+        }
+      } );
+      if ( contextClassLoader != null ) {
+        thread.setContextClassLoader( contextClassLoader );
+      }
+      runningThreads.add( thread );
+      thread.start();
+      runCount.incrementAndGet();
+      return true;
+    } catch ( RuntimeException | OutOfMemoryError e ) {
+      if ( thread != null ) {
+        runningThreads.remove( thread );
+      }
+      permits.release();
+      logger.error( "Cannot start a thread for a job", e ); //$NON-NLS-1$
+      return false;
+    }
+  }
+
+  @Override
+  public int blockForAvailableThreads() {
+    if ( acquire() ) {
+      permits.release();
+    }
+    return permits.availablePermits();
+  }
+
+  private boolean acquire() {
+    try {
+      while ( !shutdown ) {
+        if ( permits.tryAcquire( POLL_MILLIS, TimeUnit.MILLISECONDS ) ) {
+          return true;
+        }
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    return false;
+  }
+
+  /**
+   * Stops starting jobs. The jobs running are left to finish.
+   *
+   * @param waitForJobsToComplete whether to wait until the jobs running have finished
+   */
+  @Override
+  public void shutdown( boolean waitForJobsToComplete ) {
+    shutdown = true;
+    if ( !waitForJobsToComplete ) {
+      return;
+    }
+    try {
+      while ( !runningThreads.isEmpty() ) {
+        for ( Thread thread : runningThreads ) {
+          thread.join();
+        }
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public int getPoolSize() {
+    return threadCount;
+  }
+
+  /**
+   * @return a factory of virtual threads, or {@code null} if the JVM has none
+   */
+  static ThreadFactory createVirtualThreadFactory( String namePrefix ) {
+    // Thread.ofVirtual().name( namePrefix, 0 ).factory(), without requiring a JVM that has it to build
+    try {
+      Class<?> builderClass = Class.forName( "java.lang.Thread$Builder" ); //$NON-NLS-1$
+      Object builder = Thread.class.getMethod( "ofVirtual" ).invoke( null ); //$NON-NLS-1$
+      builder = builderClass.getMethod( "name", String.class, long.class ) //$NON-NLS-1$
+        .invoke( builder, namePrefix, 0L );
+      return (ThreadFactory) builderClass.getMethod( "factory" ).invoke( builder ); //$NON-NLS-1$
+    } catch ( ReflectiveOperationException | RuntimeException e ) {
+      return null;
+    }
+  }
+
+  private static ThreadFactory createPlatformThreadFactory( String namePrefix, int priority ) {
+    AtomicInteger threadNumber = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread( runnable, namePrefix + threadNumber.getAndIncrement() );
+      thread.setPriority( priority );
+      return thread;
+    };
+  }
+}
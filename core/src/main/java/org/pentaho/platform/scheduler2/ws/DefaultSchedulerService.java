@@ -34,6 +34,7 @@ import org.pentaho.platform.api.scheduler2.IBlockoutManager;
 import org.pentaho.platform.api.scheduler2.IJob;
 import org.pentaho.platform.api.scheduler2.IScheduler;
 import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.JobCriteriaFilter;
 import org.pentaho.platform.api.scheduler2.JobTrigger;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
 import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
@@ -119,12 +120,13 @@ public class DefaultSchedulerService implements ISchedulerService {
     String principalName = session.getName();
     Boolean canAdminister = PentahoSystem.get( IAuthorizationPolicy.class ).isAllowed( ADMIN_PERM );
 
-    return scheduler.getJobs( job -> {
-      if ( canAdminister ) {
-        return !IBlockoutManager.BLOCK_OUT_JOB_NAME.equals( job.getJobName() );
-      }
-      return principalName.equals( ( (Job) job ).getUserName() );
-    } ).toArray( new Job[ 0 ] );
+    JobCriteriaFilter filter = new JobCriteriaFilter();
+    if ( canAdminister ) {
+      filter.setExcludedJobNames( IBlockoutManager.BLOCK_OUT_JOB_NAME );
+    } else {
+      filter.setUserNames( principalName );
+    }
+    return scheduler.getJobs( filter ).toArray( new Job[ 0 ] );
   }
 
   /**
@@ -0,0 +1,104 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.web.http.api.resources;
+
+import org.pentaho.platform.api.scheduler2.Job;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of the schedules that a candidate blockout would block at some or all of their fire times.
+ */
+@XmlRootElement
+public class BlockoutImpactPage implements Serializable {
+
+  private static final long serialVersionUID = -3387405406129745261L;
+
+  private List<Job> jobs = new ArrayList<>();
+
+  private int offset;
+
+  private int totalCount;
+
+  private int totallyBlockedCount;
+
+  private List<String> totallyBlockedJobIds = new ArrayList<>();
+
+  /**
+   * @return the blocked schedules of this page
+   */
+  @XmlElement( name = "job" )
+  public List<Job> getJobs() {
+    return jobs;
+  }
+
+  public void setJobs( List<Job> jobs ) {
+    this.jobs = jobs;
+  }
+
+  /**
+   * @return the position of the first schedule of this page among all blocked schedules
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+  public void setOffset( int offset ) {
+    this.offset = offset;
+  }
+
+  /**
+   * @return the number of schedules the blockout would block at some or all of their fire times, across all pages
+   */
+  public int getTotalCount() {
+    return totalCount;
+  }
+
+  public void setTotalCount( int totalCount ) {
+    this.totalCount = totalCount;
+  }
+
+  /**
+   * @return the number of schedules the blockout would block at all of their fire times, across all pages
+   */
+  public int getTotallyBlockedCount() {
+    return totallyBlockedCount;
+  }
+
+  public void setTotallyBlockedCount( int totallyBlockedCount ) {
+    this.totallyBlockedCount = totallyBlockedCount;
+  }
+
+  /**
+   * @return the ids of the schedules of this page that would never fire
+   */
+  @XmlElement( name = "totallyBlockedJobId" )
+  public List<String> getTotallyBlockedJobIds() {
+    return totallyBlockedJobIds;
+  }
+
+  public void setTotallyBlockedJobIds( List<String> totallyBlockedJobIds ) {
+    this.totallyBlockedJobIds = totallyBlockedJobIds;
+  }
+}
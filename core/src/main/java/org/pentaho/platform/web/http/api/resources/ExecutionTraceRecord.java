@@ -0,0 +1,103 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.web.http.api.resources;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A run of a job traced by the scheduler, with its stages in the order they ended.
+ */
+@XmlRootElement
+public class ExecutionTraceRecord implements Serializable {
+
+  private static final long serialVersionUID = 3871964470581650212L;
+
+  private String jobId;
+
+  private String actionType;
+
+  private Date start;
+
+  private long duration = -1;
+
+  private String outcome;
+
+  private List<TraceStage> stages = new ArrayList<>();
+
+  public String getJobId() {
+    return jobId;
+  }
+
+  public void setJobId( String jobId ) {
+    this.jobId = jobId;
+  }
+
+  public String getActionType() {
+    return actionType;
+  }
+
+  public void setActionType( String actionType ) {
+    this.actionType = actionType;
+  }
+
+  public Date getStart() {
+    return start;
+  }
+
+  public void setStart( Date start ) {
+    this.start = start;
+  }
+
+  /**
+   * @return the duration of the run in milliseconds, or -1 if it is still running
+   */
+  public long getDuration() {
+    return duration;
+  }
+
+  public void setDuration( long duration ) {
+    this.duration = duration;
+  }
+
+  /**
+   * @return how the run ended, or {@code null} if it is still running
+   */
+  public String getOutcome() {
+    return outcome;
+  }
+
+  public void setOutcome( String outcome ) {
+    this.outcome = outcome;
+  }
+
+  @XmlElement( name = "stage" )
+  public List<TraceStage> getStages() {
+    return stages;
+  }
+
+  public void setStages( List<TraceStage> stages ) {
+    this.stages = stages;
+  }
+}
@@ -0,0 +1,70 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.web.http.api.resources;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The latest runs of jobs traced by the scheduler, the latest first, with the latency of each stage across them.
+ */
+@XmlRootElement
+public class ExecutionTraces implements Serializable {
+
+  private static final long serialVersionUID = -6158027349915307726L;
+
+  private String jobId;
+
+  private List<TraceStageLatency> stages = new ArrayList<>();
+
+  private List<ExecutionTraceRecord> runs = new ArrayList<>();
+
+  /**
+   * @return the id of the job, or {@code null} for the runs of every job
+   */
+  public String getJobId() {
+    return jobId;
+  }
+
+  public void setJobId( String jobId ) {
+    this.jobId = jobId;
+  }
+
+  @XmlElement( name = "stage" )
+  public List<TraceStageLatency> getStages() {
+    return stages;
+  }
+
+  public void setStages( List<TraceStageLatency> stages ) {
+    this.stages = stages;
+  }
+
+  @XmlElement( name = "run" )
+  public List<ExecutionTraceRecord> getRuns() {
+    return runs;
+  }
+
+  public void setRuns( List<ExecutionTraceRecord> runs ) {
+    this.runs = runs;
+  }
+}
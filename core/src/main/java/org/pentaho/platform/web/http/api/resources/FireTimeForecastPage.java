@@ -0,0 +1,73 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.web.http.api.resources;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of the fire times the scheduler forecasts for a period, in ascending order.
+ */
+@XmlRootElement
+public class FireTimeForecastPage implements Serializable {
+
+  private static final long serialVersionUID = 2931046718409252290L;
+
+  private List<ScheduledFireTime> fireTimes = new ArrayList<>();
+
+  private int offset;
+
+  private int totalCount;
+
+  @XmlElement( name = "fireTime" )
+  public List<ScheduledFireTime> getFireTimes() {
+    return fireTimes;
+  }
+
+  public void setFireTimes( List<ScheduledFireTime> fireTimes ) {
+    this.fireTimes = fireTimes;
+  }
+
+  /**
+   * @return the position of the first fire time of this page among all fire times of the period
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+  public void setOffset( int offset ) {
+    this.offset = offset;
+  }
+
+  /**
+   * @return the number of fire times in the period, across all pages
+   */
+  public int getTotalCount() {
+    return totalCount;
+  }
+
+  public void setTotalCount( int totalCount ) {
+    this.totalCount = totalCount;
+  }
+}
@@ -0,0 +1,74 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.web.http.api.resources;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The number of fire times the scheduler forecasts in consecutive buckets of equal length.
+ */
+@XmlRootElement
+public class FireTimeLoad implements Serializable {
+
+  private static final long serialVersionUID = -1702256954632873391L;
+
+  private Date from;
+
+  private int bucketMinutes;
+
+  private List<Integer> counts = new ArrayList<>();
+
+  /**
+   * @return the start of the first bucket
+   */
+  public Date getFrom() {
+    return from;
+  }
+
+  public void setFrom( Date from ) {
+    this.from = from;
+  }
+
+  public int getBucketMinutes() {
+    return bucketMinutes;
+  }
+
+  public void setBucketMinutes( int bucketMinutes ) {
+    this.bucketMinutes = bucketMinutes;
+  }
+
+  /**
+   * @return the number of fire times in each bucket, the first bucket first
+   */
+  @XmlElement( name = "count" )
+  public List<Integer> getCounts() {
+    return counts;
+  }
+
+  public void setCounts( List<Integer> counts ) {
+    this.counts = counts;
+  }
+}
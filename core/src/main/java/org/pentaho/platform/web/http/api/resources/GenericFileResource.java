@@ -26,10 +26,13 @@ import org.codehaus.enunciate.jaxrs.StatusCodes;
 import org.pentaho.platform.api.genericfile.IGenericFileService;
 import org.pentaho.platform.api.genericfile.exception.AccessControlException;
 import org.pentaho.platform.api.genericfile.exception.InvalidPathException;
+import org.pentaho.platform.api.genericfile.exception.NotFoundException;
 import org.pentaho.platform.api.genericfile.exception.OperationFailedException;
+import org.pentaho.platform.api.genericfile.model.IGenericFilePage;
 import org.pentaho.platform.api.genericfile.model.IGenericFileTree;
 
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.HEAD;
 import javax.ws.rs.POST;
@@ -45,6 +48,8 @@ import java.util.Objects;
 @Path( "/scheduler-plugin/api/generic-files" )
 public class GenericFileResource {
 
+  public static final int MAX_FOLDER_CHILDREN_LIMIT = 1000;
+
   private final IGenericFileService genericFileService;
 
   public GenericFileResource( @NonNull IGenericFileService genericFileService ) {
@@ -71,6 +76,44 @@ public class GenericFileResource {
     }
   }
 
+  /**
+   * Loads a page of the child folders of a folder, so that the folder tree can be loaded as it is expanded.
+   *
+   * @param path   the encoded path of the folder, as in {@code /folders/{path}}; omitted for the root folders of the
+   *               providers
+   * @param offset the position of the first child folder of the page
+   * @param limit  the number of child folders of the page at most, up to {@link #MAX_FOLDER_CHILDREN_LIMIT}
+   * @return the page of the child folders
+   */
+  @GET
+  @Path( "/folders/children" )
+  @Produces( { MediaType.APPLICATION_JSON } )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Operation successful" ),
+    @ResponseCode( code = 400, condition = "Paging parameters are invalid" ),
+    @ResponseCode( code = 401, condition = "Authentication required" ),
+    @ResponseCode( code = 403, condition = "Access forbidden" ),
+    @ResponseCode( code = 404, condition = "Folder does not exist" ),
+    @ResponseCode( code = 500, condition = "Operation failed" )
+  } )
+  public IGenericFilePage loadFolderChildren( @QueryParam( "path" ) String path,
+                                              @DefaultValue( "0" ) @QueryParam( "offset" ) int offset,
+                                              @DefaultValue( "100" ) @QueryParam( "limit" ) int limit ) {
+    if ( offset < 0 || limit <= 0 || limit > MAX_FOLDER_CHILDREN_LIMIT ) {
+      throw new WebApplicationException( Response.Status.BAD_REQUEST );
+    }
+
+    try {
+      return genericFileService.getFolderChildren( path != null ? decodePath( path ) : null, offset, limit );
+    } catch ( NotFoundException e ) {
+      throw new WebApplicationException( e, Response.Status.NOT_FOUND );
+    } catch ( AccessControlException e ) {
+      throw new WebApplicationException( e, Response.Status.FORBIDDEN );
+    } catch ( OperationFailedException e ) {
+      throw new WebApplicationException( e, Response.Status.INTERNAL_SERVER_ERROR );
+    }
+  }
+
   @DELETE
   @Path( "/folders/tree/cache" )
   @StatusCodes( {
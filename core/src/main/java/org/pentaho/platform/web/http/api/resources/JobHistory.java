@@ -0,0 +1,157 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.web.http.api.resources;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The latest runs of a job or lineage kept by the scheduler, the latest first, with their statistics.
+ */
+@XmlRootElement
+public class JobHistory implements Serializable {
+
+  private static final long serialVersionUID = 4409523683301924471L;
+
+  private String jobId;
+
+  private String lineageId;
+
+  private int runCount;
+
+  private long totalCount;
+
+  private int failureCount;
+
+  private int skippedCount;
+
+  private double failureRate;
+
+  private long medianDuration = -1;
+
+  private long p95Duration = -1;
+
+  private List<JobRunRecord> runs = new ArrayList<>();
+
+  /**
+   * @return the id of the job, or {@code null} for the history of a lineage
+   */
+  public String getJobId() {
+    return jobId;
+  }
+
+  public void setJobId( String jobId ) {
+    this.jobId = jobId;
+  }
+
+  /**
+   * @return the lineage id, or {@code null} for the history of a job
+   */
+  public String getLineageId() {
+    return lineageId;
+  }
+
+  public void setLineageId( String lineageId ) {
+    this.lineageId = lineageId;
+  }
+
+  /**
+   * @return the number of runs kept, which the statistics are computed over
+   */
+  public int getRunCount() {
+    return runCount;
+  }
+
+  public void setRunCount( int runCount ) {
+    this.runCount = runCount;
+  }
+
+  /**
+   * @return the number of runs recorded by this server, including those no longer kept
+   */
+  public long getTotalCount() {
+    return totalCount;
+  }
+
+  public void setTotalCount( long totalCount ) {
+    this.totalCount = totalCount;
+  }
+
+  public int getFailureCount() {
+    return failureCount;
+  }
+
+  public void setFailureCount( int failureCount ) {
+    this.failureCount = failureCount;
+  }
+
+  public int getSkippedCount() {
+    return skippedCount;
+  }
+
+  public void setSkippedCount( int skippedCount ) {
+    this.skippedCount = skippedCount;
+  }
+
+  /**
+   * @return the share of the runs kept that failed, from 0 to 1
+   */
+  public double getFailureRate() {
+    return failureRate;
+  }
+
+  public void setFailureRate( double failureRate ) {
+    this.failureRate = failureRate;
+  }
+
+  /**
+   * @return the approximate median duration of the runs kept, in milliseconds, or -1 if none ran
+   */
+  public long getMedianDuration() {
+    return medianDuration;
+  }
+
+  public void setMedianDuration( long medianDuration ) {
+    this.medianDuration = medianDuration;
+  }
+
+  /**
+   * @return the approximate 95th percentile of the durations of the runs kept, in milliseconds, or -1 if none ran
+   */
+  public long getP95Duration() {
+    return p95Duration;
+  }
+
+  public void setP95Duration( long p95Duration ) {
+    this.p95Duration = p95Duration;
+  }
+
+  @XmlElement( name = "run" )
+  public List<JobRunRecord> getRuns() {
+    return runs;
+  }
+
+  public void setRuns( List<JobRunRecord> runs ) {
+    this.runs = runs;
+  }
+}
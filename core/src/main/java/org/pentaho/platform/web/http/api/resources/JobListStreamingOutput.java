@@ -0,0 +1,174 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.web.http.api.resources;
+
+import com.sun.jersey.api.json.JSONJAXBContext;
+import com.sun.jersey.api.json.JSONMarshaller;
+import org.pentaho.platform.JaxbContextResolver;
+import org.pentaho.platform.api.scheduler2.IJob;
+import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Writes a list of jobs as JSON or XML one job at a time, as the jobs are read, so that the memory a listing takes
+ * does not grow with the number of jobs. The output is what Jersey writes for a {@code List<Job>} with the
+ * {@link JaxbContextResolver} the plugin registers: a JSON array of jobs, or a {@code jobs} element holding a
+ * {@code job} element per job.
+ */
+public class JobListStreamingOutput implements StreamingOutput {
+
+  /**
+   * Produces the jobs to write.
+   */
+  public interface JobSource {
+    void getJobs( Consumer<? super IJob> consumer ) throws SchedulerException;
+  }
+
+  private static final String XML_DECLARATION =
+    "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"; //$NON-NLS-1$
+
+  private static JAXBContext context;
+
+  private final JobSource jobSource;
+
+  private final boolean json;
+
+  /**
+   * @param jobSource produces the jobs, when the output is written
+   * @param mediaType {@link MediaType#APPLICATION_XML_TYPE} for XML; anything else writes JSON
+   */
+  public JobListStreamingOutput( JobSource jobSource, MediaType mediaType ) {
+    this.jobSource = jobSource;
+    this.json = !MediaType.APPLICATION_XML_TYPE.isCompatible( mediaType );
+  }
+
+  /**
+   * @param acceptableMediaTypes the media types the client accepts, most preferred first
+   * @return JSON or XML, whichever the client prefers; JSON if it accepts both equally or neither
+   */
+  public static MediaType getMediaType( List<MediaType> acceptableMediaTypes ) {
+    for ( MediaType acceptable : acceptableMediaTypes ) {
+      if ( acceptable.isCompatible( MediaType.APPLICATION_JSON_TYPE ) ) {
+        return MediaType.APPLICATION_JSON_TYPE;
+      }
+      if ( acceptable.isCompatible( MediaType.APPLICATION_XML_TYPE ) ) {
+        return MediaType.APPLICATION_XML_TYPE;
+      }
+    }
+    return MediaType.APPLICATION_JSON_TYPE;
+  }
+
+  public boolean isJson() {
+    return json;
+  }
+
+  @Override
+  public void write( OutputStream output ) throws IOException {
+    Writer writer = new BufferedWriter( new OutputStreamWriter( output, StandardCharsets.UTF_8 ) );
+    try {
+      JAXBContext jaxbContext = getContext();
+      Marshaller marshaller = jaxbContext.createMarshaller();
+      if ( json ) {
+        writeJson( writer, JSONJAXBContext.getJSONMarshaller( marshaller, jaxbContext ) );
+      } else {
+        marshaller.setProperty( Marshaller.JAXB_FRAGMENT, Boolean.TRUE );
+        writeXml( writer, marshaller );
+      }
+    } catch ( JAXBException | SchedulerException e ) {
+      throw new WebApplicationException( e, Status.INTERNAL_SERVER_ERROR );
+    } catch ( JobWriteException e ) {
+      if ( e.getCause() instanceof IOException ) {
+        throw (IOException) e.getCause();
+      }
+      throw new WebApplicationException( e.getCause(), Status.INTERNAL_SERVER_ERROR );
+    }
+    writer.flush();
+  }
+
+  private void writeJson( Writer writer, JSONMarshaller marshaller ) throws IOException, SchedulerException {
+    writer.write( '[' );
+    boolean[] first = { true };
+    jobSource.getJobs( job -> {
+      try {
+        if ( !first[ 0 ] ) {
+          writer.write( ',' );
+        }
+        first[ 0 ] = false;
+        marshaller.marshallToJSON( (Job) job, writer );
+      } catch ( IOException | JAXBException e ) {
+        throw new JobWriteException( e );
+      }
+    } );
+    writer.write( ']' );
+  }
+
+  private void writeXml( Writer writer, Marshaller marshaller ) throws IOException, SchedulerException {
+    writer.write( XML_DECLARATION );
+    writer.write( "<jobs>" ); //$NON-NLS-1$
+    jobSource.getJobs( job -> {
+      try {
+        marshaller.marshal( (Job) job, writer );
+      } catch ( JAXBException e ) {
+        throw new JobWriteException( e );
+      }
+    } );
+    writer.write( "</jobs>" ); //$NON-NLS-1$
+  }
+
+  private static synchronized JAXBContext getContext() throws JAXBException {
+    if ( context == null ) {
+      try {
+        context = new JaxbContextResolver().getContext( Job.class );
+      } catch ( Exception e ) {
+        throw new JAXBException( e );
+      }
+      if ( context == null ) {
+        throw new JAXBException( "Cannot create the JAXB context for " + Job.class.getName() ); //$NON-NLS-1$
+      }
+    }
+    return context;
+  }
+
+  /**
+   * Carries a failure to write a job out of the job source.
+   */
+  private static class JobWriteException extends RuntimeException {
+    JobWriteException( Exception cause ) {
+      super( cause );
+    }
+  }
+}
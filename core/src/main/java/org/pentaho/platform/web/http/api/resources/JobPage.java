@@ -0,0 +1,89 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.web.http.api.resources;
+
+import org.pentaho.platform.api.scheduler2.Job;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of the jobs visible to the current user, as requested through a {@link JobPageRequest}.
+ */
+@XmlRootElement
+public class JobPage implements Serializable {
+
+  private static final long serialVersionUID = 4510447214359207437L;
+
+  private List<Job> jobs = new ArrayList<>();
+
+  private int offset;
+
+  private int totalCount;
+
+  private List<String> userNames = new ArrayList<>();
+
+  @XmlElement( name = "job" )
+  public List<Job> getJobs() {
+    return jobs;
+  }
+
+  public void setJobs( List<Job> jobs ) {
+    this.jobs = jobs;
+  }
+
+  /**
+   * @return the position of the first job of this page in the whole filtered listing
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+  public void setOffset( int offset ) {
+    this.offset = offset;
+  }
+
+  /**
+   * @return the number of jobs matching the request's filters, across all pages
+   */
+  public int getTotalCount() {
+    return totalCount;
+  }
+
+  public void setTotalCount( int totalCount ) {
+    this.totalCount = totalCount;
+  }
+
+  /**
+   * @return the owners of all the jobs visible to the current user, for the owner filter
+   */
+  @XmlElement( name = "userName" )
+  public List<String> getUserNames() {
+    return userNames;
+  }
+
+  public void setUserNames( List<String> userNames ) {
+    this.userNames = userNames;
+  }
+}
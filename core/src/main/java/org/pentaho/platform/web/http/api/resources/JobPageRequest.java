@@ -0,0 +1,421 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.web.http.api.resources;
+
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.IJob;
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.JobState;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.api.scheduler2.wrappers.ITimeWrapper;
+import org.pentaho.platform.scheduler2.recur.QualifiedDayOfWeek;
+import org.pentaho.platform.scheduler2.recur.RecurrenceList;
+import org.pentaho.platform.scheduler2.recur.SequentialRecurrence;
+import org.pentaho.platform.util.ActionUtil;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * One page of the schedules listing: the filters offered by the Manage Schedules filter dialog, the sort order and
+ * the range of jobs to return.
+ */
+public class JobPageRequest implements Serializable {
+
+  private static final long serialVersionUID = -3915546251620931837L;
+
+  public static final String SORT_JOB_NAME = "jobName"; //$NON-NLS-1$
+
+  public static final String SORT_RESOURCE_NAME = "resourceName"; //$NON-NLS-1$
+
+  public static final String SORT_USER_NAME = "userName"; //$NON-NLS-1$
+
+  public static final String SORT_STATE = "state"; //$NON-NLS-1$
+
+  public static final String SORT_NEXT_RUN = "nextRun"; //$NON-NLS-1$
+
+  public static final String SORT_LAST_RUN = "lastRun"; //$NON-NLS-1$
+
+  public static final String SORT_JOB_ID = "jobId"; //$NON-NLS-1$
+
+  public static final String SORT_EXECUTABLE_TYPE = "executableType"; //$NON-NLS-1$
+
+  public static final String SORT_OUTPUT_PATH = "outputPath"; //$NON-NLS-1$
+
+  private static final Set<String> SORT_KEYS = Collections.unmodifiableSet( new HashSet<>( Arrays.asList(
+    SORT_JOB_NAME, SORT_RESOURCE_NAME, SORT_USER_NAME, SORT_STATE, SORT_NEXT_RUN, SORT_LAST_RUN, SORT_JOB_ID,
+    SORT_EXECUTABLE_TYPE, SORT_OUTPUT_PATH ) ) );
+
+  private static final String OUTPUT_FILE_TOKEN = ":outputFile = /"; //$NON-NLS-1$
+
+  private static final String OUTPUT_PATH_TOKEN = "outputFile = "; //$NON-NLS-1$
+
+  private static final List<Integer> WORK_DAYS = Arrays.asList( 2, 3, 4, 5, 6 );
+
+  private int offset;
+
+  private int limit;
+
+  private String sortBy = SORT_JOB_NAME;
+
+  private boolean ascending = true;
+
+  private String resourceName;
+
+  private String userName;
+
+  private JobState state;
+
+  private String scheduleType;
+
+  private Date afterDate;
+
+  private Date beforeDate;
+
+  private Set<String> excludedJobNames = new HashSet<>();
+
+  public int getOffset() {
+    return offset;
+  }
+
+  public void setOffset( int offset ) {
+    this.offset = Math.max( 0, offset );
+  }
+
+  /**
+   * @return the maximum number of jobs to return, or zero or less for every job from the offset on
+   */
+  public int getLimit() {
+    return limit;
+  }
+
+  public void setLimit( int limit ) {
+    this.limit = limit;
+  }
+
+  public String getSortBy() {
+    return sortBy;
+  }
+
+  /**
+   * @param sortBy one of the {@code SORT_} keys, or {@code null} for {@link #SORT_JOB_NAME}
+   * @throws IllegalArgumentException if the key is not one of the {@code SORT_} keys
+   */
+  public void setSortBy( String sortBy ) {
+    if ( sortBy != null && !SORT_KEYS.contains( sortBy ) ) {
+      throw new IllegalArgumentException( "Unknown sort key: " + sortBy ); //$NON-NLS-1$
+    }
+    this.sortBy = sortBy == null ? SORT_JOB_NAME : sortBy;
+  }
+
+  public boolean isAscending() {
+    return ascending;
+  }
+
+  public void setAscending( boolean ascending ) {
+    this.ascending = ascending;
+  }
+
+  public String getResourceName() {
+    return resourceName;
+  }
+
+  /**
+   * @param resourceName a case insensitive fragment of the name of the scheduled file
+   */
+  public void setResourceName( String resourceName ) {
+    this.resourceName = resourceName;
+  }
+
+  public String getUserName() {
+    return userName;
+  }
+
+  /**
+   * @param userName the job owner, compared without regard to case
+   */
+  public void setUserName( String userName ) {
+    this.userName = userName;
+  }
+
+  public JobState getState() {
+    return state;
+  }
+
+  public void setState( JobState state ) {
+    this.state = state;
+  }
+
+  public String getScheduleType() {
+    return scheduleType;
+  }
+
+  /**
+   * @param scheduleType the recurrence type (DAILY, WEEKLY, ...) as recorded in the trigger's ui pass param
+   */
+  public void setScheduleType( String scheduleType ) {
+    this.scheduleType = scheduleType;
+  }
+
+  public Date getAfterDate() {
+    return afterDate;
+  }
+
+  /**
+   * @param afterDate only jobs whose next run is after this date are returned
+   */
+  public void setAfterDate( Date afterDate ) {
+    this.afterDate = afterDate;
+  }
+
+  public Date getBeforeDate() {
+    return beforeDate;
+  }
+
+  /**
+   * @param beforeDate only jobs whose next run is before this date are returned
+   */
+  public void setBeforeDate( Date beforeDate ) {
+    this.beforeDate = beforeDate;
+  }
+
+  public Set<String> getExcludedJobNames() {
+    return excludedJobNames;
+  }
+
+  public void setExcludedJobNames( Set<String> excludedJobNames ) {
+    this.excludedJobNames = excludedJobNames == null ? new HashSet<String>() : excludedJobNames;
+  }
+
+  /**
+   * Applies the filters of this request, other than the owner, to a job.
+   *
+   * @param job the job
+   * @return whether the job belongs in the listing
+   */
+  public boolean accept( IJob job ) {
+    if ( afterDate != null && ( job.getNextRun() == null || !job.getNextRun().after( afterDate ) ) ) {
+      return false;
+    }
+    if ( beforeDate != null && ( job.getNextRun() == null || !job.getNextRun().before( beforeDate ) ) ) {
+      return false;
+    }
+    if ( !isEmpty( resourceName ) && !getShortResourceName( job ).toLowerCase( Locale.ROOT )
+      .contains( resourceName.toLowerCase( Locale.ROOT ) ) ) {
+      return false;
+    }
+    if ( state != null && ( !( job instanceof Job ) || state != ( (Job) job ).getState() ) ) {
+      return false;
+    }
+    if ( !isEmpty( scheduleType ) ) {
+      IJobTrigger trigger = job.getJobTrigger();
+      if ( trigger == null || !scheduleType.equalsIgnoreCase( getScheduleType( trigger ) ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param ownerName the owner of a job
+   * @return whether the owner filter of this request accepts the owner
+   */
+  public boolean acceptsUserName( String ownerName ) {
+    return isEmpty( userName ) || userName.equalsIgnoreCase( ownerName );
+  }
+
+  /**
+   * @return the order of the listing, jobs missing the sort value last regardless of direction
+   */
+  public Comparator<IJob> getComparator() {
+    Comparator<IJob> comparator;
+    if ( SORT_RESOURCE_NAME.equals( sortBy ) ) {
+      comparator = nullsLast( JobPageRequest::getShortResourceName );
+    } else if ( SORT_USER_NAME.equals( sortBy ) ) {
+      comparator = nullsLast( job -> job instanceof Job ? ( (Job) job ).getUserName() : null );
+    } else if ( SORT_STATE.equals( sortBy ) ) {
+      comparator = nullsLast( job -> job instanceof Job && ( (Job) job ).getState() != null
+        ? ( (Job) job ).getState().name() : null );
+    } else if ( SORT_NEXT_RUN.equals( sortBy ) ) {
+      comparator = nullsLast( IJob::getNextRun );
+    } else if ( SORT_LAST_RUN.equals( sortBy ) ) {
+      comparator = nullsLast( IJob::getLastRun );
+    } else if ( SORT_JOB_ID.equals( sortBy ) ) {
+      comparator = nullsLast( IJob::getJobId );
+    } else if ( SORT_EXECUTABLE_TYPE.equals( sortBy ) ) {
+      comparator = nullsLast( JobPageRequest::getExecutableType );
+    } else if ( SORT_OUTPUT_PATH.equals( sortBy ) ) {
+      comparator = nullsLast( JobPageRequest::getOutputPath );
+    } else {
+      comparator = nullsLast( IJob::getJobName );
+    }
+    return comparator.thenComparing( nullsLast( IJob::getJobId ) );
+  }
+
+  private <T extends Comparable<? super T>> Comparator<IJob> nullsLast( Function<IJob, T> keyExtractor ) {
+    Comparator<T> order = ascending ? Comparator.<T>naturalOrder() : Comparator.<T>reverseOrder();
+    return Comparator.comparing( keyExtractor, Comparator.nullsLast( order ) );
+  }
+
+  /**
+   * Same name the Manage Schedules perspective shows for a job: the file name of the scheduled input, or the job
+   * name when the job has no input file.
+   */
+  static String getShortResourceName( IJob job ) {
+    Object streamProvider = job.getJobParams() == null ? null
+      : job.getJobParams().get( IScheduler.RESERVEDMAPKEY_STREAMPROVIDER );
+    String resource = streamProvider == null ? "" : streamProvider.toString(); //$NON-NLS-1$
+    String fullName;
+    if ( resource.isEmpty() || resource.indexOf( '/' ) < 0 || resource.indexOf( ':' ) < 0 ) {
+      fullName = job.getJobName() == null ? "" : job.getJobName(); //$NON-NLS-1$
+    } else {
+      int outputFileIndex = resource.indexOf( OUTPUT_FILE_TOKEN );
+      int end = outputFileIndex != -1 ? outputFileIndex : resource.indexOf( ':' );
+      int start = resource.indexOf( '/' );
+      fullName = end > start ? resource.substring( start, end ) : resource.substring( start );
+    }
+    return fullName.substring( fullName.lastIndexOf( '/' ) + 1 );
+  }
+
+  /**
+   * Same type the Manage Schedules perspective shows for a job: trans, job or report after the extension of the
+   * scheduled file.
+   */
+  static String getExecutableType( IJob job ) {
+    Object inputFile = job.getJobParams() == null ? null
+      : job.getJobParams().get( ActionUtil.QUARTZ_STREAMPROVIDER_INPUT_FILE );
+    if ( inputFile == null || inputFile.toString().trim().isEmpty() ) {
+      return null;
+    }
+    String name = inputFile.toString();
+    String extension = name.substring( name.lastIndexOf( '.' ) + 1 );
+    if ( "ktr".equals( extension ) ) { //$NON-NLS-1$
+      return "trans"; //$NON-NLS-1$
+    } else if ( "kjb".equals( extension ) ) { //$NON-NLS-1$
+      return "job"; //$NON-NLS-1$
+    }
+    return "report"; //$NON-NLS-1$
+  }
+
+  /**
+   * Same output folder the Manage Schedules perspective shows for a job: the output file of the job without its name
+   * pattern.
+   */
+  static String getOutputPath( IJob job ) {
+    Object streamProvider = job.getJobParams() == null ? null
+      : job.getJobParams().get( IScheduler.RESERVEDMAPKEY_STREAMPROVIDER );
+    String resource = streamProvider == null ? "" : streamProvider.toString(); //$NON-NLS-1$
+    int index = resource.indexOf( OUTPUT_PATH_TOKEN );
+    if ( index < 0 ) {
+      return null;
+    }
+    String outputFile = resource.substring( index + OUTPUT_PATH_TOKEN.length() );
+    int lastSlash = outputFile.lastIndexOf( '/' );
+    return lastSlash > 0 ? outputFile.substring( 0, lastSlash ) : outputFile;
+  }
+
+  /**
+   * Same recurrence type the Manage Schedules perspective shows for a trigger: the ui pass param when the trigger has
+   * one, or else the type derived from its recurrences, as triggers created through the API or by older clients have
+   * no ui pass param.
+   */
+  static String getScheduleType( IJobTrigger trigger ) {
+    if ( !isEmpty( trigger.getUiPassParam() ) ) {
+      return trigger.getUiPassParam();
+    }
+    if ( trigger instanceof ComplexJobTrigger ) {
+      ComplexJobTrigger complexTrigger = (ComplexJobTrigger) trigger;
+      // as the perspective does, only lists count for the months and the days of the month
+      if ( !getValues( complexTrigger.getMonthlyRecurrences(), false ).isEmpty() ) {
+        return "YEARLY"; //$NON-NLS-1$
+      } else if ( !getValues( complexTrigger.getDayOfMonthRecurrences(), false ).isEmpty()
+        || isQualifiedDayOfWeek( complexTrigger.getDayOfWeekRecurrences() ) ) {
+        return "MONTHLY"; //$NON-NLS-1$
+      } else if ( WORK_DAYS.equals( getValues( complexTrigger.getDayOfWeekRecurrences(), true ) ) ) {
+        return "DAILY"; //$NON-NLS-1$
+      }
+      return "WEEKLY"; //$NON-NLS-1$
+    } else if ( trigger instanceof SimpleJobTrigger ) {
+      long repeatInterval = ( (SimpleJobTrigger) trigger ).getRepeatInterval();
+      if ( repeatInterval <= 0 ) {
+        return "RUN_ONCE"; //$NON-NLS-1$
+      } else if ( repeatInterval % 604800 == 0 ) {
+        return "WEEKLY"; //$NON-NLS-1$
+      } else if ( repeatInterval % 86400 == 0 ) {
+        return "DAILY"; //$NON-NLS-1$
+      } else if ( repeatInterval % 3600 == 0 ) {
+        return "HOURS"; //$NON-NLS-1$
+      } else if ( repeatInterval % 60 == 0 ) {
+        return "MINUTES"; //$NON-NLS-1$
+      }
+      return "SECONDS"; //$NON-NLS-1$
+    }
+    return "CRON"; //$NON-NLS-1$
+  }
+
+  // the values of the lists, and optionally of the sequences, of a recurrence
+  private static List<Integer> getValues( ITimeWrapper recurrences, boolean withSequences ) {
+    List<Integer> values = new ArrayList<>();
+    if ( recurrences == null ) {
+      return values;
+    }
+    for ( Object recurrence : recurrences.getRecurrences() ) {
+      if ( recurrence instanceof RecurrenceList ) {
+        values.addAll( ( (RecurrenceList) recurrence ).getValues() );
+      } else if ( withSequences && recurrence instanceof SequentialRecurrence ) {
+        SequentialRecurrence sequence = (SequentialRecurrence) recurrence;
+        if ( sequence.getFirstValue() != null && sequence.getLastValue() != null ) {
+          int last = Integer.parseInt( sequence.getLastValue().toString() );
+          for ( int value = Integer.parseInt( sequence.getFirstValue().toString() ); value <= last; value++ ) {
+            values.add( value );
+          }
+        }
+      }
+    }
+    return values;
+  }
+
+  private static boolean isQualifiedDayOfWeek( ITimeWrapper recurrences ) {
+    if ( recurrences != null ) {
+      for ( Object recurrence : recurrences.getRecurrences() ) {
+        if ( recurrence instanceof QualifiedDayOfWeek ) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static boolean isEmpty( String value ) {
+    return value == null || value.isEmpty();
+  }
+}
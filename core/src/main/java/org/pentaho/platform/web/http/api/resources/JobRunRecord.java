@@ -0,0 +1,112 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.web.http.api.resources;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * A run of a job, as recorded by the scheduler.
+ */
+@XmlRootElement
+public class JobRunRecord implements Serializable {
+
+  private static final long serialVersionUID = -2164710986502367811L;
+
+  private String jobId;
+
+  private String lineageId;
+
+  private Date start;
+
+  private Date end;
+
+  private long duration;
+
+  private String outcome;
+
+  private String outputPath;
+
+  public String getJobId() {
+    return jobId;
+  }
+
+  public void setJobId( String jobId ) {
+    this.jobId = jobId;
+  }
+
+  public String getLineageId() {
+    return lineageId;
+  }
+
+  public void setLineageId( String lineageId ) {
+    this.lineageId = lineageId;
+  }
+
+  public Date getStart() {
+    return start;
+  }
+
+  public void setStart( Date start ) {
+    this.start = start;
+  }
+
+  public Date getEnd() {
+    return end;
+  }
+
+  public void setEnd( Date end ) {
+    this.end = end;
+  }
+
+  /**
+   * @return the duration of the run in milliseconds
+   */
+  public long getDuration() {
+    return duration;
+  }
+
+  public void setDuration( long duration ) {
+    this.duration = duration;
+  }
+
+  /**
+   * @return SUCCEEDED, FAILED or SKIPPED
+   */
+  public String getOutcome() {
+    return outcome;
+  }
+
+  public void setOutcome( String outcome ) {
+    this.outcome = outcome;
+  }
+
+  /**
+   * @return the output path of the job, or {@code null} if it has no output file
+   */
+  public String getOutputPath() {
+    return outputPath;
+  }
+
+  public void setOutputPath( String outputPath ) {
+    this.outputPath = outputPath;
+  }
+}
@@ -106,6 +106,10 @@ public class JobScheduleRequest implements Serializable, IJobScheduleRequest {
 
   String timeZone;
 
+  Integer priority;
+
+  Long timeout;
+
   protected String runSafeMode;
   protected String gatheringMetrics;
   protected String logLevel;
@@ -224,6 +228,31 @@ public class JobScheduleRequest implements Serializable, IJobScheduleRequest {
     this.timeZone = timeZone;
   }
 
+  /**
+   * @return the priority of the job's trigger, or {@code null} for the default
+   * @see org.pentaho.platform.api.scheduler2.JobTrigger#getPriority()
+   */
+  public Integer getPriority() {
+    return priority;
+  }
+
+  public void setPriority( Integer priority ) {
+    this.priority = priority;
+  }
+
+  /**
+   * @return the time in seconds after which a run of the job is cancelled, 0 for no timeout, or {@code null} for the
+   * default timeout of the scheduler; ignored unless the watchdog of the scheduler is enabled
+   * @see org.pentaho.platform.scheduler2.quartz.JobWatchdog
+   */
+  public Long getTimeout() {
+    return timeout;
+  }
+
+  public void setTimeout( Long timeout ) {
+    this.timeout = timeout;
+  }
+
   @Override public void setSimpleJobTrigger( ISimpleJobTrigger jobTrigger ) {
     simpleJobTrigger = (SimpleJobTrigger) jobTrigger;
   }
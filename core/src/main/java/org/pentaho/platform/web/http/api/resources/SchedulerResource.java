@@ -29,6 +29,8 @@ import static javax.ws.rs.core.Response.Status.UNAUTHORIZED;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 
 import javax.ws.rs.Consumes;
@@ -40,6 +42,8 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
@@ -75,6 +79,16 @@ public class SchedulerResource implements ISchedulerResource {
 
   protected static final Log logger = LogFactory.getLog( SchedulerResource.class );
 
+  static final int MAX_FORECAST_LIMIT = 10000;
+
+  static final int FORECAST_BUCKET_MINUTES = 5;
+
+  static final long FORECAST_PERIOD_MILLIS = 24 * 3600000L;
+
+  static final int MAX_HISTORY_LIMIT = 1000;
+
+  static final int MAX_TRACE_LIMIT = 1000;
+
   public SchedulerResource() {
     this(  PentahoSystem.get( ISchedulerServicePlugin.class, "ISchedulerService2", null ) ); // TODO don't pass in key
   }
@@ -128,8 +142,10 @@ public class SchedulerResource implements ISchedulerResource {
   @Produces( "text/plain" )
   @StatusCodes( {
     @ResponseCode( code = 200, condition = "Schedule created successfully." ),
+    @ResponseCode( code = 400, condition = "The priority is out of range." ),
     @ResponseCode( code = 401, condition = "User is not allowed to create schedules." ),
-    @ResponseCode( code = 403, condition = "Cannot create schedules for the specified file." ),
+    @ResponseCode( code = 403,
+      condition = "Cannot create schedules for the specified file, or with a priority above the default." ),
     @ResponseCode( code = 500, condition = "An error occurred while creating a schedule." )
   } )
   public Response createJob( JobScheduleRequest scheduleRequest ) {
@@ -141,6 +157,8 @@ public class SchedulerResource implements ISchedulerResource {
       return buildStatusResponse( UNAUTHORIZED );
     } catch ( IllegalAccessException e ) {
       return buildStatusResponse( FORBIDDEN );
+    } catch ( IllegalArgumentException e ) {
+      return buildStatusResponse( Status.BAD_REQUEST );
     }
   }
 
@@ -153,6 +171,8 @@ public class SchedulerResource implements ISchedulerResource {
       return buildStatusResponse( UNAUTHORIZED );
     } catch ( IllegalAccessException e ) {
       return buildStatusResponse( FORBIDDEN );
+    } catch ( IllegalArgumentException e ) {
+      return buildStatusResponse( Status.BAD_REQUEST );
     }
   }
 
@@ -200,8 +220,10 @@ public class SchedulerResource implements ISchedulerResource {
   @Produces( "text/plain" )
   @StatusCodes( {
     @ResponseCode( code = 200, condition = "Schedule updated successfully." ),
+    @ResponseCode( code = 400, condition = "The priority is out of range." ),
     @ResponseCode( code = 401, condition = "User is not allowed to update schedules." ),
-    @ResponseCode( code = 403, condition = "Cannot update schedules for the specified file." ),
+    @ResponseCode( code = 403,
+      condition = "Cannot update schedules for the specified file, or with a priority above the default." ),
     @ResponseCode( code = 500, condition = "An error occurred while updating a schedule." )
   } )
   public Response updateJob( JobScheduleRequest scheduleRequest ) {
@@ -213,6 +235,8 @@ public class SchedulerResource implements ISchedulerResource {
       return buildStatusResponse( UNAUTHORIZED );
     } catch ( IllegalAccessException e ) {
       return buildStatusResponse( FORBIDDEN );
+    } catch ( IllegalArgumentException e ) {
+      return buildStatusResponse( Status.BAD_REQUEST );
     }
   }
 
@@ -530,6 +554,9 @@ public class SchedulerResource implements ISchedulerResource {
    *  &lt;/job&gt;
    *  &lt;/jobs&gt;
    * </pre>
+   *
+   * The jobs are written one at a time as they are read from the scheduler, so the response is not held in memory
+   * as a whole; an error while reading them cuts the response short once part of it has been sent.
    */
   @GET
   @Path( "/getJobs" )
@@ -538,6 +565,17 @@ public class SchedulerResource implements ISchedulerResource {
     @ResponseCode( code = 200, condition = "Jobs retrieved successfully." ),
     @ResponseCode( code = 500, condition = "Error while retrieving jobs." ),
   } )
+  public Response getAllJobs( @Context HttpHeaders headers ) {
+    MediaType mediaType = JobListStreamingOutput.getMediaType( headers.getAcceptableMediaTypes() );
+    return Response.ok( new JobListStreamingOutput( schedulerService::getJobs, mediaType ), mediaType ).build();
+  }
+
+  /**
+   * Retrieve the all the scheduled job(s) visible to the current users as a list held in memory; the
+   * {@code getJobs} endpoint streams the same jobs through {@link #getAllJobs(HttpHeaders)}.
+   *
+   * @return A list of jobs that are visible to the current users.
+   */
   public List<Job> getAllJobs() {
     try {
       return (List<Job>)(List<?>) schedulerService.getJobs();
@@ -546,6 +584,100 @@ public class SchedulerResource implements ISchedulerResource {
     }
   }
 
+  /**
+   * Retrieve one page of the scheduled jobs visible to the current user, filtered and sorted on the server.
+   *
+   * <p><b>Example Request:</b><br />
+   * GET pentaho/api/scheduler/getJobsPage?offset=0&amp;limit=25&amp;sortBy=nextRun&amp;sortOrder=asc&amp;state=NORMAL
+   * </p>
+   *
+   * @param offset       The position of the first job to return in the filtered and sorted listing.
+   * @param limit        The maximum number of jobs to return. Zero or less returns every job from the offset on.
+   * @param sortBy       The sort key: jobName, resourceName, userName, state, nextRun, lastRun, jobId,
+   *                     executableType or outputPath.
+   * @param sortOrder    The sort direction, asc or desc.
+   * @param resourceName A case insensitive fragment of the name of the scheduled file.
+   * @param userName     The owner of the jobs, compared without regard to case.
+   * @param state        The state of the jobs (NORMAL, PAUSED, COMPLETE, ERROR, BLOCKED or UNKNOWN).
+   * @param scheduleType The recurrence type of the jobs (DAILY, WEEKLY, MONTHLY, YEARLY, ...).
+   * @param after        Only return jobs whose next run is after this time, in milliseconds since the epoch.
+   * @param before       Only return jobs whose next run is before this time, in milliseconds since the epoch.
+   * @param excludeJobName Names of jobs to leave out of the listing.
+   *
+   * @return The requested page of jobs, along with the number of jobs matching the filters and the owners of all the
+   * jobs visible to the current user.
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.xml">
+   *  &lt;jobPage&gt;
+   *  &lt;job&gt;
+   *  &lt;groupName&gt;admin&lt;/groupName&gt;
+   *  &lt;jobId&gt;admin PentahoSystemVersionCheck 1408369303507&lt;/jobId&gt;
+   *  &lt;jobName&gt;PentahoSystemVersionCheck&lt;/jobName&gt;
+   *  ...
+   *  &lt;state&gt;NORMAL&lt;/state&gt;
+   *  &lt;userName&gt;admin&lt;/userName&gt;
+   *  &lt;/job&gt;
+   *  &lt;offset&gt;0&lt;/offset&gt;
+   *  &lt;totalCount&gt;1&lt;/totalCount&gt;
+   *  &lt;userName&gt;admin&lt;/userName&gt;
+   *  &lt;/jobPage&gt;
+   * </pre>
+   */
+  @GET
+  @Path( "/getJobsPage" )
+  @Produces( { APPLICATION_JSON, APPLICATION_XML } )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Jobs retrieved successfully." ),
+    @ResponseCode( code = 400, condition = "Invalid sort key, sort order or state." ),
+    @ResponseCode( code = 500, condition = "Error while retrieving jobs." ),
+  } )
+  public Response getJobsPage( @DefaultValue( "0" ) @QueryParam( "offset" ) int offset,
+                               @DefaultValue( "0" ) @QueryParam( "limit" ) int limit,
+                               @DefaultValue( JobPageRequest.SORT_JOB_NAME ) @QueryParam( "sortBy" ) String sortBy,
+                               @DefaultValue( "asc" ) @QueryParam( "sortOrder" ) String sortOrder,
+                               @QueryParam( "resourceName" ) String resourceName,
+                               @QueryParam( "userName" ) String userName,
+                               @QueryParam( "state" ) String state,
+                               @QueryParam( "scheduleType" ) String scheduleType,
+                               @QueryParam( "after" ) Long after,
+                               @QueryParam( "before" ) Long before,
+                               @QueryParam( "excludeJobName" ) List<String> excludeJobName ) {
+    JobPageRequest jobPageRequest = new JobPageRequest();
+    jobPageRequest.setOffset( offset );
+    jobPageRequest.setLimit( limit );
+    try {
+      jobPageRequest.setSortBy( sortBy );
+    } catch ( IllegalArgumentException e ) {
+      return buildStatusResponse( Status.BAD_REQUEST );
+    }
+    if ( "desc".equalsIgnoreCase( sortOrder ) ) {
+      jobPageRequest.setAscending( false );
+    } else if ( !"asc".equalsIgnoreCase( sortOrder ) ) {
+      return buildStatusResponse( Status.BAD_REQUEST );
+    }
+    if ( state != null && !state.isEmpty() ) {
+      try {
+        jobPageRequest.setState( JobState.valueOf( state.toUpperCase() ) );
+      } catch ( IllegalArgumentException e ) {
+        return buildStatusResponse( Status.BAD_REQUEST );
+      }
+    }
+    jobPageRequest.setResourceName( resourceName );
+    jobPageRequest.setUserName( userName );
+    jobPageRequest.setScheduleType( scheduleType );
+    jobPageRequest.setAfterDate( after == null ? null : new Date( after ) );
+    jobPageRequest.setBeforeDate( before == null ? null : new Date( before ) );
+    if ( excludeJobName != null ) {
+      jobPageRequest.setExcludedJobNames( new HashSet<>( excludeJobName ) );
+    }
+    try {
+      return buildOkResponse( schedulerService.getJobs( jobPageRequest ) );
+    } catch ( SchedulerException e ) {
+      throw new RuntimeException( e );
+    }
+  }
+
   public List<IJob> getJobsList() {
     try {
       return schedulerService.getJobs();
@@ -1366,6 +1498,347 @@ public class SchedulerResource implements ISchedulerResource {
     }
   }
 
+  /**
+   * Preview which existing schedules a blockout would block, before the blockout is saved. All schedules are checked
+   * against the blockout; the ones blocked at some or all of their fire times are returned a page at a time.
+   *
+   * <p><b>Example Request:</b><br />
+   * POST pentaho/api/scheduler/blockout/impact?offset=0&amp;limit=25
+   * </p>
+   * <br /><b>POST data:</b>
+   * <pre function="syntax.xml">
+   *    &lt;jobScheduleRequest&gt;
+   *    &lt;jobName&gt;DAILY-1820438815:admin:7740000&lt;/jobName&gt;
+   *    &lt;complexJobTrigger&gt;
+   *    &lt;uiPassParam&gt;DAILY&lt;/uiPassParam&gt;
+   *    &lt;daysOfWeek&gt;1&lt;/daysOfWeek&gt;
+   *    &lt;daysOfWeek&gt;2&lt;/daysOfWeek&gt;
+   *    &lt;startTime&gt;2014-08-19T10:51:00.000-04:00&lt;/startTime&gt;
+   *    &lt;endTime /&gt;
+   *    &lt;/complexJobTrigger&gt;
+   *    &lt;duration&gt;7740000&lt;/duration&gt;
+   *    &lt;timeZone&gt;America/New_York&lt;/timeZone&gt;
+   *    &lt;/jobScheduleRequest&gt;
+   *  </pre>
+   * </p>
+   *
+   * @param offset             The position of the first blocked schedule to return.
+   * @param limit              The number of blocked schedules to return at most, or 0 for all of them.
+   * @param jobScheduleRequest The payload containing the definition of the blockout.
+   * @return A Response object which contains a BlockoutImpactPage with the blocked schedules of the page, the ones of
+   * them that would never fire, and the counts across all pages.
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.xml">
+   *  &lt;blockoutImpactPage&gt;
+   *  &lt;job&gt;...&lt;/job&gt;
+   *  &lt;offset&gt;0&lt;/offset&gt;
+   *  &lt;totalCount&gt;1&lt;/totalCount&gt;
+   *  &lt;totallyBlockedCount&gt;0&lt;/totallyBlockedCount&gt;
+   *  &lt;/blockoutImpactPage&gt;
+   * </pre>
+   */
+  @POST
+  @Path( "/blockout/impact" )
+  @Consumes( { APPLICATION_JSON, APPLICATION_XML } )
+  @Produces( { APPLICATION_JSON, APPLICATION_XML } )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Successfully checked the schedules against the blockout." ),
+    @ResponseCode( code = 400, condition = "The offset or limit is negative." ),
+    @ResponseCode( code = 401, condition = "User is not authorized to manage blockouts." ),
+    @ResponseCode( code = 500, condition = "An error occurred while checking the schedules." )
+  } )
+  public Response getBlockoutImpact( @DefaultValue( "0" ) @QueryParam( "offset" ) int offset,
+                                     @DefaultValue( "0" ) @QueryParam( "limit" ) int limit,
+                                     JobScheduleRequest jobScheduleRequest ) {
+    if ( offset < 0 || limit < 0 ) {
+      return buildStatusResponse( Status.BAD_REQUEST );
+    }
+    try {
+      return buildOkResponse( schedulerService.getBlockoutImpact( jobScheduleRequest, offset, limit ) );
+    } catch ( IllegalAccessException e ) {
+      return buildStatusResponse( Status.UNAUTHORIZED );
+    } catch ( SchedulerException e ) {
+      return buildServerErrorResponse( getErrorMessage( e ) );
+    }
+  }
+
+  /**
+   * Lists the upcoming fire times of all schedules within a period, in ascending order. The fire times are read from
+   * an index of the next days, see quartz.properties, rather than computed for every schedule; periods beyond the
+   * index return no fire times. Blockouts and paused schedules are not included.
+   *
+   * <p><b>Example Request:</b><br />
+   * GET pentaho/api/scheduler/forecast?from=1700000000000&amp;to=1700086400000&amp;offset=0&amp;limit=100
+   * </p>
+   *
+   * @param from   The start of the period, in milliseconds since the epoch; now by default.
+   * @param to     The end of the period, exclusive, in milliseconds since the epoch; a day after the start by default.
+   * @param offset The position of the first fire time to return.
+   * @param limit  The number of fire times to return at most, from 1 to 10000.
+   * @return A Response object which contains a FireTimeForecastPage with the fire times of the page and the number of
+   * fire times in the period across all pages.
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.xml">
+   *  &lt;fireTimeForecastPage&gt;
+   *  &lt;fireTime&gt;
+   *  &lt;fireTime&gt;2023-11-14T22:15:00Z&lt;/fireTime&gt;
+   *  &lt;jobId&gt;admin  Inventory List 1700000000123&lt;/jobId&gt;
+   *  &lt;jobName&gt;Inventory List&lt;/jobName&gt;
+   *  &lt;userName&gt;admin&lt;/userName&gt;
+   *  &lt;/fireTime&gt;
+   *  &lt;offset&gt;0&lt;/offset&gt;
+   *  &lt;totalCount&gt;1&lt;/totalCount&gt;
+   *  &lt;/fireTimeForecastPage&gt;
+   * </pre>
+   */
+  @GET
+  @Path( "/forecast" )
+  @Produces( { APPLICATION_JSON, APPLICATION_XML } )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Successfully listed the fire times." ),
+    @ResponseCode( code = 400, condition = "The offset is negative or the limit is out of range." ),
+    @ResponseCode( code = 401, condition = "User is not authorized to view the schedules of all users." ),
+    @ResponseCode( code = 500, condition = "The forecast is disabled or the schedules could not be read." )
+  } )
+  public Response getFireTimeForecast( @QueryParam( "from" ) Long from,
+                                       @QueryParam( "to" ) Long to,
+                                       @DefaultValue( "0" ) @QueryParam( "offset" ) int offset,
+                                       @DefaultValue( "100" ) @QueryParam( "limit" ) int limit ) {
+    if ( offset < 0 || limit < 1 || limit > MAX_FORECAST_LIMIT ) {
+      return buildStatusResponse( Status.BAD_REQUEST );
+    }
+    long start = from != null ? from : System.currentTimeMillis();
+    long end = to != null ? to : start + FORECAST_PERIOD_MILLIS;
+    try {
+      return buildOkResponse( schedulerService.getFireTimeForecast( start, end, offset, limit ) );
+    } catch ( IllegalAccessException e ) {
+      return buildStatusResponse( Status.UNAUTHORIZED );
+    } catch ( SchedulerException e ) {
+      return buildServerErrorResponse( getErrorMessage( e ) );
+    }
+  }
+
+  /**
+   * Counts the upcoming fire times of all schedules in consecutive buckets of a period, e.g. to find the times at
+   * which many schedules fire together. The bounds of the period are rounded to five minutes.
+   *
+   * <p><b>Example Request:</b><br />
+   * GET pentaho/api/scheduler/forecast/load?from=1700000000000&amp;to=1700086400000&amp;bucketMinutes=60
+   * </p>
+   *
+   * @param from          The start of the period, in milliseconds since the epoch; now by default.
+   * @param to            The end of the period, exclusive, in milliseconds since the epoch; a day after the start by
+   *                      default.
+   * @param bucketMinutes The length of the buckets, a positive multiple of 5 minutes.
+   * @return A Response object which contains a FireTimeLoad with the start of the first bucket and the number of fire
+   * times in each bucket.
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.xml">
+   *  &lt;fireTimeLoad&gt;
+   *  &lt;bucketMinutes&gt;60&lt;/bucketMinutes&gt;
+   *  &lt;count&gt;12&lt;/count&gt;
+   *  &lt;count&gt;3&lt;/count&gt;
+   *  &lt;from&gt;2023-11-14T22:10:00Z&lt;/from&gt;
+   *  &lt;/fireTimeLoad&gt;
+   * </pre>
+   */
+  @GET
+  @Path( "/forecast/load" )
+  @Produces( { APPLICATION_JSON, APPLICATION_XML } )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Successfully counted the fire times." ),
+    @ResponseCode( code = 400, condition = "The bucket length is not a positive multiple of 5 minutes." ),
+    @ResponseCode( code = 401, condition = "User is not authorized to view the schedules of all users." ),
+    @ResponseCode( code = 500, condition = "The forecast is disabled or the schedules could not be read." )
+  } )
+  public Response getFireTimeLoad( @QueryParam( "from" ) Long from,
+                                   @QueryParam( "to" ) Long to,
+                                   @DefaultValue( "5" ) @QueryParam( "bucketMinutes" ) int bucketMinutes ) {
+    if ( bucketMinutes <= 0 || bucketMinutes % FORECAST_BUCKET_MINUTES != 0 ) {
+      return buildStatusResponse( Status.BAD_REQUEST );
+    }
+    long start = from != null ? from : System.currentTimeMillis();
+    long end = to != null ? to : start + FORECAST_PERIOD_MILLIS;
+    try {
+      return buildOkResponse( schedulerService.getFireTimeLoad( start, end, bucketMinutes ) );
+    } catch ( IllegalAccessException e ) {
+      return buildStatusResponse( Status.UNAUTHORIZED );
+    } catch ( SchedulerException e ) {
+      return buildServerErrorResponse( getErrorMessage( e ) );
+    }
+  }
+
+  /**
+   * Lists the latest runs of a job, or of every version of a job that shares a lineage id, the latest first, with the
+   * number of runs, the failure rate and the median and 95th percentile durations of the runs kept. The runs are those
+   * recorded by this server since it started, at most 50 per job by default, see quartz.properties.
+   *
+   * <p><b>Example Request:</b><br />
+   * GET pentaho/api/scheduler/history?jobId=admin%09Inventory%20List%091700000000123&amp;limit=10
+   * </p>
+   *
+   * @param jobId     The id of the job; either the job id or the lineage id is required.
+   * @param lineageId The lineage id of the job, which it keeps when it is updated.
+   * @param limit     The number of runs to return at most, from 1 to 1000.
+   * @return A Response object which contains a JobHistory with the runs and their statistics.
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.xml">
+   *  &lt;jobHistory&gt;
+   *  &lt;failureCount&gt;1&lt;/failureCount&gt;
+   *  &lt;failureRate&gt;0.5&lt;/failureRate&gt;
+   *  &lt;jobId&gt;admin  Inventory List 1700000000123&lt;/jobId&gt;
+   *  &lt;medianDuration&gt;1279&lt;/medianDuration&gt;
+   *  &lt;p95Duration&gt;2047&lt;/p95Duration&gt;
+   *  &lt;run&gt;
+   *  &lt;duration&gt;1250&lt;/duration&gt;
+   *  &lt;end&gt;2023-11-14T22:15:01.250Z&lt;/end&gt;
+   *  &lt;jobId&gt;admin  Inventory List 1700000000123&lt;/jobId&gt;
+   *  &lt;lineageId&gt;0c7e3f49-32a2-4c43-9a2e-8fbb1c41d5a5&lt;/lineageId&gt;
+   *  &lt;outcome&gt;SUCCEEDED&lt;/outcome&gt;
+   *  &lt;outputPath&gt;/home/admin/Inventory List.*&lt;/outputPath&gt;
+   *  &lt;start&gt;2023-11-14T22:15:00Z&lt;/start&gt;
+   *  &lt;/run&gt;
+   *  &lt;runCount&gt;2&lt;/runCount&gt;
+   *  &lt;skippedCount&gt;0&lt;/skippedCount&gt;
+   *  &lt;totalCount&gt;2&lt;/totalCount&gt;
+   *  &lt;/jobHistory&gt;
+   * </pre>
+   */
+  @GET
+  @Path( "/history" )
+  @Produces( { APPLICATION_JSON, APPLICATION_XML } )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Successfully listed the runs." ),
+    @ResponseCode( code = 400, condition = "Neither a job id nor a lineage id is given or the limit is out of range." ),
+    @ResponseCode( code = 401, condition = "User is not authorized to view the runs of the job." ),
+    @ResponseCode( code = 500, condition = "The job history is disabled or the job id is invalid." )
+  } )
+  public Response getJobHistory( @QueryParam( "jobId" ) String jobId,
+                                 @QueryParam( "lineageId" ) String lineageId,
+                                 @DefaultValue( "50" ) @QueryParam( "limit" ) int limit ) {
+    if ( ( jobId == null && lineageId == null ) || limit < 1 || limit > MAX_HISTORY_LIMIT ) {
+      return buildStatusResponse( Status.BAD_REQUEST );
+    }
+    try {
+      return buildOkResponse( schedulerService.getJobHistory( jobId, lineageId, limit ) );
+    } catch ( IllegalAccessException e ) {
+      return buildStatusResponse( Status.UNAUTHORIZED );
+    } catch ( SchedulerException e ) {
+      return buildServerErrorResponse( getErrorMessage( e ) );
+    }
+  }
+
+  /**
+   * Returns the runtime metrics of the scheduler in the Prometheus text format, for a Prometheus server to scrape:
+   * the fires of jobs and their lag behind the scheduled fire times, the fires suppressed by blockouts or by the
+   * admission control, the misfires, the durations of jobs, actions and post-processing by action type, the busy and
+   * idle threads of the Quartz thread pool and the durations of the calls to the job store. The durations are in
+   * seconds; the metrics are those of this server since it started.
+   *
+   * <p><b>Example Request:</b><br />
+   * GET pentaho/api/scheduler/metrics
+   * </p>
+   *
+   * @return A Response object which contains the metrics as plain text.
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.xml">
+   *  # HELP pentaho_scheduler_fires_total Jobs fired
+   *  # TYPE pentaho_scheduler_fires_total counter
+   *  pentaho_scheduler_fires_total 1042
+   *  # HELP pentaho_scheduler_thread_pool_busy_threads Threads of the Quartz thread pool executing a job
+   *  # TYPE pentaho_scheduler_thread_pool_busy_threads gauge
+   *  pentaho_scheduler_thread_pool_busy_threads 3
+   * </pre>
+   */
+  @GET
+  @Path( "/metrics" )
+  @Produces( { TEXT_PLAIN } )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Successfully read the metrics." ),
+    @ResponseCode( code = 401, condition = "User is not authorized to read the metrics of the scheduler." ),
+    @ResponseCode( code = 500, condition = "The scheduler metrics are disabled." )
+  } )
+  public Response getMetrics() {
+    try {
+      return buildPlainTextOkResponse( schedulerService.getMetrics() );
+    } catch ( IllegalAccessException e ) {
+      return buildStatusResponse( Status.UNAUTHORIZED );
+    } catch ( SchedulerException e ) {
+      return buildServerErrorResponse( getErrorMessage( e ) );
+    }
+  }
+
+  /**
+   * Lists the latest traced runs of a job, or of every job, the latest first, each broken down into its stages: the
+   * blockout check, the admission, the audit, the lookup of the action invoker, the creation of the action bean, the
+   * resolution of the output path, the execution of the action and the post-processing of its output. The latency of
+   * each stage across the runs listed, with its mean, median, 95th percentile and maximum, shows where slow jobs spend
+   * their time. The runs are the last 256 begun on this server by default, see quartz.properties; a run in progress has
+   * a duration of -1.
+   *
+   * <p><b>Example Request:</b><br />
+   * GET pentaho/api/scheduler/traces?jobId=admin%09Inventory%20List%091700000000123&amp;limit=10
+   * </p>
+   *
+   * @param jobId The id of the job; without it the runs of every job are listed, which only administrators may read.
+   * @param limit The number of runs to return at most, from 1 to 1000.
+   * @return A Response object which contains the ExecutionTraces with the runs and the latency of each stage.
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.xml">
+   *  &lt;executionTraces&gt;
+   *  &lt;jobId&gt;admin  Inventory List 1700000000123&lt;/jobId&gt;
+   *  &lt;run&gt;
+   *  &lt;actionType&gt;prpt&lt;/actionType&gt;
+   *  &lt;duration&gt;1250&lt;/duration&gt;
+   *  &lt;jobId&gt;admin  Inventory List 1700000000123&lt;/jobId&gt;
+   *  &lt;outcome&gt;SUCCEEDED&lt;/outcome&gt;
+   *  &lt;stage&gt;
+   *  &lt;durationMicros&gt;35&lt;/durationMicros&gt;
+   *  &lt;name&gt;blockoutCheck&lt;/name&gt;
+   *  &lt;offsetMicros&gt;12&lt;/offsetMicros&gt;
+   *  &lt;/stage&gt;
+   *  &lt;start&gt;2023-11-14T22:15:00Z&lt;/start&gt;
+   *  &lt;/run&gt;
+   *  &lt;stage&gt;
+   *  &lt;count&gt;1&lt;/count&gt;
+   *  &lt;maxMicros&gt;35&lt;/maxMicros&gt;
+   *  &lt;meanMicros&gt;35&lt;/meanMicros&gt;
+   *  &lt;medianMicros&gt;35&lt;/medianMicros&gt;
+   *  &lt;p95Micros&gt;35&lt;/p95Micros&gt;
+   *  &lt;stage&gt;blockoutCheck&lt;/stage&gt;
+   *  &lt;/stage&gt;
+   *  &lt;/executionTraces&gt;
+   * </pre>
+   */
+  @GET
+  @Path( "/traces" )
+  @Produces( { APPLICATION_JSON, APPLICATION_XML } )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Successfully listed the traced runs." ),
+    @ResponseCode( code = 400, condition = "The limit is out of range." ),
+    @ResponseCode( code = 401, condition = "User is not authorized to view the traces of the job or of every job." ),
+    @ResponseCode( code = 500, condition = "The execution traces are disabled or the job id is invalid." )
+  } )
+  public Response getExecutionTraces( @QueryParam( "jobId" ) String jobId,
+                                      @DefaultValue( "50" ) @QueryParam( "limit" ) int limit ) {
+    if ( limit < 1 || limit > MAX_TRACE_LIMIT ) {
+      return buildStatusResponse( Status.BAD_REQUEST );
+    }
+    try {
+      return buildOkResponse( schedulerService.getExecutionTraces( jobId, limit ) );
+    } catch ( IllegalAccessException e ) {
+      return buildStatusResponse( Status.UNAUTHORIZED );
+    } catch ( SchedulerException e ) {
+      return buildServerErrorResponse( getErrorMessage( e ) );
+    }
+  }
+
   /**
    * Retrieve the list of execute content by lineage id.
    *
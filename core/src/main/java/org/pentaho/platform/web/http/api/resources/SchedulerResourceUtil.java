@@ -36,6 +36,7 @@ import org.pentaho.platform.api.scheduler2.IComplexJobTrigger;
 import org.pentaho.platform.api.scheduler2.IJobTrigger;
 import org.pentaho.platform.api.scheduler2.IScheduler;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.pentaho.platform.api.scheduler2.JobTrigger;
 import org.pentaho.platform.api.scheduler2.ISimpleJobTrigger;
 import org.pentaho.platform.api.scheduler2.IActionClassResolver;
 import org.pentaho.platform.api.util.IPdiContentProvider;
@@ -175,6 +176,15 @@ public class SchedulerResourceUtil {
       }
     }
 
+    if ( jobTrigger instanceof JobTrigger ) {
+      // a run in background is waited for by a user, so it goes before batch work unless told otherwise
+      if ( scheduleRequest.getPriority() != null ) {
+        ( (JobTrigger) jobTrigger ).setPriority( scheduleRequest.getPriority() );
+      } else if ( runInBackground ) {
+        ( (JobTrigger) jobTrigger ).setPriority( JobTrigger.HIGH_PRIORITY );
+      }
+    }
+
     return jobTrigger;
   }
 
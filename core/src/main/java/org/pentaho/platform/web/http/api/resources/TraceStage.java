@@ -0,0 +1,65 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.web.http.api.resources;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+
+/**
+ * A stage of a run of a job traced by the scheduler.
+ */
+@XmlRootElement
+public class TraceStage implements Serializable {
+
+  private static final long serialVersionUID = -1905731358214370497L;
+
+  private String name;
+
+  private long offsetMicros;
+
+  private long durationMicros;
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName( String name ) {
+    this.name = name;
+  }
+
+  /**
+   * @return the time between the start of the run and the start of the stage, in microseconds
+   */
+  public long getOffsetMicros() {
+    return offsetMicros;
+  }
+
+  public void setOffsetMicros( long offsetMicros ) {
+    this.offsetMicros = offsetMicros;
+  }
+
+  public long getDurationMicros() {
+    return durationMicros;
+  }
+
+  public void setDurationMicros( long durationMicros ) {
+    this.durationMicros = durationMicros;
+  }
+}
@@ -0,0 +1,95 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.web.http.api.resources;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+
+/**
+ * The latency of a stage across the runs traced by the scheduler, in microseconds.
+ */
+@XmlRootElement
+public class TraceStageLatency implements Serializable {
+
+  private static final long serialVersionUID = 8243096163025742315L;
+
+  private String stage;
+
+  private int count;
+
+  private long meanMicros;
+
+  private long medianMicros;
+
+  private long p95Micros;
+
+  private long maxMicros;
+
+  public String getStage() {
+    return stage;
+  }
+
+  public void setStage( String stage ) {
+    this.stage = stage;
+  }
+
+  /**
+   * @return the number of runs that went through the stage
+   */
+  public int getCount() {
+    return count;
+  }
+
+  public void setCount( int count ) {
+    this.count = count;
+  }
+
+  public long getMeanMicros() {
+    return meanMicros;
+  }
+
+  public void setMeanMicros( long meanMicros ) {
+    this.meanMicros = meanMicros;
+  }
+
+  public long getMedianMicros() {
+    return medianMicros;
+  }
+
+  public void setMedianMicros( long medianMicros ) {
+    this.medianMicros = medianMicros;
+  }
+
+  public long getP95Micros() {
+    return p95Micros;
+  }
+
+  public void setP95Micros( long p95Micros ) {
+    this.p95Micros = p95Micros;
+  }
+
+  public long getMaxMicros() {
+    return maxMicros;
+  }
+
+  public void setMaxMicros( long maxMicros ) {
+    this.maxMicros = maxMicros;
+  }
+}
@@ -30,12 +30,20 @@ import org.pentaho.platform.api.scheduler2.Job;
 import org.pentaho.platform.api.scheduler2.JobState;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
 import org.pentaho.platform.web.http.api.proxies.BlockStatusProxy;
+import org.pentaho.platform.web.http.api.resources.BlockoutImpactPage;
+import org.pentaho.platform.web.http.api.resources.ExecutionTraces;
+import org.pentaho.platform.web.http.api.resources.FireTimeForecastPage;
+import org.pentaho.platform.web.http.api.resources.FireTimeLoad;
+import org.pentaho.platform.web.http.api.resources.JobHistory;
+import org.pentaho.platform.web.http.api.resources.JobPage;
+import org.pentaho.platform.web.http.api.resources.JobPageRequest;
 import org.pentaho.platform.web.http.api.resources.JobRequest;
 import org.pentaho.platform.web.http.api.resources.JobScheduleRequest;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interface for pentaho platform scheduling service with focus
@@ -63,6 +71,13 @@ public interface ISchedulerServicePlugin {
 
   List<IJob> getJobs() throws SchedulerException;
 
+  /**
+   * Passes the jobs {@link #getJobs()} lists to the consumer one at a time, without collecting them first.
+   */
+  void getJobs( Consumer<? super IJob> consumer ) throws SchedulerException;
+
+  JobPage getJobs( JobPageRequest jobPageRequest ) throws SchedulerException;
+
   boolean isScheduleAllowed( String id );
 
   String doGetCanSchedule();
@@ -105,6 +120,22 @@ public interface ISchedulerServicePlugin {
 
   BlockStatusProxy getBlockStatus( JobScheduleRequest jobScheduleRequest ) throws SchedulerException;
 
+  BlockoutImpactPage getBlockoutImpact( JobScheduleRequest jobScheduleRequest, int offset, int limit )
+    throws SchedulerException, IllegalAccessException;
+
+  FireTimeForecastPage getFireTimeForecast( long from, long to, int offset, int limit )
+    throws SchedulerException, IllegalAccessException;
+
+  FireTimeLoad getFireTimeLoad( long from, long to, int bucketMinutes )
+    throws SchedulerException, IllegalAccessException;
+
+  JobHistory getJobHistory( String jobId, String lineageId, int limit )
+    throws SchedulerException, IllegalAccessException;
+
+  String getMetrics() throws SchedulerException, IllegalAccessException;
+
+  ExecutionTraces getExecutionTraces( String jobId, int limit ) throws SchedulerException, IllegalAccessException;
+
   List<RepositoryFileDto> doGetGeneratedContentForSchedule( String lineageId ) throws FileNotFoundException;
 
   IScheduler getScheduler();
@@ -40,26 +40,49 @@ import org.pentaho.platform.api.scheduler2.IJobScheduleParam;
 import org.pentaho.platform.api.scheduler2.IJobTrigger;
 import org.pentaho.platform.api.scheduler2.IScheduler;
 import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.JobCriteriaFilter;
+import org.pentaho.platform.api.scheduler2.JobTrigger;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
 import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.engine.security.SecurityHelper;
 import org.pentaho.platform.api.repository2.unified.webservices.RepositoryFileDto;
 import org.pentaho.platform.scheduler2.blockout.BlockoutAction;
+import org.pentaho.platform.scheduler2.blockout.BlockoutImpactAnalyzer;
+import org.pentaho.platform.scheduler2.quartz.ExecutionTrace;
+import org.pentaho.platform.scheduler2.quartz.ExecutionTraceRecorder;
+import org.pentaho.platform.scheduler2.quartz.FireTimeForecast;
+import org.pentaho.platform.scheduler2.quartz.JobHistoryStore;
+import org.pentaho.platform.scheduler2.quartz.JobWatchdog;
+import org.pentaho.platform.scheduler2.quartz.QuartzJobKey;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+import org.pentaho.platform.scheduler2.quartz.SchedulerMetrics;
 import org.pentaho.platform.api.scheduler2.JobState;
 import org.pentaho.platform.security.policy.rolebased.actions.AdministerSecurityAction;
 import org.pentaho.platform.security.policy.rolebased.actions.SchedulerAction;
 import org.pentaho.platform.util.ActionUtil;
 import org.pentaho.platform.util.messages.LocaleHelper;
 import org.pentaho.platform.web.http.api.proxies.BlockStatusProxy;
+import org.pentaho.platform.web.http.api.resources.BlockoutImpactPage;
 import org.pentaho.platform.web.http.api.resources.ComplexJobTriggerProxy;
+import org.pentaho.platform.web.http.api.resources.ExecutionTraceRecord;
+import org.pentaho.platform.web.http.api.resources.ExecutionTraces;
+import org.pentaho.platform.web.http.api.resources.FireTimeForecastPage;
+import org.pentaho.platform.web.http.api.resources.FireTimeLoad;
+import org.pentaho.platform.web.http.api.resources.JobHistory;
+import org.pentaho.platform.web.http.api.resources.JobPage;
+import org.pentaho.platform.web.http.api.resources.JobPageRequest;
 import org.pentaho.platform.web.http.api.resources.JobRequest;
+import org.pentaho.platform.web.http.api.resources.JobRunRecord;
 import org.pentaho.platform.web.http.api.resources.JobScheduleParam;
 import org.pentaho.platform.web.http.api.resources.JobScheduleRequest;
 import org.pentaho.platform.web.http.api.resources.RepositoryFileStreamProvider;
 import org.pentaho.platform.web.http.api.resources.SchedulerOutputPathResolver;
+import org.pentaho.platform.web.http.api.resources.ScheduledFireTime;
 import org.pentaho.platform.web.http.api.resources.SchedulerResourceUtil;
 import org.pentaho.platform.web.http.api.resources.SessionResource;
+import org.pentaho.platform.web.http.api.resources.TraceStage;
+import org.pentaho.platform.web.http.api.resources.TraceStageLatency;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -67,8 +90,13 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class SchedulerService implements ISchedulerServicePlugin {
 
@@ -98,6 +126,7 @@ public class SchedulerService implements ISchedulerServicePlugin {
     if ( !runInBackground && !getPolicy().isAllowed( SchedulerAction.NAME ) ) {
       throw new SecurityException();
     }
+    checkPriority( scheduleRequest.getPriority(), runInBackground );
 
     boolean hasInputFile = !StringUtils.isEmpty( scheduleRequest.getInputFile() );
     RepositoryFile file = null;
@@ -168,6 +197,15 @@ public class SchedulerService implements ISchedulerServicePlugin {
       parameterMap = handlePDIScheduling( file, parameterMap, scheduleRequest.getPdiParameters() );
     }
 
+    // after the PDI parameters are converted, so that the timeout is not passed to the transformation or job
+    if ( scheduleRequest.getTimeout() != null ) {
+      if ( scheduleRequest.getTimeout() < 0 ) {
+        throw new SchedulerException(
+          "The timeout must not be negative: " + scheduleRequest.getTimeout() ); //$NON-NLS-1$
+      }
+      parameterMap.put( JobWatchdog.RESERVEDMAPKEY_TIMEOUT, scheduleRequest.getTimeout() );
+    }
+
     parameterMap.put( LocaleHelper.USER_LOCALE_PARAM, LocaleHelper.getLocale() );
 
     if ( hasInputFile ) {
@@ -194,6 +232,29 @@ public class SchedulerService implements ISchedulerServicePlugin {
     return job;
   }
 
+  /**
+   * A fire with a priority above the default may be admitted ahead of the limits of its action type, so only
+   * administrators may ask for one on a schedule; a run in background gets one anyway.
+   *
+   * @param priority        the priority asked for, or null for the default
+   * @param runInBackground whether the request is to run in background
+   * @throws IllegalArgumentException if the priority is out of range
+   * @throws IllegalAccessException   if the user may not ask for the priority
+   */
+  protected void checkPriority( Integer priority, boolean runInBackground ) throws IllegalAccessException {
+    if ( priority == null ) {
+      return;
+    }
+    if ( priority < JobTrigger.LOW_PRIORITY || priority > JobTrigger.HIGH_PRIORITY ) {
+      throw new IllegalArgumentException( "The priority must be between " + JobTrigger.LOW_PRIORITY //$NON-NLS-1$
+        + " and " + JobTrigger.HIGH_PRIORITY + ": " + priority ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    if ( priority > JobTrigger.DEFAULT_PRIORITY && !runInBackground && !canAdminister() ) {
+      throw new IllegalAccessException( "Only administrators may schedule a priority above " //$NON-NLS-1$
+        + JobTrigger.DEFAULT_PRIORITY );
+    }
+  }
+
   /**
    * Wrapper function around {@link SchedulerOutputPathResolver#resolveOutputFilePath()} calls
    * {@link #getSchedulerOutputPathResolver(JobScheduleRequest)} to get instance.
@@ -329,28 +390,12 @@ public class SchedulerService implements ISchedulerServicePlugin {
   }
 
   public IJobFilter getJobFilter( boolean canAdminister, String principalName ) {
-    return new JobFilter( canAdminister, principalName );
-  }
-
-  private class JobFilter implements IJobFilter {
-
-    private boolean canAdminister;
-    private String principalName;
-
-    public JobFilter( boolean canAdminister, String principalName ) {
-      this.canAdminister = canAdminister;
-      this.principalName = principalName;
-    }
-
-    @Override
-    public boolean accept( IJob job ) {
-      String actionClass = (String) job.getJobParams().get( "ActionAdapterQuartzJob-ActionClass" );
-      if ( canAdminister && "org.pentaho.platform.admin.GeneratedContentCleaner".equals( actionClass ) ) {
-        return true;
-      }
-      return principalName.equals( ( (Job) job).getUserName() )
-        && "org.pentaho.platform.admin.GeneratedContentCleaner".equals( actionClass );
+    JobCriteriaFilter filter = new JobCriteriaFilter();
+    filter.setActionClasses( "org.pentaho.platform.admin.GeneratedContentCleaner" );
+    if ( !canAdminister ) {
+      filter.setUserNames( principalName );
     }
+    return filter;
   }
 
   @Override
@@ -513,6 +558,257 @@ public class SchedulerService implements ISchedulerServicePlugin {
     return getBlockStatusProxy( totallyBlocked, partiallyBlocked );
   }
 
+  @Override
+  @SuppressWarnings( "unchecked" )
+  public BlockoutImpactPage getBlockoutImpact( JobScheduleRequest jobScheduleRequest, int offset, int limit )
+    throws SchedulerException, IllegalAccessException {
+    if ( !canAdminister() ) {
+      throw new IllegalAccessException();
+    }
+    updateStartDateForTimeZone( jobScheduleRequest );
+    IJobTrigger blockOutTrigger = convertScheduleRequestToJobTrigger( jobScheduleRequest );
+    blockOutTrigger.setDuration( jobScheduleRequest.getDuration() );
+
+    JobCriteriaFilter filter = new JobCriteriaFilter();
+    filter.setExcludedJobNames( IBlockoutManager.BLOCK_OUT_JOB_NAME );
+    List<IJob> scheduledJobs = getScheduler().getJobs( filter );
+    List<IJobTrigger> scheduleTriggers = new ArrayList<>( scheduledJobs.size() );
+    for ( IJob scheduledJob : scheduledJobs ) {
+      scheduleTriggers.add( scheduledJob.getJobTrigger() );
+    }
+    BlockoutImpactAnalyzer.Impact[] impacts = getBlockoutImpactAnalyzer().analyze( blockOutTrigger, scheduleTriggers );
+
+    List<IJob> blockedJobs = new ArrayList<>();
+    Set<String> totallyBlockedJobIds = new HashSet<>();
+    for ( int i = 0; i < impacts.length; i++ ) {
+      if ( impacts[ i ] != BlockoutImpactAnalyzer.Impact.NONE ) {
+        blockedJobs.add( scheduledJobs.get( i ) );
+      }
+      if ( impacts[ i ] == BlockoutImpactAnalyzer.Impact.TOTAL ) {
+        totallyBlockedJobIds.add( scheduledJobs.get( i ).getJobId() );
+      }
+    }
+
+    int fromIndex = Math.min( offset, blockedJobs.size() );
+    int toIndex = limit > 0 ? (int) Math.min( (long) fromIndex + limit, blockedJobs.size() ) : blockedJobs.size();
+
+    BlockoutImpactPage impactPage = new BlockoutImpactPage();
+    impactPage.setOffset( fromIndex );
+    impactPage.setTotalCount( blockedJobs.size() );
+    impactPage.setTotallyBlockedCount( totallyBlockedJobIds.size() );
+    impactPage.setJobs( new ArrayList<>( (List<Job>) (List<?>) blockedJobs.subList( fromIndex, toIndex ) ) );
+    for ( Job job : impactPage.getJobs() ) {
+      if ( totallyBlockedJobIds.contains( job.getJobId() ) ) {
+        impactPage.getTotallyBlockedJobIds().add( job.getJobId() );
+      }
+    }
+    return impactPage;
+  }
+
+  protected BlockoutImpactAnalyzer getBlockoutImpactAnalyzer() {
+    if ( getScheduler() instanceof QuartzScheduler ) {
+      return ( (QuartzScheduler) getScheduler() ).getBlockoutImpactAnalyzer();
+    }
+    return new BlockoutImpactAnalyzer( 1 );
+  }
+
+  @Override
+  public FireTimeForecastPage getFireTimeForecast( long from, long to, int offset, int limit )
+    throws SchedulerException, IllegalAccessException {
+    if ( !canAdminister() ) {
+      throw new IllegalAccessException();
+    }
+    FireTimeForecast.FireTimes fireTimes = getForecast().getFireTimes( from, to, offset, limit );
+    FireTimeForecastPage forecastPage = new FireTimeForecastPage();
+    forecastPage.setOffset( fireTimes.getOffset() );
+    forecastPage.setTotalCount( fireTimes.getTotalCount() );
+    for ( FireTimeForecast.FireTime fireTime : fireTimes.getFireTimes() ) {
+      ScheduledFireTime scheduledFireTime = new ScheduledFireTime();
+      scheduledFireTime.setJobId( fireTime.getJobId() );
+      scheduledFireTime.setJobName( fireTime.getJobName() );
+      scheduledFireTime.setUserName( fireTime.getUserName() );
+      scheduledFireTime.setFireTime( new Date( fireTime.getTime() ) );
+      forecastPage.getFireTimes().add( scheduledFireTime );
+    }
+    return forecastPage;
+  }
+
+  @Override
+  public FireTimeLoad getFireTimeLoad( long from, long to, int bucketMinutes )
+    throws SchedulerException, IllegalAccessException {
+    if ( !canAdminister() ) {
+      throw new IllegalAccessException();
+    }
+    FireTimeForecast.Load load = getForecast().getLoad( from, to, bucketMinutes * 60000L );
+    FireTimeLoad fireTimeLoad = new FireTimeLoad();
+    fireTimeLoad.setFrom( new Date( load.getFrom() ) );
+    fireTimeLoad.setBucketMinutes( bucketMinutes );
+    for ( int count : load.getCounts() ) {
+      fireTimeLoad.getCounts().add( count );
+    }
+    return fireTimeLoad;
+  }
+
+  private FireTimeForecast getForecast() throws SchedulerException {
+    FireTimeForecast forecast = getFireTimeForecast();
+    if ( forecast == null ) {
+      throw new SchedulerException( "The fire time forecast is not enabled" ); //$NON-NLS-1$
+    }
+    return forecast;
+  }
+
+  protected FireTimeForecast getFireTimeForecast() {
+    if ( getScheduler() instanceof QuartzScheduler ) {
+      return ( (QuartzScheduler) getScheduler() ).getFireTimeForecast();
+    }
+    return null;
+  }
+
+  /**
+   * Returns the latest runs of a job, or of every job of a lineage, with their statistics. Administrators may read the
+   * history of any job, other users that of their own jobs only.
+   */
+  @Override
+  public JobHistory getJobHistory( String jobId, String lineageId, int limit )
+    throws SchedulerException, IllegalAccessException {
+    JobHistoryStore historyStore = getHistoryStore();
+    List<JobHistoryStore.JobRun> runs;
+    JobHistoryStore.JobStats stats;
+    if ( jobId != null ) {
+      if ( !canAdminister() && !getSession().getName().equals( QuartzJobKey.parse( jobId ).getUserName() ) ) {
+        throw new IllegalAccessException();
+      }
+      runs = historyStore.getRuns( jobId, limit );
+      stats = historyStore.getStats( jobId );
+    } else {
+      runs = historyStore.getLineageRuns( lineageId, limit );
+      stats = historyStore.getLineageStats( lineageId );
+      if ( !canAdminister() ) {
+        for ( JobHistoryStore.JobRun run : runs ) {
+          if ( !getSession().getName().equals( QuartzJobKey.parse( run.getJobId() ).getUserName() ) ) {
+            throw new IllegalAccessException();
+          }
+        }
+      }
+    }
+    JobHistory jobHistory = new JobHistory();
+    jobHistory.setJobId( jobId );
+    jobHistory.setLineageId( jobId == null ? lineageId : null );
+    if ( stats != null ) {
+      jobHistory.setRunCount( stats.getRunCount() );
+      jobHistory.setTotalCount( stats.getTotalCount() );
+      jobHistory.setFailureCount( stats.getFailureCount() );
+      jobHistory.setSkippedCount( stats.getSkippedCount() );
+      jobHistory.setFailureRate( stats.getFailureRate() );
+      jobHistory.setMedianDuration( stats.getMedianDuration() );
+      jobHistory.setP95Duration( stats.getP95Duration() );
+    }
+    for ( JobHistoryStore.JobRun run : runs ) {
+      JobRunRecord runRecord = new JobRunRecord();
+      runRecord.setJobId( run.getJobId() );
+      runRecord.setLineageId( run.getLineageId() );
+      runRecord.setStart( run.getStart() );
+      runRecord.setEnd( run.getEnd() );
+      runRecord.setDuration( run.getDuration() );
+      runRecord.setOutcome( run.getOutcome().name() );
+      runRecord.setOutputPath( run.getOutputPath() );
+      jobHistory.getRuns().add( runRecord );
+    }
+    return jobHistory;
+  }
+
+  /**
+   * Returns the runtime metrics of the scheduler in the Prometheus text format. Only administrators may read them.
+   */
+  @Override
+  public String getMetrics() throws SchedulerException, IllegalAccessException {
+    if ( !canAdminister() ) {
+      throw new IllegalAccessException();
+    }
+    SchedulerMetrics metrics = getSchedulerMetrics();
+    if ( metrics == null ) {
+      throw new SchedulerException( "The scheduler metrics are not enabled" ); //$NON-NLS-1$
+    }
+    return metrics.toPrometheusText();
+  }
+
+  /**
+   * Returns the latest traced runs of a job, or of every job, with the latency of each stage across them.
+   * Administrators may read the traces of any job, other users those of their own jobs only.
+   */
+  @Override
+  public ExecutionTraces getExecutionTraces( String jobId, int limit )
+    throws SchedulerException, IllegalAccessException {
+    if ( !canAdminister()
+      && ( jobId == null || !getSession().getName().equals( QuartzJobKey.parse( jobId ).getUserName() ) ) ) {
+      throw new IllegalAccessException();
+    }
+    ExecutionTraceRecorder traceRecorder = getExecutionTraceRecorder();
+    if ( traceRecorder == null ) {
+      throw new SchedulerException( "The execution traces are not enabled" ); //$NON-NLS-1$
+    }
+    List<ExecutionTrace> traces = traceRecorder.getTraces( jobId, limit );
+    ExecutionTraces executionTraces = new ExecutionTraces();
+    executionTraces.setJobId( jobId );
+    for ( ExecutionTraceRecorder.StageLatency latency : ExecutionTraceRecorder.getStageLatencies( traces ) ) {
+      TraceStageLatency stageLatency = new TraceStageLatency();
+      stageLatency.setStage( latency.getStage() );
+      stageLatency.setCount( latency.getCount() );
+      stageLatency.setMeanMicros( TimeUnit.NANOSECONDS.toMicros( latency.getMeanNanos() ) );
+      stageLatency.setMedianMicros( TimeUnit.NANOSECONDS.toMicros( latency.getMedianNanos() ) );
+      stageLatency.setP95Micros( TimeUnit.NANOSECONDS.toMicros( latency.getP95Nanos() ) );
+      stageLatency.setMaxMicros( TimeUnit.NANOSECONDS.toMicros( latency.getMaxNanos() ) );
+      executionTraces.getStages().add( stageLatency );
+    }
+    for ( ExecutionTrace trace : traces ) {
+      ExecutionTraceRecord traceRecord = new ExecutionTraceRecord();
+      traceRecord.setJobId( trace.getJobId() );
+      traceRecord.setActionType( trace.getActionType() );
+      traceRecord.setStart( new Date( trace.getStart() ) );
+      long durationNanos = trace.getDurationNanos();
+      traceRecord.setDuration( durationNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis( durationNanos ) );
+      traceRecord.setOutcome( trace.getOutcome() != null ? trace.getOutcome().name() : null );
+      for ( ExecutionTrace.Stage stage : trace.getStages() ) {
+        TraceStage traceStage = new TraceStage();
+        traceStage.setName( stage.getName() );
+        traceStage.setOffsetMicros( TimeUnit.NANOSECONDS.toMicros( stage.getOffsetNanos() ) );
+        traceStage.setDurationMicros( TimeUnit.NANOSECONDS.toMicros( stage.getDurationNanos() ) );
+        traceRecord.getStages().add( traceStage );
+      }
+      executionTraces.getRuns().add( traceRecord );
+    }
+    return executionTraces;
+  }
+
+  protected ExecutionTraceRecorder getExecutionTraceRecorder() {
+    if ( getScheduler() instanceof QuartzScheduler ) {
+      return ( (QuartzScheduler) getScheduler() ).getTraceRecorder();
+    }
+    return null;
+  }
+
+  protected SchedulerMetrics getSchedulerMetrics() {
+    if ( getScheduler() instanceof QuartzScheduler ) {
+      return ( (QuartzScheduler) getScheduler() ).getMetrics();
+    }
+    return null;
+  }
+
+  private JobHistoryStore getHistoryStore() throws SchedulerException {
+    JobHistoryStore historyStore = getJobHistoryStore();
+    if ( historyStore == null ) {
+      throw new SchedulerException( "The job history is not enabled" ); //$NON-NLS-1$
+    }
+    return historyStore;
+  }
+
+  protected JobHistoryStore getJobHistoryStore() {
+    if ( getScheduler() instanceof QuartzScheduler ) {
+      return ( (QuartzScheduler) getScheduler() ).getJobHistoryStore();
+    }
+    return null;
+  }
+
   protected BlockStatusProxy getBlockStatusProxy( Boolean totallyBlocked, Boolean partiallyBlocked ) {
     return new BlockStatusProxy( totallyBlocked, partiallyBlocked );
   }
@@ -628,22 +924,77 @@ public class SchedulerService implements ISchedulerServicePlugin {
 
   @Override
   public List<IJob> getJobs() throws SchedulerException {
+    List<IJob> jobs = getScheduler().getJobs( getVisibleJobsFilter() );
+
+    return jobs;
+  }
+
+  @Override
+  public void getJobs( Consumer<? super IJob> consumer ) throws SchedulerException {
+    JobCriteriaFilter filter = getVisibleJobsFilter();
+    IScheduler scheduler = getScheduler();
+    if ( scheduler instanceof QuartzScheduler ) {
+      ( (QuartzScheduler) scheduler ).getJobs( filter, consumer );
+    } else {
+      scheduler.getJobs( filter ).forEach( consumer );
+    }
+  }
+
+  private JobCriteriaFilter getVisibleJobsFilter() {
     IPentahoSession session = getSession();
     final String principalName = session.getName(); // this authentication wasn't matching with the job user name,
     // changed to get name via the current session
     final Boolean canAdminister = canAdminister( session );
 
-    List<IJob> jobs = getScheduler().getJobs( new IJobFilter() {
-      @Override
-      public boolean accept( IJob job ) {
-        if ( canAdminister ) {
-          return !IBlockoutManager.BLOCK_OUT_JOB_NAME.equals( job.getJobName() );
-        }
-        return principalName.equals( ( (Job) job).getUserName() );
-      }
-    } );
+    JobCriteriaFilter filter = new JobCriteriaFilter();
+    if ( canAdminister ) {
+      filter.setExcludedJobNames( IBlockoutManager.BLOCK_OUT_JOB_NAME );
+    } else {
+      filter.setUserNames( principalName );
+    }
+    return filter;
+  }
 
-    return jobs;
+  @Override
+  @SuppressWarnings( "unchecked" )
+  public JobPage getJobs( JobPageRequest jobPageRequest ) throws SchedulerException {
+    IPentahoSession session = getSession();
+    final String principalName = session.getName();
+    final Boolean canAdminister = canAdminister( session );
+
+    JobCriteriaFilter filter = new JobCriteriaFilter();
+    Set<String> excludedJobNames = new HashSet<>( jobPageRequest.getExcludedJobNames() );
+    if ( canAdminister ) {
+      excludedJobNames.add( IBlockoutManager.BLOCK_OUT_JOB_NAME );
+    } else {
+      filter.setUserNames( principalName );
+    }
+    filter.setExcludedJobNames( excludedJobNames.toArray( new String[ 0 ] ) );
+
+    Set<String> userNames = new TreeSet<>();
+    List<IJob> matchingJobs = new ArrayList<>();
+    for ( IJob job : getScheduler().getJobs( filter ) ) {
+      String userName = ( (Job) job ).getUserName();
+      if ( userName != null ) {
+        userNames.add( userName );
+      }
+      if ( jobPageRequest.acceptsUserName( userName ) && jobPageRequest.accept( job ) ) {
+        matchingJobs.add( job );
+      }
+    }
+    matchingJobs.sort( jobPageRequest.getComparator() );
+
+    int fromIndex = Math.min( jobPageRequest.getOffset(), matchingJobs.size() );
+    int toIndex = jobPageRequest.getLimit() > 0
+      ? (int) Math.min( (long) fromIndex + jobPageRequest.getLimit(), matchingJobs.size() )
+      : matchingJobs.size();
+
+    JobPage jobPage = new JobPage();
+    jobPage.setOffset( fromIndex );
+    jobPage.setTotalCount( matchingJobs.size() );
+    jobPage.setJobs( new ArrayList<>( (List<Job>) (List<?>) matchingJobs.subList( fromIndex, toIndex ) ) );
+    jobPage.setUserNames( new ArrayList<>( userNames ) );
+    return jobPage;
   }
 
   protected Boolean canAdminister() {
@@ -0,0 +1,111 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.api.scheduler2;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JobCriteriaFilterTest {
+
+  @Test
+  public void testEmptyFilterAcceptsEverything() {
+    JobCriteriaFilter filter = new JobCriteriaFilter();
+
+    assertTrue( filter.accept( job( "admin", "report", "org.pentaho.Action", JobState.NORMAL ) ) );
+    assertTrue( filter.accept( job( null, null, null, JobState.UNKNOWN ) ) );
+  }
+
+  @Test
+  public void testUserNames() {
+    JobCriteriaFilter filter = new JobCriteriaFilter();
+    filter.setUserNames( "suzy", "tiffany" );
+
+    assertTrue( filter.acceptsUserName( "suzy" ) );
+    assertFalse( filter.acceptsUserName( "admin" ) );
+    assertTrue( filter.accept( job( "tiffany", "report", null, JobState.NORMAL ) ) );
+    assertFalse( filter.accept( job( "admin", "report", null, JobState.NORMAL ) ) );
+  }
+
+  @Test
+  public void testJobNames() {
+    JobCriteriaFilter filter = new JobCriteriaFilter();
+    filter.setJobNames( "report", IBlockoutManager.BLOCK_OUT_JOB_NAME );
+    filter.setExcludedJobNames( IBlockoutManager.BLOCK_OUT_JOB_NAME );
+
+    assertTrue( filter.acceptsJobName( "report" ) );
+    assertFalse( filter.acceptsJobName( IBlockoutManager.BLOCK_OUT_JOB_NAME ) );
+    assertFalse( filter.acceptsJobName( "other" ) );
+  }
+
+  @Test
+  public void testActionClasses() {
+    JobCriteriaFilter filter = new JobCriteriaFilter();
+    filter.setActionClasses( "org.pentaho.platform.admin.GeneratedContentCleaner" );
+
+    assertTrue( filter.accept( job( "admin", "cleaner", "org.pentaho.platform.admin.GeneratedContentCleaner",
+      JobState.NORMAL ) ) );
+    assertFalse( filter.accept( job( "admin", "report", "org.pentaho.Action", JobState.NORMAL ) ) );
+    assertFalse( filter.accept( job( "admin", "report", null, JobState.NORMAL ) ) );
+    assertFalse( filter.acceptsJobParams( null ) );
+  }
+
+  @Test
+  public void testStates() {
+    JobCriteriaFilter filter = new JobCriteriaFilter();
+    filter.setStates( JobState.PAUSED );
+
+    assertTrue( filter.accept( job( "admin", "report", null, JobState.PAUSED ) ) );
+    assertFalse( filter.accept( job( "admin", "report", null, JobState.NORMAL ) ) );
+  }
+
+  @Test
+  public void testAdditionalFilterRunsAfterCriteria() {
+    JobCriteriaFilter filter = new JobCriteriaFilter();
+    filter.setUserNames( "admin" );
+    filter.setFilter( job -> {
+      assertTrue( "admin".equals( ( (Job) job ).getUserName() ) );
+      return "report".equals( job.getJobName() );
+    } );
+
+    assertTrue( filter.accept( job( "admin", "report", null, JobState.NORMAL ) ) );
+    assertFalse( filter.accept( job( "admin", "other", null, JobState.NORMAL ) ) );
+    assertFalse( filter.accept( job( "suzy", "report", null, JobState.NORMAL ) ) );
+  }
+
+  private static Job job( String userName, String jobName, String actionClass, JobState state ) {
+    Job job = new Job();
+    job.setUserName( userName );
+    job.setJobName( jobName );
+    job.setState( state );
+    Map<String, Serializable> params = new HashMap<>();
+    if ( actionClass != null ) {
+      params.put( IScheduler.RESERVEDMAPKEY_ACTIONCLASS, actionClass );
+    }
+    job.setJobParams( params );
+    return job;
+  }
+}
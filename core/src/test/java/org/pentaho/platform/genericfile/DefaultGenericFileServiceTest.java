@@ -0,0 +1,194 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.genericfile;
+
+import org.junit.Test;
+import org.pentaho.platform.api.genericfile.IGenericFileProvider;
+import org.pentaho.platform.api.genericfile.exception.NotFoundException;
+import org.pentaho.platform.api.genericfile.exception.OperationFailedException;
+import org.pentaho.platform.api.genericfile.model.IGenericFile;
+import org.pentaho.platform.api.genericfile.model.IGenericFilePage;
+import org.pentaho.platform.api.genericfile.model.IGenericFileTree;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class DefaultGenericFileServiceTest {
+
+  @Test
+  public void testGetFoldersSingleProvider() throws Exception {
+    IGenericFileTree tree = mock( IGenericFileTree.class );
+    IGenericFileProvider<?> provider = provider( "single" );
+    doReturn( tree ).when( provider ).getFolders( 2 );
+
+    DefaultGenericFileService service = new DefaultGenericFileService( Arrays.asList( provider ) );
+
+    assertSame( tree, service.getFolders( 2 ) );
+    assertEquals( 1, DefaultGenericFileService.getProviderMetrics().get( "single" ).getLoads() );
+  }
+
+  @Test
+  public void testGetFoldersLoadsProvidersConcurrently() throws Exception {
+    // Each provider waits for the other to start loading.
+    CountDownLatch started = new CountDownLatch( 2 );
+    IGenericFileTree firstTree = mock( IGenericFileTree.class );
+    IGenericFileTree secondTree = mock( IGenericFileTree.class );
+    IGenericFileProvider<?> first = provider( "concurrentFirst" );
+    IGenericFileProvider<?> second = provider( "concurrentSecond" );
+    doAnswer( invocation -> awaitOther( started, firstTree ) ).when( first ).getFolders( null );
+    doAnswer( invocation -> awaitOther( started, secondTree ) ).when( second ).getFolders( null );
+
+    DefaultGenericFileService service = new DefaultGenericFileService( Arrays.asList( first, second ) );
+
+    assertEquals( Arrays.asList( firstTree, secondTree ), service.getFolders( null ).getChildren() );
+  }
+
+  @Test
+  public void testGetFoldersPartialFailure() throws Exception {
+    IGenericFileTree tree = mock( IGenericFileTree.class );
+    IGenericFileProvider<?> failing = provider( "partialFailing" );
+    IGenericFileProvider<?> working = provider( "partialWorking" );
+    IGenericFileProvider<?> unavailable = provider( "partialUnavailable" );
+    doThrow( new OperationFailedException() ).when( failing ).getFolders( 1 );
+    doReturn( tree ).when( working ).getFolders( 1 );
+    doReturn( false ).when( unavailable ).isAvailable();
+
+    DefaultGenericFileService service = new DefaultGenericFileService( Arrays.asList( failing, working, unavailable ) );
+
+    assertEquals( Arrays.asList( tree ), service.getFolders( 1 ).getChildren() );
+    verify( unavailable, never() ).getFolders( 1 );
+    assertEquals( 1, DefaultGenericFileService.getProviderMetrics().get( "partialFailing" ).getFailures() );
+  }
+
+  @Test
+  public void testGetFoldersAllProvidersFail() throws Exception {
+    OperationFailedException firstException = new OperationFailedException( "first" );
+    IGenericFileProvider<?> first = provider( "failingFirst" );
+    IGenericFileProvider<?> second = provider( "failingSecond" );
+    doThrow( firstException ).when( first ).getFolders( null );
+    doThrow( new OperationFailedException( "second" ) ).when( second ).getFolders( null );
+
+    DefaultGenericFileService service = new DefaultGenericFileService( Arrays.asList( first, second ) );
+
+    try {
+      service.getFolders( null );
+      fail();
+    } catch ( OperationFailedException e ) {
+      assertSame( firstException, e );
+    }
+  }
+
+  @Test
+  public void testGetFoldersProviderTimeout() throws Exception {
+    CountDownLatch release = new CountDownLatch( 1 );
+    IGenericFileTree tree = mock( IGenericFileTree.class );
+    IGenericFileProvider<?> slow = provider( "timeoutSlow" );
+    IGenericFileProvider<?> fast = provider( "timeoutFast" );
+    doAnswer( invocation -> {
+      release.await( 10, TimeUnit.SECONDS );
+      return mock( IGenericFileTree.class );
+    } ).when( slow ).getFolders( null );
+    doReturn( tree ).when( fast ).getFolders( null );
+
+    DefaultGenericFileService service = new DefaultGenericFileService( Arrays.asList( slow, fast ) );
+    service.setProviderTimeoutMillis( 100 );
+
+    try {
+      assertEquals( Arrays.asList( tree ), service.getFolders( null ).getChildren() );
+      assertEquals( 1, DefaultGenericFileService.getProviderMetrics().get( "timeoutSlow" ).getTimeouts() );
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  public void testGetFolderChildrenOfRootListsProviderRoots() throws Exception {
+    IGenericFile firstRoot = mock( IGenericFile.class );
+    IGenericFile secondRoot = mock( IGenericFile.class );
+    IGenericFileProvider<?> first = provider( "rootsFirst" );
+    IGenericFileProvider<?> second = provider( "rootsSecond" );
+    IGenericFileProvider<?> failing = provider( "rootsFailing" );
+    doReturn( tree( firstRoot ) ).when( first ).getFolders( 0 );
+    doReturn( tree( secondRoot ) ).when( second ).getFolders( 0 );
+    doThrow( new OperationFailedException() ).when( failing ).getFolders( 0 );
+
+    DefaultGenericFileService service = new DefaultGenericFileService( Arrays.asList( first, failing, second ) );
+
+    IGenericFilePage page = service.getFolderChildren( null, 1, 10 );
+    assertEquals( Arrays.asList( secondRoot ), page.getFiles() );
+    assertEquals( 1, page.getOffset() );
+    assertEquals( 2, page.getTotalCount() );
+    assertFalse( page.isHasMore() );
+  }
+
+  @Test
+  public void testGetFolderChildrenDelegatesToOwner() throws Exception {
+    IGenericFilePage page = mock( IGenericFilePage.class );
+    IGenericFileProvider<?> other = provider( "childrenOther" );
+    IGenericFileProvider<?> owner = provider( "childrenOwner" );
+    doReturn( true ).when( owner ).owns( "/home/admin" );
+    doReturn( page ).when( owner ).getFolderChildren( "/home/admin", 100, 50 );
+
+    DefaultGenericFileService service = new DefaultGenericFileService( Arrays.asList( other, owner ) );
+
+    assertSame( page, service.getFolderChildren( "/home/admin", 100, 50 ) );
+  }
+
+  @Test( expected = NotFoundException.class )
+  public void testGetFolderChildrenWithoutOwner() throws Exception {
+    DefaultGenericFileService service = new DefaultGenericFileService( Arrays.asList( provider( "noOwner" ) ) );
+
+    service.getFolderChildren( "pvfs://connection/folder", 0, 50 );
+  }
+
+  private static IGenericFileTree tree( IGenericFile file ) {
+    IGenericFileTree tree = mock( IGenericFileTree.class );
+    doReturn( file ).when( tree ).getFile();
+    return tree;
+  }
+
+  private static IGenericFileProvider<?> provider( String type ) {
+    IGenericFileProvider<?> provider = mock( IGenericFileProvider.class );
+    doReturn( type ).when( provider ).getType();
+    doReturn( true ).when( provider ).isAvailable();
+    return provider;
+  }
+
+  private static IGenericFileTree awaitOther( CountDownLatch started, IGenericFileTree tree )
+    throws InterruptedException {
+    started.countDown();
+    assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+    return tree;
+  }
+}
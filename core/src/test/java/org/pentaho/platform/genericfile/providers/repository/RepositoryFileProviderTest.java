@@ -0,0 +1,127 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.genericfile.providers.repository;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.api.genericfile.exception.NotFoundException;
+import org.pentaho.platform.api.genericfile.model.IGenericFile;
+import org.pentaho.platform.api.repository2.unified.webservices.RepositoryFileDto;
+import org.pentaho.platform.genericfile.model.BaseGenericFilePage;
+import org.pentaho.platform.web.http.api.resources.services.FileService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+public class RepositoryFileProviderTest {
+
+  private FileService fileService;
+
+  private RepositoryFileProvider provider;
+
+  @Before
+  public void setUp() {
+    fileService = mock( FileService.class );
+    provider = spy( new RepositoryFileProvider() );
+    doReturn( fileService ).when( provider ).createFileService();
+  }
+
+  @Test
+  public void testGetFolderChildrenPages() throws Exception {
+    List<RepositoryFileDto> children = new ArrayList<>();
+    for ( int i = 0; i < 5; i++ ) {
+      children.add( folder( "/home/folder" + i ) );
+    }
+    doReturn( children ).when( fileService ).doGetChildren( anyString(), eq( "*|FOLDERS" ), any(), any() );
+
+    BaseGenericFilePage page = provider.getFolderChildren( "/home", 1, 2 );
+
+    assertEquals( "/home", page.getPath() );
+    assertEquals( 1, page.getOffset() );
+    assertEquals( 5, page.getTotalCount() );
+    assertEquals( Arrays.asList( "/home/folder1", "/home/folder2" ), getPaths( page.getFiles() ) );
+    assertEquals( "/home", page.getFiles().get( 0 ).getParent() );
+
+    // the last page is cut short
+    page = provider.getFolderChildren( "/home", 4, 2 );
+    assertEquals( Collections.singletonList( "/home/folder4" ), getPaths( page.getFiles() ) );
+  }
+
+  @Test
+  public void testGetFolderChildrenPastTheEndIsEmpty() throws Exception {
+    doReturn( Arrays.asList( folder( "/home/admin" ), folder( "/home/suzy" ) ) ).when( fileService )
+      .doGetChildren( anyString(), anyString(), any(), any() );
+
+    BaseGenericFilePage page = provider.getFolderChildren( "/home", 2, Integer.MAX_VALUE );
+
+    assertTrue( page.getFiles().isEmpty() );
+    assertEquals( 2, page.getOffset() );
+    assertEquals( 2, page.getTotalCount() );
+  }
+
+  @Test
+  public void testGetFolderChildrenOfAnEmptyFolder() throws Exception {
+    doReturn( Collections.emptyList() ).when( fileService ).doGetChildren( anyString(), anyString(), any(), any() );
+    doReturn( true ).when( provider ).doesFolderExist( "/home/admin" );
+
+    BaseGenericFilePage page = provider.getFolderChildren( "/home/admin", 0, 100 );
+
+    assertTrue( page.getFiles().isEmpty() );
+    assertEquals( 0, page.getTotalCount() );
+  }
+
+  @Test( expected = NotFoundException.class )
+  public void testGetFolderChildrenOfAMissingFolder() throws Exception {
+    doReturn( Collections.emptyList() ).when( fileService ).doGetChildren( anyString(), anyString(), any(), any() );
+    doReturn( false ).when( provider ).doesFolderExist( "/home/missing" );
+
+    provider.getFolderChildren( "/home/missing", 0, 100 );
+  }
+
+  private static RepositoryFileDto folder( String path ) {
+    RepositoryFileDto folder = new RepositoryFileDto();
+    folder.setId( path );
+    folder.setPath( path );
+    folder.setName( path.substring( path.lastIndexOf( '/' ) + 1 ) );
+    folder.setFolder( true );
+    folder.setLastModifiedDate( "0" );
+    return folder;
+  }
+
+  private static List<String> getPaths( List<IGenericFile> files ) {
+    List<String> paths = new ArrayList<>();
+    for ( IGenericFile file : files ) {
+      paths.add( file.getPath() );
+    }
+    return paths;
+  }
+}
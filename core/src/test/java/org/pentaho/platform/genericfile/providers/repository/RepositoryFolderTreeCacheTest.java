@@ -0,0 +1,167 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.genericfile.providers.repository;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.genericfile.providers.repository.model.RepositoryFileTree;
+import org.pentaho.platform.genericfile.providers.repository.model.RepositoryFolder;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class RepositoryFolderTreeCacheTest {
+
+  private static final long TTL = 1000L;
+
+  private long now;
+
+  private int loadCount;
+
+  private RepositoryFolderTreeCache cache;
+
+  @Before
+  public void setUp() {
+    now = 0;
+    loadCount = 0;
+    cache = new RepositoryFolderTreeCache( 3, TTL, () -> now );
+  }
+
+  @Test
+  public void testTreesAreCachedPerUserLocaleAndDepth() {
+    RepositoryFileTree tree = get( "admin", Locale.US, 2 );
+    assertSame( tree, get( "admin", Locale.US, 2 ) );
+    assertEquals( 1, loadCount );
+
+    assertNotSame( tree, get( "suzy", Locale.US, 2 ) );
+    assertNotSame( tree, get( "admin", Locale.FRANCE, 2 ) );
+    assertNotSame( tree, get( "admin", Locale.US, 3 ) );
+    assertEquals( 4, loadCount );
+
+    // null and negative depths both mean the whole tree
+    RepositoryFileTree wholeTree = get( "admin", Locale.US, null );
+    assertSame( wholeTree, get( "admin", Locale.US, -1 ) );
+
+    assertEquals( 2, cache.getHits() );
+    assertEquals( 5, cache.getMisses() );
+  }
+
+  @Test
+  public void testTreesExpire() {
+    RepositoryFileTree tree = get( "admin", Locale.US, 1 );
+    now = TTL - 1;
+    assertSame( tree, get( "admin", Locale.US, 1 ) );
+    now = TTL;
+    assertNotSame( tree, get( "admin", Locale.US, 1 ) );
+    assertEquals( 2, loadCount );
+  }
+
+  @Test
+  public void testLeastRecentlyUsedTreeIsEvicted() {
+    RepositoryFileTree first = get( "a", Locale.US, 1 );
+    get( "b", Locale.US, 1 );
+    get( "c", Locale.US, 1 );
+    get( "a", Locale.US, 1 );
+    get( "d", Locale.US, 1 );
+
+    assertEquals( 3, cache.size() );
+    assertEquals( 1, cache.getEvictions() );
+    assertSame( first, get( "a", Locale.US, 1 ) );
+    get( "b", Locale.US, 1 );
+    assertEquals( 5, loadCount );
+  }
+
+  @Test
+  public void testInvalidateUser() {
+    RepositoryFileTree adminTree = get( "admin", Locale.US, 1 );
+    RepositoryFileTree suzyTree = get( "suzy", Locale.US, 1 );
+
+    cache.invalidateUser( "admin" );
+
+    assertNotSame( adminTree, get( "admin", Locale.US, 1 ) );
+    assertSame( suzyTree, get( "suzy", Locale.US, 1 ) );
+  }
+
+  @Test
+  public void testInvalidatePathDropsOnlyTreesShowingTheFolder() {
+    // trees hold /, /home, /home/admin and /public up to their depth
+    RepositoryFileTree shallow = get( "admin", Locale.US, 1 );
+    RepositoryFileTree deep = get( "admin", Locale.US, 2 );
+    RepositoryFileTree whole = get( "admin", Locale.US, null );
+
+    cache.invalidatePath( "/home/admin/reports" );
+
+    // /home/admin is at depth 2, so only trees deeper than that show its children
+    assertSame( shallow, get( "admin", Locale.US, 1 ) );
+    assertSame( deep, get( "admin", Locale.US, 2 ) );
+    assertNotSame( whole, get( "admin", Locale.US, null ) );
+
+    cache.invalidatePath( "/home/suzy/" );
+
+    assertSame( shallow, get( "admin", Locale.US, 1 ) );
+    assertNotSame( deep, get( "admin", Locale.US, 2 ) );
+
+    // missing ancestors are created too
+    cache.invalidatePath( "/etc/reports" );
+
+    assertNotSame( shallow, get( "admin", Locale.US, 1 ) );
+    assertEquals( 5, cache.getInvalidations() );
+  }
+
+  @Test
+  public void testTreeLoadedDuringInvalidationIsNotCached() {
+    RepositoryFileTree tree = cache.get( "admin", Locale.US, 1, () -> {
+      cache.invalidatePath( "/etc" );
+      return createTree( 1 );
+    } );
+
+    assertNotSame( tree, get( "admin", Locale.US, 1 ) );
+  }
+
+  private RepositoryFileTree get( String user, Locale locale, Integer depth ) {
+    return cache.get( user, locale, depth, () -> {
+      loadCount++;
+      return createTree( depth == null || depth < 0 ? Integer.MAX_VALUE : depth );
+    } );
+  }
+
+  private static RepositoryFileTree createTree( int depth ) {
+    RepositoryFileTree root = tree( "/" );
+    if ( depth >= 1 ) {
+      RepositoryFileTree home = tree( "/home" );
+      root.addChild( home );
+      root.addChild( tree( "/public" ) );
+      if ( depth >= 2 ) {
+        home.addChild( tree( "/home/admin" ) );
+      }
+    }
+    return root;
+  }
+
+  private static RepositoryFileTree tree( String path ) {
+    RepositoryFolder folder = new RepositoryFolder();
+    folder.setPath( path );
+    return new RepositoryFileTree( folder );
+  }
+}
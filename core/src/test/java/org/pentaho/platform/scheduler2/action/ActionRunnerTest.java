@@ -25,6 +25,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -32,26 +33,38 @@ import org.pentaho.platform.api.action.ActionInvocationException;
 import org.pentaho.platform.api.action.IAction;
 import org.pentaho.platform.api.engine.IAuthorizationPolicy;
 import org.pentaho.platform.api.engine.ISecurityHelper;
+import org.pentaho.platform.api.repository2.unified.ISourcesStreamEvents;
+import org.pentaho.platform.api.repository2.unified.IStreamListener;
 import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
 import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 import org.pentaho.platform.api.scheduler2.IBackgroundExecutionStreamProvider;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.engine.core.system.StandaloneSession;
 import org.pentaho.platform.engine.security.SecurityHelper;
 import org.pentaho.platform.engine.services.actions.TestVarArgsAction;
 import org.pentaho.platform.scheduler2.ISchedulerOutputPathResolver;
 import org.pentaho.platform.util.bean.TestAction;
 import org.pentaho.platform.util.messages.LocaleHelper;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.isA;
@@ -165,6 +178,133 @@ public class ActionRunnerTest {
     actionRunner.call();
   }
 
+  @Test
+  public void testOutputIsPostProcessedOnceCreated() throws Exception {
+    Map<String, Serializable> paramsMap = createMapWithUserLocale();
+    IAction actionBeanSpy = Mockito.spy( new TestAction() );
+    IBackgroundExecutionStreamProvider mockStreamProvider = Mockito.mock( IBackgroundExecutionStreamProvider.class );
+    String outputPath = "/home/admin/report.*";
+    when( mockStreamProvider.getInputStream() ).thenReturn( Mockito.mock( InputStream.class ) );
+    when( mockStreamProvider.getOutputPath() ).thenReturn( outputPath );
+    OutputStream mockOutputStream =
+      Mockito.mock( OutputStream.class, Mockito.withSettings().extraInterfaces( ISourcesStreamEvents.class ) );
+    when( mockStreamProvider.getOutputStream() ).thenReturn( mockOutputStream );
+    List<String> stages = Collections.synchronizedList( new ArrayList<>() );
+    ActionRunner actionRunner = new ActionRunner( actionBeanSpy, "actionUser", paramsMap, mockStreamProvider ) {
+      @Override
+      protected String resolveOutputFilePath() {
+        return outputPath;
+      }
+
+      @Override
+      protected void sendEmail( Map<String, Object> actionParams ) {
+        stages.add( "email " + outputFilePath );
+      }
+
+      @Override
+      protected void deleteFileIfEmpty() {
+        stages.add( "delete " + outputFilePath );
+      }
+    };
+
+    actionRunner.call();
+    Mockito.verify( actionBeanSpy ).execute();
+    // the call does not wait for the output
+    assertFalse( actionRunner.getPostProcessing().isDone() );
+
+    ArgumentCaptor<IStreamListener> listener = ArgumentCaptor.forClass( IStreamListener.class );
+    verify( (ISourcesStreamEvents) mockOutputStream ).addListener( listener.capture() );
+    listener.getValue().fileCreated( "/home/admin/report.pdf" );
+    actionRunner.getPostProcessing().get( 10, TimeUnit.SECONDS );
+    assertEquals( Arrays.asList( "email /home/admin/report.pdf", "delete /home/admin/report.pdf" ), stages );
+  }
+
+  @Test
+  public void testFailedStageDoesNotSkipTheLaterOnes() throws Exception {
+    Map<String, Serializable> paramsMap = createMapWithUserLocale();
+    IAction actionBeanSpy = Mockito.spy( new TestAction() );
+    OutputStream mockOutputStream =
+      Mockito.mock( OutputStream.class, Mockito.withSettings().extraInterfaces( ISourcesStreamEvents.class ) );
+    List<String> stages = Collections.synchronizedList( new ArrayList<>() );
+    ActionRunner actionRunner = new ActionRunner( actionBeanSpy, "actionUser", paramsMap,
+      mockStreamProvider( mockOutputStream ) ) {
+      @Override
+      protected String resolveOutputFilePath() {
+        return "/home/admin/report.*";
+      }
+
+      @Override
+      protected void sendEmail( Map<String, Object> actionParams ) {
+        throw new IllegalStateException( "no mail server" );
+      }
+
+      @Override
+      protected void deleteFileIfEmpty() {
+        stages.add( "delete " + outputFilePath );
+      }
+    };
+
+    actionRunner.call();
+    fileCreated( mockOutputStream, "/home/admin/report.pdf" );
+    actionRunner.getPostProcessing().get( 10, TimeUnit.SECONDS );
+    assertEquals( Collections.singletonList( "delete /home/admin/report.pdf" ), stages );
+  }
+
+  @Test
+  public void testStagesRunAsTheUserOfTheActionAfterItsContextIsGone() throws Exception {
+    Map<String, Serializable> paramsMap = createMapWithUserLocale();
+    IAction actionBeanSpy = Mockito.spy( new TestAction() );
+    OutputStream mockOutputStream =
+      Mockito.mock( OutputStream.class, Mockito.withSettings().extraInterfaces( ISourcesStreamEvents.class ) );
+    List<String> users = Collections.synchronizedList( new ArrayList<>() );
+    ActionRunner actionRunner = new ActionRunner( actionBeanSpy, "actionUser", paramsMap,
+      mockStreamProvider( mockOutputStream ) ) {
+      @Override
+      protected String resolveOutputFilePath() {
+        return "/home/admin/report.*";
+      }
+
+      @Override
+      protected void sendEmail( Map<String, Object> actionParams ) {
+        users.add( SecurityContextHolder.getContext().getAuthentication().getName() );
+        users.add( PentahoSessionHolder.getSession().getName() );
+      }
+
+      @Override
+      protected void deleteFileIfEmpty() {
+      }
+    };
+
+    PentahoSessionHolder.setSession( new StandaloneSession( "actionUser" ) );
+    SecurityContextHolder.getContext().setAuthentication(
+      new UsernamePasswordAuthenticationToken( "actionUser", null, Collections.emptyList() ) );
+    try {
+      actionRunner.call();
+    } finally {
+      // as running as the user does once the action returns
+      PentahoSessionHolder.getSession().destroy();
+      PentahoSessionHolder.removeSession();
+      SecurityContextHolder.getContext().setAuthentication( null );
+    }
+    fileCreated( mockOutputStream, "/home/admin/report.pdf" );
+    actionRunner.getPostProcessing().get( 10, TimeUnit.SECONDS );
+    assertEquals( Arrays.asList( "actionUser", "actionUser" ), users );
+  }
+
+  private static IBackgroundExecutionStreamProvider mockStreamProvider( OutputStream outputStream ) throws Exception {
+    IBackgroundExecutionStreamProvider mockStreamProvider = Mockito.mock( IBackgroundExecutionStreamProvider.class );
+    when( mockStreamProvider.getInputStream() ).thenReturn( Mockito.mock( InputStream.class ) );
+    when( mockStreamProvider.getOutputPath() ).thenReturn( "/home/admin/report.*" );
+    when( mockStreamProvider.getOutputStream() ).thenReturn( outputStream );
+    return mockStreamProvider;
+  }
+
+  private static void fileCreated( OutputStream outputStream, String filePath ) {
+    ArgumentCaptor<IStreamListener> listener = ArgumentCaptor.forClass( IStreamListener.class );
+    verify( (ISourcesStreamEvents) outputStream ).addListener( listener.capture() );
+    listener.getValue().fileCreated( filePath );
+  }
+
   private Map<String, Serializable> createMapWithUserLocale() {
     Map<String, Serializable> paramsMap = new HashMap<>();
     paramsMap.put( LocaleHelper.USER_LOCALE_PARAM, Locale.US );
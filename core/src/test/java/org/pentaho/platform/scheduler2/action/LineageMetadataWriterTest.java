@@ -0,0 +1,139 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.action;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
+import org.pentaho.platform.api.repository2.unified.RepositoryFile;
+import org.pentaho.platform.util.ActionUtil;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LineageMetadataWriterTest {
+
+  private static final String LINEAGE_ID = "lineage";
+
+  private IUnifiedRepository repo;
+
+  private LineageMetadataWriter writer;
+
+  @Before
+  public void setUp() {
+    repo = mock( IUnifiedRepository.class );
+    writer = new LineageMetadataWriter( repo, LINEAGE_ID );
+  }
+
+  @Test
+  public void testFilesOfABurstAreResolvedWithOneListing() {
+    RepositoryFile folder = file( "/home/admin/burst" );
+    when( repo.getFile( folder.getPath() ) ).thenReturn( folder );
+    List<RepositoryFile> children = new ArrayList<>();
+    for ( int i = 0; i < LineageMetadataWriter.MIN_FILES_PER_LISTING; i++ ) {
+      children.add( file( folder.getPath() + "/region" + i + ".pdf" ) );
+    }
+    when( repo.getChildren( folder.getId() ) ).thenReturn( children );
+    Map<String, Serializable> metadata = new HashMap<>();
+    when( repo.getFileMetadata( any() ) ).thenReturn( new HashMap<>() );
+    when( repo.getFileMetadata( children.get( 0 ).getId() ) ).thenReturn( metadata );
+
+    for ( RepositoryFile child : children ) {
+      writer.add( child.getPath() );
+    }
+    writer.add( children.get( 0 ).getPath() );
+    LineageMetadataWriter.Result result = writer.write();
+
+    assertEquals( LineageMetadataWriter.MIN_FILES_PER_LISTING, result.getTaggedPaths().size() );
+    assertEquals( LINEAGE_ID, metadata.get( ActionUtil.QUARTZ_LINEAGE_ID ) );
+    verify( repo, times( 1 ) ).getFile( anyString() );
+    verify( repo, times( LineageMetadataWriter.MIN_FILES_PER_LISTING ) ).setFileMetadata( any(), any() );
+  }
+
+  @Test
+  public void testFewFilesOfAFolderAreLookedUpOneByOne() {
+    RepositoryFile first = file( "/home/admin/east.pdf" );
+    RepositoryFile second = file( "/home/admin/west.pdf" );
+    when( repo.getFile( first.getPath() ) ).thenReturn( first );
+    when( repo.getFile( second.getPath() ) ).thenReturn( second );
+    when( repo.getFileMetadata( any() ) ).thenReturn( new HashMap<>() );
+
+    writer.add( first.getPath() );
+    writer.add( second.getPath() );
+    writer.add( first.getPath() );
+
+    assertEquals( new LinkedHashSet<>( Arrays.asList( first.getPath(), second.getPath() ) ),
+      writer.write().getTaggedPaths() );
+    // the home folder may hold thousands of files
+    verify( repo, never() ).getChildren( any( Serializable.class ) );
+    verify( repo, times( 2 ) ).setFileMetadata( any(), any() );
+  }
+
+  @Test
+  public void testFilesAreLookedUpOneByOneWhenTheFolderCannotBeListed() {
+    when( repo.getFile( "/home/admin/burst" ) ).thenThrow( new RuntimeException( "no access" ) );
+    when( repo.getFileMetadata( any() ) ).thenReturn( new HashMap<>() );
+    for ( int i = 0; i < LineageMetadataWriter.MIN_FILES_PER_LISTING; i++ ) {
+      RepositoryFile file = file( "/home/admin/burst/region" + i + ".pdf" );
+      when( repo.getFile( file.getPath() ) ).thenReturn( file );
+      writer.add( file.getPath() );
+    }
+
+    assertEquals( LineageMetadataWriter.MIN_FILES_PER_LISTING, writer.write().getTaggedPaths().size() );
+    verify( repo, times( LineageMetadataWriter.MIN_FILES_PER_LISTING ) ).setFileMetadata( any(), any() );
+  }
+
+  @Test
+  public void testMissingFilesAreNotTagged() {
+    RepositoryFile tagged = file( "/home/admin/report.pdf" );
+    when( repo.getFile( tagged.getPath() ) ).thenReturn( tagged );
+    when( repo.getFileMetadata( tagged.getId() ) )
+      .thenReturn( new HashMap<>( Collections.singletonMap( ActionUtil.QUARTZ_LINEAGE_ID, LINEAGE_ID ) ) );
+
+    writer.add( tagged.getPath() );
+    writer.add( "/tmp/output.pdf" );
+    LineageMetadataWriter.Result result = writer.write();
+
+    assertEquals( Collections.singleton( tagged.getPath() ), result.getTaggedPaths() );
+    // tagged already
+    verify( repo, never() ).setFileMetadata( any(), any() );
+  }
+
+  private static RepositoryFile file( String path ) {
+    return new RepositoryFile.Builder( "id:" + path, path.substring( path.lastIndexOf( '/' ) + 1 ) ).path( path )
+      .build();
+  }
+}
@@ -0,0 +1,79 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.IBlockoutManager;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BlockoutActionTest {
+
+  private BlockoutRegistry registry;
+
+  private BlockoutAction action;
+
+  @Before
+  public void setUp() {
+    registry = new BlockoutRegistry();
+    action = new BlockoutAction() {
+      @Override
+      BlockoutRegistry getBlockoutRegistry() {
+        return registry;
+      }
+    };
+  }
+
+  @Test( timeout = 5000 )
+  public void testExecuteRecordsWindowAndReturns() throws Exception {
+    long fireTime = System.currentTimeMillis() - 1000;
+    long duration = BlockoutManagerUtil.TIME.HOUR.time;
+    action.setVarArgs( args( fireTime, duration ) );
+
+    action.execute();
+
+    assertTrue( registry.isInBlockout() );
+    assertEquals( fireTime + duration, registry.getActiveUntil() );
+  }
+
+  @Test
+  public void testExpiredBlockoutIsNotRecorded() throws Exception {
+    action.setVarArgs( args( System.currentTimeMillis() - 2000, 1000 ) );
+
+    action.execute();
+
+    assertFalse( registry.isInBlockout() );
+  }
+
+  private static Map<String, Object> args( long fireTime, long duration ) {
+    Map<String, Object> args = new HashMap<>();
+    args.put( IBlockoutManager.DURATION_PARAM, duration );
+    args.put( IBlockoutManager.SCHEDULED_FIRE_TIME, new Date( fireTime ) );
+    return args;
+  }
+}
@@ -0,0 +1,269 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.scheduler2.blockout.BlockoutManagerUtil.TIME;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks {@link BlockoutConflictEngine} against {@link LegacyBlockoutManagerUtil} for every pairing of a set of
+ * schedules and blockouts covering simple and complex triggers, fire times inside, outside and on the edges of the
+ * windows, and blockouts and schedules with end times. The remaining tests cover where the two deliberately differ.
+ */
+public class BlockoutConflictEngineTest {
+
+  private static final long HOUR = TIME.HOUR.time;
+
+  private static final long DAY = TIME.DAY.time;
+
+  private static final long WEEK = TIME.WEEK.time;
+
+  private static TimeZone defaultTimeZone;
+
+  /**
+   * Midnight, two days from now, so that every fire time of interest lies after {@link #now}.
+   */
+  private long base;
+
+  private long now;
+
+  private List<IJobTrigger> schedules;
+
+  private List<IJobTrigger> blockOuts;
+
+  @BeforeClass
+  public static void setUpClass() {
+    // cron and simple triggers only line up when there are no daylight saving changes
+    defaultTimeZone = TimeZone.getDefault();
+    TimeZone.setDefault( TimeZone.getTimeZone( "UTC" ) );
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    TimeZone.setDefault( defaultTimeZone );
+  }
+
+  @Before
+  public void setUp() {
+    Calendar midnight = Calendar.getInstance();
+    midnight.set( Calendar.HOUR_OF_DAY, 0 );
+    midnight.set( Calendar.MINUTE, 0 );
+    midnight.set( Calendar.SECOND, 0 );
+    midnight.set( Calendar.MILLISECOND, 0 );
+    midnight.add( Calendar.DATE, 2 );
+    base = midnight.getTimeInMillis();
+    now = base - 12 * HOUR;
+
+    schedules = Arrays.asList(
+      simple( base, null, HOUR, 0 ),
+      simple( base + 2 * HOUR + HOUR / 2, null, DAY, 0 ),
+      simple( base + 5 * HOUR, null, DAY, 0 ),
+      simple( base + DAY + 4 * HOUR + HOUR / 2, null, WEEK, 0 ),
+      complex( "0 30 2 * * ?", 0 ), //$NON-NLS-1$
+      complex( "0 0 5 * * ?", 0 ), //$NON-NLS-1$
+      simple( base + 2 * HOUR + HOUR / 2, base + 2 * DAY + 3 * HOUR, DAY, 0 ) );
+
+    blockOuts = Arrays.asList(
+      simple( base + 2 * HOUR, null, DAY, HOUR ),
+      simple( base + DAY + 2 * HOUR, null, WEEK, 3 * HOUR ),
+      complex( "0 0 2 * * ?", HOUR ), //$NON-NLS-1$
+      simple( base + 2 * HOUR, base + 5 * DAY, 2 * DAY, HOUR ) );
+  }
+
+  @Test
+  public void testIsPartiallyBlockedMatchesLegacy() {
+    boolean[][] expected = {
+      { true, true, true, true },
+      { true, true, true, true },
+      { false, true, false, false },
+      { false, true, false, false },
+      { true, true, true, true },
+      { false, true, false, false },
+      { true, true, true, true } };
+
+    LegacyBlockoutManagerUtil legacy = new LegacyBlockoutManagerUtil( now );
+    for ( int b = 0; b < blockOuts.size(); b++ ) {
+      IJobTrigger blockOut = blockOuts.get( b );
+      BlockoutConflictEngine engine = new BlockoutConflictEngine( Collections.singletonList( blockOut ), now );
+      for ( int s = 0; s < schedules.size(); s++ ) {
+        String pair = "schedule " + s + ", blockout " + b; //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals( pair, expected[ s ][ b ], legacy.willBlockSchedule( schedules.get( s ), blockOut ) );
+        assertEquals( pair, expected[ s ][ b ], engine.isPartiallyBlocked( schedules.get( s ) ) );
+      }
+    }
+
+    BlockoutConflictEngine engine = new BlockoutConflictEngine( blockOuts, now );
+    for ( IJobTrigger schedule : schedules ) {
+      assertEquals( legacy.isPartiallyBlocked( schedule, blockOuts ), engine.isPartiallyBlocked( schedule ) );
+    }
+  }
+
+  @Test
+  public void testWillFireMatchesLegacy() {
+    boolean[][] expected = {
+      { true, true, true, true },
+      { false, true, false, true },
+      { true, true, true, true },
+      { true, false, true, true },
+      { false, true, false, true },
+      { true, true, true, true },
+      { false, true, false, true } };
+
+    LegacyBlockoutManagerUtil legacy = new LegacyBlockoutManagerUtil( now );
+    for ( int b = 0; b < blockOuts.size(); b++ ) {
+      List<IJobTrigger> blockOut = Collections.singletonList( blockOuts.get( b ) );
+      BlockoutConflictEngine engine = new BlockoutConflictEngine( blockOut, now );
+      for ( int s = 0; s < schedules.size(); s++ ) {
+        String pair = "schedule " + s + ", blockout " + b; //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals( pair, expected[ s ][ b ], legacy.willFire( schedules.get( s ), blockOut ) );
+        assertEquals( pair, expected[ s ][ b ], engine.willFire( schedules.get( s ) ) );
+        assertEquals( pair, !expected[ s ][ b ], engine.isTotallyBlocked( schedules.get( s ) ) );
+      }
+    }
+  }
+
+  @Test
+  public void testShouldFireNowMatchesLegacy() {
+    // the legacy check only sees a complex blockout's window in effect through the blockout job's last run
+    List<IJobTrigger> simpleBlockOuts = Arrays.asList( blockOuts.get( 0 ), blockOuts.get( 1 ), blockOuts.get( 3 ) );
+    BlockoutWindows windows = BlockoutWindows.build( simpleBlockOuts, now, now + 8 * DAY );
+    BlockoutWindows.Cursor cursor = windows.cursor();
+
+    for ( long time = now; time <= now + 8 * DAY; time += 15 * TIME.MINUTE.time ) {
+      boolean expected = new LegacyBlockoutManagerUtil( time ).shouldFireNow( simpleBlockOuts );
+      assertEquals( new Date( time ).toString(), expected, !windows.contains( time ) );
+      assertEquals( new Date( time ).toString(), expected, !cursor.contains( time ) );
+      assertEquals( new Date( time ).toString(), expected,
+        !BlockoutWindows.build( simpleBlockOuts, time, time ).contains( time ) );
+    }
+  }
+
+  @Test
+  public void testFireTimesMatchLegacy() {
+    LegacyBlockoutManagerUtil legacy = new LegacyBlockoutManagerUtil( now );
+    BlockoutConflictEngine engine = new BlockoutConflictEngine( blockOuts, now );
+    for ( IJobTrigger schedule : schedules ) {
+      List<Date> expected = legacy.getFireTimes( schedule );
+      long[] fireTimes = engine.getFireTimes( schedule );
+      assertEquals( expected.size(), fireTimes.length );
+      for ( int i = 0; i < fireTimes.length; i++ ) {
+        assertEquals( expected.get( i ).getTime(), fireTimes[ i ] );
+      }
+    }
+  }
+
+  @Test
+  public void testBlockoutsTogetherBlockSchedule() {
+    // every other day each, so that together they block a daily schedule
+    List<IJobTrigger> alternating = Arrays.asList(
+      simple( base + 2 * HOUR, null, 2 * DAY, HOUR ),
+      simple( base + DAY + 2 * HOUR, null, 2 * DAY, HOUR ) );
+    IJobTrigger daily = schedules.get( 1 );
+
+    assertTrue( new LegacyBlockoutManagerUtil( now ).willFire( daily, alternating ) );
+    assertFalse( new BlockoutConflictEngine( alternating, now ).willFire( daily ) );
+  }
+
+  @Test
+  public void testComplexBlockoutCoversWholeHorizon() {
+    // the legacy check stops at the blockout's first 1000 fire times, less than three years of a daily blockout
+    IJobTrigger weekly = simple( base + DAY + 2 * HOUR + HOUR / 2, null, WEEK, 0 );
+    List<IJobTrigger> daily = Collections.singletonList( blockOuts.get( 2 ) );
+
+    assertTrue( new LegacyBlockoutManagerUtil( now ).willFire( weekly, daily ) );
+    assertFalse( new BlockoutConflictEngine( daily, now ).willFire( weekly ) );
+  }
+
+  @Test
+  public void testGetNextUnblockedFireTime() {
+    IJobTrigger daily = schedules.get( 1 );
+
+    assertEquals( new Date( base + DAY + 2 * HOUR + HOUR / 2 ),
+      new BlockoutConflictEngine( Collections.singletonList( blockOuts.get( 3 ) ), now )
+        .getNextUnblockedFireTime( daily ) );
+    assertNull( new BlockoutConflictEngine( Collections.singletonList( blockOuts.get( 0 ) ), now )
+      .getNextUnblockedFireTime( daily ) );
+    assertEquals( new Date( base + 2 * HOUR + HOUR / 2 ),
+      new BlockoutConflictEngine( Collections.<IJobTrigger>emptyList(), now ).getNextUnblockedFireTime( daily ) );
+  }
+
+  @Test
+  public void testFrequentSimpleBlockoutIsNotMaterialized() {
+    // two seconds out of every ten
+    IJobTrigger frequent = simple( base, null, 10 * TIME.SECOND.time, 2 * TIME.SECOND.time );
+    BlockoutWindows windows =
+      BlockoutWindows.build( Collections.singletonList( frequent ), now, now + BlockoutConflictEngine.HORIZON_MILLIS );
+
+    assertEquals( 0, windows.size() );
+    assertFalse( windows.isEmpty() );
+    assertEquals( now + BlockoutConflictEngine.HORIZON_MILLIS, windows.getEnd() );
+    assertFalse( windows.contains( base - TIME.SECOND.time ) );
+    assertTrue( windows.contains( base + 100 * DAY + TIME.SECOND.time ) );
+    assertTrue( windows.contains( base + 100 * DAY + 2 * TIME.SECOND.time ) );
+    assertFalse( windows.contains( base + 100 * DAY + 5 * TIME.SECOND.time ) );
+  }
+
+  @Test
+  public void testOverlappingWindowsAreMerged() {
+    List<IJobTrigger> overlapping = Arrays.asList(
+      simple( base, null, DAY, 2 * HOUR ),
+      simple( base + HOUR, null, DAY, 2 * HOUR ),
+      complex( "0 0 2 * * ?", HOUR ) ); //$NON-NLS-1$
+    BlockoutWindows windows = BlockoutWindows.build( overlapping, base, base + DAY - 1 );
+
+    assertEquals( 1, windows.size() );
+    assertTrue( windows.contains( base + 3 * HOUR ) );
+    assertFalse( windows.contains( base + 3 * HOUR + 1 ) );
+  }
+
+  private static IJobTrigger simple( long start, Long end, long interval, long duration ) {
+    SimpleJobTrigger trigger =
+      new SimpleJobTrigger( new Date( start ), end == null ? null : new Date( end ), -1, interval / 1000 );
+    trigger.setDuration( duration );
+    return trigger;
+  }
+
+  private IJobTrigger complex( String cronString, long duration ) {
+    ComplexJobTrigger trigger = new ComplexJobTrigger();
+    trigger.setCronString( cronString );
+    trigger.setStartTime( new Date( base - 3 * DAY ) );
+    trigger.setDuration( duration );
+    return trigger;
+  }
+}
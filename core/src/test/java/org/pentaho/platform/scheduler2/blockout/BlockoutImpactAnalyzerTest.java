@@ -0,0 +1,197 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.scheduler2.blockout.BlockoutImpactAnalyzer.Impact;
+import org.pentaho.platform.scheduler2.blockout.BlockoutManagerUtil.TIME;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+public class BlockoutImpactAnalyzerTest {
+
+  private static final long MINUTE = TIME.MINUTE.time;
+
+  private static final long HOUR = TIME.HOUR.time;
+
+  private static final long DAY = TIME.DAY.time;
+
+  private static TimeZone defaultTimeZone;
+
+  /**
+   * Midnight, two days from now, so that cron triggers, which start at the current time, fire after {@link #now}.
+   */
+  private long base;
+
+  private long now;
+
+  private IJobTrigger blockOut;
+
+  private BlockoutImpactAnalyzer analyzer;
+
+  @BeforeClass
+  public static void setUpClass() {
+    defaultTimeZone = TimeZone.getDefault();
+    TimeZone.setDefault( TimeZone.getTimeZone( "UTC" ) );
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    TimeZone.setDefault( defaultTimeZone );
+  }
+
+  @Before
+  public void setUp() {
+    Calendar midnight = Calendar.getInstance();
+    midnight.set( Calendar.HOUR_OF_DAY, 0 );
+    midnight.set( Calendar.MINUTE, 0 );
+    midnight.set( Calendar.SECOND, 0 );
+    midnight.set( Calendar.MILLISECOND, 0 );
+    midnight.add( Calendar.DATE, 2 );
+    base = midnight.getTimeInMillis();
+    now = base - 12 * HOUR;
+
+    // every day from 01:00 to 02:00
+    blockOut = simple( base + HOUR, null, DAY, HOUR );
+    analyzer = new BlockoutImpactAnalyzer( 4, () -> now );
+  }
+
+  @After
+  public void tearDown() {
+    analyzer.shutdown();
+  }
+
+  @Test
+  public void testImpacts() {
+    List<IJobTrigger> schedules = Arrays.asList(
+      simple( base + HOUR + 30 * MINUTE, null, DAY, 0 ),
+      simple( base, null, HOUR, 0 ),
+      simple( base + 12 * HOUR, null, DAY, 0 ),
+      complex( "0 30 1 * * ?" ), //$NON-NLS-1$
+      complex( "0 0 12 * * ?" ), //$NON-NLS-1$
+      simple( base + 3 * HOUR, null, 0, 0 ) );
+
+    assertArrayEquals( new Impact[] { Impact.TOTAL, Impact.PARTIAL, Impact.NONE, Impact.TOTAL, Impact.NONE,
+      Impact.NONE }, analyzer.analyze( blockOut, schedules ) );
+  }
+
+  @Test
+  public void testParallelAnalysisMatchesEngine() {
+    List<IJobTrigger> schedules = new ArrayList<>();
+    for ( int i = 0; i < 50 * BlockoutImpactAnalyzer.SCHEDULES_PER_TASK; i++ ) {
+      schedules.add( simple( base + ( i % 97 ) * 7 * MINUTE, null, ( 1 + i % 5 ) * HOUR, 0 ) );
+    }
+
+    Impact[] impacts = analyzer.analyze( blockOut, schedules );
+
+    BlockoutConflictEngine engine = new BlockoutConflictEngine( Collections.singletonList( blockOut ), now );
+    for ( int i = 0; i < schedules.size(); i++ ) {
+      Impact expected = engine.isTotallyBlocked( schedules.get( i ) ) ? Impact.TOTAL
+        : engine.isPartiallyBlocked( schedules.get( i ) ) ? Impact.PARTIAL : Impact.NONE;
+      assertEquals( "schedule " + i, expected, impacts[ i ] );
+    }
+    assertArrayEquals( impacts, new BlockoutImpactAnalyzer( 1, () -> now ).analyze( blockOut, schedules ) );
+  }
+
+  @Test
+  public void testFireTimesAreReused() {
+    List<IJobTrigger> schedules = Arrays.asList(
+      simple( base + HOUR + 30 * MINUTE, null, DAY, 0 ),
+      simple( base + HOUR + 30 * MINUTE, null, DAY, 0 ),
+      complex( "0 30 1 * * ?" ) ); //$NON-NLS-1$
+
+    Impact[] impacts = analyzer.analyze( blockOut, schedules );
+    assertEquals( 2, analyzer.getSequenceMisses() );
+    assertEquals( 1, analyzer.getSequenceHits() );
+
+    // a different blockout over the same schedules, a little later
+    now += 2 * MINUTE;
+    assertArrayEquals( new Impact[] { Impact.NONE, Impact.NONE, Impact.NONE },
+      analyzer.analyze( simple( base + 3 * HOUR, null, DAY, HOUR ), schedules ) );
+    assertEquals( 2, analyzer.getSequenceMisses() );
+    assertEquals( 4, analyzer.getSequenceHits() );
+    assertArrayEquals( impacts, analyzer.analyze( blockOut, schedules ) );
+
+    now += BlockoutImpactAnalyzer.MAX_SEQUENCE_AGE_MILLIS;
+    assertArrayEquals( impacts, analyzer.analyze( blockOut, schedules ) );
+    assertEquals( 4, analyzer.getSequenceMisses() );
+  }
+
+  @Test
+  public void testReusedFireTimesSkipThosePassed() {
+    IJobTrigger schedule = simple( base, null, HOUR, 0 );
+    long[] fireTimes = analyzer.getFireTimes( schedule, base - MINUTE );
+    long[] reused = analyzer.getFireTimes( schedule, base + 2 * MINUTE );
+
+    assertEquals( 1, analyzer.getSequenceHits() );
+    assertEquals( base, fireTimes[ 0 ] );
+    assertEquals( base + HOUR, reused[ 0 ] );
+    assertEquals( fireTimes.length - 1, reused.length );
+    assertEquals( fireTimes[ fireTimes.length - 1 ], reused[ reused.length - 1 ] );
+  }
+
+  @Test
+  public void testScheduleThatCannotBeCheckedHasNoImpact() {
+    List<IJobTrigger> schedules = Arrays.asList( mock( IJobTrigger.class ), simple( base + HOUR + 30 * MINUTE, null,
+      DAY, 0 ) );
+
+    assertArrayEquals( new Impact[] { Impact.NONE, Impact.TOTAL }, analyzer.analyze( blockOut, schedules ) );
+  }
+
+  @Test
+  public void testEmptyBlockoutHasNoImpact() {
+    List<IJobTrigger> schedules = Collections.singletonList( simple( base, null, HOUR, 0 ) );
+
+    assertArrayEquals( new Impact[] { Impact.NONE },
+      analyzer.analyze( simple( base - 3 * DAY, base - 2 * DAY, DAY, HOUR ), schedules ) );
+    assertEquals( 0, analyzer.getSequenceMisses() );
+  }
+
+  private static IJobTrigger simple( long start, Long end, long interval, long duration ) {
+    SimpleJobTrigger trigger = new SimpleJobTrigger( new Date( start ), end == null ? null : new Date( end ),
+      interval == 0 ? 0 : -1, interval / 1000 );
+    trigger.setDuration( duration );
+    return trigger;
+  }
+
+  private static IJobTrigger complex( String cronString ) {
+    ComplexJobTrigger trigger = new ComplexJobTrigger();
+    trigger.setCronString( cronString );
+    return trigger;
+  }
+}
@@ -0,0 +1,308 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.scheduler2.blockout.BlockoutManagerUtil.TIME;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BlockoutRegistryTest {
+
+  private static final long START = 1700000000000L;
+
+  private long now;
+
+  private int loadCount;
+
+  private RuntimeException loadFailure;
+
+  private List<IJobTrigger> blockOuts;
+
+  private BlockoutRegistry registry;
+
+  @Before
+  public void setUp() {
+    now = START;
+    loadCount = 0;
+    loadFailure = null;
+    blockOuts = new ArrayList<>();
+    registry = new BlockoutRegistry( TIME.MINUTE.time, TIME.HOUR.time, 10000, () -> now );
+  }
+
+  @Test
+  public void testNoBlockouts() {
+    assertTrue( shouldFireNow() );
+  }
+
+  @Test
+  public void testRecurringBlockout() {
+    // every 2 hours for 30 minutes
+    blockOuts.add( simpleBlockOut( START, null, 2 * TIME.HOUR.time, 30 * TIME.MINUTE.time ) );
+
+    assertFalse( shouldFireNow() );
+    now = START + 30 * TIME.MINUTE.time;
+    assertFalse( shouldFireNow() );
+    now += 1;
+    assertTrue( shouldFireNow() );
+    now = START + 2 * TIME.HOUR.time - 1;
+    assertTrue( shouldFireNow() );
+    now += 1;
+    assertFalse( shouldFireNow() );
+    now = START + 200 * TIME.HOUR.time + 10 * TIME.MINUTE.time;
+    assertFalse( shouldFireNow() );
+  }
+
+  @Test
+  public void testBlockoutBeforeStartAndAfterEnd() {
+    blockOuts.add( simpleBlockOut( START + TIME.HOUR.time, START + 3 * TIME.HOUR.time, TIME.HOUR.time,
+      30 * TIME.MINUTE.time ) );
+
+    assertTrue( shouldFireNow() );
+    now = START + 3 * TIME.HOUR.time + TIME.MINUTE.time;
+    assertTrue( shouldFireNow() );
+    now = START + 3 * TIME.HOUR.time;
+    assertFalse( shouldFireNow() );
+  }
+
+  @Test
+  public void testSingleBlockout() {
+    blockOuts.add( simpleBlockOut( START, null, 0, TIME.HOUR.time ) );
+
+    assertTrue( shouldFireNow() );
+    now = START + TIME.MINUTE.time;
+    assertFalse( shouldFireNow() );
+    now = START + TIME.HOUR.time;
+    assertTrue( shouldFireNow() );
+  }
+
+  @Test
+  public void testComplexBlockout() {
+    Calendar topOfHour = Calendar.getInstance();
+    topOfHour.setTimeInMillis( START );
+    topOfHour.set( Calendar.MINUTE, 0 );
+    topOfHour.set( Calendar.SECOND, 0 );
+    topOfHour.set( Calendar.MILLISECOND, 0 );
+    ComplexJobTrigger hourly = new ComplexJobTrigger();
+    hourly.setCronString( "0 0 * * * ?" );
+    hourly.setStartTime( new Date( topOfHour.getTimeInMillis() - TIME.DAY.time ) );
+    hourly.setDuration( 10 * TIME.MINUTE.time );
+    blockOuts.add( hourly );
+
+    now = topOfHour.getTimeInMillis() + 5 * TIME.MINUTE.time;
+    assertFalse( shouldFireNow() );
+    now = topOfHour.getTimeInMillis() + 15 * TIME.MINUTE.time;
+    assertTrue( shouldFireNow() );
+    now = topOfHour.getTimeInMillis() + 3 * TIME.HOUR.time;
+    assertFalse( shouldFireNow() );
+  }
+
+  @Test
+  public void testComplexBlockoutDoesNotFireBeforeItsStart() {
+    Calendar topOfHour = Calendar.getInstance();
+    topOfHour.setTimeInMillis( START );
+    topOfHour.set( Calendar.MINUTE, 0 );
+    topOfHour.set( Calendar.SECOND, 0 );
+    topOfHour.set( Calendar.MILLISECOND, 0 );
+    ComplexJobTrigger hourly = new ComplexJobTrigger();
+    hourly.setCronString( "0 0 * * * ?" );
+    hourly.setStartTime( new Date( topOfHour.getTimeInMillis() + 30 * TIME.MINUTE.time ) );
+    hourly.setDuration( 45 * TIME.MINUTE.time );
+    blockOuts.add( hourly );
+
+    // the window of the fire time before the start is not clipped to the start
+    now = topOfHour.getTimeInMillis() + 35 * TIME.MINUTE.time;
+    assertTrue( shouldFireNow() );
+    now = topOfHour.getTimeInMillis() + 65 * TIME.MINUTE.time;
+    assertFalse( shouldFireNow() );
+  }
+
+  @Test
+  public void testSimpleBlockoutEndsAfterItsRepeatCount() {
+    // 3 times, an hour apart
+    SimpleJobTrigger trigger = new SimpleJobTrigger( new Date( START ), null, 2, TIME.HOUR.time / 1000 );
+    trigger.setDuration( 10 * TIME.MINUTE.time );
+    blockOuts.add( trigger );
+
+    now = START + 2 * TIME.HOUR.time + 5 * TIME.MINUTE.time;
+    assertFalse( shouldFireNow() );
+    now = START + 3 * TIME.HOUR.time + 5 * TIME.MINUTE.time;
+    assertTrue( shouldFireNow() );
+  }
+
+  @Test
+  public void testFrequentSimpleBlockoutEndsAfterItsRepeatCount() {
+    registry = new BlockoutRegistry( TIME.DAY.time, TIME.DAY.time, 10000, () -> now );
+    // every second for half a second, 20000 times: checked arithmetically rather than materialized
+    SimpleJobTrigger trigger = new SimpleJobTrigger( new Date( START ), null, 19999, 1 );
+    trigger.setDuration( 500 );
+    blockOuts.add( trigger );
+
+    now = START + 100;
+    assertFalse( shouldFireNow() );
+    now = START + 19999 * 1000L + 100;
+    assertFalse( shouldFireNow() );
+    now = START + 20000 * 1000L + 100;
+    assertTrue( shouldFireNow() );
+    assertEquals( 1, loadCount );
+  }
+
+  @Test
+  public void testOverlappingBlockoutsAreMerged() {
+    blockOuts.add( simpleBlockOut( START, null, TIME.DAY.time, 20 * TIME.MINUTE.time ) );
+    blockOuts.add( simpleBlockOut( START + 10 * TIME.MINUTE.time, null, TIME.DAY.time, 20 * TIME.MINUTE.time ) );
+
+    now = START + 25 * TIME.MINUTE.time;
+    assertFalse( shouldFireNow() );
+    now = START + 31 * TIME.MINUTE.time;
+    assertTrue( shouldFireNow() );
+  }
+
+  @Test
+  public void testTriggersAreLoadedOnlyWhenInvalidatedOrTooOld() {
+    blockOuts.add( simpleBlockOut( START, null, 2 * TIME.HOUR.time, 30 * TIME.MINUTE.time ) );
+
+    for ( int i = 0; i < 100; i++ ) {
+      shouldFireNow();
+    }
+    assertEquals( 1, loadCount );
+
+    blockOuts.clear();
+    assertFalse( shouldFireNow() );
+    registry.invalidate();
+    assertTrue( shouldFireNow() );
+    assertEquals( 2, loadCount );
+
+    now += TIME.MINUTE.time;
+    shouldFireNow();
+    assertEquals( 3, loadCount );
+  }
+
+  @Test
+  public void testHorizonIsExtendedWithoutReloading() {
+    registry = new BlockoutRegistry( TIME.DAY.time, TIME.HOUR.time, 10000, () -> now );
+    blockOuts.add( simpleBlockOut( START, null, 2 * TIME.HOUR.time, 30 * TIME.MINUTE.time ) );
+
+    assertFalse( shouldFireNow() );
+    now = START + 2 * TIME.HOUR.time + TIME.MINUTE.time;
+    assertFalse( shouldFireNow() );
+    now = START + 5 * TIME.HOUR.time;
+    assertTrue( shouldFireNow() );
+    assertEquals( 1, loadCount );
+  }
+
+  @Test
+  public void testFailedLoadKeepsTheTriggersLoadedBefore() {
+    blockOuts.add( simpleBlockOut( START, null, 2 * TIME.HOUR.time, 30 * TIME.MINUTE.time ) );
+    assertFalse( shouldFireNow() );
+
+    loadFailure = new IllegalStateException( "job store unavailable" );
+    registry.invalidate();
+    assertFalse( shouldFireNow() );
+    assertEquals( 2, loadCount );
+
+    // not retried on every fire
+    now += 5000;
+    assertFalse( shouldFireNow() );
+    assertEquals( 2, loadCount );
+
+    now += 5000;
+    loadFailure = null;
+    blockOuts.clear();
+    assertTrue( shouldFireNow() );
+    assertEquals( 3, loadCount );
+  }
+
+  @Test
+  public void testFailedFirstLoadFailsTheFire() {
+    loadFailure = new IllegalStateException( "job store unavailable" );
+    try {
+      shouldFireNow();
+      fail();
+    } catch ( IllegalStateException e ) {
+      assertSame( loadFailure, e );
+    }
+
+    loadFailure = null;
+    assertTrue( shouldFireNow() );
+    assertEquals( 2, loadCount );
+  }
+
+  @Test
+  public void testActivatedWindowBlocksWithoutBlockoutTriggers() {
+    registry.activate( START - TIME.MINUTE.time, START + TIME.HOUR.time );
+
+    assertTrue( registry.isInBlockout() );
+    assertEquals( START + TIME.HOUR.time, registry.getActiveUntil() );
+    assertFalse( shouldFireNow() );
+
+    // an overlapping blockout that fired at the same time
+    registry.activate( START - TIME.MINUTE.time, START + 2 * TIME.HOUR.time );
+    now = START + TIME.HOUR.time + 1;
+    assertFalse( shouldFireNow() );
+
+    now = START + 2 * TIME.HOUR.time + 1;
+    assertFalse( registry.isInBlockout() );
+    assertEquals( -1, registry.getActiveUntil() );
+    assertTrue( shouldFireNow() );
+  }
+
+  @Test
+  public void testExpiredOrFutureWindowIsNotActive() {
+    registry.activate( START - TIME.HOUR.time, START - 1 );
+    assertFalse( registry.isInBlockout() );
+
+    registry.activate( START + TIME.HOUR.time, START + 2 * TIME.HOUR.time );
+    assertFalse( registry.isInBlockout() );
+    now = START + TIME.HOUR.time;
+    assertTrue( registry.isInBlockout() );
+  }
+
+  private boolean shouldFireNow() {
+    return registry.shouldFireNow( () -> {
+      loadCount++;
+      if ( loadFailure != null ) {
+        throw loadFailure;
+      }
+      return blockOuts;
+    } );
+  }
+
+  private static IJobTrigger simpleBlockOut( long start, Long end, long interval, long duration ) {
+    SimpleJobTrigger trigger = new SimpleJobTrigger( new Date( start ), end == null ? null : new Date( end ), -1,
+      interval / 1000 );
+    trigger.setDuration( duration );
+    return trigger;
+  }
+}
@@ -0,0 +1,393 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.scheduler2.blockout.BlockoutManagerUtil.TIME;
+import org.pentaho.platform.scheduler2.quartz.QuartzJobKey;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+import org.quartz.Trigger;
+
+/**
+ * The fire time enumeration that {@link BlockoutManagerUtil} used before {@link BlockoutConflictEngine}, kept as the
+ * reference for the equivalence tests. Fire times are taken after a fixed instant rather than the current time, and
+ * the last runs of the blockout jobs are not added to them.
+ */
+class LegacyBlockoutManagerUtil {
+
+  private final long now;
+
+  LegacyBlockoutManagerUtil( long now ) {
+    this.now = now;
+  }
+
+  boolean willFire( IJobTrigger jobTrigger, List<IJobTrigger> blockOutTriggers ) {
+
+    // Short return as to avoid having to calculate fire times
+    if ( blockOutTriggers.isEmpty() ) {
+      return true;
+    }
+
+    List<Date> fireTimes = getFireTimes( jobTrigger );
+
+    for ( IJobTrigger blockOutJobTrigger : blockOutTriggers ) {
+
+      // We must verify further if the schedule is blocked completely or if it will fire
+      if ( willBlockSchedule( jobTrigger, blockOutJobTrigger ) ) {
+
+        boolean isBlockoutComplex = BlockoutManagerUtil.isComplexTrigger( blockOutJobTrigger );
+
+        // If recurrence intervals are the same, it will never fire
+        if ( !isBlockoutComplex && !BlockoutManagerUtil.isComplexTrigger( jobTrigger )
+            && getRecurrenceInterval( blockOutJobTrigger ) == getRecurrenceInterval( jobTrigger ) ) {
+          return false;
+        }
+
+        List<Date> blockoutFireTimes = null;
+        if ( isBlockoutComplex ) {
+          blockoutFireTimes = getFireTimes( blockOutJobTrigger );
+        }
+
+        // Loop through fire times and verify whether block out is blocking the schedule completely
+        boolean scheduleCompletelyBlocked = true;
+        for ( Date fireTime : fireTimes ) {
+          scheduleCompletelyBlocked =
+              isBlockoutComplex ? willComplexBlockOutTriggerBlockDate( blockOutJobTrigger, blockoutFireTimes, fireTime )
+                  : willBlockDate( blockOutJobTrigger, fireTime );
+
+          if ( !scheduleCompletelyBlocked ) {
+            break;
+          }
+        }
+
+        // Return false if after n iterations
+        if ( scheduleCompletelyBlocked ) {
+          return false;
+        }
+      }
+    }
+
+    return true;
+  }
+
+  boolean willBlockSchedule( IJobTrigger scheduleTrigger, IJobTrigger blockOutJobTrigger ) {
+
+    boolean isScheduleTriggerComplex = BlockoutManagerUtil.isComplexTrigger( scheduleTrigger );
+    boolean isBlockOutTriggerComplex = BlockoutManagerUtil.isComplexTrigger( blockOutJobTrigger );
+
+    // Both Schedule and BlockOut are complex
+    if ( isScheduleTriggerComplex && isBlockOutTriggerComplex ) {
+      return willComplexBlockOutBlockComplexScheduleTrigger( blockOutJobTrigger, scheduleTrigger );
+    }
+
+    // Complex Schedule Trigger
+    if ( isScheduleTriggerComplex ) {
+      return willBlockComplexScheduleTrigger( scheduleTrigger, blockOutJobTrigger );
+    }
+
+    // Complex BlockOut Trigger
+    if ( isBlockOutTriggerComplex ) {
+      return willComplexBlockOutTriggerBlockSchedule( blockOutJobTrigger, scheduleTrigger );
+    }
+
+    /*
+     * Both blockOut and schedule triggers are simple. Continue with mathematical calculations
+     */
+    long blockOutRecurrence = getRecurrenceInterval( blockOutJobTrigger );
+    long scheduleRecurrence = getRecurrenceInterval( scheduleTrigger );
+
+    for ( int i = 0; i < 1000; i++ ) {
+      double shiftBy = ( blockOutRecurrence - scheduleRecurrence ) * i / (double) scheduleRecurrence;
+
+      double x1 =
+          ( blockOutJobTrigger.getStartTime().getTime() - scheduleTrigger.getStartTime().getTime() )
+              / (double) scheduleRecurrence + shiftBy;
+
+      double x2 =
+          ( blockOutJobTrigger.getStartTime().getTime() + blockOutJobTrigger.getDuration() - scheduleTrigger
+              .getStartTime().getTime() )
+              / (double) scheduleRecurrence + shiftBy;
+
+      if ( hasIntBetween( x1, x2 ) ) {
+
+        int xShift = (int) Math.ceil( x1 < x2 ? x1 : x2 );
+
+        long scheduleDate = scheduleTrigger.getStartTime().getTime() + scheduleRecurrence * ( i + xShift );
+        long blockOutStartDate = blockOutJobTrigger.getStartTime().getTime() + blockOutRecurrence * i;
+
+        // Test intersection of dates fall within range
+        if ( scheduleTrigger.getStartTime().getTime() <= scheduleDate
+            && ( scheduleTrigger.getEndTime() == null || scheduleDate <= scheduleTrigger.getEndTime().getTime() )
+            && blockOutJobTrigger.getStartTime().getTime() <= blockOutStartDate
+            && ( blockOutJobTrigger.getEndTime() == null || blockOutStartDate <= blockOutJobTrigger.getEndTime()
+                .getTime() ) ) {
+          return true;
+        }
+      }
+    }
+
+    return false;
+  }
+
+  private boolean willComplexBlockOutTriggerBlockSchedule( IJobTrigger blockOutJobTrigger,
+      IJobTrigger scheduleTrigger ) {
+
+    // Short circuit if schedule trigger after end time of block out trigger
+    if ( ( blockOutJobTrigger.getEndTime() != null && scheduleTrigger.getStartTime().after(
+        blockOutJobTrigger.getEndTime() ) )
+        || ( scheduleTrigger.getEndTime() != null && blockOutJobTrigger.getStartTime().after(
+            scheduleTrigger.getEndTime() ) ) ) {
+      return false;
+    }
+
+    long duration = blockOutJobTrigger.getDuration();
+
+    // Loop through fire times of block out trigger
+    for ( Date blockOutStartDate : getFireTimes( blockOutJobTrigger ) ) {
+      Date blockOutEndDate = new Date( blockOutStartDate.getTime() + duration );
+
+      if ( willBlockOutRangeBlockSimpleTrigger( blockOutStartDate, blockOutEndDate, scheduleTrigger ) ) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private boolean willBlockOutRangeBlockSimpleTrigger( Date startBlockOutRange, Date endBlockOutRange,
+      IJobTrigger scheduleTrigger ) {
+    // ( S1 - S ) / R <= x <= ( S2 - S ) / R
+
+    double recurrence = getRecurrenceInterval( scheduleTrigger );
+    recurrence = recurrence != 0 ? recurrence : 1;
+    double x1 = ( startBlockOutRange.getTime() - scheduleTrigger.getStartTime().getTime() ) / recurrence;
+    double x2 = ( endBlockOutRange.getTime() - scheduleTrigger.getStartTime().getTime() ) / recurrence;
+
+    return hasPositiveIntBetween( x1, x2 );
+  }
+
+  private boolean willBlockComplexScheduleTrigger( IJobTrigger trigger, IJobTrigger blockOut ) {
+
+    for ( Date fireTime : getFireTimes( trigger ) ) {
+      if ( willBlockDate( blockOut, fireTime ) ) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private boolean willComplexBlockOutBlockComplexScheduleTrigger( IJobTrigger blockOutJobTrigger,
+      IJobTrigger jobTrigger ) {
+    List<Date> blockOutFireTimes = getFireTimes( blockOutJobTrigger );
+
+    int iStart = 0;
+    for ( Date scheduleFireTime : getFireTimes( jobTrigger ) ) {
+      for ( int i = iStart; i < blockOutFireTimes.size(); i++ ) {
+        Date blockOutStartDate = blockOutFireTimes.get( i );
+
+        // BlockOut start date after scheduled fire time
+        if ( blockOutStartDate.after( scheduleFireTime ) ) {
+          iStart = i;
+          break;
+        }
+
+        Date blockOutEndDate = new Date( blockOutStartDate.getTime() + blockOutJobTrigger.getDuration() );
+
+        if ( isDateIncludedInRangeInclusive( blockOutStartDate, blockOutEndDate, scheduleFireTime ) ) {
+          return true;
+        }
+      }
+
+    }
+
+    return false;
+  }
+
+  private boolean willBlockDate( IJobTrigger blockOutJobTrigger, Date date ) {
+    // S + Rx <= d <= S + Rx + D
+
+    // Out of range of block out
+    if ( date.before( blockOutJobTrigger.getStartTime() )
+        || ( blockOutJobTrigger.getEndTime() != null && date.after( blockOutJobTrigger.getEndTime() ) ) ) {
+      return false;
+    }
+
+    if ( BlockoutManagerUtil.isComplexTrigger( blockOutJobTrigger ) ) {
+      return willComplexBlockOutTriggerBlockDate( blockOutJobTrigger, getFireTimes( blockOutJobTrigger ),
+          date );
+    }
+
+    long blockOutRecurrenceInterval = getRecurrenceInterval( blockOutJobTrigger );
+
+    double x1 = ( date.getTime() - blockOutJobTrigger.getStartTime().getTime() ) / (double) blockOutRecurrenceInterval;
+    double x2 =
+        ( date.getTime() - ( blockOutJobTrigger.getStartTime().getTime() + blockOutJobTrigger.getDuration() ) )
+            / (double) blockOutRecurrenceInterval;
+
+    return hasPositiveIntBetween( x1, x2 );
+  }
+
+  private boolean willComplexBlockOutTriggerBlockDate( IJobTrigger blockOutJobTrigger, List<Date> blockOutDates,
+      Date date ) {
+
+    // Short circuit if date does not fall within a valid start/end date range
+    if ( date.before( blockOutJobTrigger.getStartTime() )
+        || ( blockOutJobTrigger.getEndTime() != null && date.after( blockOutJobTrigger.getEndTime() ) ) ) {
+      return false;
+    }
+
+    long blockOutDuration = blockOutJobTrigger.getDuration();
+    for ( Date blockOutStartDate : blockOutDates ) {
+
+      // Block out date has passed the date being tested
+      if ( blockOutStartDate.after( date ) ) {
+        break;
+      }
+
+      Date blockOutEndDate = new Date( blockOutStartDate.getTime() + blockOutDuration );
+
+      // Date falls within inclusive block out range
+      if ( isDateIncludedInRangeInclusive( blockOutStartDate, blockOutEndDate, date ) ) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private long getRecurrenceInterval( IJobTrigger jobTrigger ) {
+
+    if ( !BlockoutManagerUtil.isComplexTrigger( jobTrigger ) ) {
+      return ( (SimpleJobTrigger) jobTrigger ).getRepeatInterval() * 1000; // Have to convert to milliseconds
+    }
+
+    throw new RuntimeException( "Can not get recurrence interval from JobTriggers which are not SimpleJobTrigger" ); //$NON-NLS-1$
+  }
+
+  List<Date> getFireTimes( IJobTrigger jobTrigger ) {
+    // Determines the maximum amount of fire times allowed to be calculated
+    int n = 1000;
+
+    Date startDate = new Date( now );
+    Date endDate = new Date( startDate.getTime() + 4 * TIME.YEAR.time );
+
+    try {
+      List<Date> dates = new ArrayList<Date>();
+      boolean endDateIsNull = jobTrigger.getEndTime() == null;
+      Trigger trigger = QuartzScheduler.createQuartzTrigger( jobTrigger, new QuartzJobKey( "test", "test" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+
+      for ( int i = 0; i < n; i++ ) {
+        Date nextFireTime = trigger.getFireTimeAfter( startDate );
+
+        if ( ( nextFireTime == null )
+            || ( nextFireTime.after( endDate ) || ( !endDateIsNull
+                && nextFireTime.after( jobTrigger.getEndTime() ) ) ) ) {
+          break;
+        }
+
+        dates.add( nextFireTime );
+        startDate = nextFireTime;
+      }
+
+      return dates;
+
+    } catch ( SchedulerException e ) {
+      throw new RuntimeException( e );
+    }
+  }
+
+  boolean shouldFireNow( List<IJobTrigger> blockOutJobTriggers ) {
+
+    Date currentTime = new Date( now );
+    for ( IJobTrigger blockOutJobTrigger : blockOutJobTriggers ) {
+
+      if ( willBlockDate( blockOutJobTrigger, currentTime ) ) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  boolean isPartiallyBlocked( IJobTrigger scheduleJobTrigger, List<IJobTrigger> blockOutJobTriggers ) {
+
+    // Loop through blockout triggers
+    for ( IJobTrigger blockOut : blockOutJobTriggers ) {
+      if ( willBlockSchedule( scheduleJobTrigger, blockOut ) ) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * @param x1
+   *          double
+   * @param x2
+   *          double
+   * @return whether an {@link Integer} exists between x1 and x2
+   */
+  private boolean hasIntBetween( double x1, double x2 ) {
+    double ceilX = Math.ceil( x1 );
+    double floorX = Math.floor( x2 );
+
+    if ( x1 > x2 ) {
+      ceilX = Math.ceil( x2 );
+      floorX = Math.floor( x1 );
+    }
+
+    return ( floorX - ceilX ) >= 0;
+  }
+
+  /**
+   * @param x1
+   *          double
+   * @param x2
+   *          double
+   * @return whether there is a positive integer between x1 and x2
+   */
+  private boolean hasPositiveIntBetween( double x1, double x2 ) {
+    return ( x1 < x2 ? x2 >= 0 : x1 >= 0 ) && hasIntBetween( x1, x2 );
+  }
+
+  /**
+   * @param dateRangeStart
+   *          {@link Date} start of range
+   * @param dateRangeEnd
+   *          {@link Date} end of range
+   * @param date
+   *          {@link Date}
+   * @return whether the date falls within the date inclusive date range
+   */
+  private boolean isDateIncludedInRangeInclusive( Date dateRangeStart, Date dateRangeEnd, Date date ) {
+    long dateTime = date.getTime();
+    return dateRangeStart.getTime() <= dateTime && dateTime <= dateRangeEnd.getTime();
+  }
+
+}
@@ -0,0 +1,209 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.platform.scheduler2.quartz.AuditRecordWriter.AuditRecord;
+import org.pentaho.platform.scheduler2.quartz.AuditRecordWriter.OverflowPolicy;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AuditRecordWriterTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final List<String> written = Collections.synchronizedList( new ArrayList<>() );
+
+  private final CountDownLatch writing = new CountDownLatch( 1 );
+
+  private final CountDownLatch release = new CountDownLatch( 1 );
+
+  private File spillFile;
+
+  private AuditRecordWriter writer;
+
+  @Before
+  public void setUp() {
+    spillFile = new File( temporaryFolder.getRoot(), "audit.spill" );
+  }
+
+  @After
+  public void tearDown() {
+    release.countDown();
+    if ( writer != null ) {
+      writer.flush();
+    }
+  }
+
+  @Test
+  public void testRecordsAreWrittenInOrder() {
+    writer = new AuditRecordWriter( 100, 2, OverflowPolicy.BLOCK, spillFile, record -> written.add(
+      record.getProcessId() ) );
+    for ( int i = 0; i < 5; i++ ) {
+      writer.submit( record( "action" + i ) );
+    }
+    writer.flush();
+
+    assertEquals( 5, written.size() );
+    for ( int i = 0; i < 5; i++ ) {
+      assertEquals( "action" + i, written.get( i ) );
+    }
+    assertEquals( 5, writer.getSubmittedCount() );
+    assertEquals( 5, writer.getWrittenCount() );
+    assertEquals( 0, writer.getQueueDepth() );
+    assertTrue( writer.getBatchCount() >= 3 );
+  }
+
+  @Test
+  public void testRecordIsDroppedWhenTheQueueIsFull() throws Exception {
+    writer = new AuditRecordWriter( 1, 10, OverflowPolicy.DROP, spillFile, this::writeSlowly );
+    fillQueue();
+    writer.submit( record( "action3" ) );
+
+    assertEquals( 1, writer.getDroppedCount() );
+    assertEquals( 1, writer.getQueueDepth() );
+    release.countDown();
+    writer.flush();
+    assertEquals( 2, writer.getWrittenCount() );
+    assertEquals( "action2", written.get( 1 ) );
+  }
+
+  @Test
+  public void testRecordIsSpilledWhenTheQueueIsFullAndWrittenLater() throws Exception {
+    writer = new AuditRecordWriter( 1, 10, OverflowPolicy.SPILL, spillFile, this::writeSlowly );
+    fillQueue();
+    writer.submit( record( "action3" ) );
+
+    assertEquals( 1, writer.getSpilledCount() );
+    assertTrue( spillFile.exists() );
+    release.countDown();
+    writer.flush();
+    assertEquals( 3, writer.getWrittenCount() );
+    assertEquals( "action3", written.get( 2 ) );
+    assertFalse( spillFile.exists() );
+  }
+
+  @Test
+  public void testJobWaitsForRoomWhenTheQueueIsFull() throws Exception {
+    writer = new AuditRecordWriter( 1, 10, OverflowPolicy.BLOCK, spillFile, this::writeSlowly );
+    fillQueue();
+    Thread job = new Thread( () -> writer.submit( record( "action3" ) ) );
+    job.start();
+    job.join( 200 );
+
+    assertTrue( job.isAlive() );
+    release.countDown();
+    job.join( 10000 );
+    assertFalse( job.isAlive() );
+    writer.flush();
+    assertEquals( 1, writer.getBlockedCount() );
+    assertEquals( 3, writer.getWrittenCount() );
+  }
+
+  @Test
+  public void testSpillFileOfAPreviousProcessIsWritten() throws Exception {
+    AuditRecord spilled = new AuditRecord( "session", "admin", "input = /a\tb.prpt:outputFile = /c\\d.*", null,
+      "action1", "instance_end", "lineage", 1.5f );
+    Files.write( spillFile.toPath(), Collections.singletonList( spilled.toLine() ), StandardCharsets.UTF_8 );
+    List<AuditRecord> records = new ArrayList<>();
+    writer = new AuditRecordWriter( 10, 10, OverflowPolicy.SPILL, spillFile, records::add );
+    writer.flush();
+
+    assertEquals( 1, records.size() );
+    AuditRecord record = records.get( 0 );
+    assertEquals( "admin", record.getUserId() );
+    assertEquals( "input = /a\tb.prpt:outputFile = /c\\d.*", record.getActionName() );
+    assertNull( record.getObjectType() );
+    assertEquals( "instance_end", record.getMessageType() );
+    assertEquals( 1.5f, record.getDuration(), 0 );
+    assertFalse( spillFile.exists() );
+  }
+
+  @Test
+  public void testFailedWritesAreCounted() {
+    writer = new AuditRecordWriter( 10, 10, OverflowPolicy.BLOCK, spillFile, record -> {
+      throw new IllegalStateException( "audit database is down" );
+    } );
+    writer.submit( record( "action1" ) );
+    writer.flush();
+
+    assertEquals( 1, writer.getFailedCount() );
+    assertEquals( 0, writer.getWrittenCount() );
+  }
+
+  @Test
+  public void testCreate() {
+    assertNull( AuditRecordWriter.create( null ) );
+    Properties properties = new Properties();
+    assertNull( AuditRecordWriter.create( properties ) );
+
+    properties.setProperty( AuditRecordWriter.PROP_ASYNC_ENABLED, "true" );
+    properties.setProperty( AuditRecordWriter.PROP_QUEUE_SIZE, "50" );
+    properties.setProperty( AuditRecordWriter.PROP_OVERFLOW_POLICY, "drop" );
+    AuditRecordWriter created = AuditRecordWriter.create( properties );
+    assertEquals( 50, created.getQueueCapacity() );
+    assertEquals( AuditRecordWriter.DEFAULT_BATCH_SIZE, created.getBatchSize() );
+    assertEquals( OverflowPolicy.DROP, created.getOverflowPolicy() );
+    assertEquals( AuditRecordWriter.DEFAULT_SPILL_FILE_NAME, created.getSpillFile().getName() );
+
+    properties.setProperty( AuditRecordWriter.PROP_OVERFLOW_POLICY, "wait" );
+    assertEquals( OverflowPolicy.BLOCK, AuditRecordWriter.create( properties ).getOverflowPolicy() );
+  }
+
+  // the writer thread takes the first record and waits in the sink, the second fills the queue
+  private void fillQueue() throws InterruptedException {
+    writer.submit( record( "action1" ) );
+    assertTrue( writing.await( 10, TimeUnit.SECONDS ) );
+    writer.submit( record( "action2" ) );
+  }
+
+  private void writeSlowly( AuditRecord record ) {
+    writing.countDown();
+    try {
+      release.await( 10, TimeUnit.SECONDS );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    written.add( record.getProcessId() );
+  }
+
+  private static AuditRecord record( String processId ) {
+    return new AuditRecord( "session", "admin", "input = /public/Sales.prpt:outputFile = /home/admin/Sales.*",
+      BlockingQuartzJob.class.getName(), processId, "instance_start", "lineage", 0 );
+  }
+}
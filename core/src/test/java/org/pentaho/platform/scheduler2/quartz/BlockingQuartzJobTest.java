@@ -20,25 +20,43 @@
 
 package org.pentaho.platform.scheduler2.quartz;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.jmock.Expectations;
 import org.jmock.Mockery;
+import org.jmock.api.Invocation;
+import org.jmock.lib.action.CustomAction;
 import org.jmock.lib.legacy.ClassImposteriser;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.pentaho.platform.api.scheduler2.IBlockoutManager;
+import org.pentaho.platform.api.scheduler2.JobTrigger;
 import org.pentaho.platform.engine.core.audit.MDCUtil;
+import org.pentaho.platform.engine.core.audit.MessageTypes;
 import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.StandaloneSession;
+import org.pentaho.platform.scheduler2.blockout.BlockoutRegistry;
 import org.quartz.Job;
 import org.quartz.JobDetail;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.quartz.SchedulerException;
+import org.quartz.SimpleTrigger;
+import org.quartz.UnableToInterruptJobException;
 
 /**
  * Unit tests for BlockingQuartzJob
@@ -52,6 +70,20 @@ public class BlockingQuartzJobTest {
 
   private IBlockoutManager blockoutManager;
 
+  private BlockoutRegistry blockoutRegistry;
+
+  private JobAdmissionControl admissionControl;
+
+  private JobHistoryStore jobHistoryStore;
+
+  private List<String> auditMessageTypes = new ArrayList<>();
+
+  private SchedulerMetrics metrics;
+
+  private ExecutionTraceRecorder traceRecorder;
+
+  private JobWatchdog watchdog;
+
   private Mockery mockery;
 
   private Log logger;
@@ -126,6 +158,22 @@ public class BlockingQuartzJobTest {
     blockingJob.execute( context );
   }
 
+  @Test
+  public void testJobIsBlockedDuringAnActiveBlockoutWithoutAskingTheBlockoutManager() throws JobExecutionException {
+    blockoutRegistry = new BlockoutRegistry();
+    blockoutRegistry.activate( System.currentTimeMillis() - 1000, System.currentTimeMillis() + 60000 );
+    BlockingQuartzJob blockingJob = createTestBlockingJob( false );
+    mockery.checking( new Expectations() {
+      {
+        never( blockoutManager ).shouldFireNow();
+        one( logger ).warn( "Job 'myjob' attempted to run during a blockout period.  This job was not executed" );
+        allowing( context ).getJobDetail();
+        will( returnValue( new JobDetail( "myjob", BlockingQuartzJob.class ) ) );
+      }
+    } );
+    blockingJob.execute( context );
+  }
+
   @Test
   public void testJobIsRunWhenNoBlockout() throws JobExecutionException {
     BlockingQuartzJob blockingJob = createTestBlockingJob( false );
@@ -149,6 +197,236 @@ public class BlockingQuartzJobTest {
     blockingJob.execute( context );
   }
 
+  @Test
+  public void testJobIsSkippedWhenNotAdmitted() throws JobExecutionException {
+    admissionControl = new JobAdmissionControl( Collections.singletonMap( "prpt", 1 ), 0, 0, 0 );
+    admissionControl.admit( "prpt" );
+    JobDetail jobDetail = new JobDetail( "myjob", BlockingQuartzJob.class );
+    jobDetail.getJobDataMap().put( QuartzScheduler.RESERVEDMAPKEY_STREAMPROVIDER,
+      "input = /home/admin/Sales.prpt:outputFile = /home/admin/Sales.*" );
+    BlockingQuartzJob blockingJob = createTestBlockingJob( false );
+    mockery.checking( new Expectations() {
+      {
+        one( blockoutManager ).shouldFireNow();
+        will( returnValue( true ) );
+        never( underlyingJob ).execute( with( any( JobExecutionContext.class ) ) );
+        one( logger ).warn( "Job 'myjob' was not admitted as too many jobs of its type are running or waiting."
+          + "  This job was not executed" );
+        allowing( context ).getJobDetail();
+        will( returnValue( jobDetail ) );
+        allowing( context ).getTrigger();
+        will( returnValue( new SimpleTrigger( "myjob", "admin" ) ) );
+      }
+    } );
+    blockingJob.execute( context );
+    assertEquals( 1, admissionControl.getRejectedCount() );
+    assertEquals( 1, admissionControl.getRunningCount( "prpt" ) );
+  }
+
+  @Test
+  public void testRejectedFireIsAuditedAndRecordedAsSkipped() throws JobExecutionException {
+    admissionControl = new JobAdmissionControl( Collections.singletonMap( "prpt", 1 ), 0, 0, 0 );
+    admissionControl.admit( "prpt" );
+    jobHistoryStore = new JobHistoryStore();
+    JobDetail jobDetail = new JobDetail( "myjob", BlockingQuartzJob.class );
+    jobDetail.getJobDataMap().put( QuartzScheduler.RESERVEDMAPKEY_STREAMPROVIDER,
+      "input = /home/admin/Sales.prpt:outputFile = /home/admin/Sales.*" );
+    BlockingQuartzJob blockingJob = createTestBlockingJob( false );
+    mockery.checking( new Expectations() {
+      {
+        one( blockoutManager ).shouldFireNow();
+        will( returnValue( true ) );
+        never( underlyingJob ).execute( with( any( JobExecutionContext.class ) ) );
+        one( logger ).warn( "Job 'myjob' was not admitted as too many jobs of its type are running or waiting."
+          + "  This job was not executed" );
+        allowing( context ).getJobDetail();
+        will( returnValue( jobDetail ) );
+        allowing( context ).getTrigger();
+        will( returnValue( new SimpleTrigger( "myjob", "admin" ) ) );
+      }
+    } );
+    blockingJob.execute( context );
+
+    // audited as a fire during a blockout is, without a failure
+    assertEquals( Collections.singletonList( MessageTypes.INSTANCE_START ), auditMessageTypes );
+    List<JobHistoryStore.JobRun> runs = jobHistoryStore.getRuns( "myjob", 10 );
+    assertEquals( 1, runs.size() );
+    assertEquals( JobHistoryStore.Outcome.SKIPPED, runs.get( 0 ).getOutcome() );
+    assertEquals( 0, runs.get( 0 ).getDuration() );
+    assertEquals( 0, jobHistoryStore.getStats( "myjob" ).getFailureCount() );
+    assertEquals( JobHistoryStore.Outcome.SKIPPED, BlockingQuartzJob.getOutcome( MessageTypes.INSTANCE_START, false ) );
+  }
+
+  @Test
+  public void testInteractiveJobIsRunWhenItsTypeIsAtTheLimit() throws JobExecutionException {
+    admissionControl = new JobAdmissionControl( Collections.singletonMap( "prpt", 1 ), 0, 0, 0 );
+    admissionControl.admit( "prpt" );
+    JobDetail jobDetail = new JobDetail( "myjob", BlockingQuartzJob.class );
+    jobDetail.getJobDataMap().put( QuartzScheduler.RESERVEDMAPKEY_STREAMPROVIDER,
+      "input = /home/admin/Sales.prpt:outputFile = /home/admin/Sales.*" );
+    SimpleTrigger trigger = new SimpleTrigger( "myjob", "admin" );
+    trigger.setPriority( JobTrigger.HIGH_PRIORITY );
+    BlockingQuartzJob blockingJob = createTestBlockingJob( false );
+    mockery.checking( new Expectations() {
+      {
+        one( blockoutManager ).shouldFireNow();
+        will( returnValue( true ) );
+        one( underlyingJob ).execute( with( same( context ) ) );
+        allowing( context ).getJobDetail();
+        will( returnValue( jobDetail ) );
+        allowing( context ).getTrigger();
+        will( returnValue( trigger ) );
+      }
+    } );
+    blockingJob.execute( context );
+    assertEquals( 1, admissionControl.getInteractiveCount() );
+    assertEquals( 0, admissionControl.getRejectedCount() );
+  }
+
+  @Test
+  public void testRunsAreRecordedInTheJobHistory() throws JobExecutionException {
+    jobHistoryStore = new JobHistoryStore();
+    JobDetail jobDetail = new JobDetail( "myjob", BlockingQuartzJob.class );
+    jobDetail.getJobDataMap().put( QuartzScheduler.RESERVEDMAPKEY_LINEAGE_ID, "LINEAGE_ID_123" );
+    jobDetail.getJobDataMap().put( QuartzScheduler.RESERVEDMAPKEY_STREAMPROVIDER,
+      "input = /home/admin/Sales.prpt:outputFile = /home/admin/Sales.*" );
+    BlockingQuartzJob blockingJob = createTestBlockingJob( false );
+    mockery.checking( new Expectations() {
+      {
+        exactly( 2 ).of( blockoutManager ).shouldFireNow();
+        will( onConsecutiveCalls( returnValue( true ), returnValue( false ) ) );
+        one( underlyingJob ).execute( with( same( context ) ) );
+        one( logger ).warn( "Job 'myjob' attempted to run during a blockout period.  This job was not executed" );
+        allowing( context ).getJobDetail();
+        will( returnValue( jobDetail ) );
+      }
+    } );
+    blockingJob.execute( context );
+    blockingJob.execute( context );
+
+    List<JobHistoryStore.JobRun> runs = jobHistoryStore.getRuns( "myjob", 10 );
+    assertEquals( 2, runs.size() );
+    assertEquals( JobHistoryStore.Outcome.SKIPPED, runs.get( 0 ).getOutcome() );
+    assertEquals( JobHistoryStore.Outcome.SUCCEEDED, runs.get( 1 ).getOutcome() );
+    assertEquals( "LINEAGE_ID_123", runs.get( 1 ).getLineageId() );
+    assertEquals( "/home/admin/Sales.*", runs.get( 1 ).getOutputPath() );
+    assertEquals( 2, jobHistoryStore.getLineageRuns( "LINEAGE_ID_123", 10 ).size() );
+  }
+
+  @Test
+  public void testFiresAreRecordedInTheMetrics() throws JobExecutionException {
+    metrics = new SchedulerMetrics( false );
+    JobDetail jobDetail = new JobDetail( "myjob", BlockingQuartzJob.class );
+    jobDetail.getJobDataMap().put( QuartzScheduler.RESERVEDMAPKEY_STREAMPROVIDER,
+      "input = /home/admin/Sales.prpt:outputFile = /home/admin/Sales.*" );
+    BlockingQuartzJob blockingJob = createTestBlockingJob( false );
+    mockery.checking( new Expectations() {
+      {
+        exactly( 2 ).of( blockoutManager ).shouldFireNow();
+        will( onConsecutiveCalls( returnValue( true ), returnValue( false ) ) );
+        one( underlyingJob ).execute( with( same( context ) ) );
+        one( logger ).warn( "Job 'myjob' attempted to run during a blockout period.  This job was not executed" );
+        allowing( context ).getJobDetail();
+        will( returnValue( jobDetail ) );
+        allowing( context ).getFireTime();
+        will( returnValue( new Date( 1700000000250L ) ) );
+        allowing( context ).getScheduledFireTime();
+        will( returnValue( new Date( 1700000000000L ) ) );
+      }
+    } );
+    blockingJob.execute( context );
+    blockingJob.execute( context );
+
+    assertEquals( 2, metrics.getFireCount() );
+    assertEquals( 1, metrics.getBlockedFireCount() );
+    assertEquals( 250, metrics.getFireLagMaxMillis(), 0 );
+    assertEquals( 1, metrics.getExecutionCount() );
+    assertEquals( 0, metrics.getExecutionFailureCount() );
+    assertArrayEquals( new String[] { "prpt" }, metrics.getActionTypes() );
+  }
+
+  @Test
+  public void testRunsAreTraced() throws JobExecutionException {
+    traceRecorder = new ExecutionTraceRecorder( 10 );
+    JobDetail jobDetail = new JobDetail( "myjob", BlockingQuartzJob.class );
+    jobDetail.getJobDataMap().put( QuartzScheduler.RESERVEDMAPKEY_STREAMPROVIDER,
+      "input = /home/admin/Sales.prpt:outputFile = /home/admin/Sales.*" );
+    BlockingQuartzJob blockingJob = createTestBlockingJob( false );
+    mockery.checking( new Expectations() {
+      {
+        exactly( 2 ).of( blockoutManager ).shouldFireNow();
+        will( onConsecutiveCalls( returnValue( true ), returnValue( false ) ) );
+        one( underlyingJob ).execute( with( same( context ) ) );
+        one( logger ).warn( "Job 'myjob' attempted to run during a blockout period.  This job was not executed" );
+        allowing( context ).getJobDetail();
+        will( returnValue( jobDetail ) );
+      }
+    } );
+    blockingJob.execute( context );
+    assertNull( ExecutionTrace.current() );
+    blockingJob.execute( context );
+    assertNull( ExecutionTrace.current() );
+
+    List<ExecutionTrace> traces = traceRecorder.getTraces( "myjob", 10 );
+    assertEquals( 2, traces.size() );
+    assertEquals( JobHistoryStore.Outcome.SKIPPED, traces.get( 0 ).getOutcome() );
+    assertEquals( Arrays.asList( "blockoutCheck", "audit" ), getStageNames( traces.get( 0 ) ) );
+    assertEquals( JobHistoryStore.Outcome.SUCCEEDED, traces.get( 1 ).getOutcome() );
+    assertEquals( "prpt", traces.get( 1 ).getActionType() );
+    assertEquals( Arrays.asList( "blockoutCheck", "admission", "audit", "job", "audit" ),
+      getStageNames( traces.get( 1 ) ) );
+    assertTrue( traces.get( 1 ).getDurationNanos() >= 0 );
+  }
+
+  @Test
+  public void testRunIsWatchedAndCancelledWhenInterrupted() throws JobExecutionException {
+    watchdog = new JobWatchdog( 0, 60000, 0, false );
+    JobDetail jobDetail = new JobDetail( "myjob", BlockingQuartzJob.class );
+    jobDetail.getJobDataMap().put( JobWatchdog.RESERVEDMAPKEY_TIMEOUT, 600L );
+    final BlockingQuartzJob blockingJob = createTestBlockingJob( false );
+    final List<Boolean> observed = new ArrayList<>();
+    mockery.checking( new Expectations() {
+      {
+        one( blockoutManager ).shouldFireNow();
+        will( returnValue( true ) );
+        one( underlyingJob ).execute( with( same( context ) ) );
+        will( new CustomAction( "interrupt the job" ) {
+          @Override
+          public Object invoke( Invocation invocation ) throws Throwable {
+            observed.add( watchdog.getRunningCount() == 1 );
+            blockingJob.interrupt();
+            observed.add( JobWatchdog.isCancelled() && Thread.currentThread().isInterrupted() );
+            return null;
+          }
+        } );
+        allowing( context ).getJobDetail();
+        will( returnValue( jobDetail ) );
+      }
+    } );
+    blockingJob.execute( context );
+
+    assertEquals( Arrays.asList( true, true ), observed );
+    // the worker thread returns to the pool without the interrupt
+    assertFalse( Thread.currentThread().isInterrupted() );
+    assertNull( JobWatchdog.current() );
+    assertEquals( 0, watchdog.getRunningCount() );
+    try {
+      blockingJob.interrupt();
+      fail();
+    } catch ( UnableToInterruptJobException e ) {
+      // the job is no longer running
+    }
+    watchdog.shutdown();
+  }
+
+  private static List<String> getStageNames( ExecutionTrace trace ) {
+    List<String> names = new ArrayList<>();
+    for ( ExecutionTrace.Stage stage : trace.getStages() ) {
+      names.add( stage.getName() );
+    }
+    return names;
+  }
+
   @Test
   public void testJobIsRunWhenThereIsAnExceptionRetrievingTheBlockoutManager() throws JobExecutionException {
     BlockingQuartzJob blockingJob = createTestBlockingJob( true );
@@ -177,6 +455,11 @@ public class BlockingQuartzJobTest {
         return underlyingJob;
       }
 
+      @Override
+      QuartzScheduler getScheduler() {
+        return null;
+      }
+
       @Override
       IBlockoutManager getBlockoutManager() throws SchedulerException {
 
@@ -187,6 +470,36 @@ public class BlockingQuartzJobTest {
         }
       }
 
+      @Override
+      BlockoutRegistry getBlockoutRegistry() {
+        return blockoutRegistry;
+      }
+
+      @Override
+      JobAdmissionControl getAdmissionControl() {
+        return admissionControl;
+      }
+
+      @Override
+      JobHistoryStore getJobHistoryStore() {
+        return jobHistoryStore;
+      }
+
+      @Override
+      SchedulerMetrics getMetrics() {
+        return metrics;
+      }
+
+      @Override
+      ExecutionTraceRecorder getTraceRecorder() {
+        return traceRecorder;
+      }
+
+      @Override
+      JobWatchdog getWatchdog() {
+        return watchdog;
+      }
+
       @Override
       Log getLogger() {
         return logger;
@@ -194,7 +507,7 @@ public class BlockingQuartzJobTest {
 
       @Override
       protected void makeAuditRecord( float time, String messageType, JobExecutionContext jobExecutionContext ) {
-
+        auditMessageTypes.add( messageType );
       }
     };
   }
@@ -0,0 +1,136 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.scheduler2.recur.ITimeRecurrence;
+import org.pentaho.platform.scheduler2.recur.RecurrenceList;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CronRecurrenceParserTest {
+
+  private static final String[] CRON_EXPRESSIONS = {
+    "5 15 12 ? 3 7 2010", //$NON-NLS-1$
+    "0 30,45 12,15 3,10 3,5 ? 2010,2013", //$NON-NLS-1$
+    "0 30-45 12-15 ? 3-5 1-7 2010-2013", //$NON-NLS-1$
+    "* 0 0 ? * 6L,1#3 *", //$NON-NLS-1$
+    "0 0 12 */2 * ? *", //$NON-NLS-1$
+    "0 0/15 1,2,5-7,9 ? * 2,3,4 *", //$NON-NLS-1$
+    "0 0 0 ? * MON-FRI *", //$NON-NLS-1$
+    "0 0 0 ? * SUN,2,3,SAT *", //$NON-NLS-1$
+    "0 0 0 L * ? *", //$NON-NLS-1$
+    "0  0   0 1 *  ? 2030" //$NON-NLS-1$
+  };
+
+  @Before
+  public void setUp() {
+    CronRecurrenceParser.clearCache();
+  }
+
+  @Test
+  public void testSameRecurrencesAsRegularExpressions() {
+    for ( String cronExpression : CRON_EXPRESSIONS ) {
+      CronRecurrenceParser.ParsedCron parsedCron = CronRecurrenceParser.parse( cronExpression );
+      for ( int field = CronRecurrenceParser.SECONDS; field <= CronRecurrenceParser.YEARS; field++ ) {
+        assertEquals( cronExpression + " field " + field, //$NON-NLS-1$
+          toString( LegacyCronRecurrenceParser.getRecurrences( cronExpression, field ) ),
+          toString( parsedCron.getRecurrences( field ) ) );
+      }
+    }
+  }
+
+  @Test
+  public void testSplitFields() {
+    assertEquals( Arrays.asList( "0", "0", "0", "?", "*", "2", "*" ),
+      CronRecurrenceParser.splitFields( "0 0  0   ? * 2 * " ) );
+    assertEquals( Arrays.asList( "", "0", "0" ), CronRecurrenceParser.splitFields( " 0 0" ) );
+  }
+
+  @Test
+  public void testParsedExpressionIsCached() {
+    CronRecurrenceParser.ParsedCron parsedCron = CronRecurrenceParser.parse( CRON_EXPRESSIONS[ 1 ] );
+    assertSame( parsedCron, CronRecurrenceParser.parse( CRON_EXPRESSIONS[ 1 ] ) );
+    assertNotSame( parsedCron, CronRecurrenceParser.parseUncached( CRON_EXPRESSIONS[ 1 ] ) );
+  }
+
+  @Test
+  public void testRecurrencesAreNotShared() {
+    CronRecurrenceParser.ParsedCron parsedCron = CronRecurrenceParser.parse( CRON_EXPRESSIONS[ 1 ] );
+    RecurrenceList minutes = (RecurrenceList) parsedCron.getRecurrences( CronRecurrenceParser.MINUTES ).get( 0 );
+    minutes.getValues().add( 50 );
+
+    assertEquals( "30,45", //$NON-NLS-1$
+      toString( CronRecurrenceParser.parse( CRON_EXPRESSIONS[ 1 ] ).getRecurrences( CronRecurrenceParser.MINUTES ) ) );
+  }
+
+  @Test
+  public void testTriggerFromCachedExpression() {
+    QuartzScheduler scheduler = new QuartzScheduler();
+    ComplexJobTrigger first = (ComplexJobTrigger) scheduler.createComplexTrigger( CRON_EXPRESSIONS[ 6 ] );
+    ComplexJobTrigger second = (ComplexJobTrigger) scheduler.createComplexTrigger( CRON_EXPRESSIONS[ 6 ] );
+
+    assertEquals( "0 0 0 ? * 1-5 *", QuartzCronStringFactory.createCronString( first ) ); //$NON-NLS-1$
+    assertEquals( QuartzCronStringFactory.createCronString( first ),
+      QuartzCronStringFactory.createCronString( second ) );
+  }
+
+  @Test
+  public void testMissingYearIsUnrestricted() {
+    for ( String cronExpression : new String[] { "0 0 0 ? * 2", "0 0/15 1,2 L * ?" } ) { //$NON-NLS-1$ //$NON-NLS-2$
+      CronRecurrenceParser.ParsedCron parsedCron = CronRecurrenceParser.parse( cronExpression );
+      for ( int field = CronRecurrenceParser.SECONDS; field <= CronRecurrenceParser.YEARS; field++ ) {
+        assertEquals( cronExpression + " field " + field, //$NON-NLS-1$
+          toString( LegacyCronRecurrenceParser.getRecurrences( cronExpression, field ) ),
+          toString( parsedCron.getRecurrences( field ) ) );
+      }
+      assertTrue( parsedCron.getRecurrences( CronRecurrenceParser.YEARS ).isEmpty() );
+    }
+
+    QuartzScheduler scheduler = new QuartzScheduler();
+    assertEquals(
+      QuartzCronStringFactory.createCronString( (ComplexJobTrigger) scheduler.createComplexTrigger( "0 0 0 ? * 2 *" ) ),
+      QuartzCronStringFactory.createCronString( (ComplexJobTrigger) scheduler.createComplexTrigger( "0 0 0 ? * 2" ) ) );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testUnknownTokenIsInvalid() {
+    CronRecurrenceParser.parse( "0 0 0 1W * ? *" ); //$NON-NLS-1$
+  }
+
+  // the recurrences as the cron field they produce
+  private static String toString( List<ITimeRecurrence> recurrences ) {
+    ComplexJobTrigger trigger = new ComplexJobTrigger();
+    for ( ITimeRecurrence recurrence : recurrences ) {
+      trigger.addYearlyRecurrence( recurrence );
+    }
+    String cronString = QuartzCronStringFactory.createCronString( trigger );
+    return cronString.substring( cronString.lastIndexOf( ' ' ) + 1 );
+  }
+}
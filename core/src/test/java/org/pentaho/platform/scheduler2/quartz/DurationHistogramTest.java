@@ -0,0 +1,83 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DurationHistogramTest {
+
+  @Test
+  public void testBuckets() {
+    for ( long duration : new long[] { 0, 1, 3, 4, 7, 8, 9, 100, 1000, 65535, 3600000, Long.MAX_VALUE } ) {
+      int bucket = DurationHistogram.getBucket( duration );
+      assertTrue( bucket < DurationHistogram.BUCKETS );
+      long bound = DurationHistogram.getUpperBound( bucket );
+      assertTrue( duration + " " + bound, bound >= duration && bound - duration <= duration / 4 );
+      if ( bucket > 0 ) {
+        assertTrue( DurationHistogram.getUpperBound( bucket - 1 ) < duration );
+      }
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    DurationHistogram histogram = new DurationHistogram();
+    assertEquals( -1, histogram.getPercentile( 50 ) );
+
+    for ( int duration = 1; duration <= 100; duration++ ) {
+      histogram.record( duration * 100L );
+    }
+    histogram.record( -5 );
+
+    assertEquals( 101, histogram.getCount() );
+    assertEquals( 505000, histogram.getSum() );
+    assertEquals( 10000, histogram.getMax() );
+    assertEquals( 1, histogram.getCount( 0 ) );
+    long median = histogram.getPercentile( 50 );
+    assertTrue( String.valueOf( median ), median >= 5000 && median <= 6250 );
+    assertEquals( 10000, histogram.getPercentile( 100 ) );
+  }
+
+  @Test
+  public void testConcurrentRecords() throws Exception {
+    DurationHistogram histogram = new DurationHistogram();
+    ExecutorService executor = Executors.newFixedThreadPool( 4 );
+    for ( int thread = 0; thread < 4; thread++ ) {
+      executor.execute( () -> {
+        for ( int i = 0; i < 10000; i++ ) {
+          histogram.record( i );
+        }
+      } );
+    }
+    executor.shutdown();
+    assertTrue( executor.awaitTermination( 30, TimeUnit.SECONDS ) );
+
+    assertEquals( 40000, histogram.getCount() );
+    assertEquals( 4L * 9999 * 10000 / 2, histogram.getSum() );
+    assertEquals( 9999, histogram.getMax() );
+  }
+}
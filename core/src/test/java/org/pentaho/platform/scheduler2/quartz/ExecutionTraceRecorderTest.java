@@ -0,0 +1,172 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.scheduler2.quartz.ExecutionTraceRecorder.StageLatency;
+import org.pentaho.platform.scheduler2.quartz.JobHistoryStore.Outcome;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ExecutionTraceRecorderTest {
+
+  private static final long START = 1700000000000L;
+
+  private ExecutionTraceRecorder recorder;
+
+  @Before
+  public void setUp() {
+    recorder = new ExecutionTraceRecorder( 3, () -> START );
+  }
+
+  @After
+  public void tearDown() {
+    ExecutionTrace trace = ExecutionTrace.current();
+    if ( trace != null ) {
+      trace.finish( Outcome.FAILED );
+    }
+  }
+
+  @Test
+  public void testTraceIsBoundToTheThreadUntilFinished() {
+    ExecutionTrace.recordStage( "untraced", System.nanoTime() );
+
+    ExecutionTrace trace = recorder.begin( "job1", "prpt" );
+    assertSame( trace, ExecutionTrace.current() );
+    assertEquals( START, trace.getStart() );
+    assertEquals( -1, trace.getDurationNanos() );
+    assertNull( trace.getOutcome() );
+    ExecutionTrace.recordStage( "execute", System.nanoTime() );
+    trace.finish( Outcome.SUCCEEDED );
+
+    assertNull( ExecutionTrace.current() );
+    assertEquals( Outcome.SUCCEEDED, trace.getOutcome() );
+    assertTrue( trace.getDurationNanos() >= 0 );
+    assertEquals( 1, trace.getStages().size() );
+    assertEquals( "execute", trace.getStages().get( 0 ).getName() );
+
+    // a stage that ran on another thread after the run finished
+    trace.addStage( "sendEmail", System.nanoTime(), System.nanoTime() );
+    assertEquals( 2, trace.getStages().size() );
+  }
+
+  @Test
+  public void testOldestRunsAreOverwritten() {
+    for ( int i = 0; i < 5; i++ ) {
+      recorder.begin( i % 2 == 0 ? "job1" : "job2", "prpt" ).finish( Outcome.SUCCEEDED );
+    }
+
+    assertEquals( 5, recorder.getRunCount() );
+    List<ExecutionTrace> traces = recorder.getTraces( null, 10 );
+    assertEquals( 3, traces.size() );
+    assertEquals( "job1", traces.get( 0 ).getJobId() );
+    assertEquals( "job2", traces.get( 1 ).getJobId() );
+    assertEquals( "job1", traces.get( 2 ).getJobId() );
+    assertEquals( 2, recorder.getTraces( "job1", 10 ).size() );
+    assertEquals( 1, recorder.getTraces( "job1", 1 ).size() );
+    assertTrue( recorder.getTraces( "unknown", 10 ).isEmpty() );
+
+    recorder.clear();
+    assertTrue( recorder.getTraces( null, 10 ).isEmpty() );
+  }
+
+  @Test
+  public void testStagesBeyondTheMaximumAreDropped() {
+    ExecutionTrace trace = recorder.begin( "job1", "prpt" );
+    for ( int i = 0; i < ExecutionTrace.MAX_STAGES + 10; i++ ) {
+      trace.addStage( "stage" + i, 0, 0 );
+    }
+    assertEquals( ExecutionTrace.MAX_STAGES, trace.getStages().size() );
+  }
+
+  @Test
+  public void testStageLatencies() {
+    List<ExecutionTrace> traces = new ArrayList<>();
+    for ( int i = 1; i <= 20; i++ ) {
+      ExecutionTrace trace = new ExecutionTrace( "job1", "prpt", START, 0 );
+      trace.addStage( "resolveOutputPath", 0, i * 1000L );
+      // twice in a run, added up
+      trace.addStage( "audit", 0, 10 );
+      trace.addStage( "audit", 0, 20 );
+      if ( i % 2 == 0 ) {
+        trace.addStage( "sendEmail", 0, 500 );
+      }
+      traces.add( trace );
+    }
+
+    List<StageLatency> latencies = ExecutionTraceRecorder.getStageLatencies( traces );
+    assertEquals( 3, latencies.size() );
+    StageLatency resolveOutputPath = latencies.get( 0 );
+    assertEquals( "resolveOutputPath", resolveOutputPath.getStage() );
+    assertEquals( 20, resolveOutputPath.getCount() );
+    assertEquals( 10500, resolveOutputPath.getMeanNanos() );
+    assertEquals( 10000, resolveOutputPath.getMedianNanos() );
+    assertEquals( 19000, resolveOutputPath.getP95Nanos() );
+    assertEquals( 20000, resolveOutputPath.getMaxNanos() );
+    assertEquals( "audit", latencies.get( 1 ).getStage() );
+    assertEquals( 30, latencies.get( 1 ).getMaxNanos() );
+    assertEquals( "sendEmail", latencies.get( 2 ).getStage() );
+    assertEquals( 10, latencies.get( 2 ).getCount() );
+    assertTrue( ExecutionTraceRecorder.getStageLatencies( new ArrayList<>() ).isEmpty() );
+  }
+
+  @Test
+  public void testConcurrentStages() throws InterruptedException {
+    ExecutionTrace trace = recorder.begin( "job1", "prpt" );
+    ExecutorService executor = Executors.newFixedThreadPool( 4 );
+    CountDownLatch done = new CountDownLatch( 40 );
+    for ( int i = 0; i < 40; i++ ) {
+      executor.execute( () -> {
+        trace.addStage( "stage", 0, 1 );
+        done.countDown();
+      } );
+    }
+    assertTrue( done.await( 10, TimeUnit.SECONDS ) );
+    executor.shutdown();
+    assertEquals( 40, trace.getStages().size() );
+  }
+
+  @Test
+  public void testCreate() {
+    assertEquals( ExecutionTraceRecorder.DEFAULT_CAPACITY, ExecutionTraceRecorder.create( null ).getCapacity() );
+
+    Properties properties = new Properties();
+    properties.setProperty( ExecutionTraceRecorder.PROP_CAPACITY, "20" );
+    assertEquals( 20, ExecutionTraceRecorder.create( properties ).getCapacity() );
+    properties.setProperty( ExecutionTraceRecorder.PROP_CAPACITY, "none" );
+    assertEquals( ExecutionTraceRecorder.DEFAULT_CAPACITY, ExecutionTraceRecorder.create( properties ).getCapacity() );
+
+    properties.setProperty( ExecutionTraceRecorder.PROP_TRACE_ENABLED, "false" );
+    assertNull( ExecutionTraceRecorder.create( properties ) );
+  }
+}
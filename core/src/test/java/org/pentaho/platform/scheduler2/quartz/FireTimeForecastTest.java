@@ -0,0 +1,251 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.pentaho.platform.api.scheduler2.IBlockoutManager;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerListener;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FireTimeForecastTest {
+
+  // a multiple of FireTimeForecast.BUCKET_MILLIS
+  private static final long START = 1700000100000L;
+
+  private static final long MINUTE = 60000L;
+
+  private static final long HOUR = 60 * MINUTE;
+
+  private static final long DAY = 24 * HOUR;
+
+  private static final long MAX_AGE = 6 * HOUR;
+
+  private long now;
+
+  private Scheduler scheduler;
+
+  private FireTimeForecast forecast;
+
+  private String adminJobId;
+
+  private String suzyJobId;
+
+  @Before
+  public void setUp() throws Exception {
+    now = START;
+    scheduler = mock( Scheduler.class );
+    adminJobId = new QuartzJobKey( "report", "admin" ).toString();
+    suzyJobId = new QuartzJobKey( "export", "suzy" ).toString();
+    // every 10 minutes, and every hour at 5 past
+    addJob( adminJobId, "admin", START, 10 * MINUTE );
+    addJob( suzyJobId, "suzy", START + 5 * MINUTE, HOUR );
+    when( scheduler.getJobGroupNames() ).thenReturn( new String[] { "admin", "suzy" } );
+    when( scheduler.getJobNames( "admin" ) ).thenReturn( new String[] { adminJobId } );
+    when( scheduler.getJobNames( "suzy" ) ).thenReturn( new String[] { suzyJobId } );
+
+    forecast = new FireTimeForecast( DAY, MAX_AGE, () -> now );
+    forecast.register( scheduler, null );
+  }
+
+  @Test
+  public void testFireTimesOfPeriod() throws Exception {
+    FireTimeForecast.FireTimes fireTimes = forecast.getFireTimes( START, START + HOUR, 0, 100 );
+
+    assertEquals( 7, fireTimes.getTotalCount() );
+    assertEquals( 7, fireTimes.getFireTimes().size() );
+    assertEquals( adminJobId, fireTimes.getFireTimes().get( 0 ).getJobId() );
+    assertEquals( START, fireTimes.getFireTimes().get( 0 ).getTime() );
+    assertEquals( suzyJobId, fireTimes.getFireTimes().get( 1 ).getJobId() );
+    assertEquals( "suzy", fireTimes.getFireTimes().get( 1 ).getUserName() );
+    assertEquals( "export", fireTimes.getFireTimes().get( 1 ).getJobName() );
+    assertEquals( START + 5 * MINUTE, fireTimes.getFireTimes().get( 1 ).getTime() );
+    assertEquals( START + 50 * MINUTE, fireTimes.getFireTimes().get( 6 ).getTime() );
+  }
+
+  @Test
+  public void testFireTimesArePaged() throws Exception {
+    FireTimeForecast.FireTimes fireTimes = forecast.getFireTimes( START, START + HOUR, 2, 2 );
+
+    assertEquals( 7, fireTimes.getTotalCount() );
+    assertEquals( 2, fireTimes.getOffset() );
+    assertEquals( 2, fireTimes.getFireTimes().size() );
+    assertEquals( START + 10 * MINUTE, fireTimes.getFireTimes().get( 0 ).getTime() );
+    assertEquals( START + 20 * MINUTE, fireTimes.getFireTimes().get( 1 ).getTime() );
+
+    assertEquals( 0, forecast.getFireTimes( START, START + HOUR, 10, 2 ).getFireTimes().size() );
+  }
+
+  @Test
+  public void testLoad() throws Exception {
+    FireTimeForecast.Load load = forecast.getLoad( START, START + HOUR, 30 * MINUTE );
+
+    assertEquals( START, load.getFrom() );
+    assertArrayEquals( new int[] { 4, 3 }, load.getCounts() );
+
+    // rounded to whole buckets
+    load = forecast.getLoad( START + 1, START + 9 * MINUTE, FireTimeForecast.BUCKET_MILLIS );
+    assertEquals( START, load.getFrom() );
+    assertArrayEquals( new int[] { 1, 1 }, load.getCounts() );
+
+    // beyond the window
+    assertEquals( 0, forecast.getLoad( START + 2 * DAY, START + 3 * DAY, HOUR ).getCounts().length );
+
+    try {
+      forecast.getLoad( START, START + HOUR, 7 * MINUTE );
+      fail();
+    } catch ( IllegalArgumentException e ) {
+      // not a multiple of the bucket length
+    }
+  }
+
+  @Test
+  public void testWindowRollsWithoutReloading() throws Exception {
+    assertEquals( 144 + 24, forecast.getFireTimes( 0, Long.MAX_VALUE, 0, 0 ).getTotalCount() );
+
+    now = START + 2 * HOUR + MINUTE;
+    FireTimeForecast.FireTimes fireTimes = forecast.getFireTimes( 0, Long.MAX_VALUE, 0, 1 );
+
+    assertEquals( 144 + 24, fireTimes.getTotalCount() );
+    assertEquals( START + 2 * HOUR, fireTimes.getFireTimes().get( 0 ).getTime() );
+    int total = 0;
+    for ( int count : forecast.getLoad( 0, Long.MAX_VALUE, HOUR ).getCounts() ) {
+      total += count;
+    }
+    assertEquals( 144 + 24, total );
+    assertEquals( 1, forecast.getRebuildCount() );
+    assertEquals( 1, forecast.getRollCount() );
+    verify( scheduler, times( 1 ) ).getJobGroupNames();
+  }
+
+  @Test
+  public void testListenerReloadsChangedSchedules() throws Exception {
+    forecast.getFireTimes( START, START + DAY, 0, 0 );
+    ArgumentCaptor<SchedulerListener> listener = ArgumentCaptor.forClass( SchedulerListener.class );
+    verify( scheduler ).addSchedulerListener( listener.capture() );
+
+    when( scheduler.getTriggerState( adminJobId, "admin" ) ).thenReturn( Trigger.STATE_PAUSED );
+    listener.getValue().triggersPaused( adminJobId, "admin" );
+    listener.getValue().jobUnscheduled( "MT_1", "MANUAL_TRIGGER" );
+
+    assertEquals( 24, forecast.getFireTimes( START, START + DAY, 0, 0 ).getTotalCount() );
+    assertArrayEquals( new int[] { 0, 1 }, forecast.getLoad( START, START + 10 * MINUTE, 5 * MINUTE ).getCounts() );
+    assertEquals( 1, forecast.getUpdateCount() );
+    assertEquals( 1, forecast.getRebuildCount() );
+    verify( scheduler, times( 2 ) ).getTriggersOfJob( adminJobId, "admin" );
+
+    listener.getValue().jobsResumed( null, "admin" );
+    forecast.getFireTimes( START, START + DAY, 0, 0 );
+    assertEquals( 2, forecast.getRebuildCount() );
+  }
+
+  @Test
+  public void testForecastIsRebuiltWhenTooOld() throws Exception {
+    forecast.getFireTimes( START, START + DAY, 0, 0 );
+    now += MAX_AGE - 1;
+    forecast.getFireTimes( START, START + DAY, 0, 0 );
+    now += 1;
+    forecast.getFireTimes( START, START + DAY, 0, 0 );
+
+    assertEquals( 2, forecast.getRebuildCount() );
+    verify( scheduler, times( 2 ) ).getJobGroupNames();
+  }
+
+  @Test
+  public void testBlockoutsAndManualTriggersAreNotForecast() throws Exception {
+    String blockOutJobId = new QuartzJobKey( IBlockoutManager.BLOCK_OUT_JOB_NAME, "admin" ).toString();
+    addJob( blockOutJobId, "admin", START, MINUTE );
+    when( scheduler.getJobNames( "admin" ) ).thenReturn( new String[] { adminJobId, blockOutJobId } );
+    SimpleTrigger manualTrigger = new SimpleTrigger( "MT_1", "MANUAL_TRIGGER", suzyJobId, "suzy", new Date( START ),
+      null, 0, 0 );
+    Trigger suzyTrigger = scheduler.getTriggersOfJob( suzyJobId, "suzy" )[ 0 ];
+    when( scheduler.getTriggersOfJob( suzyJobId, "suzy" ) ).thenReturn( new Trigger[] { manualTrigger, suzyTrigger } );
+
+    List<FireTimeForecast.FireTime> fireTimes = forecast.getFireTimes( START, START + DAY, 0, 1000 ).getFireTimes();
+
+    assertEquals( 144 + 24, fireTimes.size() );
+    for ( FireTimeForecast.FireTime fireTime : fireTimes ) {
+      assertTrue( Arrays.asList( adminJobId, suzyJobId ).contains( fireTime.getJobId() ) );
+    }
+    assertEquals( 2, forecast.getScheduleCount() );
+  }
+
+  @Test
+  public void testFireTimesOfScheduleAreCapped() throws Exception {
+    String fastJobId = new QuartzJobKey( "fast", "admin" ).toString();
+    addJob( fastJobId, "admin", START, 5000L );
+    when( scheduler.getJobNames( "admin" ) ).thenReturn( new String[] { fastJobId } );
+    when( scheduler.getJobNames( "suzy" ) ).thenReturn( new String[ 0 ] );
+
+    FireTimeForecast.FireTimes fireTimes =
+      forecast.getFireTimes( START, START + DAY, FireTimeForecast.MAX_FIRE_TIMES - 1, 10 );
+    assertEquals( FireTimeForecast.MAX_FIRE_TIMES, fireTimes.getTotalCount() );
+    assertEquals( START + ( FireTimeForecast.MAX_FIRE_TIMES - 1 ) * 5000L,
+      fireTimes.getFireTimes().get( 0 ).getTime() );
+
+    // continues after the last fire time kept rather than at the old end of the window
+    now = START + HOUR;
+    fireTimes = forecast.getFireTimes( START, START + 2 * DAY, FireTimeForecast.MAX_FIRE_TIMES - 1, 10 );
+    assertEquals( FireTimeForecast.MAX_FIRE_TIMES, fireTimes.getTotalCount() );
+    assertEquals( START + ( FireTimeForecast.MAX_FIRE_TIMES - 1 + 720 ) * 5000L,
+      fireTimes.getFireTimes().get( 0 ).getTime() );
+  }
+
+  @Test
+  public void testCreate() {
+    Properties properties = new Properties();
+    assertEquals( FireTimeForecast.DEFAULT_HORIZON_MILLIS, FireTimeForecast.create( properties ).getHorizonMillis() );
+
+    properties.setProperty( FireTimeForecast.PROP_HORIZON_MILLIS, "-1" );
+    properties.setProperty( FireTimeForecast.PROP_MAX_AGE_MILLIS, "60000" );
+    FireTimeForecast created = FireTimeForecast.create( properties );
+    assertEquals( FireTimeForecast.DEFAULT_HORIZON_MILLIS, created.getHorizonMillis() );
+    assertEquals( 60000L, created.getMaxAgeMillis() );
+
+    properties.setProperty( FireTimeForecast.PROP_FORECAST_ENABLED, "false" );
+    assertNull( FireTimeForecast.create( properties ) );
+  }
+
+  private void addJob( String jobId, String user, long start, long interval ) throws Exception {
+    SimpleTrigger trigger = new SimpleTrigger( jobId, user, jobId, user, new Date( start ), null,
+      SimpleTrigger.REPEAT_INDEFINITELY, interval );
+    when( scheduler.getTriggersOfJob( jobId, user ) ).thenReturn( new Trigger[] { trigger } );
+    when( scheduler.getTriggerState( jobId, user ) ).thenReturn( Trigger.STATE_NORMAL );
+  }
+}
@@ -0,0 +1,187 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.api.scheduler2.JobTrigger;
+import org.pentaho.platform.web.http.api.resources.RepositoryFileStreamProvider;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JobAdmissionControlTest {
+
+  @Test
+  public void testLimitsRunningJobsPerType() {
+    JobAdmissionControl admissionControl = new JobAdmissionControl( Collections.singletonMap( "ktr", 1 ), 0, 0, 0 );
+
+    JobAdmissionControl.Permit permit = admissionControl.admit( "ktr" );
+    assertNotNull( permit );
+    assertEquals( 1, admissionControl.getRunningCount( "KTR" ) );
+    assertNull( admissionControl.admit( "ktr" ) );
+    // types without a limit run at once
+    assertSame( JobAdmissionControl.UNLIMITED, admissionControl.admit( "prpt" ) );
+
+    permit.close();
+    permit.close();
+    assertEquals( 0, admissionControl.getRunningCount( "ktr" ) );
+    assertNotNull( admissionControl.admit( "ktr" ) );
+
+    assertEquals( 3, admissionControl.getAdmittedCount() );
+    assertEquals( 0, admissionControl.getQueuedCount() );
+    assertEquals( 1, admissionControl.getRejectedCount() );
+  }
+
+  @Test
+  public void testDefaultLimitAppliesToTypesWithoutALimit() {
+    Map<String, Integer> maxConcurrent = new HashMap<>();
+    maxConcurrent.put( "ktr", 1 );
+    maxConcurrent.put( JobAdmissionControl.DEFAULT_ACTION_TYPE, 1 );
+    JobAdmissionControl admissionControl = new JobAdmissionControl( maxConcurrent, 0, 0, 0 );
+
+    assertNotNull( admissionControl.admit( "kjb" ) );
+    assertNull( admissionControl.admit( "prpt" ) );
+    assertNotNull( admissionControl.admit( "ktr" ) );
+    assertEquals( 1, admissionControl.getRunningCount( "xaction" ) );
+  }
+
+  @Test
+  public void testWaitingFireIsAdmittedWhenAJobFinishes() throws Exception {
+    JobAdmissionControl admissionControl =
+      new JobAdmissionControl( Collections.singletonMap( "prpt", 1 ), 1, 60000L, 0 );
+    JobAdmissionControl.Permit permit = admissionControl.admit( "prpt" );
+
+    CompletableFuture<JobAdmissionControl.Permit> waiting =
+      CompletableFuture.supplyAsync( () -> admissionControl.admit( "prpt" ) );
+    while ( admissionControl.getWaitingCount( "prpt" ) == 0 ) {
+      Thread.sleep( 1 );
+    }
+    // the queue is full
+    assertNull( admissionControl.admit( "prpt" ) );
+
+    permit.close();
+    assertNotNull( waiting.get( 10, TimeUnit.SECONDS ) );
+    assertEquals( 0, admissionControl.getWaitingCount( "prpt" ) );
+    assertEquals( 2, admissionControl.getAdmittedCount() );
+    assertEquals( 1, admissionControl.getQueuedCount() );
+    assertEquals( 1, admissionControl.getRejectedCount() );
+  }
+
+  @Test
+  public void testWaitingFireIsRejectedAfterMaxWait() {
+    JobAdmissionControl admissionControl = new JobAdmissionControl( Collections.singletonMap( "prpt", 1 ), 1, 10L, 0 );
+    admissionControl.admit( "prpt" );
+
+    assertNull( admissionControl.admit( "prpt" ) );
+    assertEquals( 1, admissionControl.getQueuedCount() );
+    assertEquals( 1, admissionControl.getRejectedCount() );
+  }
+
+  @Test
+  public void testFiresAreDelayedByJitter() {
+    List<Long> sleeps = new ArrayList<>();
+    JobAdmissionControl admissionControl =
+      new JobAdmissionControl( Collections.emptyMap(), 0, 0, 1000L, JobTrigger.HIGH_PRIORITY, sleeps::add );
+
+    for ( int i = 0; i < 10; i++ ) {
+      admissionControl.admit( "prpt" );
+    }
+
+    assertEquals( 10, sleeps.size() );
+    for ( long sleep : sleeps ) {
+      assertTrue( sleep >= 0 && sleep < 1000L );
+    }
+
+    // interactive fires are not delayed
+    admissionControl.admit( "prpt", JobTrigger.HIGH_PRIORITY );
+    assertEquals( 10, sleeps.size() );
+  }
+
+  @Test
+  public void testInteractiveFiresAreAdmittedAtOnce() {
+    JobAdmissionControl admissionControl = new JobAdmissionControl(
+      Collections.singletonMap( JobAdmissionControl.DEFAULT_ACTION_TYPE, 1 ), 0, 0, 0 );
+    assertNotNull( admissionControl.admit( "ktr", JobTrigger.LOW_PRIORITY ) );
+    assertNull( admissionControl.admit( "prpt" ) );
+
+    assertSame( JobAdmissionControl.UNLIMITED, admissionControl.admit( "prpt", JobTrigger.HIGH_PRIORITY ) );
+    assertSame( JobAdmissionControl.UNLIMITED, admissionControl.admit( "ktr", JobTrigger.HIGH_PRIORITY + 1 ) );
+    // not counted against the limit
+    assertEquals( 1, admissionControl.getRunningCount( "ktr" ) );
+    assertEquals( 2, admissionControl.getInteractiveCount() );
+    assertEquals( 3, admissionControl.getAdmittedCount() );
+    assertEquals( 1, admissionControl.getRejectedCount() );
+  }
+
+  @Test
+  public void testGetActionType() {
+    Map<String, Serializable> jobParams = new HashMap<>();
+    assertEquals( JobAdmissionControl.DEFAULT_ACTION_TYPE, JobAdmissionControl.getActionType( jobParams ) );
+
+    jobParams.put( IScheduler.RESERVEDMAPKEY_STREAMPROVIDER,
+      "input = /home/admin/Sales.PRPT:outputFile = /home/admin/Sales.*" );
+    assertEquals( "prpt", JobAdmissionControl.getActionType( jobParams ) );
+
+    jobParams.put( IScheduler.RESERVEDMAPKEY_STREAMPROVIDER,
+      new RepositoryFileStreamProvider( "/public/etl/load.kjb", "/public/etl/load.*", true ) );
+    assertEquals( "kjb", JobAdmissionControl.getActionType( jobParams ) );
+
+    jobParams.remove( IScheduler.RESERVEDMAPKEY_STREAMPROVIDER );
+    jobParams.put( "transformation", "load" );
+    assertEquals( "ktr", JobAdmissionControl.getActionType( jobParams ) );
+  }
+
+  @Test
+  public void testCreate() {
+    Properties properties = new Properties();
+    assertNull( JobAdmissionControl.create( properties ) );
+
+    properties.setProperty( JobAdmissionControl.PROP_ADMISSION_ENABLED, "true" );
+    properties.setProperty( JobAdmissionControl.PROP_MAX_CONCURRENT_PREFIX + "ktr", "2" );
+    properties.setProperty( JobAdmissionControl.PROP_MAX_CONCURRENT_PREFIX + "prpt", "none" );
+    properties.setProperty( JobAdmissionControl.PROP_MAX_QUEUED, "-1" );
+    properties.setProperty( JobAdmissionControl.PROP_MAX_JITTER_MILLIS, "5000" );
+    JobAdmissionControl admissionControl = JobAdmissionControl.create( properties );
+
+    assertEquals( Collections.singleton( "ktr" ), admissionControl.getLimitedActionTypes() );
+    assertEquals( JobAdmissionControl.DEFAULT_MAX_QUEUED, admissionControl.getMaxQueued() );
+    assertEquals( JobAdmissionControl.DEFAULT_MAX_WAIT_MILLIS, admissionControl.getMaxWaitMillis() );
+    assertEquals( 5000L, admissionControl.getMaxJitterMillis() );
+    assertEquals( JobTrigger.HIGH_PRIORITY, admissionControl.getInteractivePriority() );
+
+    properties.setProperty( JobAdmissionControl.PROP_INTERACTIVE_PRIORITY, "7" );
+    assertEquals( 7, JobAdmissionControl.create( properties ).getInteractivePriority() );
+  }
+}
@@ -0,0 +1,164 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.scheduler2.quartz.JobHistoryStore.JobRun;
+import org.pentaho.platform.scheduler2.quartz.JobHistoryStore.JobStats;
+import org.pentaho.platform.scheduler2.quartz.JobHistoryStore.Outcome;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JobHistoryStoreTest {
+
+  private static final long START = 1700000000000L;
+
+  private JobHistoryStore store;
+
+  @Before
+  public void setUp() {
+    store = new JobHistoryStore( 3, 2 );
+  }
+
+  @Test
+  public void testRunsAreKeptLatestFirstUpToTheLimit() {
+    for ( int i = 0; i < 5; i++ ) {
+      store.record( run( "job1", "lineage1", i * 1000L, 100, Outcome.SUCCEEDED ) );
+    }
+
+    List<JobRun> runs = store.getRuns( "job1", 10 );
+    assertEquals( 3, runs.size() );
+    assertEquals( START + 4000, runs.get( 0 ).getStart().getTime() );
+    assertEquals( START + 3000, runs.get( 1 ).getStart().getTime() );
+    assertEquals( START + 2000, runs.get( 2 ).getStart().getTime() );
+    assertEquals( 1, store.getRuns( "job1", 1 ).size() );
+    assertTrue( store.getRuns( "unknown", 10 ).isEmpty() );
+    assertEquals( 5, store.getRecordCount() );
+  }
+
+  @Test
+  public void testStatsFollowTheRunsThatAreKept() {
+    store.record( run( "job1", null, 0, 10, Outcome.FAILED ) );
+    store.record( run( "job1", null, 1000, 20, Outcome.FAILED ) );
+    store.record( run( "job1", null, 2000, 0, Outcome.SKIPPED ) );
+
+    JobStats stats = store.getStats( "job1" );
+    assertEquals( 3, stats.getRunCount() );
+    assertEquals( 2, stats.getFailureCount() );
+    assertEquals( 1, stats.getSkippedCount() );
+    assertEquals( 2.0 / 3, stats.getFailureRate(), 0.0001 );
+
+    // drops the first failure, then the second
+    store.record( run( "job1", null, 3000, 30, Outcome.SUCCEEDED ) );
+    store.record( run( "job1", null, 4000, 30, Outcome.SUCCEEDED ) );
+
+    stats = store.getStats( "job1" );
+    assertEquals( 3, stats.getRunCount() );
+    assertEquals( 5, stats.getTotalCount() );
+    assertEquals( 0, stats.getFailureCount() );
+    assertEquals( 1, stats.getSkippedCount() );
+    assertEquals( 0, stats.getFailureRate(), 0.0001 );
+    assertEquals( 31, stats.getMedianDuration() );
+    assertNull( store.getStats( "unknown" ) );
+  }
+
+  @Test
+  public void testPercentilesAreAtMostAQuarterAboveTheDurations() {
+    store = new JobHistoryStore( 100, 1 );
+    for ( int i = 1; i <= 100; i++ ) {
+      store.record( run( "job1", null, i * 1000L, i * 100L, Outcome.SUCCEEDED ) );
+    }
+
+    JobStats stats = store.getStats( "job1" );
+    assertTrue( stats.getMedianDuration() >= 5000 && stats.getMedianDuration() <= 6250 );
+    assertTrue( stats.getP95Duration() >= 9500 && stats.getP95Duration() <= 11875 );
+    assertTrue( stats.getP99Duration() >= 9900 && stats.getP99Duration() <= 12375 );
+  }
+
+  @Test
+  public void testSkippedRunsHaveNoDuration() {
+    store.record( run( "job1", null, 0, 0, Outcome.SKIPPED ) );
+
+    assertEquals( -1, store.getStats( "job1" ).getMedianDuration() );
+    assertEquals( -1, store.getStats( "job1" ).getP95Duration() );
+    assertEquals( -1, store.getStats( "job1" ).getP99Duration() );
+  }
+
+  @Test
+  public void testLineageKeepsTheRunsOfEveryVersionOfAJob() {
+    store.record( run( "job1", "lineage1", 0, 10, Outcome.SUCCEEDED ) );
+    store.remove( "job1" );
+    store.record( run( "job2", "lineage1", 1000, 10, Outcome.FAILED ) );
+
+    assertTrue( store.getRuns( "job1", 10 ).isEmpty() );
+    List<JobRun> runs = store.getLineageRuns( "lineage1", 10 );
+    assertEquals( 2, runs.size() );
+    assertEquals( "job2", runs.get( 0 ).getJobId() );
+    assertEquals( "job1", runs.get( 1 ).getJobId() );
+    assertEquals( 0.5, store.getLineageStats( "lineage1" ).getFailureRate(), 0.0001 );
+  }
+
+  @Test
+  public void testLeastRecentlyUsedJobIsDropped() {
+    store.record( run( "job1", null, 0, 10, Outcome.SUCCEEDED ) );
+    store.record( run( "job2", null, 0, 10, Outcome.SUCCEEDED ) );
+    store.getRuns( "job1", 1 );
+    store.record( run( "job3", null, 0, 10, Outcome.SUCCEEDED ) );
+
+    assertEquals( 2, store.getJobCount() );
+    assertEquals( 1, store.getRuns( "job1", 10 ).size() );
+    assertTrue( store.getRuns( "job2", 10 ).isEmpty() );
+  }
+
+  @Test
+  public void testCreate() {
+    assertEquals( JobHistoryStore.DEFAULT_MAX_RUNS_PER_JOB, JobHistoryStore.create( null ).getMaxRunsPerJob() );
+
+    Properties properties = new Properties();
+    properties.setProperty( JobHistoryStore.PROP_MAX_RUNS_PER_JOB, "20" );
+    properties.setProperty( JobHistoryStore.PROP_MAX_JOBS, "-1" );
+    JobHistoryStore created = JobHistoryStore.create( properties );
+    assertEquals( 20, created.getMaxRunsPerJob() );
+    assertEquals( JobHistoryStore.DEFAULT_MAX_JOBS, created.getMaxJobs() );
+
+    properties.setProperty( JobHistoryStore.PROP_HISTORY_ENABLED, "false" );
+    assertNull( JobHistoryStore.create( properties ) );
+  }
+
+  @Test
+  public void testGetOutputPath() {
+    assertEquals( "/home/admin/Sales.*", JobHistoryStore.getOutputPath( Collections.<String, Serializable>singletonMap(
+      IScheduler.RESERVEDMAPKEY_STREAMPROVIDER, "input = /home/admin/Sales.prpt:outputFile = /home/admin/Sales.*" ) ) );
+    assertNull( JobHistoryStore.getOutputPath( Collections.<String, Serializable>emptyMap() ) );
+  }
+
+  private static JobRun run( String jobId, String lineageId, long offset, long duration, Outcome outcome ) {
+    return new JobRun( jobId, lineageId, START + offset, START + offset + duration, outcome, null );
+  }
+}
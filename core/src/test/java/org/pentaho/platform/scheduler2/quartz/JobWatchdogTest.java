@@ -0,0 +1,231 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JobWatchdogTest {
+
+  private static final long START = 1700000000000L;
+
+  private long now;
+
+  private JobWatchdog watchdog;
+
+  @Before
+  public void setUp() {
+    now = START;
+    watchdog = new JobWatchdog( 60000, 60000, 3, false, () -> now );
+  }
+
+  @After
+  public void tearDown() {
+    watchdog.shutdown();
+    JobWatchdog.Execution execution = JobWatchdog.current();
+    if ( execution != null ) {
+      execution.close();
+    }
+    // clears an interrupt left by a failed test
+    Thread.interrupted();
+  }
+
+  @Test
+  public void testRunIsCancelledOnceItTimesOut() {
+    JobWatchdog.Execution execution = watchdog.begin( "job1", timeout( 10 ), null );
+    assertSame( execution, JobWatchdog.current() );
+    assertEquals( 10000, execution.getTimeoutMillis() );
+    assertEquals( 1, watchdog.getRunningCount() );
+
+    now += 10000;
+    watchdog.check();
+    assertFalse( execution.isCancelled() );
+
+    now += 1;
+    watchdog.check();
+    assertTrue( execution.isCancelled() );
+    assertTrue( JobWatchdog.isCancelled() );
+    assertTrue( Thread.currentThread().isInterrupted() );
+    assertEquals( 1, watchdog.getTimedOutCount() );
+
+    // the thread is interrupted once, so the cleanup of the run and its I/O are not broken off
+    Thread.interrupted();
+    now += 60000;
+    watchdog.check();
+    execution.cancel();
+    assertFalse( Thread.currentThread().isInterrupted() );
+    assertEquals( 1, watchdog.getTimedOutCount() );
+
+    // the worker thread returns to the pool without the interrupt
+    Thread.currentThread().interrupt();
+    execution.close();
+    assertFalse( Thread.currentThread().isInterrupted() );
+    assertNull( JobWatchdog.current() );
+    assertFalse( JobWatchdog.isCancelled() );
+    assertEquals( 0, watchdog.getRunningCount() );
+  }
+
+  @Test
+  public void testDefaultTimeoutAppliesToJobsWithoutOne() {
+    JobWatchdog.Execution execution = watchdog.begin( "job1", Collections.<String, Serializable>emptyMap(), null );
+    assertEquals( 60000, execution.getTimeoutMillis() );
+    execution.close();
+
+    // a timeout of 0 disables the default one
+    execution = watchdog.begin( "job1", timeout( 0 ), null );
+    assertEquals( 0, execution.getTimeoutMillis() );
+    assertEquals( 0, watchdog.getRunningCount() );
+    now += 3600000;
+    watchdog.check();
+    assertFalse( execution.isCancelled() );
+    execution.close();
+  }
+
+  @Test
+  public void testSlowRunIsFlaggedButNotCancelled() {
+    JobWatchdog.Execution execution = watchdog.begin( "job1", timeout( 0 ), stats( JobWatchdog.MIN_TIMED_RUNS, 1000 ) );
+
+    now += 3000;
+    watchdog.check();
+    assertFalse( execution.isSlow() );
+    now += 1;
+    watchdog.check();
+    watchdog.check();
+    assertTrue( execution.isSlow() );
+    assertFalse( execution.isCancelled() );
+    assertEquals( 1, watchdog.getSlowCount() );
+    execution.close();
+
+    // too few runs to trust their percentile
+    execution = watchdog.begin( "job1", timeout( 0 ), stats( JobWatchdog.MIN_TIMED_RUNS - 1, 1000 ) );
+    now += 3600000;
+    watchdog.check();
+    assertFalse( execution.isSlow() );
+    execution.close();
+  }
+
+  @Test
+  public void testSlowRunIsCancelledIfConfigured() {
+    watchdog = new JobWatchdog( 0, 60000, 3, true, () -> now );
+    JobWatchdog.Execution execution = watchdog.begin( "job1", timeout( 0 ), stats( JobWatchdog.MIN_TIMED_RUNS, 1000 ) );
+    now += 3001;
+    watchdog.check();
+    assertTrue( execution.isCancelled() );
+    assertEquals( 0, watchdog.getTimedOutCount() );
+    execution.close();
+  }
+
+  @Test
+  public void testClosedRunIsNotCancelled() {
+    JobWatchdog.Execution execution = watchdog.begin( "job1", timeout( 1 ), null );
+    execution.close();
+    execution.cancel();
+    assertFalse( execution.isCancelled() );
+    assertFalse( Thread.currentThread().isInterrupted() );
+  }
+
+  @Test
+  public void testWatchdogThreadInterruptsABlockedRun() throws InterruptedException {
+    watchdog = new JobWatchdog( 0, 10, 0, false );
+    CountDownLatch started = new CountDownLatch( 1 );
+    AtomicBoolean interrupted = new AtomicBoolean();
+    AtomicBoolean clearedOnClose = new AtomicBoolean();
+    Thread worker = new Thread( () -> {
+      JobWatchdog.Execution execution = watchdog.begin( "job1", timeout( 1 ), null );
+      started.countDown();
+      try {
+        Thread.sleep( 30000 );
+      } catch ( InterruptedException e ) {
+        interrupted.set( JobWatchdog.isCancelled() );
+      } finally {
+        execution.close();
+        clearedOnClose.set( !Thread.currentThread().isInterrupted() );
+      }
+    } );
+    worker.start();
+    assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+    worker.join( 10000 );
+    assertFalse( worker.isAlive() );
+    assertTrue( interrupted.get() );
+    assertTrue( clearedOnClose.get() );
+    assertEquals( 1, watchdog.getTimedOutCount() );
+  }
+
+  @Test
+  public void testGetTimeoutMillis() {
+    assertEquals( -1, JobWatchdog.getTimeoutMillis( Collections.<String, Serializable>emptyMap() ) );
+    assertEquals( 5000, JobWatchdog.getTimeoutMillis( timeout( 5 ) ) );
+    assertEquals( 5000, JobWatchdog.getTimeoutMillis(
+      Collections.<String, Serializable>singletonMap( JobWatchdog.RESERVEDMAPKEY_TIMEOUT, "5" ) ) );
+    assertEquals( -1, JobWatchdog.getTimeoutMillis(
+      Collections.<String, Serializable>singletonMap( JobWatchdog.RESERVEDMAPKEY_TIMEOUT, "soon" ) ) );
+  }
+
+  @Test
+  public void testCreate() {
+    assertNull( JobWatchdog.create( null ) );
+    Properties properties = new Properties();
+    assertNull( JobWatchdog.create( properties ) );
+
+    properties.setProperty( JobWatchdog.PROP_WATCHDOG_ENABLED, "true" );
+    JobWatchdog created = JobWatchdog.create( properties );
+    assertEquals( 0, created.getDefaultTimeoutMillis() );
+    assertEquals( JobWatchdog.DEFAULT_CHECK_INTERVAL_MILLIS, created.getCheckIntervalMillis() );
+
+    properties.setProperty( JobWatchdog.PROP_DEFAULT_TIMEOUT, "3600" );
+    properties.setProperty( JobWatchdog.PROP_CHECK_INTERVAL, "0" );
+    properties.setProperty( JobWatchdog.PROP_SLOW_RUN_FACTOR, "0.5" );
+    properties.setProperty( JobWatchdog.PROP_CANCEL_SLOW_RUNS, "true" );
+    created = JobWatchdog.create( properties );
+    assertEquals( 3600000, created.getDefaultTimeoutMillis() );
+    assertEquals( JobWatchdog.DEFAULT_CHECK_INTERVAL_MILLIS, created.getCheckIntervalMillis() );
+    assertEquals( JobWatchdog.DEFAULT_SLOW_RUN_FACTOR, created.getSlowRunFactor(), 0 );
+    assertTrue( created.isCancelSlowRuns() );
+
+    properties.setProperty( JobWatchdog.PROP_WATCHDOG_ENABLED, "false" );
+    assertNull( JobWatchdog.create( properties ) );
+  }
+
+  private static Map<String, Serializable> timeout( long seconds ) {
+    Map<String, Serializable> jobParams = new HashMap<>();
+    jobParams.put( JobWatchdog.RESERVEDMAPKEY_TIMEOUT, seconds );
+    return jobParams;
+  }
+
+  private static JobHistoryStore.JobStats stats( int runCount, long p99Duration ) {
+    return new JobHistoryStore.JobStats( runCount, 0, 0, runCount, p99Duration / 2, p99Duration, p99Duration );
+  }
+}
@@ -0,0 +1,175 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.pentaho.platform.scheduler2.messsages.Messages;
+import org.pentaho.platform.scheduler2.recur.ITimeRecurrence;
+import org.pentaho.platform.scheduler2.recur.IncrementalRecurrence;
+import org.pentaho.platform.scheduler2.recur.QualifiedDayOfMonth;
+import org.pentaho.platform.scheduler2.recur.QualifiedDayOfWeek;
+import org.pentaho.platform.scheduler2.recur.QualifiedDayOfWeek.DayOfWeek;
+import org.pentaho.platform.scheduler2.recur.QualifiedDayOfWeek.DayOfWeekQualifier;
+import org.pentaho.platform.scheduler2.recur.RecurrenceList;
+import org.pentaho.platform.scheduler2.recur.SequentialRecurrence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The regular expression based parsing that {@link CronRecurrenceParser} replaced, kept as a reference for its
+ * results.
+ */
+class LegacyCronRecurrenceParser {
+
+  private static final Pattern listPattern = Pattern.compile( "\\d+" ); //$NON-NLS-1$
+
+  private static final Pattern dayOfWeekRangePattern = Pattern.compile( ".*\\-.*" ); //$NON-NLS-1$
+
+  private static final Pattern sequencePattern = Pattern.compile( "\\d+\\-\\d+" ); //$NON-NLS-1$
+
+  private static final Pattern intervalPattern = Pattern.compile( "[\\d*]+/[\\d]+" ); //$NON-NLS-1$
+
+  private static final Pattern qualifiedDayPattern = Pattern.compile( "\\d+#\\d+" ); //$NON-NLS-1$
+
+  private static final Pattern lastDayPattern = Pattern.compile( "\\d+L" ); //$NON-NLS-1$
+
+  static List<ITimeRecurrence> getRecurrences( String cronExpression, int field ) {
+    return field == CronRecurrenceParser.DAYS_OF_WEEK ? parseDayOfWeekRecurrences( cronExpression )
+      : parseRecurrence( cronExpression, field );
+  }
+
+  private static List<ITimeRecurrence> parseDayOfWeekRecurrences( String cronExpression ) {
+    List<ITimeRecurrence> dayOfWeekRecurrence = new ArrayList<ITimeRecurrence>();
+    String delims = "[ ]+"; //$NON-NLS-1$
+    String[] tokens = cronExpression.split( delims );
+    if ( tokens.length >= 6 ) {
+      String dayOfWeekTokens = tokens[ 5 ];
+      tokens = dayOfWeekTokens.split( "," ); //$NON-NLS-1$
+      if ( ( tokens.length > 1 ) || !( tokens[ 0 ].equals( "*" ) || tokens[ 0 ].equals(
+        "?" ) ) ) { //$NON-NLS-1$ //$NON-NLS-2$
+        RecurrenceList dayOfWeekList = null;
+        for ( String token : tokens ) {
+          if ( listPattern.matcher( token ).matches() ) {
+            if ( dayOfWeekList == null ) {
+              dayOfWeekList = new RecurrenceList();
+            }
+            dayOfWeekList.getValues().add( Integer.parseInt( token ) );
+          } else {
+            if ( dayOfWeekList != null ) {
+              dayOfWeekRecurrence.add( dayOfWeekList );
+              dayOfWeekList = null;
+            }
+            if ( sequencePattern.matcher( token ).matches() ) {
+              String[] days = token.split( "-" ); //$NON-NLS-1$
+              dayOfWeekRecurrence.add( new SequentialRecurrence( Integer.parseInt( days[ 0 ] ), Integer
+                .parseInt( days[ 1 ] ) ) );
+            } else if ( intervalPattern.matcher( token ).matches() ) {
+              String[] days = token.split( "/" ); //$NON-NLS-1$
+              dayOfWeekRecurrence.add( new IncrementalRecurrence( days[ 0 ], Integer
+                .parseInt( days[ 1 ] ) ) );
+            } else if ( qualifiedDayPattern.matcher( token ).matches() ) {
+              String[] days = token.split( "#" ); //$NON-NLS-1$
+              dayOfWeekRecurrence
+                .add( new QualifiedDayOfWeek( Integer.parseInt( days[ 1 ] ), Integer.parseInt( days[ 0 ] ) ) );
+            } else if ( lastDayPattern.matcher( token ).matches() ) {
+              DayOfWeek dayOfWeek =
+                DayOfWeek.values()[ ( Integer.parseInt( token.substring( 0, token.length() - 1 ) ) - 1 ) % 7 ];
+              dayOfWeekRecurrence.add( new QualifiedDayOfWeek( DayOfWeekQualifier.LAST, dayOfWeek ) );
+            } else if ( dayOfWeekRangePattern.matcher( token ).matches() ) {
+              String[] days = token.split( "-" ); //$NON-NLS-1$
+              int start = DayOfWeek.valueOf( days[ 0 ] ).ordinal();
+              int finish = DayOfWeek.valueOf( days[ 1 ] ).ordinal();
+              dayOfWeekRecurrence.add( new SequentialRecurrence( start, finish ) );
+            } else {
+              dayOfWeekList = new RecurrenceList();
+              dayOfWeekList.getValues().add( DayOfWeek.valueOf( token ).ordinal() );
+              dayOfWeekRecurrence.add( dayOfWeekList );
+              dayOfWeekList = null;
+              // } else {
+              // throw new IllegalArgumentException(Messages.getInstance().getErrorString(
+              //                  "ComplexJobTrigger.ERROR_0001_InvalidCronExpression")); //$NON-NLS-1$
+            }
+          }
+
+        }
+        if ( dayOfWeekList != null ) {
+          dayOfWeekRecurrence.add( dayOfWeekList );
+        }
+      }
+    } else {
+      throw new IllegalArgumentException( Messages.getInstance().getErrorString(
+        "ComplexJobTrigger.ERROR_0001_InvalidCronExpression" ) ); //$NON-NLS-1$
+
+    }
+    return dayOfWeekRecurrence;
+  }
+
+  private static List<ITimeRecurrence> parseRecurrence( String cronExpression, int tokenIndex ) {
+    List<ITimeRecurrence> timeRecurrence = new ArrayList<ITimeRecurrence>();
+    String delims = "[ ]+"; //$NON-NLS-1$
+    String[] tokens = cronExpression.split( delims );
+    if ( tokens.length > tokenIndex ) {
+      String timeTokens = tokens[ tokenIndex ];
+      tokens = timeTokens.split( "," ); //$NON-NLS-1$
+      if ( ( tokens.length > 1 ) || !( tokens[ 0 ].equals( "*" ) || tokens[ 0 ].equals(
+        "?" ) ) ) { //$NON-NLS-1$ //$NON-NLS-2$
+        RecurrenceList timeList = null;
+        for ( String token : tokens ) {
+          if ( listPattern.matcher( token ).matches() ) {
+            if ( timeList == null ) {
+              timeList = new RecurrenceList();
+            }
+            timeList.getValues().add( Integer.parseInt( token ) );
+          } else {
+            if ( timeList != null ) {
+              timeRecurrence.add( timeList );
+              timeList = null;
+            }
+            if ( sequencePattern.matcher( token ).matches() ) {
+              String[] days = token.split( "-" ); //$NON-NLS-1$
+              timeRecurrence.add( new SequentialRecurrence( Integer.parseInt( days[ 0 ] ),
+                Integer.parseInt( days[ 1 ] ) ) );
+            } else if ( intervalPattern.matcher( token ).matches() ) {
+              String[] days = token.split( "/" ); //$NON-NLS-1$
+
+              timeRecurrence
+                .add( new IncrementalRecurrence( days[ 0 ], Integer.parseInt( days[ 1 ] ) ) );
+            } else if ( "L".equalsIgnoreCase( token ) ) {
+              timeRecurrence.add( new QualifiedDayOfMonth() );
+            } else {
+              throw new IllegalArgumentException( Messages.getInstance().getErrorString(
+                "ComplexJobTrigger.ERROR_0001_InvalidCronExpression" ) ); //$NON-NLS-1$
+            }
+          }
+
+        }
+        if ( timeList != null ) {
+          timeRecurrence.add( timeList );
+        }
+      }
+    } else {
+      throw new IllegalArgumentException( Messages.getInstance().getErrorString(
+        "ComplexJobTrigger.ERROR_0001_InvalidCronExpression" ) ); //$NON-NLS-1$
+    }
+    return timeRecurrence;
+  }
+}
@@ -0,0 +1,275 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.pentaho.platform.api.scheduler2.IJob;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.JobState;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerFactory;
+import org.quartz.SchedulerListener;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.quartz.TriggerListener;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class QuartzJobCatalogTest {
+
+  private static final long MAX_AGE = 1000L;
+
+  private long now;
+
+  private Scheduler scheduler;
+
+  private QuartzScheduler quartzScheduler;
+
+  private QuartzJobCatalog catalog;
+
+  private String adminJobId;
+
+  private String suzyJobId;
+
+  private SimpleTrigger adminTrigger;
+
+  @Before
+  public void setUp() throws Exception {
+    now = 0L;
+    scheduler = mock( Scheduler.class );
+    adminJobId = new QuartzJobKey( "report", "admin" ).toString();
+    suzyJobId = new QuartzJobKey( "export", "suzy" ).toString();
+    adminTrigger = addJob( adminJobId, "admin" );
+    addJob( suzyJobId, "suzy" );
+    when( scheduler.getJobGroupNames() ).thenReturn( new String[] { "admin", "suzy" } );
+    when( scheduler.getJobNames( "admin" ) ).thenReturn( new String[] { adminJobId } );
+    when( scheduler.getJobNames( "suzy" ) ).thenReturn( new String[] { suzyJobId } );
+
+    SchedulerFactory schedulerFactory = mock( SchedulerFactory.class );
+    when( schedulerFactory.getScheduler() ).thenReturn( scheduler );
+    catalog = new QuartzJobCatalog( MAX_AGE, () -> now );
+    quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( schedulerFactory );
+    quartzScheduler.setJobCatalog( catalog );
+  }
+
+  @Test
+  public void testGetJobReadsThrough() throws Exception {
+    Job first = quartzScheduler.getJob( adminJobId );
+    Job second = quartzScheduler.getJob( adminJobId );
+
+    assertEquals( adminJobId, second.getJobId() );
+    assertEquals( first.getJobParams(), second.getJobParams() );
+    verify( scheduler, times( 1 ) ).getTriggersOfJob( adminJobId, "admin" );
+    assertEquals( 1, catalog.getHitCount() );
+    assertEquals( 1, catalog.getMissCount() );
+    assertEquals( 1, catalog.getSize() );
+  }
+
+  @Test
+  public void testCallersGetCopies() throws Exception {
+    quartzScheduler.getJob( adminJobId ).getJobParams().put( "changed", "true" );
+    quartzScheduler.getJobs( null ).get( 0 ).setState( JobState.ERROR );
+
+    assertNull( quartzScheduler.getJob( adminJobId ).getJobParams().get( "changed" ) );
+    for ( IJob job : quartzScheduler.getJobs( null ) ) {
+      assertEquals( JobState.NORMAL, ( (Job) job ).getState() );
+    }
+  }
+
+  @Test
+  public void testPauseInvalidatesJob() throws Exception {
+    assertEquals( JobState.NORMAL, quartzScheduler.getJob( adminJobId ).getState() );
+
+    when( scheduler.getTriggerState( adminJobId, "admin" ) ).thenReturn( Trigger.STATE_PAUSED );
+    quartzScheduler.pauseJob( adminJobId );
+
+    assertEquals( JobState.PAUSED, quartzScheduler.getJob( adminJobId ).getState() );
+    verify( scheduler, times( 2 ) ).getTriggersOfJob( adminJobId, "admin" );
+  }
+
+  @Test
+  public void testListingIsCachedAndFiltered() throws Exception {
+    assertEquals( 2, quartzScheduler.getJobs( null ).size() );
+    List<IJob> suzyJobs = quartzScheduler.getJobs( job -> "suzy".equals( ( (Job) job ).getUserName() ) );
+
+    assertEquals( 1, suzyJobs.size() );
+    assertEquals( suzyJobId, suzyJobs.get( 0 ).getJobId() );
+    verify( scheduler, times( 1 ) ).getJobGroupNames();
+  }
+
+  @Test
+  public void testEntriesExpire() throws Exception {
+    quartzScheduler.getJob( adminJobId );
+    quartzScheduler.getJobs( null );
+    now += MAX_AGE - 1;
+    quartzScheduler.getJob( adminJobId );
+    quartzScheduler.getJobs( null );
+    now += 1;
+    quartzScheduler.getJob( adminJobId );
+    quartzScheduler.getJobs( null );
+
+    verify( scheduler, times( 2 ) ).getJobGroupNames();
+    assertEquals( 2, catalog.getHitCount() );
+    assertEquals( 4, catalog.getMissCount() );
+  }
+
+  @Test
+  public void testSchedulerListenerInvalidates() throws Exception {
+    quartzScheduler.getJob( adminJobId );
+    quartzScheduler.getJob( suzyJobId );
+    ArgumentCaptor<SchedulerListener> listener = ArgumentCaptor.forClass( SchedulerListener.class );
+    verify( scheduler ).addSchedulerListener( listener.capture() );
+
+    listener.getValue().jobUnscheduled( adminJobId, "admin" );
+    assertNull( catalog.getJob( QuartzJobKey.parse( adminJobId ) ) );
+    assertNotNull( catalog.getJob( QuartzJobKey.parse( suzyJobId ) ) );
+
+    quartzScheduler.getJobs( null );
+    listener.getValue().triggersPaused( null, "suzy" );
+    assertNull( catalog.getJob( QuartzJobKey.parse( suzyJobId ) ) );
+    assertNull( catalog.getJobs() );
+    assertEquals( 2, catalog.getInvalidationCount() );
+  }
+
+  @Test
+  public void testManualTriggersDoNotInvalidate() throws Exception {
+    quartzScheduler.getJobs( null );
+    ArgumentCaptor<SchedulerListener> listener = ArgumentCaptor.forClass( SchedulerListener.class );
+    verify( scheduler ).addSchedulerListener( listener.capture() );
+
+    listener.getValue().jobUnscheduled( "MT_1", "MANUAL_TRIGGER" );
+
+    assertNotNull( catalog.getJobs() );
+    assertEquals( 0, catalog.getInvalidationCount() );
+  }
+
+  @Test
+  public void testTriggerFireUpdatesListing() throws Exception {
+    quartzScheduler.getJobs( null );
+    ArgumentCaptor<TriggerListener> listener = ArgumentCaptor.forClass( TriggerListener.class );
+    verify( scheduler ).addGlobalTriggerListener( listener.capture() );
+
+    Date fired = new Date();
+    Date nextFire = new Date( fired.getTime() + 3600000L );
+    adminTrigger.setPreviousFireTime( fired );
+    adminTrigger.setNextFireTime( nextFire );
+    listener.getValue().triggerFired( adminTrigger, null );
+
+    for ( IJob job : quartzScheduler.getJobs( null ) ) {
+      if ( adminJobId.equals( job.getJobId() ) ) {
+        assertEquals( fired, job.getLastRun() );
+        assertEquals( nextFire, job.getNextRun() );
+      }
+    }
+    verify( scheduler, times( 1 ) ).getJobGroupNames();
+  }
+
+  @Test
+  public void testLoadRacingAFireIsCachedWithItsRunTimes() throws Exception {
+    long generation = catalog.getGeneration();
+    Job stale = quartzScheduler.getJob( adminJobId );
+    ArgumentCaptor<TriggerListener> listener = ArgumentCaptor.forClass( TriggerListener.class );
+    verify( scheduler ).addGlobalTriggerListener( listener.capture() );
+
+    Date fired = new Date();
+    adminTrigger.setPreviousFireTime( fired );
+    listener.getValue().triggerFired( adminTrigger, null );
+    assertEquals( fired, catalog.getJob( QuartzJobKey.parse( adminJobId ) ).getLastRun() );
+
+    catalog.putJobs( generation, Collections.singletonList( stale ) );
+    List<Job> jobs = catalog.getJobs();
+    assertNotNull( jobs );
+    assertEquals( fired, jobs.get( 0 ).getLastRun() );
+    assertEquals( 0, catalog.getInvalidationCount() );
+  }
+
+  @Test
+  public void testLoadRacingAnInvalidationIsNotCached() throws Exception {
+    long generation = catalog.getGeneration();
+    Job stale = quartzScheduler.getJob( adminJobId );
+    catalog.invalidate( adminJobId );
+
+    catalog.putJob( generation, QuartzJobKey.parse( adminJobId ), stale );
+
+    assertNull( catalog.getJob( QuartzJobKey.parse( adminJobId ) ) );
+  }
+
+  @Test
+  public void testCreate() {
+    Properties properties = new Properties();
+    assertNull( QuartzJobCatalog.create( properties ) );
+
+    properties.setProperty( QuartzJobCatalog.PROP_CATALOG_ENABLED, "true" );
+    assertEquals( QuartzJobCatalog.DEFAULT_MAX_AGE_MILLIS, QuartzJobCatalog.create( properties ).getMaxAgeMillis() );
+
+    properties.setProperty( QuartzJobCatalog.PROP_MAX_AGE_MILLIS, "5000" );
+    assertEquals( 5000L, QuartzJobCatalog.create( properties ).getMaxAgeMillis() );
+
+    properties.setProperty( QuartzJobCatalog.PROP_MAX_AGE_MILLIS, "0" );
+    assertNull( QuartzJobCatalog.create( properties ) );
+  }
+
+  @Test
+  public void testJobKeyEquality() throws Exception {
+    QuartzJobKey key = QuartzJobKey.parse( adminJobId );
+
+    assertEquals( key, QuartzJobKey.parse( adminJobId ) );
+    assertEquals( key.hashCode(), QuartzJobKey.parse( adminJobId ).hashCode() );
+    assertFalse( key.equals( QuartzJobKey.parse( suzyJobId ) ) );
+  }
+
+  private SimpleTrigger addJob( String jobId, String user ) throws Exception {
+    Map<String, Serializable> params = new HashMap<>();
+    params.put( IScheduler.RESERVEDMAPKEY_ACTIONCLASS, "org.pentaho.Action" );
+    params.put( IScheduler.RESERVEDMAPKEY_ACTIONUSER, user );
+    JobDetail jobDetail = new JobDetail( jobId, user, BlockingQuartzJob.class );
+    jobDetail.setJobDataMap( new JobDataMap( params ) );
+    SimpleTrigger trigger = new SimpleTrigger( jobId, user, jobId, user, new Date(), null,
+      SimpleTrigger.REPEAT_INDEFINITELY, 3600000L );
+    trigger.setNextFireTime( new Date( System.currentTimeMillis() + 60000L ) );
+
+    when( scheduler.getTriggersOfJob( jobId, user ) ).thenReturn( new Trigger[] { trigger } );
+    when( scheduler.getJobDetail( jobId, user ) ).thenReturn( jobDetail );
+    when( scheduler.getTriggerState( jobId, user ) ).thenReturn( Trigger.STATE_NORMAL );
+    return trigger;
+  }
+}
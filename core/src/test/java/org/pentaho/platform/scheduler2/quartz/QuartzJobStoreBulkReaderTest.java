@@ -0,0 +1,431 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.IJob;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.JobCriteriaFilter;
+import org.pentaho.platform.api.scheduler2.JobState;
+import org.quartz.Calendar;
+import org.quartz.CronTrigger;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerFactory;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.quartz.impl.jdbcjobstore.Constants;
+import org.quartz.spi.ClassLoadHelper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TimeZone;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class QuartzJobStoreBulkReaderTest {
+
+  private static final long DAY = 24L * 60 * 60 * 1000;
+
+  @Test
+  public void testBulkListingMatchesPerJobListing() throws Exception {
+    FakeJobStore store = new FakeJobStore( 60 );
+
+    List<IJob> perJob = store.newScheduler( null ).getJobs( null );
+    List<IJob> bulk = store.newScheduler( store.newBulkReader() ).getJobs( null );
+
+    assertEquals( 60, perJob.size() );
+    assertEquals( perJob.size(), bulk.size() );
+    Map<String, IJob> bulkById = new HashMap<>();
+    for ( IJob job : bulk ) {
+      bulkById.put( job.getJobId(), job );
+    }
+    for ( IJob expected : perJob ) {
+      assertSameJob( (Job) expected, (Job) bulkById.get( expected.getJobId() ) );
+    }
+  }
+
+  @Test
+  public void testBulkListingAppliesFilter() throws Exception {
+    FakeJobStore store = new FakeJobStore( 20 );
+
+    List<IJob> jobs = store.newScheduler( store.newBulkReader() )
+      .getJobs( job -> "user1".equals( ( (Job) job ).getUserName() ) );
+
+    assertEquals( 4, jobs.size() );
+    for ( IJob job : jobs ) {
+      assertEquals( "user1", ( (Job) job ).getUserName() );
+    }
+  }
+
+  @Test
+  public void testCriteriaFilterPrunesBeforeLoadingJobs() throws Exception {
+    FakeJobStore store = new FakeJobStore( 60 );
+    JobCriteriaFilter filter = new JobCriteriaFilter();
+    filter.setUserNames( "user1", "user2" );
+    filter.setExcludedJobNames( "job1" );
+    filter.setActionClasses( "org.pentaho.Action0", "org.pentaho.Action1" );
+    filter.setStates( JobState.NORMAL );
+
+    QuartzScheduler perJobScheduler = store.newScheduler( null );
+    List<IJob> perJob = perJobScheduler.getJobs( filter );
+    List<IJob> bulk = store.newScheduler( store.newBulkReader() ).getJobs( filter );
+
+    Map<String, IJob> bulkById = new HashMap<>();
+    for ( IJob job : bulk ) {
+      bulkById.put( job.getJobId(), job );
+    }
+    int expected = 0;
+    for ( int i = 0; i < 60; i++ ) {
+      if ( ( i % 5 == 1 || i % 5 == 2 ) && i != 1 && i % 3 != 2 && i % 7 != 0 ) {
+        expected++;
+      }
+    }
+    assertEquals( expected, perJob.size() );
+    assertEquals( expected, bulk.size() );
+    for ( IJob job : perJob ) {
+      assertSameJob( (Job) job, (Job) bulkById.get( job.getJobId() ) );
+    }
+
+    Scheduler quartzScheduler = perJobScheduler.getQuartzScheduler();
+    verify( quartzScheduler, never() ).getJobNames( "user0" );
+    for ( String jobId : store.jobDetails.keySet() ) {
+      if ( "job1".equals( QuartzJobKey.parse( jobId ).getJobName() ) ) {
+        verify( quartzScheduler, never() ).getTriggersOfJob( jobId, "user1" );
+      }
+    }
+  }
+
+  /**
+   * Job store round trips for a listing: the per-job path grows linearly with the number of jobs while the bulk path
+   * stays at three queries.
+   */
+  @Test
+  public void testRoundTripsDoNotGrowWithJobCount() throws Exception {
+    for ( int jobCount : new int[] { 10, 100, 1000 } ) {
+      FakeJobStore store = new FakeJobStore( jobCount );
+
+      QuartzScheduler perJobScheduler = store.newScheduler( null );
+      perJobScheduler.getJobs( null );
+      int perJobCalls = mockingDetails( perJobScheduler.getQuartzScheduler() ).getInvocations().size();
+
+      QuartzScheduler bulkScheduler = store.newScheduler( store.newBulkReader() );
+      assertEquals( jobCount, bulkScheduler.getJobs( null ).size() );
+
+      assertTrue( "per-job calls for " + jobCount + " jobs: " + perJobCalls, perJobCalls >= 3 * jobCount );
+      assertEquals( 3, store.statementCount );
+    }
+  }
+
+  @Test
+  public void testJobDataClassesAreResolvedThroughTheClassLoadHelper() throws Exception {
+    FakeJobStore store = new FakeJobStore( 5 );
+    ClassLoadHelper classLoadHelper = mock( ClassLoadHelper.class );
+    when( classLoadHelper.loadClass( anyString() ) ).thenAnswer( invocation -> Class.forName(
+      invocation.getArgument( 0 ) ) );
+
+    assertEquals( 5, store.newScheduler( store.newBulkReader( classLoadHelper ) ).getJobs( null ).size() );
+    verify( classLoadHelper, atLeastOnce() ).loadClass( JobDataMap.class.getName() );
+  }
+
+  @Test
+  public void testFallsBackToPerJobListingWhenBulkReadFails() throws Exception {
+    FakeJobStore store = new FakeJobStore( 5 );
+    QuartzJobStoreBulkReader failingReader = new QuartzJobStoreBulkReader( () -> {
+      throw new SQLException( "connection refused" );
+    }, "QRTZ5_" );
+
+    assertEquals( 5, store.newScheduler( failingReader ).getJobs( null ).size() );
+  }
+
+  @Test
+  public void testCreate() {
+    Properties properties = new Properties();
+    properties.setProperty( QuartzJobStoreBulkReader.PROP_JOB_STORE_CLASS, "org.quartz.simpl.RAMJobStore" );
+    assertNull( QuartzJobStoreBulkReader.create( properties ) );
+
+    properties.setProperty( QuartzJobStoreBulkReader.PROP_JOB_STORE_CLASS,
+      "org.quartz.impl.jdbcjobstore.JobStoreTX" );
+    assertNull( QuartzJobStoreBulkReader.create( properties ) );
+
+    properties.setProperty( QuartzJobStoreBulkReader.PROP_DATA_SOURCE, "myDS" );
+    assertNotNull( QuartzJobStoreBulkReader.create( properties ) );
+
+    properties.setProperty( QuartzJobStoreBulkReader.PROP_USE_PROPERTIES, "true" );
+    assertNull( QuartzJobStoreBulkReader.create( properties ) );
+
+    properties.setProperty( QuartzJobStoreBulkReader.PROP_USE_PROPERTIES, "false" );
+    properties.setProperty( QuartzJobStoreBulkReader.PROP_BULK_READ_ENABLED, "false" );
+    assertNull( QuartzJobStoreBulkReader.create( properties ) );
+  }
+
+  @Test
+  public void testToTriggerState() {
+    assertEquals( Trigger.STATE_NORMAL, QuartzJobStoreBulkReader.toTriggerState( Constants.STATE_WAITING ) );
+    assertEquals( Trigger.STATE_NORMAL, QuartzJobStoreBulkReader.toTriggerState( Constants.STATE_ACQUIRED ) );
+    assertEquals( Trigger.STATE_PAUSED, QuartzJobStoreBulkReader.toTriggerState( Constants.STATE_PAUSED ) );
+    assertEquals( Trigger.STATE_PAUSED, QuartzJobStoreBulkReader.toTriggerState( Constants.STATE_PAUSED_BLOCKED ) );
+    assertEquals( Trigger.STATE_BLOCKED, QuartzJobStoreBulkReader.toTriggerState( Constants.STATE_BLOCKED ) );
+    assertEquals( Trigger.STATE_COMPLETE, QuartzJobStoreBulkReader.toTriggerState( Constants.STATE_COMPLETE ) );
+    assertEquals( Trigger.STATE_ERROR, QuartzJobStoreBulkReader.toTriggerState( Constants.STATE_ERROR ) );
+    assertEquals( Trigger.STATE_NONE, QuartzJobStoreBulkReader.toTriggerState( null ) );
+  }
+
+  private static void assertSameJob( Job expected, Job actual ) {
+    assertNotNull( actual );
+    assertEquals( expected.getJobName(), actual.getJobName() );
+    assertEquals( expected.getUserName(), actual.getUserName() );
+    assertEquals( expected.getGroupName(), actual.getGroupName() );
+    assertEquals( expected.getState(), actual.getState() );
+    assertEquals( expected.getJobParams(), actual.getJobParams() );
+    assertEquals( expected.getNextRun(), actual.getNextRun() );
+    assertEquals( expected.getLastRun(), actual.getLastRun() );
+    assertEquals( expected.getJobTrigger().getClass(), actual.getJobTrigger().getClass() );
+    assertEquals( expected.getJobTrigger().getCronString(), actual.getJobTrigger().getCronString() );
+    assertEquals( expected.getJobTrigger().getStartTime(), actual.getJobTrigger().getStartTime() );
+    assertEquals( expected.getJobTrigger().getEndTime(), actual.getJobTrigger().getEndTime() );
+    assertEquals( expected.getJobTrigger().getUiPassParam(), actual.getJobTrigger().getUiPassParam() );
+  }
+
+  /**
+   * Backs both the mocked {@link Scheduler} used by the per-job listing and the mocked JDBC connection used by the
+   * bulk reader with the same jobs.
+   */
+  private static class FakeJobStore {
+    private final Map<String, JobDetail> jobDetails = new LinkedHashMap<>();
+    private final Map<String, Trigger> triggers = new LinkedHashMap<>();
+    private final Map<String, Integer> states = new HashMap<>();
+    private final Map<String, Calendar> calendars = new HashMap<>();
+    private int statementCount;
+
+    FakeJobStore( int jobCount ) throws Exception {
+      long now = System.currentTimeMillis();
+      for ( int i = 0; i < jobCount; i++ ) {
+        String user = "user" + ( i % 5 );
+        String jobId = new QuartzJobKey( "job" + i, user ).toString();
+
+        Map<String, Serializable> params = new HashMap<>();
+        params.put( IScheduler.RESERVEDMAPKEY_ACTIONCLASS, "org.pentaho.Action" + ( i % 3 ) );
+        params.put( IScheduler.RESERVEDMAPKEY_ACTIONUSER, user );
+        params.put( IScheduler.RESERVEDMAPKEY_LINEAGE_ID, "lineage" + i );
+        params.put( IScheduler.RESERVEDMAPKEY_UIPASSPARAM, i % 2 == 0 ? "DAILY" : "RUN_ONCE" );
+        JobDetail jobDetail = new JobDetail( jobId, user, BlockingQuartzJob.class );
+        jobDetail.setJobDataMap( new JobDataMap( params ) );
+        jobDetails.put( jobId, jobDetail );
+
+        Date startTime = new Date( now - DAY );
+        Trigger trigger;
+        if ( i % 2 == 0 ) {
+          trigger = new CronTrigger( jobId, user, jobId, user, startTime, null,
+            i % 4 == 0 ? "0 0 12 ? * 2,4 *" : "0 30 6 1/2 * ? *", TimeZone.getDefault() );
+          if ( i % 3 == 0 ) {
+            trigger.setCalendarName( jobId );
+            calendars.put( jobId, new QuartzSchedulerAvailability( startTime, new Date( now + 30 * DAY ) ) );
+          }
+        } else {
+          trigger = new SimpleTrigger( jobId, user, jobId, user, startTime, null, SimpleTrigger.REPEAT_INDEFINITELY,
+            3600000L );
+        }
+        trigger.setNextFireTime( new Date( now + DAY + i ) );
+        trigger.setPreviousFireTime( i % 3 == 0 ? null : new Date( now - i ) );
+        triggers.put( jobId, trigger );
+        states.put( jobId, i % 7 == 0 ? Trigger.STATE_PAUSED : Trigger.STATE_NORMAL );
+      }
+    }
+
+    QuartzScheduler newScheduler( QuartzJobStoreBulkReader bulkReader ) throws Exception {
+      Scheduler scheduler = mock( Scheduler.class );
+      TreeSet<String> groups = new TreeSet<>();
+      for ( JobDetail jobDetail : jobDetails.values() ) {
+        groups.add( jobDetail.getGroup() );
+      }
+      when( scheduler.getJobGroupNames() ).thenReturn( groups.toArray( new String[ 0 ] ) );
+      for ( String group : groups ) {
+        List<String> names = new ArrayList<>();
+        for ( JobDetail jobDetail : jobDetails.values() ) {
+          if ( group.equals( jobDetail.getGroup() ) ) {
+            names.add( jobDetail.getName() );
+          }
+        }
+        when( scheduler.getJobNames( group ) ).thenReturn( names.toArray( new String[ 0 ] ) );
+      }
+      for ( JobDetail jobDetail : jobDetails.values() ) {
+        String jobId = jobDetail.getName();
+        when( scheduler.getTriggersOfJob( jobId, jobDetail.getGroup() ) )
+          .thenReturn( new Trigger[] { triggers.get( jobId ) } );
+        when( scheduler.getJobDetail( jobId, jobDetail.getGroup() ) ).thenReturn( jobDetail );
+        when( scheduler.getTriggerState( jobId, jobDetail.getGroup() ) ).thenReturn( states.get( jobId ) );
+        when( scheduler.getCalendar( jobId ) ).thenReturn( calendars.get( jobId ) );
+      }
+      SchedulerFactory schedulerFactory = mock( SchedulerFactory.class );
+      when( schedulerFactory.getScheduler() ).thenReturn( scheduler );
+
+      QuartzScheduler quartzScheduler = new QuartzScheduler();
+      quartzScheduler.setQuartzSchedulerFactory( schedulerFactory );
+      quartzScheduler.setJobStoreBulkReader( bulkReader );
+      return quartzScheduler;
+    }
+
+    QuartzJobStoreBulkReader newBulkReader() {
+      return newBulkReader( null );
+    }
+
+    QuartzJobStoreBulkReader newBulkReader( ClassLoadHelper classLoadHelper ) {
+      statementCount = 0;
+      return new QuartzJobStoreBulkReader( this::newConnection, "QRTZ5_", classLoadHelper );
+    }
+
+    private Connection newConnection() throws SQLException {
+      Connection connection = mock( Connection.class );
+      when( connection.prepareStatement( anyString() ) ).thenAnswer( invocation -> {
+        String sql = invocation.getArgument( 0 );
+        assertTrue( sql, sql.contains( "QRTZ5_" ) );
+        statementCount++;
+        PreparedStatement statement = mock( PreparedStatement.class );
+        List<Map<String, Object>> rows;
+        if ( sql.contains( "JOB_DETAILS" ) ) {
+          rows = jobRows();
+        } else if ( sql.contains( "CALENDARS" ) ) {
+          rows = calendarRows();
+        } else {
+          rows = triggerRows();
+        }
+        ResultSet resultSet = resultSet( rows );
+        when( statement.executeQuery() ).thenReturn( resultSet );
+        return statement;
+      } );
+      return connection;
+    }
+
+    private List<Map<String, Object>> jobRows() throws IOException {
+      List<Map<String, Object>> rows = new ArrayList<>();
+      for ( JobDetail jobDetail : jobDetails.values() ) {
+        Map<String, Object> row = new HashMap<>();
+        row.put( "JOB_NAME", jobDetail.getName() );
+        row.put( "JOB_GROUP", jobDetail.getGroup() );
+        row.put( "JOB_DATA", serialize( jobDetail.getJobDataMap() ) );
+        rows.add( row );
+      }
+      return rows;
+    }
+
+    private List<Map<String, Object>> calendarRows() throws IOException {
+      List<Map<String, Object>> rows = new ArrayList<>();
+      for ( Map.Entry<String, Calendar> entry : calendars.entrySet() ) {
+        Map<String, Object> row = new HashMap<>();
+        row.put( "CALENDAR_NAME", entry.getKey() );
+        row.put( "CALENDAR", serialize( entry.getValue() ) );
+        rows.add( row );
+      }
+      return rows;
+    }
+
+    private List<Map<String, Object>> triggerRows() {
+      List<Map<String, Object>> rows = new ArrayList<>();
+      for ( Trigger trigger : triggers.values() ) {
+        Map<String, Object> row = new HashMap<>();
+        row.put( "TRIGGER_NAME", trigger.getName() );
+        row.put( "TRIGGER_GROUP", trigger.getGroup() );
+        row.put( "JOB_NAME", trigger.getJobName() );
+        row.put( "JOB_GROUP", trigger.getJobGroup() );
+        row.put( "NEXT_FIRE_TIME", millis( trigger.getNextFireTime() ) );
+        row.put( "PREV_FIRE_TIME", millis( trigger.getPreviousFireTime() ) );
+        row.put( "PRIORITY", trigger.getPriority() );
+        row.put( "TRIGGER_STATE", states.get( trigger.getName() ) == Trigger.STATE_PAUSED
+          ? Constants.STATE_PAUSED : Constants.STATE_WAITING );
+        row.put( "START_TIME", millis( trigger.getStartTime() ) );
+        row.put( "END_TIME", millis( trigger.getEndTime() ) );
+        row.put( "CALENDAR_NAME", trigger.getCalendarName() );
+        row.put( "MISFIRE_INSTR", trigger.getMisfireInstruction() );
+        if ( trigger instanceof CronTrigger ) {
+          row.put( "TRIGGER_TYPE", Constants.TTYPE_CRON );
+          row.put( "CRON_EXPRESSION", ( (CronTrigger) trigger ).getCronExpression() );
+          row.put( "TIME_ZONE_ID", ( (CronTrigger) trigger ).getTimeZone().getID() );
+        } else {
+          SimpleTrigger simpleTrigger = (SimpleTrigger) trigger;
+          row.put( "TRIGGER_TYPE", Constants.TTYPE_SIMPLE );
+          row.put( "REPEAT_COUNT", simpleTrigger.getRepeatCount() );
+          row.put( "REPEAT_INTERVAL", simpleTrigger.getRepeatInterval() );
+          row.put( "TIMES_TRIGGERED", simpleTrigger.getTimesTriggered() );
+        }
+        rows.add( row );
+      }
+      return rows;
+    }
+  }
+
+  private static ResultSet resultSet( List<Map<String, Object>> rows ) throws SQLException {
+    ResultSet resultSet = mock( ResultSet.class );
+    int[] cursor = { -1 };
+    when( resultSet.next() ).thenAnswer( invocation -> ++cursor[ 0 ] < rows.size() );
+    when( resultSet.getString( anyString() ) )
+      .thenAnswer( invocation -> rows.get( cursor[ 0 ] ).get( invocation.<String>getArgument( 0 ) ) );
+    when( resultSet.getBytes( anyString() ) )
+      .thenAnswer( invocation -> rows.get( cursor[ 0 ] ).get( invocation.<String>getArgument( 0 ) ) );
+    when( resultSet.getLong( anyString() ) ).thenAnswer( invocation -> {
+      Number value = (Number) rows.get( cursor[ 0 ] ).get( invocation.<String>getArgument( 0 ) );
+      return value == null ? 0L : value.longValue();
+    } );
+    when( resultSet.getInt( anyString() ) ).thenAnswer( invocation -> {
+      Number value = (Number) rows.get( cursor[ 0 ] ).get( invocation.<String>getArgument( 0 ) );
+      return value == null ? 0 : value.intValue();
+    } );
+    return resultSet;
+  }
+
+  private static long millis( Date date ) {
+    return date == null ? -1 : date.getTime();
+  }
+
+  private static byte[] serialize( Object object ) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try ( ObjectOutputStream out = new ObjectOutputStream( bytes ) ) {
+      out.writeObject( object );
+    }
+    return bytes.toByteArray();
+  }
+}
@@ -30,8 +30,11 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
 import org.pentaho.platform.api.repository2.unified.RepositoryFile;
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
 import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.JobTrigger;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.quartz.CronExpression;
 import org.quartz.CronTrigger;
@@ -134,6 +137,24 @@ public class QuartzSchedulerTest {
         "input = /home/admin/allowed.ktr : output = /home/admin/allowed." ) );
   }
 
+  @Test
+  public void testCreateQuartzTriggerStoresThePriority() throws Exception {
+    QuartzJobKey jobKey = new QuartzJobKey( "job", "admin" );
+    SimpleJobTrigger simpleJobTrigger = new SimpleJobTrigger( new Date(), null, 0, 0 );
+    assertEquals( Trigger.DEFAULT_PRIORITY, QuartzScheduler.createQuartzTrigger( simpleJobTrigger, jobKey )
+      .getPriority() );
+
+    simpleJobTrigger.setPriority( JobTrigger.HIGH_PRIORITY );
+    assertEquals( JobTrigger.HIGH_PRIORITY, QuartzScheduler.createQuartzTrigger( simpleJobTrigger, jobKey )
+      .getPriority() );
+
+    ComplexJobTrigger complexJobTrigger = new ComplexJobTrigger();
+    complexJobTrigger.setCronString( "0 0 * * * ?" );
+    complexJobTrigger.setPriority( JobTrigger.LOW_PRIORITY );
+    assertEquals( JobTrigger.LOW_PRIORITY, QuartzScheduler.createQuartzTrigger( complexJobTrigger, jobKey )
+      .getPriority() );
+  }
+
   @Test
   public void testSetTimezone() throws Exception {
 
@@ -0,0 +1,215 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerMetaData;
+import org.quartz.Trigger;
+import org.quartz.TriggerListener;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Properties;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class SchedulerMetricsTest {
+
+  private static final long START = 1700000000000L;
+
+  private long now;
+
+  private SchedulerMetrics metrics;
+
+  @Before
+  public void setUp() {
+    now = START;
+    metrics = new SchedulerMetrics( false, () -> now );
+  }
+
+  @Test
+  public void testFiresAndFireRate() {
+    for ( int second = 0; second < 30; second++ ) {
+      metrics.recordFire( second * 10 );
+      metrics.recordFire( 0 );
+      now += 1000;
+    }
+    metrics.recordBlockedFire();
+    metrics.recordRejectedFire();
+
+    assertEquals( 60, metrics.getFireCount() );
+    assertEquals( 1.0, metrics.getFiresPerSecond(), 0 );
+    assertEquals( 1, metrics.getBlockedFireCount() );
+    assertEquals( 1, metrics.getRejectedFireCount() );
+    assertEquals( 290, metrics.getFireLagMaxMillis(), 0 );
+    assertEquals( 0, metrics.getFireLagMedianMillis(), 0 );
+
+    // the fires drop out of the rate after a minute
+    now += 45000;
+    assertEquals( 0.5, metrics.getFiresPerSecond(), 0 );
+    now += 15000;
+    assertEquals( 0, metrics.getFiresPerSecond(), 0 );
+    assertEquals( 60, metrics.getFireCount() );
+  }
+
+  @Test
+  public void testFireLag() {
+    JobExecutionContext context = mock( JobExecutionContext.class );
+    assertEquals( 0, SchedulerMetrics.getFireLag( context ) );
+    doReturn( new Date( START + 1500 ) ).when( context ).getFireTime();
+    doReturn( new Date( START ) ).when( context ).getScheduledFireTime();
+    assertEquals( 1500, SchedulerMetrics.getFireLag( context ) );
+  }
+
+  @Test
+  public void testExecutionsByActionType() {
+    metrics.recordExecution( "prpt", 1000, false );
+    metrics.recordExecution( "prpt", 3000, true );
+    metrics.recordExecution( "ktr", 20, false );
+    metrics.recordExecution( null, 5, false );
+
+    assertArrayEquals( new String[] { JobAdmissionControl.DEFAULT_ACTION_TYPE, "ktr", "prpt" },
+      metrics.getActionTypes() );
+    assertEquals( 4, metrics.getExecutionCount() );
+    assertEquals( 1, metrics.getExecutionFailureCount() );
+    double median = metrics.getExecutionMedianMillis( "prpt" );
+    assertTrue( String.valueOf( median ), median >= 1000 && median <= 1250 );
+    assertEquals( 3000, metrics.getExecutionP95Millis( "prpt" ), 0 );
+    assertEquals( -1, metrics.getExecutionMedianMillis( "kjb" ), 0 );
+  }
+
+  @Test
+  public void testLabelValuesAreLimited() {
+    for ( int i = 0; i < SchedulerMetrics.MAX_LABEL_VALUES + 10; i++ ) {
+      metrics.recordExecution( "type" + i, 1, false );
+    }
+
+    String[] actionTypes = metrics.getActionTypes();
+    assertEquals( SchedulerMetrics.MAX_LABEL_VALUES + 1, actionTypes.length );
+    assertTrue( Arrays.asList( actionTypes ).contains( SchedulerMetrics.OTHER_LABEL_VALUE ) );
+    assertEquals( SchedulerMetrics.MAX_LABEL_VALUES + 10, metrics.getExecutionCount() );
+  }
+
+  @Test
+  public void testJobStoreCalls() {
+    assertEquals( -1, metrics.getJobStoreCallMedianMillis(), 0 );
+    metrics.recordJobStoreCall( "scheduleJob", 2000000 );
+    metrics.recordJobStoreCall( "deleteJob", 500000 );
+
+    assertEquals( 2, metrics.getJobStoreCallCount() );
+    double p95 = metrics.getJobStoreCallP95Millis();
+    assertTrue( String.valueOf( p95 ), p95 >= 2 && p95 <= 2.5 );
+  }
+
+  @Test
+  public void testPrometheusText() {
+    metrics.recordFire( 0 );
+    metrics.recordExecution( "prpt", 1000, true );
+    metrics.recordExecution( "prpt", 100000000, false );
+    metrics.recordExecution( "a\"b", 1, false );
+    metrics.registerGauge( "custom_gauge", "A gauge", () -> 7 );
+    metrics.registerCounter( "missing_total", "A counter of a disabled component", () -> null );
+
+    String text = metrics.toPrometheusText();
+    assertTrue( text,
+      text.contains( "# TYPE pentaho_scheduler_fires_total counter\npentaho_scheduler_fires_total 1\n" ) );
+    assertTrue( text, text.contains( "# TYPE pentaho_scheduler_job_duration_seconds histogram\n" ) );
+    assertTrue( text, text.contains(
+      "pentaho_scheduler_job_duration_seconds_bucket{action_type=\"prpt\",le=\"1.048576\"} 1\n" ) );
+    assertTrue( text, text.contains(
+      "pentaho_scheduler_job_duration_seconds_bucket{action_type=\"prpt\",le=\"17179.869184\"} 1\n" ) );
+    assertTrue( text, text.contains(
+      "pentaho_scheduler_job_duration_seconds_bucket{action_type=\"prpt\",le=\"+Inf\"} 2\n" ) );
+    assertTrue( text, text.contains( "pentaho_scheduler_job_duration_seconds_sum{action_type=\"prpt\"} 100001.0\n" ) );
+    assertTrue( text, text.contains( "pentaho_scheduler_job_duration_seconds_count{action_type=\"prpt\"} 2\n" ) );
+    assertTrue( text, text.contains( "pentaho_scheduler_job_failures_total{action_type=\"prpt\"} 1\n" ) );
+    assertTrue( text, text.contains( "action_type=\"a\\\"b\"" ) );
+    assertTrue( text, text.contains( "pentaho_scheduler_fire_lag_seconds_bucket{le=\"+Inf\"} 1\n" ) );
+    assertTrue( text,
+      text.contains( "# TYPE pentaho_scheduler_custom_gauge gauge\npentaho_scheduler_custom_gauge 7\n" ) );
+    assertFalse( text, text.contains( "missing_total" ) );
+    // not registered with a running scheduler
+    assertFalse( text, text.contains( "thread_pool" ) );
+  }
+
+  @Test
+  public void testRegisterCountsMisfiresAndReportsTheThreadPool() throws Exception {
+    Scheduler scheduler = mock( Scheduler.class );
+    SchedulerMetaData metaData = mock( SchedulerMetaData.class );
+    doReturn( metaData ).when( scheduler ).getMetaData();
+    doReturn( 10 ).when( metaData ).getThreadPoolSize();
+    doReturn( Arrays.asList( mock( JobExecutionContext.class ), mock( JobExecutionContext.class ) ) )
+      .when( scheduler ).getCurrentlyExecutingJobs();
+    assertEquals( -1, metrics.getThreadPoolSize() );
+
+    metrics.register( scheduler );
+    ArgumentCaptor<TriggerListener> listener = ArgumentCaptor.forClass( TriggerListener.class );
+    verify( scheduler ).addGlobalTriggerListener( listener.capture() );
+    assertEquals( SchedulerMetrics.LISTENER_NAME, listener.getValue().getName() );
+    listener.getValue().triggerMisfired( mock( Trigger.class ) );
+
+    assertEquals( 1, metrics.getMisfireCount() );
+    assertEquals( 10, metrics.getThreadPoolSize() );
+    assertEquals( 2, metrics.getBusyThreadCount() );
+    assertEquals( 8, metrics.getIdleThreadCount() );
+    assertTrue( metrics.toPrometheusText().contains( "pentaho_scheduler_thread_pool_idle_threads 8\n" ) );
+
+    metrics.unregister();
+    assertEquals( -1, metrics.getIdleThreadCount() );
+  }
+
+  @Test
+  public void testMBean() throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName( SchedulerMetrics.OBJECT_NAME );
+    metrics = new SchedulerMetrics( true, () -> now );
+    metrics.recordFire( 0 );
+    try {
+      metrics.register( mock( Scheduler.class ) );
+      assertTrue( server.isRegistered( name ) );
+      assertEquals( 1L, server.getAttribute( name, "FireCount" ) );
+    } finally {
+      metrics.unregister();
+    }
+    assertFalse( server.isRegistered( name ) );
+  }
+
+  @Test
+  public void testCreate() {
+    Properties properties = new Properties();
+    assertTrue( SchedulerMetrics.create( properties ) != null );
+    properties.setProperty( SchedulerMetrics.PROP_METRICS_ENABLED, "false" );
+    assertNull( SchedulerMetrics.create( properties ) );
+  }
+}
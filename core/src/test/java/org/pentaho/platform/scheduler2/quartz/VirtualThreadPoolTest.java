@@ -0,0 +1,124 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.SchedulerConfigException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class VirtualThreadPoolTest {
+
+  private VirtualThreadPool pool;
+
+  @Before
+  public void setUp() {
+    pool = new VirtualThreadPool();
+    pool.setThreadCount( 2 );
+  }
+
+  @After
+  public void tearDown() {
+    pool.shutdown( false );
+  }
+
+  @Test
+  public void testCapsTheJobsRunningAtOnce() throws Exception {
+    pool.initialize();
+    CountDownLatch release = new CountDownLatch( 1 );
+    AtomicInteger finished = new AtomicInteger();
+    Runnable job = () -> {
+      try {
+        release.await();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      }
+      finished.incrementAndGet();
+    };
+
+    assertTrue( pool.runInThread( job ) );
+    assertTrue( pool.runInThread( job ) );
+    assertEquals( 2, pool.getRunningCount() );
+    CompletableFuture<Boolean> third = CompletableFuture.supplyAsync( () -> pool.runInThread( job ) );
+    Thread.sleep( 100 );
+    assertFalse( third.isDone() );
+
+    release.countDown();
+    assertTrue( third.get( 10, TimeUnit.SECONDS ) );
+    pool.shutdown( true );
+    assertEquals( 3, finished.get() );
+    assertEquals( 0, pool.getRunningCount() );
+    assertEquals( 2, pool.blockForAvailableThreads() );
+    assertEquals( 3, pool.getRunCount() );
+  }
+
+  @Test
+  public void testDoesNotRunJobsAfterShutdown() throws Exception {
+    pool.initialize();
+    pool.shutdown( true );
+    assertFalse( pool.runInThread( () -> {
+    } ) );
+    assertEquals( 0, pool.getRunCount() );
+  }
+
+  @Test
+  public void testThreadsInheritTheContextClassLoader() throws Exception {
+    pool.setVirtualThreads( false );
+    pool.setThreadNamePrefix( "test-worker-" );
+    pool.setThreadsInheritContextClassLoaderOfInitializingThread( true );
+    pool.initialize();
+    assertFalse( pool.isUsingVirtualThreads() );
+
+    AtomicReference<Thread> thread = new AtomicReference<>();
+    CountDownLatch ran = new CountDownLatch( 1 );
+    assertTrue( pool.runInThread( () -> {
+      thread.set( Thread.currentThread() );
+      ran.countDown();
+    } ) );
+    assertTrue( ran.await( 10, TimeUnit.SECONDS ) );
+    assertEquals( "test-worker-0", thread.get().getName() );
+    assertSame( Thread.currentThread().getContextClassLoader(), thread.get().getContextClassLoader() );
+  }
+
+  @Test
+  public void testUsesVirtualThreadsWhereAvailable() throws Exception {
+    pool.initialize();
+    assertEquals( VirtualThreadPool.createVirtualThreadFactory( "test" ) != null, pool.isUsingVirtualThreads() );
+    assertEquals( 2, pool.getPoolSize() );
+  }
+
+  @Test( expected = SchedulerConfigException.class )
+  public void testThreadCountMustBePositive() throws Exception {
+    pool.setThreadCount( 0 );
+    pool.initialize();
+  }
+}
@@ -0,0 +1,90 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.web.http.api.resources;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.api.genericfile.IGenericFileService;
+import org.pentaho.platform.api.genericfile.exception.AccessControlException;
+import org.pentaho.platform.api.genericfile.exception.NotFoundException;
+import org.pentaho.platform.api.genericfile.model.IGenericFilePage;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class GenericFileResourceTest {
+
+  private IGenericFileService genericFileService;
+
+  private GenericFileResource resource;
+
+  @Before
+  public void setUp() {
+    genericFileService = mock( IGenericFileService.class );
+    resource = new GenericFileResource( genericFileService );
+  }
+
+  @Test
+  public void testLoadFolderChildrenDecodesThePath() throws Exception {
+    IGenericFilePage page = mock( IGenericFilePage.class );
+    int limit = GenericFileResource.MAX_FOLDER_CHILDREN_LIMIT;
+    doReturn( page ).when( genericFileService ).getFolderChildren( "/home/admin", 100, limit );
+
+    assertSame( page, resource.loadFolderChildren( ":home:admin", 100, limit ) );
+  }
+
+  @Test
+  public void testLoadFolderChildrenRejectsInvalidPaging() throws Exception {
+    assertStatus( Response.Status.BAD_REQUEST, ":home", 0, GenericFileResource.MAX_FOLDER_CHILDREN_LIMIT + 1 );
+    assertStatus( Response.Status.BAD_REQUEST, ":home", 0, 0 );
+    assertStatus( Response.Status.BAD_REQUEST, ":home", -1, 100 );
+    verify( genericFileService, never() ).getFolderChildren( anyString(), anyInt(), anyInt() );
+  }
+
+  @Test
+  public void testLoadFolderChildrenMapsErrors() throws Exception {
+    doThrow( new NotFoundException() ).when( genericFileService ).getFolderChildren( "/home/missing", 0, 100 );
+    doThrow( new AccessControlException() ).when( genericFileService ).getFolderChildren( "/etc", 0, 100 );
+
+    assertStatus( Response.Status.NOT_FOUND, ":home:missing", 0, 100 );
+    assertStatus( Response.Status.FORBIDDEN, ":etc", 0, 100 );
+  }
+
+  private void assertStatus( Response.Status status, String path, int offset, int limit ) {
+    try {
+      resource.loadFolderChildren( path, offset, limit );
+      fail( "Expected " + status );
+    } catch ( WebApplicationException e ) {
+      assertEquals( status.getStatusCode(), e.getResponse().getStatus() );
+    }
+  }
+}
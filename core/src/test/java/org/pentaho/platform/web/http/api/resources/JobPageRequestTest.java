@@ -0,0 +1,120 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.platform.web.http.api.resources;
+
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.IJob;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.JobTrigger;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+import org.pentaho.platform.util.ActionUtil;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JobPageRequestTest {
+
+  private final QuartzScheduler scheduler = new QuartzScheduler();
+
+  @Test
+  public void testScheduleTypeWithoutUiPassParam() {
+    assertEquals( "RUN_ONCE", JobPageRequest.getScheduleType( new SimpleJobTrigger( null, null, 0, 0 ) ) );
+    assertEquals( "HOURS", JobPageRequest.getScheduleType( new SimpleJobTrigger( null, null, -1, 7200 ) ) );
+    assertEquals( "DAILY", JobPageRequest.getScheduleType( new SimpleJobTrigger( null, null, -1, 86400 ) ) );
+    assertEquals( "WEEKLY", JobPageRequest.getScheduleType( new SimpleJobTrigger( null, null, -1, 604800 ) ) );
+    assertEquals( "DAILY", JobPageRequest.getScheduleType( complex( "0 0 8 ? * 2-6 *" ) ) );
+    assertEquals( "DAILY", JobPageRequest.getScheduleType( complex( "0 0 8 ? * 2,3,4,5,6 *" ) ) );
+    assertEquals( "WEEKLY", JobPageRequest.getScheduleType( complex( "0 0 8 ? * 2,4 *" ) ) );
+    assertEquals( "MONTHLY", JobPageRequest.getScheduleType( complex( "0 0 8 15 * ? *" ) ) );
+    assertEquals( "MONTHLY", JobPageRequest.getScheduleType( complex( "0 0 8 ? * 2#1 *" ) ) );
+    assertEquals( "YEARLY", JobPageRequest.getScheduleType( complex( "0 0 8 1 3 ? *" ) ) );
+  }
+
+  @Test
+  public void testScheduleTypeFilter() {
+    JobPageRequest jobPageRequest = new JobPageRequest();
+    jobPageRequest.setScheduleType( "daily" );
+
+    // created through the API, without a ui pass param
+    assertTrue( jobPageRequest.accept( job( "job1", complex( "0 0 8 ? * 2-6 *" ) ) ) );
+    assertTrue( jobPageRequest.accept( job( "job2", new SimpleJobTrigger( null, null, -1, 86400 ) ) ) );
+    assertFalse( jobPageRequest.accept( job( "job3", complex( "0 0 8 ? * 2,4 *" ) ) ) );
+
+    // the ui pass param of the schedule dialog wins
+    JobTrigger trigger = complex( "0 0 8 ? * 2,4 *" );
+    trigger.setUiPassParam( "DAILY" );
+    assertTrue( jobPageRequest.accept( job( "job4", trigger ) ) );
+  }
+
+  @Test
+  public void testSortByExecutableTypeAndOutputPath() {
+    IJob report = job( "report", null );
+    report.getJobParams().put( ActionUtil.QUARTZ_STREAMPROVIDER_INPUT_FILE, "/home/admin/sales.prpt" );
+    report.getJobParams().put( IScheduler.RESERVEDMAPKEY_STREAMPROVIDER,
+      "input file = /home/admin/sales.prpt:outputFile = /public/sales/sales.*" );
+    IJob trans = job( "trans", null );
+    trans.getJobParams().put( ActionUtil.QUARTZ_STREAMPROVIDER_INPUT_FILE, "/home/admin/load.ktr" );
+    trans.getJobParams().put( IScheduler.RESERVEDMAPKEY_STREAMPROVIDER,
+      "input file = /home/admin/load.ktr:outputFile = /home/admin/load.*" );
+    IJob noInput = job( "noInput", null );
+    List<IJob> jobs = new ArrayList<>( Arrays.asList( noInput, trans, report ) );
+
+    JobPageRequest jobPageRequest = new JobPageRequest();
+    jobPageRequest.setSortBy( JobPageRequest.SORT_EXECUTABLE_TYPE );
+    jobs.sort( jobPageRequest.getComparator() );
+    assertEquals( Arrays.asList( report, trans, noInput ), jobs );
+
+    jobPageRequest.setSortBy( JobPageRequest.SORT_OUTPUT_PATH );
+    jobs.sort( jobPageRequest.getComparator() );
+    assertEquals( Arrays.asList( trans, report, noInput ), jobs );
+    assertEquals( "/public/sales", JobPageRequest.getOutputPath( report ) );
+
+    jobPageRequest.setSortBy( JobPageRequest.SORT_JOB_ID );
+    jobPageRequest.setAscending( false );
+    jobs.sort( jobPageRequest.getComparator() );
+    assertEquals( Arrays.asList( trans, report, noInput ), jobs );
+  }
+
+  private JobTrigger complex( String cronExpression ) {
+    return (ComplexJobTrigger) scheduler.createComplexTrigger( cronExpression );
+  }
+
+  private static IJob job( String jobId, JobTrigger trigger ) {
+    Job job = new Job();
+    job.setJobId( jobId );
+    job.setJobName( jobId );
+    job.setJobTrigger( trigger );
+    Map<String, Serializable> jobParams = new HashMap<>();
+    job.setJobParams( jobParams );
+    return job;
+  }
+}
@@ -36,10 +36,17 @@ import org.pentaho.platform.web.http.api.resources.services.ISchedulerServicePlu
 import org.pentaho.platform.web.http.api.resources.services.SchedulerService;
 
 
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
 import static javax.ws.rs.core.Response.Status.UNAUTHORIZED;
@@ -144,12 +151,22 @@ public class SchedulerResourceTest {
 
     testResponse = schedulerResource.createJob( mockRequest );
     assertEquals( mockForbiddenResponse, testResponse );
+
+    // Test 5
+    Response mockBadRequestResponse = mock( Response.class );
+    doReturn( mockBadRequestResponse ).when( schedulerResource ).buildStatusResponse( Response.Status.BAD_REQUEST );
+    Mockito.doThrow( new IllegalArgumentException() ).when( schedulerResource.schedulerService )
+      .createJob( mockRequest );
+
+    testResponse = schedulerResource.createJob( mockRequest );
+    assertEquals( mockBadRequestResponse, testResponse );
     
     verify( schedulerResource, times( 1 ) ).buildServerErrorResponse( schedulerExceptionMessage );
     verify( schedulerResource, times( 1 ) ).buildServerErrorResponse( ioExceptionMessage );
     verify( schedulerResource, times( 1 ) ).buildStatusResponse( UNAUTHORIZED );
     verify( schedulerResource, times( 1 ) ).buildStatusResponse( FORBIDDEN );
-    verify( schedulerResource.schedulerService, times( 4 ) ).createJob( mockRequest );
+    verify( schedulerResource, times( 1 ) ).buildStatusResponse( Response.Status.BAD_REQUEST );
+    verify( schedulerResource.schedulerService, times( 5 ) ).createJob( mockRequest );
   }
 
   @Test
@@ -254,6 +271,76 @@ public class SchedulerResourceTest {
     verify( schedulerResource.schedulerService, times( 1 ) ).getJobs();
   }
 
+  @Test
+  public void testGetAllJobsStreamed() throws Exception {
+    HttpHeaders headers = mock( HttpHeaders.class );
+    doReturn( Collections.singletonList( MediaType.APPLICATION_XML_TYPE ) ).when( headers ).getAcceptableMediaTypes();
+    Job job = new Job();
+    job.setJobId( "jobId" );
+    doAnswer( invocation -> {
+      ( (Consumer<IJob>) invocation.getArguments()[ 0 ] ).accept( job );
+      return null;
+    } ).when( schedulerResource.schedulerService ).getJobs( any( Consumer.class ) );
+
+    Response testResponse = schedulerResource.getAllJobs( headers );
+    assertEquals( MediaType.APPLICATION_XML_TYPE, testResponse.getMetadata().getFirst( "Content-Type" ) );
+    verify( schedulerResource.schedulerService, never() ).getJobs( any( Consumer.class ) );
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ( (StreamingOutput) testResponse.getEntity() ).write( output );
+    String xml = output.toString( "UTF-8" );
+    assertTrue( xml.contains( "<jobs><job>" ) );
+    assertTrue( xml.contains( "<jobId>jobId</jobId>" ) );
+    assertTrue( xml.endsWith( "</job></jobs>" ) );
+    verify( schedulerResource.schedulerService, never() ).getJobs();
+  }
+
+  @Test
+  public void testGetAllJobsMediaType() {
+    assertEquals( MediaType.APPLICATION_JSON_TYPE, JobListStreamingOutput.getMediaType( Collections.emptyList() ) );
+    assertEquals( MediaType.APPLICATION_JSON_TYPE,
+      JobListStreamingOutput.getMediaType( Collections.singletonList( MediaType.WILDCARD_TYPE ) ) );
+    assertEquals( MediaType.APPLICATION_XML_TYPE, JobListStreamingOutput.getMediaType(
+      Arrays.asList( MediaType.APPLICATION_XML_TYPE, MediaType.APPLICATION_JSON_TYPE ) ) );
+    assertEquals( MediaType.APPLICATION_JSON_TYPE, JobListStreamingOutput.getMediaType(
+      Arrays.asList( MediaType.TEXT_HTML_TYPE, MediaType.APPLICATION_JSON_TYPE ) ) );
+  }
+
+  @Test
+  public void testGetJobsPage() throws Exception {
+    JobPage jobPage = new JobPage();
+    doReturn( jobPage ).when( schedulerResource.schedulerService ).getJobs( any( JobPageRequest.class ) );
+    Response mockResponse = mock( Response.class );
+    doReturn( mockResponse ).when( schedulerResource ).buildOkResponse( jobPage );
+
+    Response testResponse = schedulerResource.getJobsPage( 25, 25, JobPageRequest.SORT_NEXT_RUN, "desc", "sales",
+      "admin", "Paused", "WEEKLY", 1000L, null, null );
+
+    assertEquals( mockResponse, testResponse );
+    verify( schedulerResource.schedulerService ).getJobs( argThat( request -> request.getOffset() == 25
+      && request.getLimit() == 25
+      && !request.isAscending()
+      && JobPageRequest.SORT_NEXT_RUN.equals( request.getSortBy() )
+      && request.getState() == JobState.PAUSED
+      && request.getAfterDate().getTime() == 1000L
+      && request.getBeforeDate() == null ) );
+  }
+
+  @Test
+  public void testGetJobsPageBadRequest() throws Exception {
+    Response mockResponse = mock( Response.class );
+    doReturn( mockResponse ).when( schedulerResource ).buildStatusResponse( Response.Status.BAD_REQUEST );
+
+    assertEquals( mockResponse, schedulerResource.getJobsPage( 0, 25, JobPageRequest.SORT_JOB_NAME, "asc", null,
+      null, "sleeping", null, null, null, null ) );
+    assertEquals( mockResponse, schedulerResource.getJobsPage( 0, 25, JobPageRequest.SORT_JOB_NAME, "sideways", null,
+      null, null, null, null, null, null ) );
+    assertEquals( mockResponse, schedulerResource.getJobsPage( 0, 25, "priority", "asc", null,
+      null, null, null, null, null, null ) );
+
+    verify( schedulerResource.schedulerService, never() ).getJobs( any( JobPageRequest.class ) );
+  }
+
   @Test
   public void testIsScheduleAllowed() {
     String id = "id";
@@ -871,6 +958,149 @@ public class SchedulerResourceTest {
   }
 
 
+  @Test
+  public void testGetBlockoutImpact() throws Exception {
+    JobScheduleRequest mockJobScheduleRequest = mock( JobScheduleRequest.class );
+    BlockoutImpactPage impactPage = new BlockoutImpactPage();
+    doReturn( impactPage ).when( schedulerResource.schedulerService )
+      .getBlockoutImpact( mockJobScheduleRequest, 0, 10 );
+    Response mockResponse = mock( Response.class );
+    doReturn( mockResponse ).when( schedulerResource ).buildOkResponse( impactPage );
+
+    assertEquals( mockResponse, schedulerResource.getBlockoutImpact( 0, 10, mockJobScheduleRequest ) );
+    verify( schedulerResource.schedulerService ).getBlockoutImpact( mockJobScheduleRequest, 0, 10 );
+  }
+
+  @Test
+  public void testGetBlockoutImpactErrors() throws Exception {
+    JobScheduleRequest mockJobScheduleRequest = mock( JobScheduleRequest.class );
+    Response badRequest = mock( Response.class );
+    doReturn( badRequest ).when( schedulerResource ).buildStatusResponse( Response.Status.BAD_REQUEST );
+    assertEquals( badRequest, schedulerResource.getBlockoutImpact( -1, 10, mockJobScheduleRequest ) );
+
+    Response unauthorized = mock( Response.class );
+    doReturn( unauthorized ).when( schedulerResource ).buildStatusResponse( UNAUTHORIZED );
+    doThrow( new IllegalAccessException() ).when( schedulerResource.schedulerService )
+      .getBlockoutImpact( mockJobScheduleRequest, 0, 10 );
+    assertEquals( unauthorized, schedulerResource.getBlockoutImpact( 0, 10, mockJobScheduleRequest ) );
+
+    doThrow( new SchedulerException( "error" ) ).when( schedulerResource.schedulerService )
+      .getBlockoutImpact( mockJobScheduleRequest, 0, 10 );
+    assertEquals( INTERNAL_SERVER_ERROR.getStatusCode(),
+      schedulerResource.getBlockoutImpact( 0, 10, mockJobScheduleRequest ).getStatus() );
+  }
+
+
+  @Test
+  public void testGetFireTimeForecast() throws Exception {
+    FireTimeForecastPage forecastPage = new FireTimeForecastPage();
+    doReturn( forecastPage ).when( schedulerResource.schedulerService ).getFireTimeForecast( 1L, 2L, 0, 100 );
+    doReturn( forecastPage ).when( schedulerResource.schedulerService )
+      .getFireTimeForecast( 1L, 1L + SchedulerResource.FORECAST_PERIOD_MILLIS, 0, 100 );
+    Response mockResponse = mock( Response.class );
+    doReturn( mockResponse ).when( schedulerResource ).buildOkResponse( forecastPage );
+
+    assertEquals( mockResponse, schedulerResource.getFireTimeForecast( 1L, 2L, 0, 100 ) );
+
+    // a day from the start by default
+    assertEquals( mockResponse, schedulerResource.getFireTimeForecast( 1L, null, 0, 100 ) );
+    verify( schedulerResource.schedulerService )
+      .getFireTimeForecast( 1L, 1L + SchedulerResource.FORECAST_PERIOD_MILLIS, 0, 100 );
+  }
+
+  @Test
+  public void testGetFireTimeForecastErrors() throws Exception {
+    Response badRequest = mock( Response.class );
+    doReturn( badRequest ).when( schedulerResource ).buildStatusResponse( Response.Status.BAD_REQUEST );
+    assertEquals( badRequest, schedulerResource.getFireTimeForecast( 1L, 2L, -1, 100 ) );
+    assertEquals( badRequest, schedulerResource.getFireTimeForecast( 1L, 2L, 0, 0 ) );
+    assertEquals( badRequest,
+      schedulerResource.getFireTimeForecast( 1L, 2L, 0, SchedulerResource.MAX_FORECAST_LIMIT + 1 ) );
+    assertEquals( badRequest, schedulerResource.getFireTimeLoad( 1L, 2L, 7 ) );
+
+    Response unauthorized = mock( Response.class );
+    doReturn( unauthorized ).when( schedulerResource ).buildStatusResponse( UNAUTHORIZED );
+    doThrow( new IllegalAccessException() ).when( schedulerResource.schedulerService ).getFireTimeLoad( 1L, 2L, 60 );
+    assertEquals( unauthorized, schedulerResource.getFireTimeLoad( 1L, 2L, 60 ) );
+
+    doThrow( new SchedulerException( "error" ) ).when( schedulerResource.schedulerService )
+      .getFireTimeForecast( 1L, 2L, 0, 100 );
+    assertEquals( INTERNAL_SERVER_ERROR.getStatusCode(),
+      schedulerResource.getFireTimeForecast( 1L, 2L, 0, 100 ).getStatus() );
+  }
+
+  @Test
+  public void testGetJobHistory() throws Exception {
+    JobHistory jobHistory = new JobHistory();
+    doReturn( jobHistory ).when( schedulerResource.schedulerService ).getJobHistory( "job-id", null, 50 );
+    Response mockResponse = mock( Response.class );
+    doReturn( mockResponse ).when( schedulerResource ).buildOkResponse( jobHistory );
+
+    assertEquals( mockResponse, schedulerResource.getJobHistory( "job-id", null, 50 ) );
+  }
+
+  @Test
+  public void testGetJobHistoryErrors() throws Exception {
+    Response badRequest = mock( Response.class );
+    doReturn( badRequest ).when( schedulerResource ).buildStatusResponse( Response.Status.BAD_REQUEST );
+    assertEquals( badRequest, schedulerResource.getJobHistory( null, null, 50 ) );
+    assertEquals( badRequest, schedulerResource.getJobHistory( "job-id", null, 0 ) );
+    assertEquals( badRequest,
+      schedulerResource.getJobHistory( "job-id", null, SchedulerResource.MAX_HISTORY_LIMIT + 1 ) );
+
+    Response unauthorized = mock( Response.class );
+    doReturn( unauthorized ).when( schedulerResource ).buildStatusResponse( UNAUTHORIZED );
+    doThrow( new IllegalAccessException() ).when( schedulerResource.schedulerService )
+      .getJobHistory( null, "lineage-id", 50 );
+    assertEquals( unauthorized, schedulerResource.getJobHistory( null, "lineage-id", 50 ) );
+
+    doThrow( new SchedulerException( "error" ) ).when( schedulerResource.schedulerService )
+      .getJobHistory( "job-id", null, 50 );
+    assertEquals( INTERNAL_SERVER_ERROR.getStatusCode(),
+      schedulerResource.getJobHistory( "job-id", null, 50 ).getStatus() );
+  }
+
+  @Test
+  public void testGetMetrics() throws Exception {
+    String text = "pentaho_scheduler_fires_total 1\n";
+    doReturn( text ).when( schedulerResource.schedulerService ).getMetrics();
+    Response ok = mock( Response.class );
+    doReturn( ok ).when( schedulerResource ).buildPlainTextOkResponse( text );
+    assertEquals( ok, schedulerResource.getMetrics() );
+
+    Response unauthorized = mock( Response.class );
+    doReturn( unauthorized ).when( schedulerResource ).buildStatusResponse( UNAUTHORIZED );
+    doThrow( new IllegalAccessException() ).when( schedulerResource.schedulerService ).getMetrics();
+    assertEquals( unauthorized, schedulerResource.getMetrics() );
+
+    doThrow( new SchedulerException( "error" ) ).when( schedulerResource.schedulerService ).getMetrics();
+    assertEquals( INTERNAL_SERVER_ERROR.getStatusCode(), schedulerResource.getMetrics().getStatus() );
+  }
+
+  @Test
+  public void testGetExecutionTraces() throws Exception {
+    ExecutionTraces executionTraces = new ExecutionTraces();
+    doReturn( executionTraces ).when( schedulerResource.schedulerService ).getExecutionTraces( "job-id", 50 );
+    Response ok = mock( Response.class );
+    doReturn( ok ).when( schedulerResource ).buildOkResponse( executionTraces );
+    assertEquals( ok, schedulerResource.getExecutionTraces( "job-id", 50 ) );
+
+    Response badRequest = mock( Response.class );
+    doReturn( badRequest ).when( schedulerResource ).buildStatusResponse( Response.Status.BAD_REQUEST );
+    assertEquals( badRequest, schedulerResource.getExecutionTraces( "job-id", 0 ) );
+    assertEquals( badRequest, schedulerResource.getExecutionTraces( null, SchedulerResource.MAX_TRACE_LIMIT + 1 ) );
+
+    Response unauthorized = mock( Response.class );
+    doReturn( unauthorized ).when( schedulerResource ).buildStatusResponse( UNAUTHORIZED );
+    doThrow( new IllegalAccessException() ).when( schedulerResource.schedulerService ).getExecutionTraces( null, 50 );
+    assertEquals( unauthorized, schedulerResource.getExecutionTraces( null, 50 ) );
+
+    doThrow( new SchedulerException( "error" ) ).when( schedulerResource.schedulerService )
+      .getExecutionTraces( "job-id", 50 );
+    assertEquals( INTERNAL_SERVER_ERROR.getStatusCode(),
+      schedulerResource.getExecutionTraces( "job-id", 50 ).getStatus() );
+  }
+
   @Test
   public void updateJob_ReturnsJobId() throws Exception {
     JobScheduleRequest request = new JobScheduleRequest();
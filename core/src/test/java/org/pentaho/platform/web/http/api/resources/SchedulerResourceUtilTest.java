@@ -34,6 +34,7 @@ import org.pentaho.platform.api.scheduler2.IComplexJobTrigger;
 import org.pentaho.platform.api.scheduler2.IJobTrigger;
 import org.pentaho.platform.api.scheduler2.IScheduler;
 import org.pentaho.platform.api.scheduler2.ISimpleJobTrigger;
+import org.pentaho.platform.api.scheduler2.JobTrigger;
 import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
 import org.pentaho.platform.api.scheduler2.wrappers.DayOfMonthWrapper;
 import org.pentaho.platform.api.scheduler2.wrappers.DayOfWeekWrapper;
@@ -104,6 +105,20 @@ public class SchedulerResourceUtilTest {
     assertNotNull( trigger );
     assertTrue( trigger instanceof ISimpleJobTrigger );
     assertTrue( trigger.getStartTime().getTime() > System.currentTimeMillis() );
+    // a run in background goes before batch work
+    assertEquals( JobTrigger.HIGH_PRIORITY, ( (JobTrigger) trigger ).getPriority() );
+  }
+
+  @Test
+  public void testConvertScheduleRequestToJobTrigger_Priority() throws Exception {
+    when( scheduleRequest.getComplexJobTrigger() ).thenReturn( complex );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    IJobTrigger trigger = SchedulerResourceUtil.convertScheduleRequestToJobTrigger( scheduleRequest, quartzScheduler );
+    assertEquals( JobTrigger.DEFAULT_PRIORITY, ( (JobTrigger) trigger ).getPriority() );
+
+    when( scheduleRequest.getPriority() ).thenReturn( JobTrigger.LOW_PRIORITY );
+    trigger = SchedulerResourceUtil.convertScheduleRequestToJobTrigger( scheduleRequest, quartzScheduler );
+    assertEquals( JobTrigger.LOW_PRIORITY, ( (JobTrigger) trigger ).getPriority() );
   }
 
   @Test
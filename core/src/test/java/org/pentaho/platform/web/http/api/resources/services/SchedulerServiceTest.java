@@ -27,7 +27,9 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -37,17 +39,22 @@ import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import org.junit.After;
 import org.junit.Before;
@@ -68,14 +75,31 @@ import org.pentaho.platform.api.scheduler2.IJobTrigger;
 import org.pentaho.platform.api.scheduler2.IScheduler;
 import org.pentaho.platform.api.scheduler2.IJob;
 import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.JobCriteriaFilter;
 import org.pentaho.platform.api.scheduler2.JobState;
+import org.pentaho.platform.api.scheduler2.JobTrigger;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
 import org.pentaho.platform.api.scheduler2.IActionClassResolver;
 import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
 import org.pentaho.platform.api.util.IPdiContentProvider;
+import org.pentaho.platform.scheduler2.blockout.BlockoutImpactAnalyzer;
+import org.pentaho.platform.scheduler2.blockout.BlockoutImpactAnalyzer.Impact;
+import org.pentaho.platform.scheduler2.quartz.FireTimeForecast;
+import org.pentaho.platform.scheduler2.quartz.ExecutionTrace;
+import org.pentaho.platform.scheduler2.quartz.ExecutionTraceRecorder;
+import org.pentaho.platform.scheduler2.quartz.JobHistoryStore;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+import org.pentaho.platform.scheduler2.quartz.SchedulerMetrics;
 import org.pentaho.platform.security.policy.rolebased.actions.AdministerSecurityAction;
 import org.pentaho.platform.security.policy.rolebased.actions.SchedulerAction;
 import org.pentaho.platform.web.http.api.proxies.BlockStatusProxy;
+import org.pentaho.platform.web.http.api.resources.BlockoutImpactPage;
+import org.pentaho.platform.web.http.api.resources.FireTimeForecastPage;
+import org.pentaho.platform.web.http.api.resources.FireTimeLoad;
+import org.pentaho.platform.web.http.api.resources.ExecutionTraces;
+import org.pentaho.platform.web.http.api.resources.JobHistory;
+import org.pentaho.platform.web.http.api.resources.JobPage;
+import org.pentaho.platform.web.http.api.resources.JobPageRequest;
 import org.pentaho.platform.web.http.api.resources.JobRequest;
 import org.pentaho.platform.web.http.api.resources.JobScheduleParam;
 import org.pentaho.platform.web.http.api.resources.JobScheduleRequest;
@@ -217,6 +241,32 @@ public class SchedulerServiceTest {
     }
   }
 
+  @Test
+  public void testCheckPriority() throws Exception {
+    doReturn( false ).when( schedulerService ).canAdminister();
+    schedulerService.checkPriority( null, false );
+    schedulerService.checkPriority( JobTrigger.LOW_PRIORITY, false );
+    schedulerService.checkPriority( JobTrigger.DEFAULT_PRIORITY, false );
+    schedulerService.checkPriority( JobTrigger.HIGH_PRIORITY, true );
+    for ( int priority : new int[] { JobTrigger.LOW_PRIORITY - 1, JobTrigger.HIGH_PRIORITY + 1 } ) {
+      try {
+        schedulerService.checkPriority( priority, true );
+        fail( "priority " + priority );
+      } catch ( IllegalArgumentException e ) {
+        // expected
+      }
+    }
+    try {
+      schedulerService.checkPriority( JobTrigger.DEFAULT_PRIORITY + 1, false );
+      fail();
+    } catch ( IllegalAccessException e ) {
+      // expected
+    }
+
+    doReturn( true ).when( schedulerService ).canAdminister();
+    schedulerService.checkPriority( JobTrigger.HIGH_PRIORITY, false );
+  }
+
   @Test
   public void testCreateJobException() throws Exception {
 
@@ -641,6 +691,101 @@ public class SchedulerServiceTest {
     verify( schedulerService.scheduler, times( 1 ) ).getJobs( any( IJobFilter.class ) );
   }
 
+  @Test
+  public void testGetJobsToConsumer() throws Exception {
+    IPentahoSession mockPentahoSession = mock( IPentahoSession.class );
+    doReturn( mockPentahoSession ).when( schedulerService ).getSession();
+    doReturn( "suzy" ).when( mockPentahoSession ).getName();
+    doReturn( false ).when( schedulerService ).canAdminister( mockPentahoSession );
+    List<IJob> mockJobs = new ArrayList<>();
+    mockJobs.add( mock( IJob.class ) );
+    mockJobs.add( mock( IJob.class ) );
+    doReturn( mockJobs ).when( schedulerService.scheduler ).getJobs( any( IJobFilter.class ) );
+
+    List<IJob> jobs = new ArrayList<>();
+    schedulerService.getJobs( jobs::add );
+
+    assertEquals( mockJobs, jobs );
+    verify( schedulerService.scheduler ).getJobs( argThat( filter -> filter instanceof JobCriteriaFilter
+      && ( (JobCriteriaFilter) filter ).acceptsUserName( "suzy" )
+      && !( (JobCriteriaFilter) filter ).acceptsUserName( "admin" ) ) );
+  }
+
+  @Test
+  public void testGetJobsToConsumerFromQuartzScheduler() throws Exception {
+    IPentahoSession mockPentahoSession = mock( IPentahoSession.class );
+    doReturn( mockPentahoSession ).when( schedulerService ).getSession();
+    doReturn( "admin" ).when( mockPentahoSession ).getName();
+    doReturn( true ).when( schedulerService ).canAdminister( mockPentahoSession );
+    QuartzScheduler quartzScheduler = mock( QuartzScheduler.class );
+    schedulerService.scheduler = quartzScheduler;
+    Consumer<IJob> consumer = jobs -> { };
+
+    schedulerService.getJobs( consumer );
+
+    verify( quartzScheduler ).getJobs( any( JobCriteriaFilter.class ), eq( consumer ) );
+    verify( quartzScheduler, never() ).getJobs( any( IJobFilter.class ) );
+  }
+
+  @Test
+  public void testGetJobsPage() throws Exception {
+    IPentahoSession mockPentahoSession = mock( IPentahoSession.class );
+    doReturn( mockPentahoSession ).when( schedulerService ).getSession();
+    doReturn( "admin" ).when( mockPentahoSession ).getName();
+    doReturn( true ).when( schedulerService ).canAdminister( mockPentahoSession );
+
+    List<IJob> allJobs = new ArrayList<>();
+    for ( int i = 0; i < 10; i++ ) {
+      Job job = new Job();
+      job.setJobId( "job" + i );
+      job.setJobName( "job" + i );
+      job.setUserName( i % 2 == 0 ? "admin" : "suzy" );
+      job.setState( i % 3 == 0 ? JobState.PAUSED : JobState.NORMAL );
+      job.setNextRun( new Date( 1000L * ( 10 - i ) ) );
+      job.setJobParams( new HashMap<>() );
+      allJobs.add( job );
+    }
+    doReturn( allJobs ).when( schedulerService.scheduler ).getJobs( any( IJobFilter.class ) );
+
+    JobPageRequest jobPageRequest = new JobPageRequest();
+    jobPageRequest.setUserName( "ADMIN" );
+    jobPageRequest.setState( JobState.NORMAL );
+    jobPageRequest.setSortBy( JobPageRequest.SORT_NEXT_RUN );
+    jobPageRequest.setOffset( 1 );
+    jobPageRequest.setLimit( 2 );
+
+    JobPage jobPage = schedulerService.getJobs( jobPageRequest );
+
+    // admin's NORMAL jobs are job2, job4 and job8, in next run order job8, job4, job2
+    assertEquals( 3, jobPage.getTotalCount() );
+    assertEquals( 1, jobPage.getOffset() );
+    assertEquals( 2, jobPage.getJobs().size() );
+    assertEquals( "job4", jobPage.getJobs().get( 0 ).getJobName() );
+    assertEquals( "job2", jobPage.getJobs().get( 1 ).getJobName() );
+    assertEquals( 2, jobPage.getUserNames().size() );
+    verify( schedulerService.scheduler ).getJobs( argThat( filter -> filter instanceof JobCriteriaFilter
+      && ( (JobCriteriaFilter) filter ).getExcludedJobNames().contains( IBlockoutManager.BLOCK_OUT_JOB_NAME ) ) );
+  }
+
+  @Test
+  public void testGetJobsPageNonAdmin() throws Exception {
+    IPentahoSession mockPentahoSession = mock( IPentahoSession.class );
+    doReturn( mockPentahoSession ).when( schedulerService ).getSession();
+    doReturn( "suzy" ).when( mockPentahoSession ).getName();
+    doReturn( false ).when( schedulerService ).canAdminister( mockPentahoSession );
+    doReturn( new ArrayList<IJob>() ).when( schedulerService.scheduler ).getJobs( any( IJobFilter.class ) );
+
+    JobPageRequest jobPageRequest = new JobPageRequest();
+    jobPageRequest.setOffset( 50 );
+    JobPage jobPage = schedulerService.getJobs( jobPageRequest );
+
+    assertEquals( 0, jobPage.getTotalCount() );
+    assertEquals( 0, jobPage.getOffset() );
+    assertTrue( jobPage.getJobs().isEmpty() );
+    verify( schedulerService.scheduler ).getJobs( argThat( filter -> filter instanceof JobCriteriaFilter
+      && ( (JobCriteriaFilter) filter ).getUserNames().contains( "suzy" ) ) );
+  }
+
   @Test
   public void testDoGetGeneratedContentForSchedule() throws Exception {
     String lineageId = "test.prpt";
@@ -1126,4 +1271,255 @@ public class SchedulerServiceTest {
 
     verify( schedulerService ).convertScheduleRequestToJobTrigger( jobScheduleRequestMock );
   }
+
+  @Test
+  public void testGetBlockoutImpact() throws Exception {
+    JobScheduleRequest jobScheduleRequest = mock( JobScheduleRequest.class );
+    doReturn( 3600000L ).when( jobScheduleRequest ).getDuration();
+    IJobTrigger blockOutTrigger = mock( IJobTrigger.class );
+    doReturn( true ).when( schedulerService ).canAdminister();
+    doNothing().when( schedulerService ).updateStartDateForTimeZone( jobScheduleRequest );
+    doReturn( blockOutTrigger ).when( schedulerService ).convertScheduleRequestToJobTrigger( jobScheduleRequest );
+
+    List<IJob> scheduledJobs = new ArrayList<>();
+    for ( int i = 0; i < 5; i++ ) {
+      Job job = new Job();
+      job.setJobId( "job" + i );
+      job.setJobTrigger( mock( IJobTrigger.class ) );
+      scheduledJobs.add( job );
+    }
+    doReturn( scheduledJobs ).when( schedulerService.scheduler ).getJobs( any( IJobFilter.class ) );
+    BlockoutImpactAnalyzer analyzer = mock( BlockoutImpactAnalyzer.class );
+    doReturn( analyzer ).when( schedulerService ).getBlockoutImpactAnalyzer();
+    doReturn( new Impact[] { Impact.PARTIAL, Impact.NONE, Impact.TOTAL, Impact.PARTIAL, Impact.TOTAL } )
+      .when( analyzer ).analyze( eq( blockOutTrigger ), anyList() );
+
+    BlockoutImpactPage impactPage = schedulerService.getBlockoutImpact( jobScheduleRequest, 1, 2 );
+
+    // job0, job2, job3 and job4 are blocked, job2 and job4 at every fire time
+    assertEquals( 4, impactPage.getTotalCount() );
+    assertEquals( 2, impactPage.getTotallyBlockedCount() );
+    assertEquals( 1, impactPage.getOffset() );
+    assertEquals( 2, impactPage.getJobs().size() );
+    assertEquals( "job2", impactPage.getJobs().get( 0 ).getJobId() );
+    assertEquals( "job3", impactPage.getJobs().get( 1 ).getJobId() );
+    assertEquals( 1, impactPage.getTotallyBlockedJobIds().size() );
+    assertEquals( "job2", impactPage.getTotallyBlockedJobIds().get( 0 ) );
+    verify( blockOutTrigger ).setDuration( 3600000L );
+    verify( schedulerService.scheduler ).getJobs( argThat( filter -> filter instanceof JobCriteriaFilter
+      && ( (JobCriteriaFilter) filter ).getExcludedJobNames().contains( IBlockoutManager.BLOCK_OUT_JOB_NAME ) ) );
+  }
+
+  @Test
+  public void testGetBlockoutImpactNonAdmin() throws Exception {
+    JobScheduleRequest jobScheduleRequest = mock( JobScheduleRequest.class );
+    doReturn( false ).when( schedulerService ).canAdminister();
+
+    try {
+      schedulerService.getBlockoutImpact( jobScheduleRequest, 0, 10 );
+      fail();
+    } catch ( IllegalAccessException e ) {
+      // Should catch the exception
+    }
+
+    verify( schedulerService.scheduler, never() ).getJobs( any( IJobFilter.class ) );
+  }
+
+  @Test
+  public void testGetFireTimeForecast() throws Exception {
+    doReturn( true ).when( schedulerService ).canAdminister();
+    FireTimeForecast forecast = mock( FireTimeForecast.class );
+    doReturn( forecast ).when( schedulerService ).getFireTimeForecast();
+    FireTimeForecast.FireTime fireTime = mock( FireTimeForecast.FireTime.class );
+    doReturn( "admin\treport\t1" ).when( fireTime ).getJobId();
+    doReturn( "report" ).when( fireTime ).getJobName();
+    doReturn( "admin" ).when( fireTime ).getUserName();
+    doReturn( 1700000100000L ).when( fireTime ).getTime();
+    FireTimeForecast.FireTimes fireTimes = mock( FireTimeForecast.FireTimes.class );
+    doReturn( Collections.singletonList( fireTime ) ).when( fireTimes ).getFireTimes();
+    doReturn( 5 ).when( fireTimes ).getOffset();
+    doReturn( 6 ).when( fireTimes ).getTotalCount();
+    doReturn( fireTimes ).when( forecast ).getFireTimes( 1L, 2L, 5, 10 );
+
+    FireTimeForecastPage forecastPage = schedulerService.getFireTimeForecast( 1L, 2L, 5, 10 );
+
+    assertEquals( 5, forecastPage.getOffset() );
+    assertEquals( 6, forecastPage.getTotalCount() );
+    assertEquals( 1, forecastPage.getFireTimes().size() );
+    assertEquals( "report", forecastPage.getFireTimes().get( 0 ).getJobName() );
+    assertEquals( "admin", forecastPage.getFireTimes().get( 0 ).getUserName() );
+    assertEquals( new Date( 1700000100000L ), forecastPage.getFireTimes().get( 0 ).getFireTime() );
+  }
+
+  @Test
+  public void testGetFireTimeLoad() throws Exception {
+    doReturn( true ).when( schedulerService ).canAdminister();
+    FireTimeForecast forecast = mock( FireTimeForecast.class );
+    doReturn( forecast ).when( schedulerService ).getFireTimeForecast();
+    FireTimeForecast.Load load = mock( FireTimeForecast.Load.class );
+    doReturn( 1700000100000L ).when( load ).getFrom();
+    doReturn( new int[] { 3, 0, 7 } ).when( load ).getCounts();
+    doReturn( load ).when( forecast ).getLoad( 1L, 2L, 900000L );
+
+    FireTimeLoad fireTimeLoad = schedulerService.getFireTimeLoad( 1L, 2L, 15 );
+
+    assertEquals( new Date( 1700000100000L ), fireTimeLoad.getFrom() );
+    assertEquals( 15, fireTimeLoad.getBucketMinutes() );
+    assertEquals( Arrays.asList( 3, 0, 7 ), fireTimeLoad.getCounts() );
+  }
+
+  @Test
+  public void testGetFireTimeForecastNonAdminOrDisabled() throws Exception {
+    doReturn( false ).when( schedulerService ).canAdminister();
+    try {
+      schedulerService.getFireTimeForecast( 1L, 2L, 0, 10 );
+      fail();
+    } catch ( IllegalAccessException e ) {
+      // Should catch the exception
+    }
+
+    doReturn( true ).when( schedulerService ).canAdminister();
+    doReturn( null ).when( schedulerService ).getFireTimeForecast();
+    try {
+      schedulerService.getFireTimeLoad( 1L, 2L, 5 );
+      fail();
+    } catch ( SchedulerException e ) {
+      // the forecast is disabled
+    }
+  }
+
+  @Test
+  public void testGetJobHistory() throws Exception {
+    doReturn( true ).when( schedulerService ).canAdminister();
+    JobHistoryStore historyStore = new JobHistoryStore();
+    doReturn( historyStore ).when( schedulerService ).getJobHistoryStore();
+    historyStore.record( new JobHistoryStore.JobRun( "admin\treport\t1", "lineage1", 1700000000000L, 1700000001000L,
+      JobHistoryStore.Outcome.FAILED, null ) );
+    historyStore.record( new JobHistoryStore.JobRun( "admin\treport\t1", "lineage1", 1700000100000L, 1700000100500L,
+      JobHistoryStore.Outcome.SUCCEEDED, "/home/admin/report.*" ) );
+
+    JobHistory jobHistory = schedulerService.getJobHistory( "admin\treport\t1", null, 1 );
+
+    assertEquals( "admin\treport\t1", jobHistory.getJobId() );
+    assertEquals( 2, jobHistory.getRunCount() );
+    assertEquals( 1, jobHistory.getFailureCount() );
+    assertEquals( 0.5, jobHistory.getFailureRate(), 0.0001 );
+    assertEquals( 1, jobHistory.getRuns().size() );
+    assertEquals( "SUCCEEDED", jobHistory.getRuns().get( 0 ).getOutcome() );
+    assertEquals( 500, jobHistory.getRuns().get( 0 ).getDuration() );
+    assertEquals( new Date( 1700000100000L ), jobHistory.getRuns().get( 0 ).getStart() );
+    assertEquals( "/home/admin/report.*", jobHistory.getRuns().get( 0 ).getOutputPath() );
+
+    jobHistory = schedulerService.getJobHistory( null, "lineage1", 10 );
+    assertEquals( "lineage1", jobHistory.getLineageId() );
+    assertEquals( 2, jobHistory.getRuns().size() );
+  }
+
+  @Test
+  public void testGetJobHistoryOfAnotherUserOrDisabled() throws Exception {
+    doReturn( false ).when( schedulerService ).canAdminister();
+    IPentahoSession pentahoSession = mock( IPentahoSession.class );
+    doReturn( "suzy" ).when( pentahoSession ).getName();
+    doReturn( pentahoSession ).when( schedulerService ).getSession();
+    JobHistoryStore historyStore = new JobHistoryStore();
+    doReturn( historyStore ).when( schedulerService ).getJobHistoryStore();
+    historyStore.record( new JobHistoryStore.JobRun( "admin\treport\t1", "lineage1", 1700000000000L, 1700000001000L,
+      JobHistoryStore.Outcome.SUCCEEDED, null ) );
+    try {
+      schedulerService.getJobHistory( "admin\treport\t1", null, 10 );
+      fail();
+    } catch ( IllegalAccessException e ) {
+      // Should catch the exception
+    }
+    try {
+      schedulerService.getJobHistory( null, "lineage1", 10 );
+      fail();
+    } catch ( IllegalAccessException e ) {
+      // Should catch the exception
+    }
+    assertEquals( 0, schedulerService.getJobHistory( "suzy\treport\t2", null, 10 ).getRuns().size() );
+
+    doReturn( null ).when( schedulerService ).getJobHistoryStore();
+    try {
+      schedulerService.getJobHistory( "suzy\treport\t2", null, 10 );
+      fail();
+    } catch ( SchedulerException e ) {
+      // the history is disabled
+    }
+  }
+
+  @Test
+  public void testGetMetrics() throws Exception {
+    doReturn( true ).when( schedulerService ).canAdminister();
+    SchedulerMetrics metrics = new SchedulerMetrics( false );
+    metrics.recordFire( 10 );
+    doReturn( metrics ).when( schedulerService ).getSchedulerMetrics();
+
+    assertTrue( schedulerService.getMetrics().contains( "pentaho_scheduler_fires_total 1\n" ) );
+
+    doReturn( null ).when( schedulerService ).getSchedulerMetrics();
+    try {
+      schedulerService.getMetrics();
+      fail();
+    } catch ( SchedulerException e ) {
+      // the metrics are disabled
+    }
+
+    doReturn( false ).when( schedulerService ).canAdminister();
+    try {
+      schedulerService.getMetrics();
+      fail();
+    } catch ( IllegalAccessException e ) {
+      // Should catch the exception
+    }
+  }
+
+  @Test
+  public void testGetExecutionTraces() throws Exception {
+    doReturn( true ).when( schedulerService ).canAdminister();
+    ExecutionTraceRecorder traceRecorder = new ExecutionTraceRecorder( 10 );
+    doReturn( traceRecorder ).when( schedulerService ).getExecutionTraceRecorder();
+    ExecutionTrace trace = traceRecorder.begin( "admin\treport\t1", "prpt" );
+    trace.addStage( "execute", System.nanoTime(), System.nanoTime() + 2000000 );
+    trace.finish( JobHistoryStore.Outcome.SUCCEEDED );
+    traceRecorder.begin( "suzy\treport\t2", "prpt" ).finish( JobHistoryStore.Outcome.FAILED );
+
+    ExecutionTraces executionTraces = schedulerService.getExecutionTraces( "admin\treport\t1", 10 );
+
+    assertEquals( "admin\treport\t1", executionTraces.getJobId() );
+    assertEquals( 1, executionTraces.getRuns().size() );
+    assertEquals( "prpt", executionTraces.getRuns().get( 0 ).getActionType() );
+    assertEquals( "SUCCEEDED", executionTraces.getRuns().get( 0 ).getOutcome() );
+    assertEquals( "execute", executionTraces.getRuns().get( 0 ).getStages().get( 0 ).getName() );
+    assertEquals( 2000, executionTraces.getRuns().get( 0 ).getStages().get( 0 ).getDurationMicros() );
+    assertEquals( 1, executionTraces.getStages().size() );
+    assertEquals( 2000, executionTraces.getStages().get( 0 ).getMedianMicros() );
+    assertEquals( 2, schedulerService.getExecutionTraces( null, 10 ).getRuns().size() );
+
+    doReturn( false ).when( schedulerService ).canAdminister();
+    IPentahoSession pentahoSession = mock( IPentahoSession.class );
+    doReturn( "suzy" ).when( pentahoSession ).getName();
+    doReturn( pentahoSession ).when( schedulerService ).getSession();
+    assertEquals( 1, schedulerService.getExecutionTraces( "suzy\treport\t2", 10 ).getRuns().size() );
+    try {
+      schedulerService.getExecutionTraces( "admin\treport\t1", 10 );
+      fail();
+    } catch ( IllegalAccessException e ) {
+      // Should catch the exception
+    }
+    try {
+      schedulerService.getExecutionTraces( null, 10 );
+      fail();
+    } catch ( IllegalAccessException e ) {
+      // Should catch the exception
+    }
+
+    doReturn( null ).when( schedulerService ).getExecutionTraceRecorder();
+    try {
+      schedulerService.getExecutionTraces( "suzy\treport\t2", 10 );
+      fail();
+    } catch ( SchedulerException e ) {
+      // the traces are disabled
+    }
+  }
 }
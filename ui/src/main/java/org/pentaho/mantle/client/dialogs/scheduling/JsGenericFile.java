@@ -0,0 +1,43 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.mantle.client.dialogs.scheduling;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+/**
+ * A file or folder as returned by the {@code generic-files} API.
+ */
+public class JsGenericFile extends JavaScriptObject {
+
+  // Overlay types always have protected, zero argument constructors.
+  protected JsGenericFile() {
+  }
+
+  public final native String getName() /*-{ return this.name; }-*/; //
+
+  public final native String getTitle() /*-{ return this.title; }-*/; //
+
+  public final native String getPath() /*-{ return this.path; }-*/; //
+
+  public final native boolean isCanAddChildren() /*-{
+    return this.canAddChildren === true || this.canAddChildren === "true";
+  }-*/;
+}
@@ -0,0 +1,45 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.mantle.client.dialogs.scheduling;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+
+/**
+ * A page of the child folders of a folder as returned by {@code generic-files/folders/children}.
+ */
+public class JsGenericFilePage extends JavaScriptObject {
+
+  // Overlay types always have protected, zero argument constructors.
+  protected JsGenericFilePage() {
+  }
+
+  public final native JsArray<JsGenericFile> getFiles() /*-{
+    if (this.files == null) {
+      return [];
+    }
+    return Array.isArray(this.files) ? this.files : [this.files];
+  }-*/;
+
+  public final native int getOffset() /*-{ return parseInt(this.offset) || 0; }-*/; //
+
+  public final native int getTotalCount() /*-{ return parseInt(this.totalCount) || 0; }-*/; //
+}
@@ -18,14 +18,30 @@
 package org.pentaho.mantle.client.dialogs.scheduling;
 
 import org.pentaho.gwt.widgets.client.dialogs.IDialogCallback;
+import org.pentaho.gwt.widgets.client.dialogs.MessageDialogBox;
 import org.pentaho.mantle.client.messages.Messages;
+import org.pentaho.mantle.client.workspace.JsBlockoutImpactPage;
 import org.pentaho.mantle.client.workspace.JsJob;
 import org.pentaho.mantle.client.workspace.JsJobTrigger;
 
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsonUtils;
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.RequestException;
+import com.google.gwt.http.client.Response;
 import com.google.gwt.http.client.URL;
+import com.google.gwt.json.client.JSONNumber;
 import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONString;
 
 public class NewBlockoutScheduleDialog extends ScheduleRecurrenceDialog {
+  /**
+   * Number of conflicting schedules named when asking to confirm a blockout.
+   */
+  static final int IMPACT_PREVIEW_SIZE = 10;
+
   protected boolean updateMode = false;
 
   public NewBlockoutScheduleDialog( final String filePath, final IDialogCallback callback, final boolean hasParams,
@@ -46,17 +62,101 @@ public class NewBlockoutScheduleDialog extends ScheduleRecurrenceDialog {
     JsJobTrigger trigger = getJsJobTrigger();
     JSONObject schedule = getSchedule();
 
-    // TODO -- Add block out verification that it is not completely blocking an existing schedule
-    if ( updateMode ) {
-      addBlockoutPeriod( schedule, trigger, "update?jobid=" + URL.encodeQueryString( editJob.getJobId() ) ); //$NON-NLS-1$
-    } else {
-      addBlockoutPeriod( schedule, trigger, "add" ); //$NON-NLS-1$
+    String urlSuffix = updateMode
+      ? "update?jobid=" + URL.encodeQueryString( editJob.getJobId() ) //$NON-NLS-1$
+      : "add"; //$NON-NLS-1$
+    verifyBlockoutImpact( schedule, trigger, urlSuffix );
+
+    return true;
+  }
+
+  /**
+   * Before saving the blockout, check which existing schedules it would block and let the user confirm it if there are
+   * any. The blockout is saved as is when the check cannot be made.
+   */
+  protected void verifyBlockoutImpact( final JSONObject schedule, final JsJobTrigger trigger,
+                                       final String urlSuffix ) {
+    String url = ScheduleHelper.getPluginContextURL() + "api/scheduler/blockout/impact?offset=0&limit=" //$NON-NLS-1$
+      + IMPACT_PREVIEW_SIZE;
+
+    RequestBuilder blockoutImpactRequest = new RequestBuilder( RequestBuilder.POST, url );
+    blockoutImpactRequest.setHeader( "accept", "application/json" ); //$NON-NLS-1$ //$NON-NLS-2$
+    blockoutImpactRequest.setHeader( "Content-Type", "application/json" ); //$NON-NLS-1$ //$NON-NLS-2$
+    blockoutImpactRequest.setHeader( "If-Modified-Since", "01 Jan 1970 00:00:00 GMT" );
+
+    JSONObject impactParams = schedule;
+    impactParams.put( "duration", new JSONNumber( trigger.getBlockDuration() ) ); //$NON-NLS-1$
+    impactParams.put( "timeZone", new JSONString( scheduleEditorWizardPanel.getTimeZone() ) ); //$NON-NLS-1$
+
+    try {
+      blockoutImpactRequest.sendRequest( impactParams.toString(), new RequestCallback() {
+        @Override
+        public void onError( Request request, Throwable exception ) {
+          saveBlockoutPeriod( schedule, trigger, urlSuffix );
+        }
+
+        @Override
+        public void onResponseReceived( Request request, Response response ) {
+          if ( response.getStatusCode() == Response.SC_OK ) {
+            JsBlockoutImpactPage impactPage =
+              parseJsonImpactPage( JsonUtils.escapeJsonForEval( response.getText() ) );
+            if ( impactPage.getTotalCount() > 0 ) {
+              promptDueToBlockoutImpact( impactPage, schedule, trigger, urlSuffix );
+              return;
+            }
+          }
+          saveBlockoutPeriod( schedule, trigger, urlSuffix );
+        }
+      } );
+    } catch ( RequestException e ) {
+      saveBlockoutPeriod( schedule, trigger, urlSuffix );
     }
+  }
+
+  protected void saveBlockoutPeriod( final JSONObject schedule, final JsJobTrigger trigger, final String urlSuffix ) {
+    addBlockoutPeriod( schedule, trigger, urlSuffix );
     getCallback().okPressed();
+  }
 
-    return true;
+  private void promptDueToBlockoutImpact( final JsBlockoutImpactPage impactPage, final JSONObject schedule,
+                                          final JsJobTrigger trigger, final String urlSuffix ) {
+    StringBuilder impactMessage = new StringBuilder();
+    impactMessage.append( Messages.getString( "blockoutImpact", //$NON-NLS-1$
+      "" + impactPage.getTotalCount(), "" + impactPage.getTotallyBlockedCount() ) ); //$NON-NLS-1$ //$NON-NLS-2$
+    impactMessage.append( "\n" ); //$NON-NLS-1$
+    JsArray<JsJob> jobs = impactPage.getJobs();
+    for ( int i = 0; i < jobs.length(); i++ ) {
+      impactMessage.append( "\n" ).append( jobs.get( i ).getJobName() ); //$NON-NLS-1$
+    }
+    if ( impactPage.getTotalCount() > jobs.length() ) {
+      impactMessage.append( "\n" ).append( Messages.getString( "blockoutImpactMore", //$NON-NLS-1$ //$NON-NLS-2$
+        "" + ( impactPage.getTotalCount() - jobs.length() ) ) ); //$NON-NLS-1$
+    }
+    impactMessage.append( "\n\n" ).append( Messages.getString( "blockoutImpactSave" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+
+    final MessageDialogBox dialogBox =
+      new MessageDialogBox( Messages.getString( "blockoutImpactTitle" ), //$NON-NLS-1$
+        impactMessage.toString(), false, false, true, Messages.getString( "save" ), //$NON-NLS-1$
+        Messages.getString( "cancel" ), null ); //$NON-NLS-1$
+    dialogBox.setCallback( new IDialogCallback() {
+      @Override
+      public void okPressed() {
+        saveBlockoutPeriod( schedule, trigger, urlSuffix );
+      }
+
+      @Override
+      public void cancelPressed() {
+        // back to the wizard, so the blockout can be adjusted
+        center();
+      }
+    } );
+    dialogBox.center();
   }
 
+  private native JsBlockoutImpactPage parseJsonImpactPage( String json ) /*-{
+    return JSON.parse(json);
+  }-*/;
+
   public void setUpdateMode() {
     updateMode = true;
     setNewSchedule( updateMode );
@@ -31,7 +31,6 @@ import org.pentaho.gwt.widgets.client.utils.string.StringUtils;
 import org.pentaho.gwt.widgets.client.wizards.AbstractWizardDialog;
 import org.pentaho.gwt.widgets.client.wizards.AbstractWizardDialog.ScheduleDialogType;
 import org.pentaho.mantle.client.dialogs.WaitPopup;
-import org.pentaho.mantle.client.dialogs.folderchooser.SelectFolderDialog;
 import org.pentaho.mantle.client.messages.Messages;
 import org.pentaho.mantle.client.environment.EnvironmentHelper;
 import org.pentaho.mantle.client.workspace.JsJob;
@@ -335,7 +334,8 @@ public class NewScheduleDialog extends PromptDialogBox {
   }
 
   private void showSelectFolderDialog() {
-    final SelectFolderDialog selectFolder = new SelectFolderDialog();
+    final SelectOutputFolderDialog selectFolder =
+      new SelectOutputFolderDialog( getScheduleLocationTextBox().getText() );
 
     selectFolder.setCallback( new IDialogCallback() {
       public void okPressed() {
@@ -29,7 +29,6 @@ import org.pentaho.gwt.widgets.client.panel.VerticalFlexPanel;
 import org.pentaho.gwt.widgets.client.utils.NameUtils;
 import org.pentaho.gwt.widgets.client.utils.string.StringUtils;
 import org.pentaho.gwt.widgets.client.wizards.AbstractWizardDialog;
-import org.pentaho.mantle.client.dialogs.folderchooser.SelectFolderDialog;
 import org.pentaho.mantle.client.messages.Messages;
 
 import com.google.gwt.dom.client.Style.VerticalAlign;
@@ -151,7 +150,7 @@ public abstract class ScheduleOutputLocationDialog extends PromptDialogBox {
     browseButton.addClickHandler( event -> {
       String selectedPath = scheduleLocationTextBox.getText();
 
-      final SelectFolderDialog selectFolder = new SelectFolderDialog( selectedPath );
+      final SelectOutputFolderDialog selectFolder = new SelectOutputFolderDialog( selectedPath );
       selectFolder.setCallback( new IDialogCallback() {
         public void okPressed() {
           setScheduleLocation( selectFolder.getSelectedPath() );
@@ -0,0 +1,299 @@
+/*!
+ *
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ *
+ */
+
+package org.pentaho.mantle.client.dialogs.scheduling;
+
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsonUtils;
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.RequestException;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.http.client.URL;
+import com.google.gwt.user.client.ui.Button;
+import com.google.gwt.user.client.ui.ScrollPanel;
+import com.google.gwt.user.client.ui.TextBox;
+import com.google.gwt.user.client.ui.Tree;
+import com.google.gwt.user.client.ui.TreeItem;
+import org.pentaho.gwt.widgets.client.dialogs.IDialogCallback;
+import org.pentaho.gwt.widgets.client.dialogs.MessageDialogBox;
+import org.pentaho.gwt.widgets.client.dialogs.PromptDialogBox;
+import org.pentaho.gwt.widgets.client.genericfile.GenericFileNameUtils;
+import org.pentaho.gwt.widgets.client.panel.VerticalFlexPanel;
+import org.pentaho.gwt.widgets.client.utils.NameUtils;
+import org.pentaho.gwt.widgets.client.utils.string.StringUtils;
+import org.pentaho.gwt.widgets.client.wizards.AbstractWizardDialog;
+import org.pentaho.mantle.client.csrf.CsrfRequestBuilder;
+import org.pentaho.mantle.client.environment.EnvironmentHelper;
+import org.pentaho.mantle.client.messages.Messages;
+
+/**
+ * Lets the user pick the folder generated content is saved to. The folder tree is loaded as it is expanded, a page of
+ * child folders at a time, so the time the dialog takes to open does not depend on the size of the repository. The
+ * folders leading to the initially selected one are expanded as they are loaded.
+ */
+public class SelectOutputFolderDialog extends PromptDialogBox {
+
+  static final int PAGE_SIZE = 100;
+
+  private static final String FOLDERS_URL = "plugin/scheduler-plugin/api/generic-files/folders/";
+
+  /**
+   * The user object of the items that stand for child folders not loaded yet.
+   */
+  private enum Placeholder {
+    NOT_LOADED,
+    LOADING
+  }
+
+  private final Tree tree = new Tree();
+
+  private final Button newFolderButton = new Button( Messages.getString( "newFolder" ) );
+
+  private String selectedPath;
+
+  // The folder to select once it is loaded, until the user selects one.
+  private String initialPath;
+
+  public SelectOutputFolderDialog( String initialPath ) {
+    super( Messages.getString( "selectFolder" ), Messages.getString( "ok" ), Messages.getString( "cancel" ), false,
+      true );
+    this.initialPath = initialPath;
+    addStyleName( "select-output-folder-dialog" );
+
+    tree.addOpenHandler( event -> onOpen( event.getTarget() ) );
+    tree.addSelectionHandler( event -> onSelect( event.getSelectedItem() ) );
+    ScrollPanel treePanel = new ScrollPanel( tree );
+    treePanel.addStyleName( "select-output-folder-tree" );
+    treePanel.setHeight( "300px" );
+
+    newFolderButton.setStyleName( AbstractWizardDialog.PENTAHO_BUTTON );
+    newFolderButton.setEnabled( false );
+    newFolderButton.addClickHandler( event -> promptNewFolder() );
+
+    VerticalFlexPanel content = new VerticalFlexPanel();
+    content.add( treePanel );
+    content.add( newFolderButton );
+    setContent( content );
+
+    okButton.setEnabled( false );
+    loadChildren( null, null, 0 );
+  }
+
+  public String getSelectedPath() {
+    return selectedPath;
+  }
+
+  private void onOpen( TreeItem item ) {
+    if ( item.getChildCount() > 0 && item.getChild( 0 ).getUserObject() == Placeholder.NOT_LOADED ) {
+      item.getChild( 0 ).setUserObject( Placeholder.LOADING );
+      loadChildren( item, getFile( item ).getPath(), 0 );
+    }
+  }
+
+  private void onSelect( TreeItem item ) {
+    if ( item.getUserObject() instanceof Integer ) {
+      // "Show more" was selected; it gives way to the next page.
+      TreeItem parent = item.getParentItem();
+      int offset = (Integer) item.getUserObject();
+      item.setUserObject( Placeholder.LOADING );
+      item.setText( Messages.getString( "loadingEllipsis" ) );
+      loadChildren( parent, parent != null ? getFile( parent ).getPath() : null, offset );
+      return;
+    }
+
+    JsGenericFile file = getFile( item );
+    if ( file != null ) {
+      initialPath = null;
+      selectedPath = file.getPath();
+      okButton.setEnabled( true );
+      newFolderButton.setEnabled( file.isCanAddChildren() );
+    }
+  }
+
+  /**
+   * Requests a page of the child folders of a folder, or of the root folders if the folder is null.
+   */
+  private void loadChildren( final TreeItem parent, String path, int offset ) {
+    String url = EnvironmentHelper.getFullyQualifiedURL() + FOLDERS_URL + "children?offset=" + offset
+      + "&limit=" + PAGE_SIZE;
+    if ( path != null ) {
+      url += "&path=" + URL.encodeQueryString( GenericFileNameUtils.encodePath( path ) );
+    }
+
+    RequestBuilder builder = new RequestBuilder( RequestBuilder.GET, url );
+    builder.setHeader( "Accept", "application/json" );
+    // This header is required to force Internet Explorer to not cache values from the GET response.
+    builder.setHeader( "If-Modified-Since", "01 Jan 1970 00:00:00 GMT" );
+    try {
+      builder.sendRequest( null, new RequestCallback() {
+        public void onError( Request request, Throwable exception ) {
+          removePlaceholders( parent );
+        }
+
+        public void onResponseReceived( Request request, Response response ) {
+          removePlaceholders( parent );
+          if ( response.getStatusCode() == Response.SC_OK ) {
+            addChildren( parent, parseJsonFilePage( JsonUtils.escapeJsonForEval( response.getText() ) ) );
+          }
+        }
+      } );
+    } catch ( RequestException e ) {
+      removePlaceholders( parent );
+    }
+  }
+
+  private void addChildren( TreeItem parent, JsGenericFilePage page ) {
+    JsArray<JsGenericFile> files = page.getFiles();
+    for ( int i = 0; i < files.length(); i++ ) {
+      JsGenericFile file = files.get( i );
+      TreeItem item = new TreeItem();
+      item.setText( StringUtils.isEmpty( file.getTitle() ) ? file.getName() : file.getTitle() );
+      item.setTitle( file.getPath() );
+      item.setUserObject( file );
+      item.addItem( createPlaceholder( Placeholder.NOT_LOADED, Messages.getString( "loadingEllipsis" ) ) );
+      addItem( parent, item );
+      expandTowardsInitialPath( item, file.getPath() );
+    }
+
+    int nextOffset = page.getOffset() + files.length();
+    if ( files.length() > 0 && nextOffset < page.getTotalCount() ) {
+      // Selecting it loads the next page.
+      TreeItem moreItem = new TreeItem();
+      moreItem.setText( Messages.getString( "showMoreFolders" ) );
+      moreItem.setUserObject( nextOffset );
+      addItem( parent, moreItem );
+    }
+  }
+
+  private void expandTowardsInitialPath( TreeItem item, String path ) {
+    if ( initialPath == null || path == null ) {
+      return;
+    }
+
+    if ( initialPath.equals( path ) ) {
+      tree.setSelectedItem( item, true );
+      tree.ensureSelectedItemVisible();
+    } else if ( initialPath.startsWith( path.endsWith( "/" ) ? path : path + "/" ) ) {
+      item.setState( true, true );
+    }
+  }
+
+  private void addItem( TreeItem parent, TreeItem item ) {
+    if ( parent != null ) {
+      parent.addItem( item );
+    } else {
+      tree.addItem( item );
+    }
+  }
+
+  private void removePlaceholders( TreeItem parent ) {
+    int count = parent != null ? parent.getChildCount() : tree.getItemCount();
+    for ( int i = count - 1; i >= 0; i-- ) {
+      TreeItem item = parent != null ? parent.getChild( i ) : tree.getItem( i );
+      if ( item.getUserObject() == Placeholder.LOADING ) {
+        item.remove();
+      }
+    }
+  }
+
+  private void promptNewFolder() {
+    final TreeItem parent = tree.getSelectedItem();
+    final JsGenericFile parentFile = getFile( parent );
+    if ( parentFile == null ) {
+      return;
+    }
+
+    final TextBox nameTextBox = new TextBox();
+    final PromptDialogBox newFolderDialog = new PromptDialogBox( Messages.getString( "newFolder" ),
+      Messages.getString( "ok" ), Messages.getString( "cancel" ), false, true, nameTextBox );
+    newFolderDialog.setCallback( new IDialogCallback() {
+      public void okPressed() {
+        String name = nameTextBox.getText().trim();
+        if ( !NameUtils.isValidFolderName( name ) ) {
+          showError( Messages.getString( "prohibitedNameSymbols", name,
+            NameUtils.reservedCharListForDisplay( " " ) ) );
+          return;
+        }
+        createFolder( parent, parentFile.getPath(), name );
+      }
+
+      public void cancelPressed() {
+      }
+    } );
+    newFolderDialog.center();
+    nameTextBox.setFocus( true );
+  }
+
+  private void createFolder( final TreeItem parent, String parentPath, String name ) {
+    final String path = ( parentPath.endsWith( "/" ) ? parentPath : parentPath + "/" ) + name;
+    String url = EnvironmentHelper.getFullyQualifiedURL() + FOLDERS_URL + GenericFileNameUtils.encodePath( path );
+
+    RequestBuilder builder = new CsrfRequestBuilder( RequestBuilder.POST, url );
+    try {
+      builder.sendRequest( null, new RequestCallback() {
+        public void onError( Request request, Throwable exception ) {
+          showError( Messages.getString( "couldNotCreateFolderGeneral", name ) );
+        }
+
+        public void onResponseReceived( Request request, Response response ) {
+          if ( response.getStatusCode() == Response.SC_CREATED ) {
+            // Reload the children of the parent, selecting the new folder.
+            initialPath = path;
+            parent.removeItems();
+            TreeItem placeholder = createPlaceholder( Placeholder.LOADING, Messages.getString( "loadingEllipsis" ) );
+            parent.addItem( placeholder );
+            parent.setState( true, false );
+            loadChildren( parent, getFile( parent ).getPath(), 0 );
+          } else if ( response.getStatusCode() == Response.SC_CONFLICT ) {
+            showError( Messages.getString( "couldNotCreateFolderDuplicate", name ) );
+          } else if ( response.getStatusCode() == Response.SC_FORBIDDEN ) {
+            showError( Messages.getString( "couldNotCreateFolder" ) );
+          } else {
+            showError( Messages.getString( "couldNotCreateFolderGeneral", name ) );
+          }
+        }
+      } );
+    } catch ( RequestException e ) {
+      showError( Messages.getString( "couldNotCreateFolderGeneral", name ) );
+    }
+  }
+
+  private static TreeItem createPlaceholder( Placeholder placeholder, String text ) {
+    TreeItem item = new TreeItem();
+    item.setText( text );
+    item.setUserObject( placeholder );
+    return item;
+  }
+
+  private static JsGenericFile getFile( TreeItem item ) {
+    return item != null && item.getUserObject() instanceof JsGenericFile ? (JsGenericFile) item.getUserObject() : null;
+  }
+
+  private static void showError( String message ) {
+    MessageDialogBox errorDialog = new MessageDialogBox( Messages.getString( "error" ), message, false, false, true );
+    errorDialog.center();
+  }
+
+  private native JsGenericFilePage parseJsonFilePage( String json ) /*-{
+    return JSON.parse(json);
+  }-*/;
+}
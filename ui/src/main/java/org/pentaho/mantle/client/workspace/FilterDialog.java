@@ -37,8 +37,9 @@ import org.pentaho.gwt.widgets.client.dialogs.IDialogCallback;
 import org.pentaho.gwt.widgets.client.dialogs.PromptDialogBox;
 import org.pentaho.mantle.client.messages.Messages;
 
+import java.util.Collection;
 import java.util.Date;
-import java.util.HashSet;
+import java.util.TreeSet;
 
 public class FilterDialog extends PromptDialogBox {
 
@@ -111,10 +112,14 @@ public class FilterDialog extends PromptDialogBox {
   }
 
   public FilterDialog( JsArray<JsJob> jobs, IDialogCallback callback ) {
+    this( jobs, null, callback );
+  }
+
+  public FilterDialog( JsArray<JsJob> jobs, Collection<String> userNames, IDialogCallback callback ) {
     super(
       Messages.getString( "filterSchedules" ), Messages.getString( "ok" ), Messages.getString( "cancel" ), false,
       true ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-    initUI( jobs );
+    initUI( jobs, userNames );
     // setSize("800px", "500px");
     setCallback( callback );
   }
@@ -123,6 +128,14 @@ public class FilterDialog extends PromptDialogBox {
    * @param jobs
    */
   public void initUI( JsArray<JsJob> jobs ) {
+    initUI( jobs, null );
+  }
+
+  /**
+   * @param jobs      the jobs suggested in the resource filter
+   * @param userNames the owners offered in the user filter, in addition to the owners of the given jobs
+   */
+  public void initUI( JsArray<JsJob> jobs, Collection<String> userNames ) {
     if ( jobs != null ) {
       for ( int i = 0; i < jobs.length(); i++ ) {
         resourceOracle.add( jobs.get( i ).getShortResourceName() );
@@ -163,7 +176,10 @@ public class FilterDialog extends PromptDialogBox {
     int selectedIndex = getSelectedIndex( userListBox );
     userListBox.clear();
     userListBox.addItem( showAll );
-    HashSet<String> uniqueUsers = new HashSet<String>();
+    TreeSet<String> uniqueUsers = new TreeSet<String>();
+    if ( userNames != null ) {
+      uniqueUsers.addAll( userNames );
+    }
     if ( jobs != null ) {
       for ( int i = 0; i < jobs.length(); i++ ) {
         uniqueUsers.add( jobs.get( i ).getUserName() );
@@ -1,5 +1,4 @@
 /*!
- *
  * This program is free software; you can redistribute it and/or modify it under the
  * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
  * Foundation.
@@ -13,13 +12,19 @@
  * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
  * See the GNU Lesser General Public License for more details.
  *
- *
- * Copyright (c) 2002-2018 Hitachi Vantara. All rights reserved.
- *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
  */
 
 package org.pentaho.mantle.client.workspace;
 
-public interface IJobFilter {
-  public boolean accept( JsJob job );
+/**
+ * The schedules a candidate blockout would block, as returned by {@code api/scheduler/blockout/impact}.
+ */
+public class JsBlockoutImpactPage extends JsJobPage {
+
+  // Overlay types always have protected, zero argument constructors.
+  protected JsBlockoutImpactPage() {
+  }
+
+  public final native int getTotallyBlockedCount() /*-{ return parseInt(this.totallyBlockedCount) || 0; }-*/; //
 }
@@ -0,0 +1,51 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2024 Hitachi Vantara. All rights reserved.
+ */
+
+package org.pentaho.mantle.client.workspace;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayString;
+
+/**
+ * A page of jobs as returned by {@code api/scheduler/getJobsPage}. Single element lists may be serialized as a plain
+ * object rather than an array, so the accessors normalize them.
+ */
+public class JsJobPage extends JavaScriptObject {
+
+  // Overlay types always have protected, zero argument constructors.
+  protected JsJobPage() {
+  }
+
+  public final native JsArray<JsJob> getJobs() /*-{
+    if (this.job == null) {
+      return [];
+    }
+    return Array.isArray(this.job) ? this.job : [this.job];
+  }-*/;
+
+  public final native JsArrayString getUserNames() /*-{
+    if (this.userName == null) {
+      return [];
+    }
+    return Array.isArray(this.userName) ? this.userName : [this.userName];
+  }-*/;
+
+  public final native int getOffset() /*-{ return parseInt(this.offset) || 0; }-*/; //
+
+  public final native int getTotalCount() /*-{ return parseInt(this.totalCount) || 0; }-*/; //
+}
@@ -41,7 +41,10 @@ import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
 import com.google.gwt.user.cellview.client.AbstractCellTable;
 import com.google.gwt.user.cellview.client.AbstractHeaderOrFooterBuilder;
 import com.google.gwt.user.cellview.client.CellTable;
-import com.google.gwt.user.cellview.client.ColumnSortEvent.ListHandler;
+import com.google.gwt.user.cellview.client.Column;
+import com.google.gwt.user.cellview.client.ColumnSortEvent.AsyncHandler;
+import com.google.gwt.user.cellview.client.ColumnSortList;
+import com.google.gwt.user.cellview.client.ColumnSortList.ColumnSortInfo;
 import com.google.gwt.user.cellview.client.SimplePager;
 import com.google.gwt.user.cellview.client.SimplePager.TextLocation;
 import com.google.gwt.user.cellview.client.TextColumn;
@@ -50,8 +53,9 @@ import com.google.gwt.user.client.ui.HasHorizontalAlignment;
 import com.google.gwt.user.client.ui.Label;
 import com.google.gwt.user.client.ui.SimplePanel;
 import com.google.gwt.user.client.ui.VerticalPanel;
+import com.google.gwt.view.client.AsyncDataProvider;
 import com.google.gwt.view.client.CellPreviewEvent;
-import com.google.gwt.view.client.ListDataProvider;
+import com.google.gwt.view.client.HasData;
 import com.google.gwt.view.client.MultiSelectionModel;
 import com.google.gwt.view.client.ProvidesKey;
 import com.google.gwt.view.client.Range;
@@ -80,7 +84,6 @@ import org.pentaho.mantle.client.workspace.SchedulesPerspectivePanel.CellTableRe
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -108,6 +111,8 @@ public class SchedulesPanel extends SimplePanel {
 
   private static final int OUTPUT_PATH_COLUMN = 3;
 
+  private static final String CONTENT_CLEANER_JOB_NAME = "GeneratedContentCleaner";
+
   private ToolbarButton controlScheduleButton = new ToolbarButton( ImageUtil.getThemeableImage(
     ICON_SMALL_STYLE, ICON_RUN_STYLE ) );
   private ToolbarButton editButton = new ToolbarButton( ImageUtil.getThemeableImage( "pentaho-editbutton" ) );
@@ -120,13 +125,22 @@ public class SchedulesPanel extends SimplePanel {
   private ToolbarButton filterRemoveButton = new ToolbarButton( ImageUtil.getThemeableImage(
     ICON_SMALL_STYLE, "icon-filter-remove" ) );
 
-  private JsArray<JsJob> allJobs;
+  private JsArray<JsJob> pageJobs;
+
+  private List<String> jobOwners = new ArrayList<String>();
 
-  private ArrayList<IJobFilter> filters = new ArrayList<IJobFilter>();
+  private String filterQuery = "";
 
   private CellTable<JsJob> table = new CellTable<JsJob>( PAGE_SIZE, (CellTableResources) GWT.create( CellTableResources.class ) );
 
-  private ListDataProvider<JsJob> dataProvider = new ListDataProvider<JsJob>();
+  private AsyncDataProvider<JsJob> dataProvider = new AsyncDataProvider<JsJob>() {
+    @Override
+    protected void onRangeChanged( HasData<JsJob> display ) {
+      loadJobs( display.getVisibleRange() );
+    }
+  };
+
+  private Map<Column<?, ?>, String> columnSortKeys = new HashMap<Column<?, ?>, String>();
 
   private SimplePager pager;
 
@@ -134,53 +148,29 @@ public class SchedulesPanel extends SimplePanel {
 
   private IDialogCallback filterDialogCallback = new IDialogCallback() {
     public void okPressed() {
-      filters.clear();
-      // create filters
+      StringBuilder query = new StringBuilder();
       if ( filterDialog.getAfterDate() != null ) {
-        filters.add( new IJobFilter() {
-          public boolean accept( JsJob job ) {
-            return job.getNextRun().after( filterDialog.getAfterDate() );
-          }
-        } );
+        appendQueryParam( query, "after", String.valueOf( filterDialog.getAfterDate().getTime() ) );
       }
       if ( filterDialog.getBeforeDate() != null ) {
-        filters.add( new IJobFilter() {
-          public boolean accept( JsJob job ) {
-            return job.getNextRun().before( filterDialog.getBeforeDate() );
-          }
-        } );
+        appendQueryParam( query, "before", String.valueOf( filterDialog.getBeforeDate().getTime() ) );
       }
       if ( !StringUtils.isEmpty( filterDialog.getResourceName() ) ) {
-        filters.add( new IJobFilter() {
-          public boolean accept( JsJob job ) {
-            return job.getShortResourceName().toLowerCase().contains( filterDialog.getResourceName().toLowerCase() );
-          }
-        } );
+        appendQueryParam( query, "resourceName", filterDialog.getResourceName() );
       }
       final String showAll = Messages.getString( "showAll" );
       if ( !StringUtils.isEmpty( filterDialog.getUserFilter() ) && !filterDialog.getUserFilter().equals( showAll ) ) {
-        filters.add( new IJobFilter() {
-          public boolean accept( JsJob job ) {
-            return job.getUserName().equalsIgnoreCase( filterDialog.getUserFilter() );
-          }
-        } );
+        appendQueryParam( query, "userName", filterDialog.getUserFilter() );
       }
       if ( !StringUtils.isEmpty( filterDialog.getStateFilter() ) && !filterDialog.getStateFilter().equals( showAll ) ) {
-        filters.add( new IJobFilter() {
-          public boolean accept( JsJob job ) {
-            return job.getState().toLowerCase().equalsIgnoreCase( filterDialog.getStateFilter() );
-          }
-        } );
+        appendQueryParam( query, "state", filterDialog.getStateFilter() );
       }
       if ( !StringUtils.isEmpty( filterDialog.getTypeFilter() ) && !filterDialog.getTypeFilter().equals( showAll ) ) {
-        filters.add( new IJobFilter() {
-          public boolean accept( JsJob job ) {
-            return job.getJobTrigger().getScheduleType().equalsIgnoreCase( filterDialog.getTypeFilter() );
-          }
-        } );
+        appendQueryParam( query, "scheduleType", filterDialog.getTypeFilter() );
       }
-      filterRemoveButton.setEnabled( !filters.isEmpty() );
-      filterAndShowData();
+      filterQuery = query.toString();
+      filterRemoveButton.setEnabled( !filterQuery.isEmpty() );
+      showFirstPage();
     }
 
     public void cancelPressed() {
@@ -207,12 +197,24 @@ public class SchedulesPanel extends SimplePanel {
   };
 
   public SchedulesPanel( final boolean isAdmin, final boolean isScheduler ) {
+    // the first page is requested as soon as the table is attached to the data provider
     createUI( isAdmin, isScheduler );
-    refresh();
   }
 
   public void refresh() {
-    final String apiEndpoint = "api/scheduler/getJobs";
+    loadJobs( table.getVisibleRange() );
+  }
+
+  private void showFirstPage() {
+    table.setVisibleRangeAndClearData( new Range( 0, PAGE_SIZE ), true );
+  }
+
+  /**
+   * Requests the jobs in the given range of the filtered and sorted listing from the server.
+   */
+  private void loadJobs( final Range range ) {
+    final String apiEndpoint = "api/scheduler/getJobsPage?offset=" + range.getStart() + "&limit=" + range.getLength()
+      + getSortQuery() + "&excludeJobName=" + URL.encodeQueryString( CONTENT_CLEANER_JOB_NAME ) + filterQuery;
 
     RequestBuilder executableTypesRequestBuilder = createRequestBuilder( RequestBuilder.GET, ScheduleHelper.getPluginContextURL(), apiEndpoint );
     executableTypesRequestBuilder.setHeader( HTTP_ACCEPT_HEADER, JSON_CONTENT_TYPE );
@@ -226,8 +228,19 @@ public class SchedulesPanel extends SimplePanel {
 
         public void onResponseReceived( Request request, Response response ) {
           if ( response.getStatusCode() == Response.SC_OK ) {
-            allJobs = parseJson( JsonUtils.escapeJsonForEval( response.getText() ) );
-            filterAndShowData();
+            JsJobPage jobPage = parseJsonJobPage( JsonUtils.escapeJsonForEval( response.getText() ) );
+            int totalCount = jobPage.getTotalCount();
+            if ( jobPage.getJobs().length() == 0 && range.getStart() > 0 && totalCount > 0 ) {
+              // the page is past the end of the listing, e.g. after its last jobs were removed
+              table.setVisibleRange( ( ( totalCount - 1 ) / range.getLength() ) * range.getLength(), range.getLength() );
+              return;
+            }
+            pageJobs = jobPage.getJobs();
+            jobOwners = new ArrayList<String>();
+            for ( int i = 0; i < jobPage.getUserNames().length(); i++ ) {
+              jobOwners.add( jobPage.getUserNames().get( i ) );
+            }
+            showData( jobPage.getOffset(), totalCount );
           }
         }
       } );
@@ -236,36 +249,19 @@ public class SchedulesPanel extends SimplePanel {
     }
   }
 
-  private void filterAndShowData() {
-
-    filters.add( new IJobFilter() {
-      public boolean accept( JsJob job ) {
-        return !job.getFullResourceName().equals( "GeneratedContentCleaner" );
-      }
-    } );
-
-    ArrayList<JsJob> filteredList = new ArrayList<JsJob>();
-    for ( int i = 0; i < allJobs.length(); i++ ) {
-      filteredList.add( allJobs.get( i ) );
-      // filter if needed
-      for ( IJobFilter filter : filters ) {
-        if ( !filter.accept( allJobs.get( i ) ) ) {
-          filteredList.remove( allJobs.get( i ) );
-        }
-      }
-    }
-    List<JsJob> list = dataProvider.getList();
-    list.clear();
-    list.addAll( filteredList );
-    pager.setVisible( filteredList.size() > PAGE_SIZE );
-    for ( JsJob job : filteredList ) {
-      table.getSelectionModel().setSelected( job, false );
+  private void showData( int offset, int totalCount ) {
+    List<JsJob> rows = new ArrayList<JsJob>();
+    for ( int i = 0; i < pageJobs.length(); i++ ) {
+      rows.add( pageJobs.get( i ) );
     }
+    ( (MultiSelectionModel<JsJob>) table.getSelectionModel() ).clear();
+    dataProvider.updateRowCount( totalCount, true );
+    dataProvider.updateRowData( offset, rows );
+    pager.setVisible( totalCount > PAGE_SIZE );
     editButton.setEnabled( false );
     controlScheduleButton.setEnabled( false );
     scheduleRemoveButton.setEnabled( false );
     triggerNowButton.setEnabled( false );
-    table.setPageStart( 0 );
 
     table.setKeyboardSelectedRow( 0, false );
     table.setKeyboardSelectedColumn( 0, false );
@@ -273,6 +269,22 @@ public class SchedulesPanel extends SimplePanel {
     table.redraw();
   }
 
+  private String getSortQuery() {
+    ColumnSortList sortList = table.getColumnSortList();
+    if ( sortList.size() > 0 ) {
+      ColumnSortInfo sortInfo = sortList.get( 0 );
+      String sortKey = columnSortKeys.get( sortInfo.getColumn() );
+      if ( sortKey != null ) {
+        return "&sortBy=" + sortKey + "&sortOrder=" + ( sortInfo.isAscending() ? "asc" : "desc" );
+      }
+    }
+    return "";
+  }
+
+  private static void appendQueryParam( StringBuilder query, String name, String value ) {
+    query.append( '&' ).append( name ).append( '=' ).append( URL.encodeQueryString( value ) );
+  }
+
   private void updateControlSchedulerButtonState( final ToolbarButton controlSchedulerButton,
                                                   final boolean isScheduler ) {
     RequestBuilder builder = createRequestBuilder( RequestBuilder.GET, ScheduleHelper.getPluginContextURL(), "api/scheduler/state" );
@@ -454,7 +466,7 @@ public class SchedulesPanel extends SimplePanel {
         }
       }
     };
-    scheduleColumn.setSortable( true );
+    scheduleColumn.setSortable( false );
 
     TextColumn<JsJob> userNameColumn = new TextColumn<JsJob>() {
       public String getValue( JsJob job ) {
@@ -554,147 +566,17 @@ public class SchedulesPanel extends SimplePanel {
     }
     table.setColumnWidth( stateColumn, 90, Unit.PX );
 
-    dataProvider.addDataDisplay( table );
-    List<JsJob> list = dataProvider.getList();
-
-    ListHandler<JsJob> columnSortHandler = new ListHandler<JsJob>( list );
-
-    columnSortHandler.setComparator( idColumn, new Comparator<JsJob>() {
-      public int compare( JsJob o1, JsJob o2 ) {
-        if ( o1 == o2 ) {
-          return 0;
-        }
-
-        if ( o1 != null ) {
-          return ( o2 != null ) ? o1.getJobId().compareTo( o2.getJobId() ) : 1;
-        }
-        return -1;
-      }
-    } );
-    columnSortHandler.setComparator( nameColumn, new Comparator<JsJob>() {
-      public int compare( JsJob o1, JsJob o2 ) {
-        if ( o1 == o2 ) {
-          return 0;
-        }
-
-        if ( o1 != null ) {
-          return ( o2 != null ) ? o1.getJobName().compareTo( o2.getJobName() ) : 1;
-        }
-        return -1;
-      }
-    } );
-    columnSortHandler.setComparator( resourceColumn, new Comparator<JsJob>() {
-      public int compare( JsJob o1, JsJob o2 ) {
-        if ( o1 == o2 ) {
-          return 0;
-        }
-
-        if ( o1 != null ) {
-          String r1 = o1.getShortResourceName();
-          String r2 = null;
-          if ( o2 != null ) {
-            r2 = o2.getShortResourceName();
-          }
-
-          return ( o2 != null ) ? r1.compareTo( r2 ) : 1;
-        }
-        return -1;
-      }
-    } );
-    columnSortHandler.setComparator( outputPathColumn, new Comparator<JsJob>() {
-      public int compare( JsJob o1, JsJob o2 ) {
-        if ( o1 == o2 ) {
-          return 0;
-        }
-
-        if ( o1 != null ) {
-          String r1 = o1.getOutputPath();
-          String r2 = null;
-          if ( o2 != null ) {
-            r2 = o2.getOutputPath();
-          }
-
-          return ( o2 != null ) ? r1.compareTo( r2 ) : 1;
-        }
-        return -1;
-      }
-    } );
-    columnSortHandler.setComparator( scheduleColumn, new Comparator<JsJob>() {
-      public int compare( JsJob o1, JsJob o2 ) {
-        String s1 = o1.getJobTrigger().getDescription();
-        String s2 = o2.getJobTrigger().getDescription();
-        return s1.compareTo( s2 );
-      }
-    } );
-    columnSortHandler.setComparator( userNameColumn, new Comparator<JsJob>() {
-      public int compare( JsJob o1, JsJob o2 ) {
-        if ( o1 == o2 ) {
-          return 0;
-        }
-
-        if ( o1 != null ) {
-          return ( o2 != null ) ? o1.getUserName().compareTo( o2.getUserName() ) : 1;
-        }
-        return -1;
-      }
-    } );
-    columnSortHandler.setComparator( stateColumn, new Comparator<JsJob>() {
-      public int compare( JsJob o1, JsJob o2 ) {
-        if ( o1 == o2 ) {
-          return 0;
-        }
-
-        if ( o1 != null ) {
-          return ( o2 != null ) ? o1.getState().compareTo( o2.getState() ) : 1;
-        }
-        return -1;
-      }
-    } );
-    columnSortHandler.setComparator( nextFireColumn, new Comparator<JsJob>() {
-      public int compare( JsJob o1, JsJob o2 ) {
-        if ( o1 == o2 ) {
-          return 0;
-        }
-
-        if ( o1 == null || o1.getNextRun() == null ) {
-          return -1;
-        }
-        if ( o2 == null || o2.getNextRun() == null ) {
-          return 1;
-        }
-
-        if ( o1.getNextRun() == o2.getNextRun() ) {
-          return 0;
-        }
-
-        return o1.getNextRun().compareTo( o2.getNextRun() );
-      }
-    } );
-    columnSortHandler.setComparator( lastFireColumn, new Comparator<JsJob>() {
-      public int compare( JsJob o1, JsJob o2 ) {
-        if ( o1 == o2 ) {
-          return 0;
-        }
-
-        if ( o1 == null || o1.getLastRun() == null ) {
-          return -1;
-        }
-        if ( o2 == null || o2.getLastRun() == null ) {
-          return 1;
-        }
-
-        if ( o1.getLastRun() == o2.getLastRun() ) {
-          return 0;
-        }
-
-        return o1.getLastRun().compareTo( o2.getLastRun() );
-      }
-    } );
-    table.addColumnSortHandler( columnSortHandler );
-
-    table.getColumnSortList().push( idColumn );
-    table.getColumnSortList().push( resourceColumn );
-    table.getColumnSortList().push( outputPathColumn );
+    // sorting happens on the server; the schedule column is described on the client and cannot be sorted there
+    columnSortKeys.put( nameColumn, "jobName" );
+    columnSortKeys.put( resourceColumn, "resourceName" );
+    columnSortKeys.put( userNameColumn, "userName" );
+    columnSortKeys.put( stateColumn, "state" );
+    columnSortKeys.put( nextFireColumn, "nextRun" );
+    columnSortKeys.put( lastFireColumn, "lastRun" );
+    columnSortKeys.put( idColumn, "jobId" );
+    columnSortKeys.put( executableType, "executableType" );
+    columnSortKeys.put( outputPathColumn, "outputPath" );
+    table.addColumnSortHandler( new AsyncHandler( table ) );
     table.getColumnSortList().push( nameColumn );
 
     table.getSelectionModel().addSelectionChangeHandler( new Handler() {
@@ -784,6 +666,7 @@ public class SchedulesPanel extends SimplePanel {
       }
     };
     pager.setDisplay( table );
+    dataProvider.addDataDisplay( table );
 
     VerticalPanel tableAndPager = new VerticalPanel();
     tableAndPager.setHorizontalAlignment( HasHorizontalAlignment.ALIGN_CENTER );
@@ -813,9 +696,9 @@ public class SchedulesPanel extends SimplePanel {
     filterButton.setCommand( new Command() {
       public void execute() {
         if ( filterDialog == null ) {
-          filterDialog = new FilterDialog( allJobs, filterDialogCallback );
+          filterDialog = new FilterDialog( pageJobs, jobOwners, filterDialogCallback );
         } else {
-          filterDialog.initUI( allJobs );
+          filterDialog.initUI( pageJobs, jobOwners );
         }
 
         filterDialog.center();
@@ -831,14 +714,14 @@ public class SchedulesPanel extends SimplePanel {
     filterRemoveButton.setCommand( new Command() {
       public void execute() {
         filterDialog = null;
-        filters.clear();
-        filterAndShowData();
+        filterQuery = "";
+        showFirstPage();
         filterRemoveButton.setEnabled( false );
         filterButton.setImage( ImageUtil.getThemeableImage( ICON_SMALL_STYLE, "icon-filter-add" ) );
       }
     } );
     filterRemoveButton.setToolTip( Messages.getString( "removeFilters" ) );
-    filterRemoveButton.setEnabled( !filters.isEmpty() );
+    filterRemoveButton.setEnabled( !filterQuery.isEmpty() );
     if ( isAdmin ) {
       bar.add( filterRemoveButton );
     }
@@ -1259,14 +1142,8 @@ public class SchedulesPanel extends SimplePanel {
     return builder;
   }
 
-  private native JsArray<JsJob> parseJson( String json ) /*-{
-    var obj = JSON.parse(json);
-
-    if (obj != null && obj.hasOwnProperty("job")) {
-      return obj.job;
-    }
-
-    return [];
+  private native JsJobPage parseJsonJobPage( String json ) /*-{
+    return JSON.parse(json);
   }-*/;
 
   private native JsJob parseJsonJob( String json ) /*-{
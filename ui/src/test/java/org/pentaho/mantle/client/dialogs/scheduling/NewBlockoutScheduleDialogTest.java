@@ -40,20 +40,33 @@ public class NewBlockoutScheduleDialogTest {
     when( dialog.getJsJobTrigger() ).thenReturn( jsJobTrigger );
     final JSONObject schedule = mock( JSONObject.class );
     when( dialog.getSchedule() ).thenReturn( schedule );
-    final IDialogCallback callback = mock( IDialogCallback.class );
-    when( dialog.getCallback() ).thenReturn( callback );
 
     dialog.updateMode = false;
     assertTrue( dialog.onFinish() );
-    verify( dialog ).addBlockoutPeriod( eq( schedule ), eq( jsJobTrigger ), contains( "add" ) );
-    verify( callback ).okPressed();
+    verify( dialog ).verifyBlockoutImpact( eq( schedule ), eq( jsJobTrigger ), eq( "add" ) );
+    verify( dialog, never() ).addBlockoutPeriod( any( JSONObject.class ), any( JsJobTrigger.class ), anyString() );
 
     dialog.updateMode = true;
     dialog.editJob = mock( JsJob.class );
     when( dialog.editJob.getJobId() ).thenReturn( "jobID" );
     assertTrue( dialog.onFinish() );
-    verify( dialog ).addBlockoutPeriod( eq( schedule ), eq( jsJobTrigger ), contains( "update" ) );
-    verify( callback, times( 2 ) ).okPressed();
+    verify( dialog ).verifyBlockoutImpact( eq( schedule ), eq( jsJobTrigger ), contains( "update" ) );
+  }
+
+  @Test
+  public void testSaveBlockoutPeriod() throws Exception {
+    final NewBlockoutScheduleDialog dialog = mock( NewBlockoutScheduleDialog.class );
+    doCallRealMethod().when( dialog ).saveBlockoutPeriod( any( JSONObject.class ), any( JsJobTrigger.class ),
+      anyString() );
+
+    final JsJobTrigger jsJobTrigger = mock( JsJobTrigger.class );
+    final JSONObject schedule = mock( JSONObject.class );
+    final IDialogCallback callback = mock( IDialogCallback.class );
+    when( dialog.getCallback() ).thenReturn( callback );
+
+    dialog.saveBlockoutPeriod( schedule, jsJobTrigger, "add" );
+    verify( dialog ).addBlockoutPeriod( schedule, jsJobTrigger, "add" );
+    verify( callback ).okPressed();
   }
 
   @Test